@@ -21,6 +21,7 @@ import {
   allPosts
 } from '../../services/postService';
 import { getUnreadMentionsCount } from '../../services/mentionService';
+import { subscribe, reconnect } from '../../services/websocketService';
 
 import Login from '../user/Login';
 import Signup from '../user/Signup';
@@ -67,6 +68,25 @@ class App extends Component {
     this.loadCurrentUser();
   }
 
+  componentWillUnmount() {
+    this.unsubscribeFromMentions();
+  }
+
+  // the count is pushed on every change, the request only gets it the first time
+  subscribeToMentions(userId) {
+    this.unsubscribeFromMentions();
+    this.stopMentions = subscribe(`/topic/user/${userId}/mentions`, count => {
+      this.setState({ mentionCount: count });
+    });
+  }
+
+  unsubscribeFromMentions() {
+    if (this.stopMentions) {
+      this.stopMentions();
+      this.stopMentions = null;
+    }
+  }
+
   loadCurrentUser() {
     this.setState({
       isLoading: true
@@ -85,6 +105,7 @@ class App extends Component {
           isAuthenticated: true,
           isLoading: false
         });
+        this.subscribeToMentions(res[0].id);
       }).catch(error => {
         this.setState({
           isLoading: false
@@ -94,6 +115,8 @@ class App extends Component {
 
   handleLogout() {
     localStorage.removeItem(ACCESS_TOKEN);
+    this.unsubscribeFromMentions();
+    reconnect();
 
     this.setState({
       currentUser: null,
@@ -106,6 +129,7 @@ class App extends Component {
 
   handleLogin() {
     successNotification(SUCCESSFUL_LOGIN_MESSAGE);
+    reconnect();
     this.loadCurrentUser();
     this.props.history.push('/home');
   }
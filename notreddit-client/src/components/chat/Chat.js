@@ -3,6 +3,7 @@ import './Chat.css';
 import { Stomp } from '@stomp/stompjs';
 import { getAvatarColor } from '../../util/util';
 import { WEBSOCKET_URL } from '../../util/constants';
+import { connectHeaders } from '../../services/websocketService';
 
 class Chat extends Component {
   constructor(props) {
@@ -17,19 +18,23 @@ class Chat extends Component {
 
     this.state = {
       connected: false,
-      messages: []
+      messages: [],
+      online: null
     };
 
     this.onConnected = this.onConnected.bind(this);
     this.sendMessage = this.sendMessage.bind(this);
     this.onMessageReceived = this.onMessageReceived.bind(this);
+    this.onHistoryReceived = this.onHistoryReceived.bind(this);
+    this.onPresenceReceived = this.onPresenceReceived.bind(this);
   }
 
   connect() {
     // 'ws://localhost:8000/stomp/websocket'
     this.client = Stomp.client(WEBSOCKET_URL);
     this.client.debug = () => { }; // disable console messages
-    this.client.connect({}, this.onConnected, this.onError);
+    // the token makes the server know the user, like the REST api
+    this.client.connect(connectHeaders(), this.onConnected, this.onError);
     this.setState({ connected: true });
   }
 
@@ -47,7 +52,9 @@ class Chat extends Component {
   }
 
   onConnected() {
+    this.client.subscribe('/user/queue/chat.history', this.onHistoryReceived);
     this.client.subscribe('/topic/public', this.onMessageReceived);
+    this.client.subscribe('/topic/presence/rooms/public', this.onPresenceReceived);
 
     this.client.send("/app/chat.addUser",
       {},
@@ -77,6 +84,15 @@ class Chat extends Component {
     this.setState({ messages: [...this.state.messages, message] });
   }
 
+  onHistoryReceived(payload) {
+    const history = JSON.parse(payload.body);
+    this.setState({ messages: [...history, ...this.state.messages] });
+  }
+
+  onPresenceReceived(payload) {
+    this.setState({ online: JSON.parse(payload.body).online });
+  }
+
   onError(error) {
     console.log(error);
     const connElement = document.querySelector('.connecting');
@@ -85,13 +101,13 @@ class Chat extends Component {
   }
 
   render() {
-    const { connected, messages } = this.state;
+    const { connected, messages, online } = this.state;
 
     return (
       <div id="chat-page">
         <div className="chat-container">
           <div className="chat-header">
-            <h2>Chat</h2>
+            <h2>Chat{online !== null && <small> ({online} online)</small>}</h2>
           </div>
           <div className={`connecting ${connected ? 'hidden' : ''}`}>
             Connecting...
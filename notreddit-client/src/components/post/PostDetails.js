@@ -1,4 +1,4 @@
-import React, { Component } from 'react';
+import React, { Component, useState } from 'react';
 import './PostDetails.css';
 
 import { Link } from 'react-router-dom';
@@ -7,9 +7,9 @@ import { List, Icon, Tooltip, Button, Form, Input, Comment, Avatar, Modal, Popco
 import { errorNotification, successNotification } from '../../util/notifications'
 import { timeSince, getAvatarColor } from '../../util/util';
 import { IconText } from '../../util/IconText';
-import { findById, deletePostById } from '../../services/postService';
+import { findById, deletePostById, subscribeToPostUpdates, applyPostUpdate } from '../../services/postService';
 import { getVoteForPost, voteForPost, voteForComment } from '../../services/voteService';
-import { comment, findCommentsForPost, deleteCommentById, editComment } from '../../services/commentService';
+import { comment, findCommentsForPost, findReplies, deleteCommentById, editComment } from '../../services/commentService';
 import { getUserVotesForComments } from '../../services/voteService';
 
 const { Option } = Select;
@@ -20,6 +20,7 @@ class PostDetails extends Component {
     this._isMounted = false;
     this.commentVotes = {};
     this.userIsModerator = false;
+    this.unsubscribe = null;
     this.state = {
       post: {},
       comments: [],
@@ -62,6 +63,16 @@ class PostDetails extends Component {
 
     const promises = [findById(id), findCommentsForPost(id, sort)];
 
+    // mounted again after commenting, the post stays subscribed once
+    if (this.unsubscribe === null) {
+      this.unsubscribe = subscribeToPostUpdates(id, update => {
+        // counts sent before the post is loaded are already in it
+        if (this._isMounted && this.state.post.id) {
+          this.setState(state => ({ post: applyPostUpdate(state.post, update) }));
+        }
+      });
+    }
+
     // if user is logged in get user related properties
     if (isAuthenticated) {
       promises.push(getVoteForPost(id))
@@ -154,6 +165,10 @@ class PostDetails extends Component {
 
   componentWillUnmount() {
     this._isMounted = false;
+    if (this.unsubscribe !== null) {
+      this.unsubscribe();
+      this.unsubscribe = null;
+    }
   }
 
   showReplyModalAndSaveCommentId(commentId) {
@@ -414,6 +429,18 @@ class PostDetails extends Component {
 }
 
 const CommentComponent = ({ comment, votes, showReplyModal, showEditModal, currentUser, deleteComment, userIsModerator }) => {
+  // replies cut off by the server's thread depth limit, loaded on demand
+  const [loadedReplies, setLoadedReplies] = useState(null);
+  const children = loadedReplies || comment.children;
+  const moreReplies = loadedReplies ? 0 : comment.moreReplies;
+
+  const loadMoreReplies = () => {
+    const sort = new URLSearchParams(window.location.search).get('sort') || '';
+    findReplies(comment.id, sort)
+      .then(res => setLoadedReplies(res))
+      .catch(error => errorNotification(error));
+  };
+
   let upvoteColor = '';
   let downvoteColor = '';
   const vote = votes[comment.id];
@@ -498,7 +525,11 @@ const CommentComponent = ({ comment, votes, showReplyModal, showEditModal, curre
         </Avatar>
       }
     >
-      {comment.children.length > 0 && comment.children.map(child => {
+      {moreReplies > 0 &&
+        <span className="load-more-replies" onClick={loadMoreReplies}>
+          Load {moreReplies} more {moreReplies === 1 ? 'reply' : 'replies'}
+        </span>}
+      {children.length > 0 && children.map(child => {
         return <CommentComponent
           showReplyModal={showReplyModal}
           showEditModal={showEditModal}
@@ -8,8 +8,7 @@ import { IconText } from '../../util/IconText';
 import { errorNotification, successNotification } from '../../util/notifications';
 import { voteForPost } from '../../services/voteService';
 import { timeSince } from '../../util/util';
-import { getUserVotesForPosts } from '../../services/voteService';
-import { deletePostById } from '../../services/postService';
+import { deletePostById, subscribeToPostUpdates, applyPostUpdate } from '../../services/postService';
 
 const { Option } = Select;
 
@@ -23,6 +22,7 @@ class PostList extends Component {
     this.userIsModerator = false;
     this._isMounted = false;
     this.votes = {};
+    this.unsubscribes = [];
     this.state = {
       initLoading: true,
       loading: false,
@@ -45,6 +45,8 @@ class PostList extends Component {
     this.dataLoadingFunction(page, pageSize, sort, this.username)
       .then(res => {
         if (this._isMounted) {
+          // the listing carries the signed in user's votes for its posts
+          this.votes = res.userChoices || {};
           this.setState({
             posts: res.posts,
             totalPosts: res.total,
@@ -52,13 +54,30 @@ class PostList extends Component {
             pageSize: +pageSize,
             sort
           });
+          this.subscribeToPosts(res.posts);
         }
       }).catch(error => errorNotification(error))
   }
 
+  // only the posts on the page are followed
+  subscribeToPosts(posts) {
+    this.unsubscribeFromPosts();
+    this.unsubscribes = posts.map(post => subscribeToPostUpdates(post.id, update => {
+      if (this._isMounted) {
+        this.setState(state => ({
+          posts: state.posts.map(p => p.id === update.postId ? applyPostUpdate(p, update) : p)
+        }));
+      }
+    }));
+  }
+
+  unsubscribeFromPosts() {
+    this.unsubscribes.forEach(unsubscribe => unsubscribe());
+    this.unsubscribes = [];
+  }
+
   componentDidMount() {
     this._isMounted = true;
-    const isAuthenticated = this.props.isAuthenticated;
 
     const searchParams = new URLSearchParams(this.props.location.search);
     const page = searchParams.get('page') - 1 || 0;
@@ -67,13 +86,6 @@ class PostList extends Component {
 
     this.loadPosts(page, pageSize, sort);
 
-    if (isAuthenticated) {
-      getUserVotesForPosts()
-        .then(res => {
-          this.votes = res || {}
-        }).catch(error => errorNotification(error));
-    }
-
     this.setState({
       initLoading: false,
     });
@@ -81,6 +93,7 @@ class PostList extends Component {
 
   componentWillUnmount() {
     this._isMounted = false;
+    this.unsubscribeFromPosts();
   }
 
   colorVote(event, postId) {
@@ -20,6 +20,11 @@ export function findCommentsForPost(postId, sort) {
   return get(url);
 }
 
+export function findReplies(commentId, sort) {
+  const url = `${COMMENT_API_URL}/replies?commentId=${commentId}&sort=${sort}`;
+  return get(url);
+}
+
 export function voteForCommentAPI(choice, commentId) {
   const url = `${COMMENT_API_URL}/vote?choice=${choice}&commentId=${commentId}`;
   return post(url);
@@ -1,5 +1,6 @@
 import { requestMultipart, get, post, remove } from '../util/APIUtils';
 import { API_BASE_URL } from '../util/constants';
+import { subscribe } from './websocketService';
 
 const POST_API_URL = API_BASE_URL + '/post';
 
@@ -72,4 +73,22 @@ export function voteForPostAPI(choice, postId) {
 export function deletePostById(postId) {
   const url = `${POST_API_URL}/delete?postId=${postId}`;
   return remove(url);
-}
\ No newline at end of file
+}
+
+// the server pushes how much the votes and comments of a post changed, at most a few times a second
+export function subscribeToPostUpdates(postId, onUpdate) {
+  return subscribe(`/topic/post/${postId}`, onUpdate);
+}
+
+// the details of a post come without its comment count
+export function applyPostUpdate(post, update) {
+  const updated = {
+    ...post,
+    upvotes: post.upvotes + update.upvotes,
+    downvotes: post.downvotes + update.downvotes
+  };
+  if (post.commentCount !== undefined) {
+    updated.commentCount = post.commentCount + update.comments;
+  }
+  return updated;
+}
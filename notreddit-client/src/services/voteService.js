@@ -14,15 +14,12 @@ export function getVoteForPost(postId) {
   return get(VOTE_API_URL + '/post?postId=' + postId);
 }
 
-export function getUserVotesForPosts() {
-  return get(VOTE_API_URL + '/votes-posts');
-}
-
 export function getUserVotesForComments() {
   return get(VOTE_API_URL + '/votes-comments');
 }
 
-function handleVoteChange(target, choice) {
+// the counts of posts are pushed by the server, only comments change theirs here
+function handleVoteChange(target, choice, changeCounts = true) {
   const spans = target.querySelectorAll('span');
   const upvoteLi = spans[0];
   const downvoteLi = spans[2];
@@ -42,10 +39,12 @@ function handleVoteChange(target, choice) {
   const isUpvoted = upvoteColor === GREEN;
   const isDownvoted = downvoteColor === RED;
 
-  if (isUpvoted) {
-    upvoteSpan.textContent = +upvoteSpan.textContent - 1;
-  } else if (isDownvoted) {
-    downvoteSpan.textContent = +downvoteSpan.textContent - 1;
+  if (changeCounts) {
+    if (isUpvoted) {
+      upvoteSpan.textContent = +upvoteSpan.textContent - 1;
+    } else if (isDownvoted) {
+      downvoteSpan.textContent = +downvoteSpan.textContent - 1;
+    }
   }
 
   if (isUpvoted && choice === 1) {
@@ -57,13 +56,17 @@ function handleVoteChange(target, choice) {
   }
 
   if (choice === 1) {
-    upvoteSpan.textContent = +upvoteSpan.textContent + 1;
+    if (changeCounts) {
+      upvoteSpan.textContent = +upvoteSpan.textContent + 1;
+    }
     upvoteSvg.style.color = GREEN;
     downvoteSvg.style.color = DEFAULT;
   } else if (choice === -1) {
     upvoteSvg.style.color = DEFAULT;
     downvoteSvg.style.color = RED;
-    downvoteSpan.textContent = +downvoteSpan.textContent + 1;
+    if (changeCounts) {
+      downvoteSpan.textContent = +downvoteSpan.textContent + 1;
+    }
   }
 }
 
@@ -72,7 +75,7 @@ export function voteForPost(event, choice, postId) {
 
   voteForPostAPI(choice, postId)
     .then(res => {
-      handleVoteChange(target, choice)
+      handleVoteChange(target, choice, false)
     })
     .catch(error => {
       let message = '';
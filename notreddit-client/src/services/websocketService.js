@@ -0,0 +1,70 @@
+import { Client } from '@stomp/stompjs';
+import { ACCESS_TOKEN, WEBSOCKET_URL } from '../util/constants';
+
+// one connection for the whole app, the subscriptions are made again whenever it (re)connects
+let client = null;
+let nextId = 0;
+const subscriptions = new Map();
+
+export function connectHeaders() {
+  const token = localStorage.getItem(ACCESS_TOKEN);
+  return token ? { Authorization: 'Bearer ' + token } : {};
+}
+
+function connect() {
+  client = new Client({
+    brokerURL: WEBSOCKET_URL,
+    connectHeaders: connectHeaders(),
+    reconnectDelay: 5000,
+    debug: () => { } // disable console messages
+  });
+
+  const connecting = client;
+  connecting.onConnect = () => {
+    subscriptions.forEach(entry => {
+      entry.subscription = connecting.subscribe(entry.destination, entry.callback);
+    });
+  };
+  connecting.activate();
+}
+
+// the body of every message is json
+export function subscribe(destination, onMessage) {
+  if (client === null) {
+    connect();
+  }
+
+  const id = nextId++;
+  const entry = {
+    destination,
+    callback: message => onMessage(JSON.parse(message.body)),
+    subscription: null
+  };
+  subscriptions.set(id, entry);
+  if (client.connected) {
+    entry.subscription = client.subscribe(destination, entry.callback);
+  }
+
+  return () => {
+    subscriptions.delete(id);
+    if (entry.subscription !== null && client !== null && client.connected) {
+      entry.subscription.unsubscribe();
+    }
+  };
+}
+
+// the user is only read from the CONNECT frame, so signing in or out needs a new connection
+export function reconnect() {
+  if (client === null) {
+    return;
+  }
+
+  client.deactivate();
+  client = null;
+  subscriptions.forEach(entry => {
+    entry.subscription = null;
+  });
+  if (subscriptions.size > 0) {
+    connect();
+  }
+}
@@ -1,6 +1,7 @@
 package notreddit.auth;
 
 import lombok.extern.slf4j.Slf4j;
+import notreddit.services.TokenVersionService;
 import notreddit.services.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -16,19 +17,22 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.util.UUID;
+import java.util.Optional;
 
 @Slf4j
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtTokenProvider tokenProvider;
+    private final TokenVersionService tokenVersionService;
     private final UserService userService;
 
     @Autowired
     public JwtAuthenticationFilter(JwtTokenProvider tokenProvider,
+                                   TokenVersionService tokenVersionService,
                                    UserService userService) {
         this.tokenProvider = tokenProvider;
+        this.tokenVersionService = tokenVersionService;
         this.userService = userService;
     }
 
@@ -39,15 +43,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String jwt = getJwtFromRequest(request);
 
-            if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-                UUID userId = tokenProvider.getUserIdFromJWT(jwt);
-                UserDetails userDetails = userService.loadUserById(userId);
-                UsernamePasswordAuthenticationToken authentication =
-                        new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+            authenticate(jwt).ifPresent(authentication -> {
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-
                 SecurityContextHolder.getContext().setAuthentication(authentication);
-            }
+            });
         } catch (Exception ex) {
             log.error("Could not set user authentication in security context", ex);
         }
@@ -55,11 +54,32 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
-    private String getJwtFromRequest(HttpServletRequest request) {
-        String bearerToken = request.getHeader("Authorization");
+    /**
+     * The authentication of a valid token whose version is still current, also used for the STOMP connections.
+     */
+    public Optional<UsernamePasswordAuthenticationToken> authenticate(String jwt) {
+        Optional<VerifiedToken> token = StringUtils.hasText(jwt)
+                ? tokenProvider.verifyToken(jwt)
+                : Optional.empty();
+
+        if (!token.isPresent() || !tokenVersionService.isCurrent(token.get().getUserId(), token.get().getVersion())) {
+            return Optional.empty();
+        }
+
+        UserDetails userDetails = token.get().hasUserClaims()
+                ? JwtTokenProvider.toPrincipal(token.get())
+                : userService.loadUserById(token.get().getUserId());
+        return Optional.of(new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities()));
+    }
+
+    public static String getJwtFromHeader(String bearerToken) {
         if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
             return bearerToken.substring(7);
         }
         return null;
     }
+
+    private String getJwtFromRequest(HttpServletRequest request) {
+        return getJwtFromHeader(request.getHeader("Authorization"));
+    }
 }
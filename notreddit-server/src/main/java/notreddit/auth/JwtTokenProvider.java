@@ -1,17 +1,31 @@
 package notreddit.auth;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import io.jsonwebtoken.*;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import notreddit.data.entities.Role;
 import notreddit.data.entities.User;
+import notreddit.data.enums.Authority;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
+/**
+ * Issues tokens that carry the user's id, username, roles and token version, and verifies them.
+ * Verified tokens are remembered by their signature, so a client's repeated requests are checked
+ * with a string comparison instead of another HMAC.
+ */
 @Slf4j
 @Setter
 @Getter
@@ -19,36 +33,108 @@ import java.util.UUID;
 @Component
 public class JwtTokenProvider {
 
+    private static final String USERNAME_CLAIM = "username";
+    private static final String ROLES_CLAIM = "roles";
+    private static final String ROLE_IDS_CLAIM = "roleIds";
+    private static final String VERSION_CLAIM = "ver";
+    private static final int VERIFIED_TOKENS_CACHE_SIZE = 10_000;
+
     private String jwtSecret;
     private int jwtExpirationInMs;
 
+    @Getter(AccessLevel.NONE)
+    private final Cache<String, VerifiedToken> verifiedTokens = Caffeine.newBuilder()
+            .maximumSize(VERIFIED_TOKENS_CACHE_SIZE)
+            .build();
+
     public String generateToken(Authentication authentication) {
         User userPrincipal = (User) authentication.getPrincipal();
 
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpirationInMs);
+        List<Role> userRoles = new ArrayList<>(userPrincipal.getRoles());
+        List<String> roles = userRoles.stream()
+                .map(role -> role.authorityAsEnum().name())
+                .collect(Collectors.toList());
+        List<Long> roleIds = userRoles.stream()
+                .map(Role::getId)
+                .collect(Collectors.toList());
 
         return Jwts.builder()
                 .setSubject(userPrincipal.getId().toString())
+                .claim(USERNAME_CLAIM, userPrincipal.getUsername())
+                .claim(ROLES_CLAIM, roles)
+                .claim(ROLE_IDS_CLAIM, roleIds)
+                .claim(VERSION_CLAIM, userPrincipal.getTokenVersion())
                 .setIssuedAt(new Date())
                 .setExpiration(expiryDate)
                 .signWith(SignatureAlgorithm.HS512, jwtSecret)
                 .compact();
     }
 
-    UUID getUserIdFromJWT(String token) {
-        Claims claims = Jwts.parser()
-                .setSigningKey(jwtSecret)
-                .parseClaimsJws(token)
-                .getBody();
+    /**
+     * Parses and verifies the token once, or finds it among the already verified ones.
+     * Empty if the token is invalid or expired.
+     */
+    Optional<VerifiedToken> verifyToken(String authToken) {
+        String signature = authToken.substring(authToken.lastIndexOf('.') + 1);
+
+        // the signature only vouches for the exact token it was computed over
+        VerifiedToken verified = verifiedTokens.getIfPresent(signature);
+        if (verified == null || !verified.getToken().equals(authToken)) {
+            verified = parseToken(authToken);
+            if (verified == null) {
+                return Optional.empty();
+            }
+            verifiedTokens.put(signature, verified);
+        }
+
+        if (verified.getExpiresAt() <= System.currentTimeMillis()) {
+            log.error("Expired JWT token");
+            verifiedTokens.invalidate(signature);
+            return Optional.empty();
+        }
+
+        return Optional.of(verified);
+    }
+
+    /**
+     * A principal built from the token's claims alone, its roles with the ids they had when the token was issued.
+     */
+    static User toPrincipal(VerifiedToken token) {
+        User user = new User();
+        user.setId(token.getUserId());
+        user.setUsername(token.getUsername());
+        user.setTokenVersion(token.getVersion());
+        for (int i = 0; i < token.getRoles().size(); i++) {
+            Role role = new Role();
+            role.setId(token.getRoleIds().get(i));
+            role.setAuthority(token.getRoles().get(i));
+            user.getRoles().add(role);
+        }
 
-        return UUID.fromString(claims.getSubject());
+        return user;
     }
 
-    boolean validateToken(String authToken) {
+    @SuppressWarnings("unchecked")
+    private VerifiedToken parseToken(String authToken) {
         try {
-            Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(authToken);
-            return true;
+            Claims claims = Jwts.parser()
+                    .setSigningKey(jwtSecret)
+                    .parseClaimsJws(authToken)
+                    .getBody();
+
+            List<String> roles = claims.get(ROLES_CLAIM, List.class);
+            List<Number> roleIds = claims.get(ROLE_IDS_CLAIM, List.class);
+            Integer version = claims.get(VERSION_CLAIM, Integer.class);
+            return new VerifiedToken(
+                    authToken,
+                    UUID.fromString(claims.getSubject()),
+                    claims.get(USERNAME_CLAIM, String.class),
+                    roles == null ? null : roles.stream().map(Authority::valueOf).collect(Collectors.toList()),
+                    roleIds == null ? null : roleIds.stream().map(Number::longValue).collect(Collectors.toList()),
+                    version == null ? 0 : version,
+                    claims.getExpiration() == null ? Long.MAX_VALUE : claims.getExpiration().getTime());
         } catch (SignatureException ex) {
             log.error("Invalid JWT signature");
         } catch (MalformedJwtException ex) {
@@ -60,6 +146,6 @@ public class JwtTokenProvider {
         } catch (IllegalArgumentException ex) {
             log.error("JWT claims string is empty.");
         }
-        return false;
+        return null;
     }
 }
@@ -0,0 +1,71 @@
+package notreddit.auth;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import notreddit.data.entities.User;
+import notreddit.services.implementations.PresenceServiceImpl;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+
+/**
+ * Authenticates STOMP connections with the same bearer token as the REST api, sent as the {@code Authorization}
+ * header of the CONNECT frame, and keeps the per-user topics ({@code /topic/user/{userId}/...}) to their user.
+ * Connections without a token stay anonymous and can use every other topic.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StompAuthenticationInterceptor implements ChannelInterceptor {
+
+    public static final String USER_TOPIC = "/topic/user/";
+
+    private final JwtAuthenticationFilter jwtAuthenticationFilter;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null) {
+            return message;
+        }
+
+        if (StompCommand.CONNECT.equals(accessor.getCommand())) {
+            String jwt = JwtAuthenticationFilter.getJwtFromHeader(accessor.getFirstNativeHeader("Authorization"));
+            jwtAuthenticationFilter.authenticate(jwt).ifPresent(accessor::setUser);
+        } else if (StompCommand.SEND.equals(accessor.getCommand()) && isServerTopic(accessor.getDestination())) {
+            // only the server publishes to a user or the presence counts
+            return null;
+        } else if (StompCommand.SUBSCRIBE.equals(accessor.getCommand()) && isUserTopic(accessor.getDestination())) {
+            String userId = userId(accessor.getUser());
+            if (userId == null || !accessor.getDestination().startsWith(USER_TOPIC + userId + "/")) {
+                log.debug("Refused subscription of session {} to {}", accessor.getSessionId(), accessor.getDestination());
+                return null;
+            }
+        }
+
+        return message;
+    }
+
+    private static boolean isServerTopic(String destination) {
+        return isUserTopic(destination)
+                || (destination != null && destination.startsWith(PresenceServiceImpl.PRESENCE_TOPIC));
+    }
+
+    private static boolean isUserTopic(String destination) {
+        return destination != null && destination.startsWith(USER_TOPIC);
+    }
+
+    private static String userId(Principal principal) {
+        if (principal instanceof Authentication && ((Authentication) principal).getPrincipal() instanceof User) {
+            return ((User) ((Authentication) principal).getPrincipal()).getId().toString();
+        }
+        return null;
+    }
+}
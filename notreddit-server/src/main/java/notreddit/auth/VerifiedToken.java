@@ -0,0 +1,29 @@
+package notreddit.auth;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import notreddit.data.enums.Authority;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The claims of a token whose signature was checked. Tokens issued before the username, roles and role ids were
+ * added as claims lack some of them, their user has to be loaded.
+ */
+@Getter
+@AllArgsConstructor
+public class VerifiedToken {
+
+    private final String token;
+    private final UUID userId;
+    private final String username;
+    private final List<Authority> roles;
+    private final List<Long> roleIds;
+    private final int version;
+    private final long expiresAt;
+
+    public boolean hasUserClaims() {
+        return username != null && roles != null && roleIds != null && roleIds.size() == roles.size();
+    }
+}
@@ -0,0 +1,52 @@
+package notreddit.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.CaffeineSpec;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import java.util.function.BiConsumer;
+
+/**
+ * Creates a Caffeine cache per cache name, each built from its own spec in {@link CacheProperties}.
+ * Entries are admitted and evicted by Caffeine's W-TinyLFU policy once a cache reaches its maximum weight.
+ */
+public class BoundedCacheManager extends CaffeineCacheManager {
+
+    private final CacheProperties properties;
+    private final CacheEntryWeigher weigher = new CacheEntryWeigher();
+
+    private BiConsumer<String, Object> evictionListener = (cacheName, key) -> {
+    };
+
+    public BoundedCacheManager(CacheProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Called with the cache name and key of every entry Caffeine drops on its own,
+     * because of size, expiry or garbage collection.
+     */
+    public void setEvictionListener(BiConsumer<String, Object> evictionListener) {
+        this.evictionListener = evictionListener;
+    }
+
+    @Override
+    protected com.github.benmanes.caffeine.cache.Cache<Object, Object> createNativeCaffeineCache(String name) {
+        String spec = properties.getSpec(name);
+        Caffeine<Object, Object> builder = Caffeine.from(CaffeineSpec.parse(spec));
+
+        if (spec.contains("maximumWeight")) {
+            builder.weigher(weigher);
+        }
+
+        // run maintenance and the listener on the calling thread, so the tag index never lags behind the cache
+        return builder
+                .executor(Runnable::run)
+                .removalListener((key, value, cause) -> {
+                    if (cause.wasEvicted()) {
+                        evictionListener.accept(name, key);
+                    }
+                })
+                .build();
+    }
+}
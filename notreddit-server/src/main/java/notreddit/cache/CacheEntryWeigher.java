@@ -0,0 +1,35 @@
+package notreddit.cache;
+
+import com.github.benmanes.caffeine.cache.Weigher;
+import notreddit.data.models.responses.comment.CommentsResponseModel;
+import notreddit.data.models.responses.post.PostsResponseModel;
+import notreddit.util.VoteChoices;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Weighs cached pages by the number of items (posts, comments, votes...) they hold, so a cache bounded with
+ * {@code maximumWeight} keeps roughly the same amount of data no matter the page sizes requested.
+ */
+public class CacheEntryWeigher implements Weigher<Object, Object> {
+
+    @Override
+    public int weigh(Object key, Object value) {
+        int items = 0;
+
+        if (value instanceof PostsResponseModel) {
+            items = ((PostsResponseModel) value).getPosts().size();
+        } else if (value instanceof CommentsResponseModel) {
+            items = ((CommentsResponseModel) value).getComments().size();
+        } else if (value instanceof VoteChoices) {
+            items = ((VoteChoices) value).size();
+        } else if (value instanceof Collection) {
+            items = ((Collection<?>) value).size();
+        } else if (value instanceof Map) {
+            items = ((Map<?, ?>) value).size();
+        }
+
+        return Math.max(items, 1);
+    }
+}
@@ -0,0 +1,28 @@
+package notreddit.cache;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Caffeine specs for the application caches, e.g.
+ * {@code app.cache.specs.byId=maximumWeight=5000,expireAfterWrite=10m}.
+ * Caches without their own spec use {@link #defaultSpec}.
+ */
+@Setter
+@Getter
+@ConfigurationProperties(prefix = "app.cache")
+@Component
+public class CacheProperties {
+
+    private String defaultSpec = "maximumWeight=10000,expireAfterWrite=10m";
+    private Map<String, String> specs = new HashMap<>();
+
+    public String getSpec(String cacheName) {
+        return specs.getOrDefault(cacheName, defaultSpec);
+    }
+}
@@ -0,0 +1,128 @@
+package notreddit.cache;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import notreddit.data.models.responses.comment.CommentListWithChildren;
+import notreddit.data.models.responses.comment.CommentListWithReplyCount;
+import notreddit.data.models.responses.comment.CommentsResponseModel;
+import notreddit.data.models.responses.post.PostListModel;
+import notreddit.data.models.responses.post.PostListResponseModel;
+import notreddit.data.models.responses.post.PostsResponseModel;
+import notreddit.data.models.responses.subreddit.SubredditWithPostsAndSubscribersCountResponse;
+import notreddit.util.PageableKey;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static notreddit.constants.GeneralConstants.*;
+
+/**
+ * Dependency tags attached to cached entries. A tag names something an entry was built from
+ * (a post, a comment, a subreddit listing...) so a write can evict only the entries that contain it.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class CacheTags {
+
+    public static String post(Object postId) {
+        return "post:" + postId;
+    }
+
+    public static String comment(Object commentId) {
+        return "comment:" + commentId;
+    }
+
+    public static String postComments(Object postId) {
+        return "post-comments:" + postId;
+    }
+
+    public static String subredditPosts(String subreddit) {
+        return "subreddit-posts:" + lowerCase(subreddit);
+    }
+
+    public static String userPosts(String username) {
+        return "user-posts:" + lowerCase(username);
+    }
+
+    public static String userComments(String username) {
+        return "user-comments:" + lowerCase(username);
+    }
+
+    public static String subscriber(UUID userId) {
+        return "subscriber:" + userId;
+    }
+
+    // the entry of one key, so the other nodes can evict a key they only know by its text
+    static String key(String cacheName, Object key) {
+        return "key:" + cacheName + ':' + key;
+    }
+
+    private static String lowerCase(String value) {
+        return value == null ? null : value.toLowerCase();
+    }
+
+    /**
+     * Works out which tags a cached entry depends on, using the cache it lives in,
+     * the key it was stored under and the cached value itself.
+     */
+    static Set<String> extract(String cacheName, Object key, Object value) {
+        Set<String> tags = new HashSet<>();
+
+        if (key instanceof UUID && POSTS_BY_ID_CACHE.equals(cacheName)) {
+            tags.add(post(key));
+        } else if (key instanceof PageableKey) {
+            String owner = ((PageableKey) key).getOwner();
+            switch (cacheName) {
+                case POSTS_BY_SUBREDDIT_CACHE:
+                    tags.add(subredditPosts(owner));
+                    break;
+                case POSTS_BY_USERNAME_CACHE:
+                    tags.add(userPosts(owner));
+                    break;
+                case COMMENTS_BY_USERNAME:
+                    tags.add(userComments(owner));
+                    break;
+                case COMMENTS_BY_POST_CACHE:
+                    tags.add(postComments(owner));
+                    break;
+                case SUBSCRIBED_POSTS_CACHE:
+                    tags.add(subscriber(UUID.fromString(owner)));
+                    break;
+            }
+        }
+
+        if (value instanceof PostsResponseModel) {
+            for (PostListModel model : ((PostsResponseModel) value).getPosts()) {
+                if (model instanceof PostListResponseModel) {
+                    tags.add(post(((PostListResponseModel) model).getId()));
+                }
+            }
+        } else if (value instanceof CommentsResponseModel) {
+            for (Object model : ((CommentsResponseModel) value).getComments()) {
+                if (model instanceof CommentListWithReplyCount) {
+                    CommentListWithReplyCount comment = (CommentListWithReplyCount) model;
+                    tags.add(comment(comment.getId()));
+                    tags.add(post(comment.getPostId()));
+                }
+            }
+        } else if (value instanceof Collection) {
+            for (Object model : (Collection<?>) value) {
+                if (model instanceof CommentListWithChildren) {
+                    addCommentTree(tags, (CommentListWithChildren) model);
+                } else if (model instanceof SubredditWithPostsAndSubscribersCountResponse) {
+                    tags.add(subredditPosts(((SubredditWithPostsAndSubscribersCountResponse) model).getTitle()));
+                }
+            }
+        }
+
+        return tags;
+    }
+
+    private static void addCommentTree(Set<String> tags, CommentListWithChildren comment) {
+        tags.add(comment(comment.getId()));
+        for (CommentListWithChildren child : comment.getChildren()) {
+            addCommentTree(tags, child);
+        }
+    }
+}
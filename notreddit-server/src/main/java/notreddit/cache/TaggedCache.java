@@ -0,0 +1,281 @@
+package notreddit.cache;
+
+import notreddit.data.models.responses.cache.CacheStatisticsResponse;
+import org.springframework.cache.Cache;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+/**
+ * Cache decorator that remembers which tags every stored entry depends on
+ * and counts hits, misses, puts and evictions.
+ */
+public class TaggedCache implements Cache {
+
+    /**
+     * Told about the entries changed through this cache, so the other nodes can drop their copies.
+     */
+    interface Changes {
+
+        Changes NONE = new Changes() {
+            @Override
+            public void evicted(String cacheName, Object key) {
+            }
+
+            @Override
+            public void cleared(String cacheName) {
+            }
+        };
+
+        void evicted(String cacheName, Object key);
+
+        void cleared(String cacheName);
+    }
+
+    private final Cache delegate;
+    private final Changes changes;
+
+    private final Map<Object, Set<String>> tagsByKey = new ConcurrentHashMap<>();
+    private final Map<String, Set<Object>> keysByTag = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public TaggedCache(Cache delegate) {
+        this(delegate, Changes.NONE);
+    }
+
+    TaggedCache(Cache delegate, Changes changes) {
+        this.delegate = delegate;
+        this.changes = changes;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return record(delegate.get(key));
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        return wrapper == null ? null : type.cast(wrapper.get());
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        boolean[] loaded = {false};
+        T value = delegate.get(key, () -> {
+            loaded[0] = true;
+            return valueLoader.call();
+        });
+
+        if (loaded[0]) {
+            misses.increment();
+            puts.increment();
+            track(key, value);
+        } else {
+            hits.increment();
+        }
+
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, value);
+        puts.increment();
+        track(key, value);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = delegate.putIfAbsent(key, value);
+        if (existing == null) {
+            puts.increment();
+            track(key, value);
+        }
+        return existing;
+    }
+
+    /**
+     * Replaces a cached entry with the update of it, atomically when the underlying cache is a concurrent map
+     * like Caffeine's, and by evicting it otherwise. Does nothing when the key isn't cached here,
+     * the other nodes evict the key either way.
+     */
+    public void updateIfPresent(Object key, UnaryOperator<Object> update) {
+        ConcurrentMap<Object, Object> entries = entries();
+        if (entries == null) {
+            evict(key);
+            return;
+        }
+
+        Object value = entries.computeIfPresent(key, (k, current) -> update.apply(current));
+        if (value != null) {
+            puts.increment();
+            track(key, value);
+        }
+        changes.evicted(getName(), key);
+    }
+
+    @Override
+    public void evict(Object key) {
+        evictLocally(key);
+        changes.evicted(getName(), key);
+    }
+
+    @Override
+    public void clear() {
+        clearLocally();
+        changes.cleared(getName());
+    }
+
+    /**
+     * Evicts every entry that depends on the given tag.
+     */
+    public void evictTagged(String tag) {
+        Set<Object> keys = keysByTag.remove(tag);
+        if (keys == null) {
+            return;
+        }
+
+        for (Object key : keys) {
+            evictLocally(key);
+        }
+    }
+
+    /**
+     * Evicts the entry of this node only.
+     */
+    void evictLocally(Object key) {
+        delegate.evict(key);
+        if (untrack(key)) {
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Clears the entries of this node only.
+     */
+    void clearLocally() {
+        evictions.add(tagsByKey.size());
+        delegate.clear();
+        tagsByKey.clear();
+        keysByTag.clear();
+    }
+
+    /**
+     * Forgets the tags of an entry the underlying cache dropped on its own.
+     * The key is left tracked if it has been stored again in the meantime.
+     */
+    public void onEvicted(Object key) {
+        if (delegate.get(key) == null && untrack(key)) {
+            evictions.increment();
+        }
+    }
+
+    public CacheStatisticsResponse getStatistics() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long requests = hitCount + missCount;
+
+        CacheStatisticsResponse statistics = new CacheStatisticsResponse();
+        statistics.setName(getName());
+        statistics.setHits(hitCount);
+        statistics.setMisses(missCount);
+        statistics.setHitRatio(requests == 0 ? 0 : (double) hitCount / requests);
+        statistics.setPuts(puts.sum());
+        statistics.setEvictions(evictions.sum());
+        statistics.setTrackedEntries(tagsByKey.size());
+
+        if (delegate.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache) {
+            com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache =
+                    (com.github.benmanes.caffeine.cache.Cache<?, ?>) delegate.getNativeCache();
+            statistics.setSize(nativeCache.estimatedSize());
+            nativeCache.policy().eviction().ifPresent(eviction -> {
+                eviction.weightedSize().ifPresent(statistics::setWeight);
+                statistics.setMaximumWeight(eviction.getMaximum());
+            });
+        }
+
+        return statistics;
+    }
+
+    @SuppressWarnings("unchecked")
+    private ConcurrentMap<Object, Object> entries() {
+        Object nativeCache = delegate.getNativeCache();
+        if (nativeCache instanceof com.github.benmanes.caffeine.cache.Cache) {
+            return ((com.github.benmanes.caffeine.cache.Cache<Object, Object>) nativeCache).asMap();
+        }
+        if (nativeCache instanceof ConcurrentMap) {
+            return (ConcurrentMap<Object, Object>) nativeCache;
+        }
+        return null;
+    }
+
+    private ValueWrapper record(ValueWrapper wrapper) {
+        if (wrapper == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return wrapper;
+    }
+
+    private void track(Object key, Object value) {
+        untrack(key);
+
+        Set<String> tags = CacheTags.extract(getName(), key, value);
+        if (changes != Changes.NONE) {
+            tags.add(CacheTags.key(getName(), key));
+        }
+        tagsByKey.put(key, tags.isEmpty() ? Collections.emptySet() : tags);
+
+        for (String tag : tags) {
+            keysByTag.compute(tag, (t, keys) -> {
+                if (keys == null) {
+                    keys = ConcurrentHashMap.newKeySet();
+                }
+                keys.add(key);
+                return keys;
+            });
+        }
+
+        // a bounded cache may refuse or drop the entry right away while admitting it
+        if (delegate.get(key) == null && untrack(key)) {
+            evictions.increment();
+        }
+    }
+
+    private boolean untrack(Object key) {
+        Set<String> tags = tagsByKey.remove(key);
+        if (tags == null) {
+            return false;
+        }
+
+        for (String tag : tags) {
+            keysByTag.computeIfPresent(tag, (t, keys) -> {
+                keys.remove(key);
+                return keys.isEmpty() ? null : keys;
+            });
+        }
+        return true;
+    }
+}
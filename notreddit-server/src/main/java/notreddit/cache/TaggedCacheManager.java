@@ -0,0 +1,157 @@
+package notreddit.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import notreddit.data.models.responses.cache.CacheStatisticsResponse;
+import notreddit.web.broker.ClusterBus;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static notreddit.util.Transactions.afterCommit;
+
+/**
+ * Wraps every cache of the underlying {@link CacheManager} in a {@link TaggedCache},
+ * so writes can evict just the entries that depend on what they changed
+ * instead of wiping whole caches with {@code allEntries = true}.
+ * With more than one node the evicted tags and keys and the cleared caches are published to the others on the
+ * {@link ClusterBus} once committed, and so are the keys updated in place, which the others evict.
+ */
+@Slf4j
+public class TaggedCacheManager implements CacheManager {
+
+    // the messages of the fan-out start with a node id, so they never start with this
+    static final String MESSAGE_PREFIX = "cache\n";
+
+    // keeps a message of subscriber tags well under the payload limit of the bus
+    private static final int MAX_TAGS_PER_MESSAGE = 100;
+
+    private final CacheManager delegate;
+    private final ClusterBus clusterBus;
+    private final TaggedCache.Changes changes;
+    private final Map<String, TaggedCache> caches = new ConcurrentHashMap<>();
+
+    // the evictions of a node are already applied to it when they are published
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public TaggedCacheManager(CacheManager delegate) {
+        this(delegate, null);
+    }
+
+    public TaggedCacheManager(CacheManager delegate, ClusterBus clusterBus) {
+        this.delegate = delegate;
+        this.clusterBus = clusterBus;
+        if (clusterBus == null) {
+            this.changes = TaggedCache.Changes.NONE;
+        } else {
+            this.changes = new PublishedChanges();
+            clusterBus.subscribe(this::receive);
+        }
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        TaggedCache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+
+        Cache target = delegate.getCache(name);
+        if (target == null) {
+            return null;
+        }
+
+        return caches.computeIfAbsent(name, n -> new TaggedCache(target, changes));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return delegate.getCacheNames();
+    }
+
+    /**
+     * Evicts the entries depending on any of the given tags from all caches.
+     * When called inside a transaction the eviction is deferred until after commit,
+     * so a concurrent read can't cache the old state again before the write is visible.
+     */
+    public void evictTagged(String... tags) {
+        afterCommit(() -> {
+            doEvictTagged(tags);
+            publishTags(Arrays.asList(tags));
+        });
+    }
+
+    /**
+     * Drops the tags of an entry the underlying cache evicted by itself (size, expiry...).
+     */
+    public void onEvicted(String cacheName, Object key) {
+        TaggedCache cache = caches.get(cacheName);
+        if (cache != null) {
+            cache.onEvicted(key);
+        }
+    }
+
+    public List<CacheStatisticsResponse> getStatistics() {
+        return caches.values()
+                .stream()
+                .map(TaggedCache::getStatistics)
+                .sorted(Comparator.comparing(CacheStatisticsResponse::getName))
+                .collect(Collectors.toList());
+    }
+
+    private void doEvictTagged(String[] tags) {
+        for (TaggedCache cache : caches.values()) {
+            for (String tag : tags) {
+                cache.evictTagged(tag);
+            }
+        }
+    }
+
+    private void publishTags(List<String> tags) {
+        if (clusterBus == null) {
+            return;
+        }
+
+        for (int from = 0; from < tags.size(); from += MAX_TAGS_PER_MESSAGE) {
+            List<String> batch = tags.subList(from, Math.min(from + MAX_TAGS_PER_MESSAGE, tags.size()));
+            clusterBus.publish(MESSAGE_PREFIX + nodeId + "\ntags\n" + String.join("\n", batch));
+        }
+    }
+
+    private void receive(String message) {
+        if (!message.startsWith(MESSAGE_PREFIX)) {
+            return;
+        }
+
+        String[] parts = message.substring(MESSAGE_PREFIX.length()).split("\n");
+        if (parts.length < 3 || parts[0].equals(nodeId)) {
+            return;
+        }
+
+        if (parts[1].equals("tags")) {
+            doEvictTagged(Arrays.copyOfRange(parts, 2, parts.length));
+        } else if (parts[1].equals("clear")) {
+            TaggedCache cache = caches.get(parts[2]);
+            if (cache != null) {
+                cache.clearLocally();
+            }
+        } else {
+            log.warn("Invalid cache message {}", message);
+        }
+    }
+
+    private final class PublishedChanges implements TaggedCache.Changes {
+
+        @Override
+        public void evicted(String cacheName, Object key) {
+            afterCommit(() -> publishTags(Collections.singletonList(CacheTags.key(cacheName, key))));
+        }
+
+        @Override
+        public void cleared(String cacheName) {
+            afterCommit(() -> clusterBus.publish(MESSAGE_PREFIX + nodeId + "\nclear\n" + cacheName));
+        }
+    }
+}
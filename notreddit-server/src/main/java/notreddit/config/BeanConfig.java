@@ -2,6 +2,7 @@ package notreddit.config;
 
 import notreddit.data.entities.Role;
 import notreddit.data.entities.Subreddit;
+import notreddit.data.mappers.TimeMapper;
 import org.modelmapper.Converter;
 import org.modelmapper.ModelMapper;
 import org.modelmapper.spi.MappingContext;
@@ -11,7 +12,6 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.time.LocalDateTime;
-import java.time.ZoneId;
 
 @Configuration
 public class BeanConfig {
@@ -24,10 +24,7 @@ public class BeanConfig {
         // if I do em with lambda functions it breaks...
         Converter<LocalDateTime, Long> toInstant = new Converter<LocalDateTime, Long>() {
             public Long convert(MappingContext<LocalDateTime, Long> context) {
-                return context.getSource() == null ? null : context.getSource()
-                        .atZone(ZoneId.of("Europe/Sofia"))
-                        .toInstant()
-                        .getEpochSecond();
+                return context.getSource() == null ? null : TimeMapper.toEpochSecond(context.getSource());
             }
         };
 
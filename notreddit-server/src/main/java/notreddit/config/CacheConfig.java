@@ -0,0 +1,21 @@
+package notreddit.config;
+
+import notreddit.cache.BoundedCacheManager;
+import notreddit.cache.CacheProperties;
+import notreddit.cache.TaggedCacheManager;
+import notreddit.web.broker.ClusterBus;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class CacheConfig {
+
+    @Bean
+    public TaggedCacheManager cacheManager(CacheProperties properties, ObjectProvider<ClusterBus> clusterBus) {
+        BoundedCacheManager caffeineCacheManager = new BoundedCacheManager(properties);
+        TaggedCacheManager cacheManager = new TaggedCacheManager(caffeineCacheManager, clusterBus.getIfAvailable());
+        caffeineCacheManager.setEvictionListener(cacheManager::onEvicted);
+        return cacheManager;
+    }
+}
@@ -0,0 +1,62 @@
+package notreddit.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Copies the votes of the old votes table, which held the post and comment votes together, to post_votes and
+ * comment_votes and drops it. Outside the tests the schema is kept up to date by Hibernate, so no migration does
+ * this there. Runs on startup, after Hibernate has created the new tables and before the app takes requests,
+ * so nothing reads the new tables before they have every vote. Once the old table is gone it does nothing.
+ */
+@Slf4j
+@Component
+public class LegacyVoteBackfill {
+
+    private static final String LEGACY_TABLE_EXISTS = "SELECT to_regclass('public.votes') IS NOT NULL";
+    // nodes still running with the old table can't vote while it is copied
+    private static final String LOCK_LEGACY_TABLE = "LOCK TABLE public.votes IN EXCLUSIVE MODE";
+    // racing votes could leave a user with more than one row for the same post/comment, the latest one is kept
+    private static final String COPY_POST_VOTES = "INSERT INTO public.post_votes (post_id, user_id, choice) " +
+            "SELECT DISTINCT ON (post_id, user_id) post_id, user_id, choice FROM public.votes " +
+            "WHERE post_id IS NOT NULL ORDER BY post_id, user_id, created_on DESC " +
+            "ON CONFLICT (post_id, user_id) DO NOTHING";
+    private static final String COPY_COMMENT_VOTES = "INSERT INTO public.comment_votes (comment_id, user_id, choice) " +
+            "SELECT DISTINCT ON (comment_id, user_id) comment_id, user_id, choice FROM public.votes " +
+            "WHERE comment_id IS NOT NULL ORDER BY comment_id, user_id, created_on DESC " +
+            "ON CONFLICT (comment_id, user_id) DO NOTHING";
+    private static final String DROP_LEGACY_TABLE = "DROP TABLE public.votes";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    // the entity manager factory is only there so Hibernate has updated the schema first
+    public LegacyVoteBackfill(EntityManagerFactory entityManagerFactory,
+                              JdbcTemplate jdbcTemplate,
+                              TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @PostConstruct
+    public void backfill() {
+        transactionTemplate.execute(status -> {
+            if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject(LEGACY_TABLE_EXISTS, Boolean.class))) {
+                return null;
+            }
+
+            jdbcTemplate.execute(LOCK_LEGACY_TABLE);
+            int postVotes = jdbcTemplate.update(COPY_POST_VOTES);
+            int commentVotes = jdbcTemplate.update(COPY_COMMENT_VOTES);
+            jdbcTemplate.execute(DROP_LEGACY_TABLE);
+
+            log.info("Copied {} post votes and {} comment votes from the votes table", postVotes, commentVotes);
+            return null;
+        });
+    }
+}
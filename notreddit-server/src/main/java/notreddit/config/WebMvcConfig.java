@@ -1,17 +1,21 @@
 package notreddit.config;
 
+import lombok.RequiredArgsConstructor;
 import notreddit.web.interceptors.LoggingInterceptor;
-import notreddit.web.interceptors.VoteRateLimitingInterceptor;
+import notreddit.web.interceptors.RateLimitingInterceptor;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
+@RequiredArgsConstructor
 public class WebMvcConfig implements WebMvcConfigurer {
 
     private static final long MAX_AGE_SECS = 3600;
 
+    private final RateLimitingInterceptor rateLimitingInterceptor;
+
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/**")
@@ -22,7 +26,7 @@ public class WebMvcConfig implements WebMvcConfigurer {
 
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
-        registry.addInterceptor(new VoteRateLimitingInterceptor());
+        registry.addInterceptor(rateLimitingInterceptor);
         registry.addInterceptor(new LoggingInterceptor());
     }
 }
@@ -1,15 +1,46 @@
 package notreddit.config;
 
+import lombok.RequiredArgsConstructor;
+import notreddit.auth.StompAuthenticationInterceptor;
+import notreddit.web.broker.ChatHistoryInterceptor;
+import notreddit.web.broker.ClusterFanOut;
+import notreddit.web.broker.PresenceInterceptor;
+import notreddit.web.broker.SessionOutboundQueues;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.config.StompBrokerRelayRegistration;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.util.ClassUtils;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 @Configuration
 @EnableWebSocketMessageBroker
+@RequiredArgsConstructor
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final StompAuthenticationInterceptor stompAuthenticationInterceptor;
+    private final ChatHistoryInterceptor chatHistoryInterceptor;
+    private final PresenceInterceptor presenceInterceptor;
+    private final SessionOutboundQueues sessionOutboundQueues;
+    private final WebSocketProperties properties;
+    private final ObjectProvider<ClusterFanOut> clusterFanOut;
+
+    private TaskScheduler messageBrokerTaskScheduler;
+
+    // the scheduler is defined by the configuration this configures
+    @Autowired
+    public void setMessageBrokerTaskScheduler(@Lazy @Qualifier("messageBrokerTaskScheduler") TaskScheduler scheduler) {
+        this.messageBrokerTaskScheduler = scheduler;
+    }
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         registry.addEndpoint("/").setAllowedOrigins("*").withSockJS();
@@ -19,6 +50,67 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
         registry.setApplicationDestinationPrefixes("/app");
-        registry.enableSimpleBroker("/topic");
+        registry.configureBrokerChannel().interceptors(chatHistoryInterceptor);
+
+        if (properties.getBroker() == WebSocketProperties.Broker.RELAY) {
+            enableRelay(registry);
+            return;
+        }
+
+        // /queue takes the messages of a single session, like a room's history when joining it
+        long heartbeat = properties.getHeartbeat().toMillis();
+        registry.enableSimpleBroker("/topic", "/queue")
+                .setHeartbeatValue(new long[]{heartbeat, heartbeat})
+                .setTaskScheduler(messageBrokerTaskScheduler);
+        clusterFanOut.ifAvailable(fanOut -> registry.configureBrokerChannel().interceptors(fanOut));
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(stompAuthenticationInterceptor, presenceInterceptor);
+        configurePool(registration, properties.getInbound());
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        // every session gets its own bounded queue instead of sharing the channel's
+        registration.interceptors(sessionOutboundQueues);
+        configurePool(registration, properties.getOutbound());
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendTimeLimit((int) properties.getSendTimeLimit().toMillis())
+                .setSendBufferSizeLimit(properties.getSendBufferSizeLimit())
+                .setMessageSizeLimit(properties.getMessageSizeLimit())
+                .addDecoratorFactory(sessionOutboundQueues);
+    }
+
+    private void enableRelay(MessageBrokerRegistry registry) {
+        // spring talks to the broker with reactor-netty, which is only on the classpath with mvn -P relay
+        if (!ClassUtils.isPresent("reactor.netty.tcp.TcpClient", getClass().getClassLoader())) {
+            throw new IllegalStateException("app.websocket.broker=relay needs reactor-netty, build with -P relay");
+        }
+
+        WebSocketProperties.Relay relay = properties.getRelay();
+        StompBrokerRelayRegistration registration = registry.enableStompBrokerRelay("/topic", "/queue")
+                .setRelayHost(relay.getHost())
+                .setRelayPort(relay.getPort())
+                .setClientLogin(relay.getClientLogin())
+                .setClientPasscode(relay.getClientPasscode())
+                .setSystemLogin(relay.getSystemLogin())
+                .setSystemPasscode(relay.getSystemPasscode())
+                .setSystemHeartbeatSendInterval(properties.getHeartbeat().toMillis())
+                .setSystemHeartbeatReceiveInterval(properties.getHeartbeat().toMillis());
+        if (relay.getVirtualHost() != null) {
+            registration.setVirtualHost(relay.getVirtualHost());
+        }
+    }
+
+    private static void configurePool(ChannelRegistration registration, WebSocketProperties.Pool pool) {
+        registration.taskExecutor()
+                .corePoolSize(pool.getCorePoolSize())
+                .maxPoolSize(pool.getMaxPoolSize())
+                .queueCapacity(pool.getQueueCapacity());
     }
 }
@@ -0,0 +1,90 @@
+package notreddit.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The STOMP broker and its thread pools, e.g. {@code app.websocket.broker=postgres} with
+ * {@code app.websocket.inbound.maxPoolSize=16} and {@code app.websocket.sendBufferSizeLimit=131072}.
+ * The pools and limits default to Spring's own defaults, the session queues to
+ * {@code app.websocket.sessionQueue.capacity=1000}.
+ */
+@Setter
+@Getter
+@ConfigurationProperties(prefix = "app.websocket")
+@Component
+public class WebSocketProperties {
+
+    private Broker broker = Broker.SIMPLE;
+    private Relay relay = new Relay();
+    private String channel = "notreddit_broker";
+    // how many messages may wait to be published to the other nodes, the ones past it are dropped
+    private int publishQueueCapacity = 10000;
+    // how many of the waiting messages are published in one statement
+    private int publishBatchSize = 100;
+
+    private Pool inbound = new Pool();
+    private Pool outbound = new Pool();
+
+    // how often the broker and the clients send heartbeats, 0 for never
+    private Duration heartbeat = Duration.ofSeconds(10);
+
+    // how long a send to one session may take and how much may pile up for it before the session is closed
+    private Duration sendTimeLimit = Duration.ofSeconds(10);
+    private int sendBufferSizeLimit = 512 * 1024;
+    private int messageSizeLimit = 64 * 1024;
+
+    private SessionQueue sessionQueue = new SessionQueue();
+
+    public enum Broker {
+        // the in-memory broker, every node only reaches its own sessions
+        SIMPLE,
+        // the in-memory broker, with the messages of every node passed on to the others through Postgres
+        POSTGRES,
+        // an external STOMP broker, needs reactor-netty (mvn -P relay)
+        RELAY
+    }
+
+    @Setter
+    @Getter
+    public static class Relay {
+
+        private String host = "127.0.0.1";
+        private int port = 61613;
+        private String clientLogin = "guest";
+        private String clientPasscode = "guest";
+        private String systemLogin = "guest";
+        private String systemPasscode = "guest";
+        private String virtualHost;
+    }
+
+    @Setter
+    @Getter
+    public static class Pool {
+
+        private int corePoolSize = Runtime.getRuntime().availableProcessors() * 2;
+        private int maxPoolSize = Integer.MAX_VALUE;
+        private int queueCapacity = Integer.MAX_VALUE;
+    }
+
+    @Setter
+    @Getter
+    public static class SessionQueue {
+
+        // how many messages may wait for one session, the ones past it are dropped
+        private int capacity = 1000;
+        // how long a session may stay at its capacity before it is closed
+        private Duration evictAfter = Duration.ofSeconds(10);
+        // how many messages of one session are sent before the others get their turn
+        private int batchSize = 64;
+        // the topics whose every message replaces the one before, only the last of them waits for a session
+        private List<String> coalescedTopics = new ArrayList<>(Collections.singletonList("/topic/presence/"));
+    }
+}
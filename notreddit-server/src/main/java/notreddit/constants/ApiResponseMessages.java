@@ -20,6 +20,12 @@ final public class ApiResponseMessages {
     public static final String NONEXISTENT_POST = "Post doesn't exist.";
     public static final String ONLY_ONE_UPLOADED_METHOD_ALLOWED = "You can't have both url and uploaded image.";
     public static final String FILE_SIZE_OVER_10MB = "File size is over the limit of 10MB.";
+    public static final String FILE_SIZE_OVER_LIMIT = "File size is over the limit of %dMB.";
+    public static final String CHUNK_OVER_FILE_SIZE = "The chunk runs past the end of the file.";
+    public static final String NONEXISTENT_UPLOAD_SESSION = "Upload session doesn't exist.";
+    public static final String UPLOAD_SESSION_NOT_COMPLETED = "Upload session doesn't exist or isn't completed.";
+    public static final String UPLOAD_FAILED = "Storing the file failed, try again from the current offset.";
+    public static final String UPLOADS_BUSY = "Too many files are being uploaded right now, try again in a moment.";
 
     public static final String SUCCESSFUL_SUBREDDIT_CREATION = "Subreddit created successfully.";
     public static final String SUBREDDIT_ALREADY_EXISTS = "Subreddit name already exists.";
@@ -30,8 +36,13 @@ final public class ApiResponseMessages {
     public static final String NONEXISTENT_MENTION_OR_NOT_RECEIVER = "No such mention, or you are not the receiver of the mention.";
     public static final String MENTION_MARKED_AS = "Mention marked as %s.";
 
+    public static final String INVALID_CHAT_ROOM = "Chat rooms are named with 1 to 32 lowercase letters, digits, - and _.";
+    public static final String INVALID_PRESENCE_PLACE = "Presence is kept for rooms/{room} and subreddits/{subreddit}.";
+
     public static final String SUCCESSFUL_VOTE_DELETION = "Vote deselected successfully.";
     public static final String SUCCESSFUL_VOTE_REGISTRATION = "Vote registered successfully.";
+    public static final String TOO_MANY_VOTE_IDS = "At most %d ids can be asked for at once.";
+    public static final String INVALID_VOTE_CHOICE = "Vote choice must be 1 or -1.";
 
     public static final String NONEXISTENT_USERNAME_OR_EMAIL = "User with such username or email doesn't exist: ";
     public static final String NONEXISTENT_USER_ID = "User with such ID doesn't exist.";
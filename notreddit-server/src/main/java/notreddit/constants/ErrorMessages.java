@@ -9,6 +9,8 @@ final public class ErrorMessages {
     public static final String ACCESS_FORBIDDEN = "You don't have the authority to do that.";
     public static final String TOO_MANY_REQUESTS = "Too many requests.";
     public static final String FIELDS_ARE_NOT_MATCHING = "Fields are not matching.";
+    public static final String INVALID_CURSOR = "The given cursor is not valid.";
+    public static final String UNSUPPORTED_FEED_ORDER = "The feed can't be ordered that way.";
 
     public static final String BLANK_TITLE = "Title must not be blank.";
     public static final String BLANK_USERNAME = "Username must not be blank.";
@@ -22,6 +24,8 @@ final public class ErrorMessages {
     public static final String BLANK_POST_ID = "Post ID must not be blank.";
     public static final String BLANK_COMMENT_ID = "Comment ID must not be blank.";
     public static final String BLANK_NEW_ROLE = "The new role must not be blank.";
+    public static final String BLANK_FILENAME = "Filename must not be blank.";
+    public static final String NOT_POSITIVE_FILE_SIZE = "File size must be more than 0.";
     public static final String INVALID_EMAIL = "The given email is not valid.";
 
     public static final String TITLE_LENGTH_VIOLATION_MESSAGE = "Title length must be more or equal to {min}.";
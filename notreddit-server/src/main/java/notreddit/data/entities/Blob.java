@@ -0,0 +1,45 @@
+package notreddit.data.entities;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.PositiveOrZero;
+import java.time.LocalDateTime;
+
+/**
+ * A file of the blob storage, keyed by the SHA-256 of its content. Every upload of the same content references
+ * the same blob; a blob no file references anymore is deleted by the garbage collection sweep.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "blobs")
+public class Blob {
+
+    @Id
+    @Column(length = 64)
+    private String hash;
+
+    @PositiveOrZero
+    @Column(nullable = false)
+    private long size;
+
+    @Column
+    private String contentType;
+
+    @PositiveOrZero
+    @Column(nullable = false)
+    private int referenceCount;
+
+    @NotNull
+    @Column(nullable = false)
+    private LocalDateTime createdOn;
+
+    @Column
+    private LocalDateTime releasedOn;
+}
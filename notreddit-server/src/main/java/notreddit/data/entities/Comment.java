@@ -29,10 +29,11 @@ public class Comment extends BaseUUIDEntity implements Votable {
     @Column(nullable = false, columnDefinition = "TEXT")
     private String content;
 
-    @Column(nullable = false, columnDefinition = "NUMERIC DEFAULT 0")
+    // vote counts are only ever changed by VoteCountService's batched increments
+    @Column(nullable = false, updatable = false, columnDefinition = "NUMERIC DEFAULT 0")
     private int upvotes;
 
-    @Column(nullable = false, columnDefinition = "NUMERIC DEFAULT 0")
+    @Column(nullable = false, updatable = false, columnDefinition = "NUMERIC DEFAULT 0")
     private int downvotes;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,53 @@
+package notreddit.data.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.*;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import java.io.Serializable;
+import java.util.UUID;
+
+/**
+ * The choice of a user on a comment, keyed by the comment and the user so a vote is written with a single upsert.
+ */
+@Getter
+@Setter
+@Entity
+@IdClass(CommentVote.Key.class)
+@Table(name = "comment_votes", indexes = {
+        @Index(name = "idx_comment_votes_user_id", columnList = "user_id")
+})
+public class CommentVote {
+
+    @Id
+    @NotNull
+    @Column(name = "comment_id", columnDefinition = "UUID")
+    private UUID commentId;
+
+    @Id
+    @NotNull
+    @Column(name = "user_id", columnDefinition = "UUID")
+    private UUID userId;
+
+    @Min(-1)
+    @Max(1)
+    @Column(nullable = false)
+    private byte choice;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+
+        private UUID commentId;
+        private UUID userId;
+    }
+}
@@ -2,10 +2,11 @@ package notreddit.data.entities;
 
 import lombok.Getter;
 import lombok.Setter;
+import notreddit.data.enums.FileStatus;
 
 import javax.persistence.*;
-import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Pattern;
 import java.util.UUID;
 
 @Getter
@@ -20,10 +21,15 @@ public class File {
     @Column
     private String thumbnailUrl;
 
-    @NotBlank
-    @Column(nullable = false)
+    // null until an uploaded file reaches the cloud storage, never blank
+    @Pattern(regexp = "(?s).*\\S.*", message = "must not be blank")
+    @Column
     private String url;
 
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, columnDefinition = "VARCHAR(255) DEFAULT 'READY'")
+    private FileStatus status = FileStatus.READY;
+
     @NotNull
     @MapsId
     @OneToOne(fetch = FetchType.LAZY, optional = false)
@@ -0,0 +1,40 @@
+package notreddit.data.entities;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Table;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.PastOrPresent;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Vote count change that is not yet applied to its post/comment.
+ * Rows are only appended and deleted, so recording one never waits on the hot post/comment row.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "pending_votes")
+public class PendingVote extends BaseUUIDEntity {
+
+    @Column(columnDefinition = "UUID")
+    private UUID postId;
+
+    @Column(columnDefinition = "UUID")
+    private UUID commentId;
+
+    @Column(nullable = false)
+    private int upvotes;
+
+    @Column(nullable = false)
+    private int downvotes;
+
+    @NotNull
+    @PastOrPresent
+    @Column(nullable = false)
+    private LocalDateTime createdOn;
+}
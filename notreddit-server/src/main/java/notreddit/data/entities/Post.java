@@ -16,7 +16,11 @@ import java.util.List;
 @Getter
 @Setter
 @Entity
-@Table(name = "posts")
+@Table(name = "posts", indexes = {
+        @Index(name = "idx_posts_created_on_id", columnList = "created_on, id"),
+        @Index(name = "idx_posts_subreddit_created_on_id", columnList = "subreddit_id, created_on, id"),
+        @Index(name = "idx_posts_creator_created_on_id", columnList = "creator_id, created_on, id")
+})
 public class Post extends BaseUUIDEntity implements Votable {
 
     @NotNull
@@ -36,12 +40,17 @@ public class Post extends BaseUUIDEntity implements Votable {
     @Column(columnDefinition = "TEXT")
     private String content;
 
-    @Column(nullable = false, columnDefinition = "NUMERIC DEFAULT 0")
+    // vote counts are only ever changed by VoteCountService's batched increments
+    @Column(nullable = false, updatable = false, columnDefinition = "NUMERIC DEFAULT 0")
     private int upvotes;
 
-    @Column(nullable = false, columnDefinition = "NUMERIC DEFAULT 0")
+    @Column(nullable = false, updatable = false, columnDefinition = "NUMERIC DEFAULT 0")
     private int downvotes;
 
+    // kept in step by CommentService's increments, drift is repaired by PostService.reconcileCommentCounts()
+    @Column(nullable = false, updatable = false, columnDefinition = "INTEGER DEFAULT 0")
+    private int commentCount;
+
     @NotNull
     @PastOrPresent
     @Column(nullable = false)
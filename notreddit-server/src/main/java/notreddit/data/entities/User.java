@@ -38,6 +38,10 @@ public class User extends BaseUUIDEntity implements UserDetails {
     @Column
     private boolean enabled = true;
 
+    // tokens carry the version they were issued with, bumping it revokes all of them
+    @Column(nullable = false, columnDefinition = "INTEGER DEFAULT 0")
+    private int tokenVersion;
+
     @NotEmpty
     @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(
@@ -62,9 +66,6 @@ public class User extends BaseUUIDEntity implements UserDetails {
     )
     private Set<Subreddit> subscriptions = new HashSet<>();
 
-    @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true)
-    private Set<Vote> votes = new HashSet<>();
-
     @OneToMany(fetch = FetchType.LAZY, cascade = CascadeType.ALL, orphanRemoval = true)
     @JoinColumn(name = "creator_id")
     private List<Mention> mentions = new ArrayList<>();
@@ -97,6 +98,10 @@ public class User extends BaseUUIDEntity implements UserDetails {
         return true;
     }
 
+    public void revokeTokens() {
+        this.tokenVersion++;
+    }
+
     public void subscribe(Subreddit subreddit) {
         this.getSubscriptions().add(subreddit);
     }
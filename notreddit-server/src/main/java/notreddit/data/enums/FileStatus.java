@@ -0,0 +1,5 @@
+package notreddit.data.enums;
+
+public enum FileStatus {
+    PROCESSING, READY, FAILED
+}
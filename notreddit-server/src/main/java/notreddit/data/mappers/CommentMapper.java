@@ -0,0 +1,36 @@
+package notreddit.data.mappers;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import notreddit.data.entities.Comment;
+import notreddit.data.models.responses.comment.CommentListWithReplyCount;
+
+/**
+ * Plain getter/setter mapping for the comment read models, used on the listing paths
+ * instead of the reflection based {@link org.modelmapper.ModelMapper}. Comment threads are assembled
+ * from flat rows by {@link CommentTreeBuilder}.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class CommentMapper {
+
+    public static CommentListWithReplyCount toModelWithReplyCount(Comment comment) {
+        CommentListWithReplyCount model = new CommentListWithReplyCount();
+        model.setId(comment.getId() == null ? null : comment.getId().toString());
+        if (comment.getCreator() != null) {
+            model.setCreatorUsername(comment.getCreator().getUsername());
+            model.setCreatorEnabled(comment.getCreator().isEnabled());
+        }
+        model.setContent(comment.getContent());
+        model.setUpvotes(comment.getUpvotes());
+        model.setDownvotes(comment.getDownvotes());
+        model.setCreatedOn(TimeMapper.toEpochSecond(comment.getCreatedOn()));
+        model.setReplies(comment.getChildren().size());
+
+        if (comment.getPost() != null) {
+            model.setPostTitle(comment.getPost().getTitle());
+            model.setPostId(comment.getPost().getId() == null ? null : comment.getPost().getId().toString());
+        }
+
+        return model;
+    }
+}
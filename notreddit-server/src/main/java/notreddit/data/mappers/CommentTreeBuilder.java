@@ -0,0 +1,72 @@
+package notreddit.data.mappers;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import notreddit.data.models.responses.comment.CommentListWithChildren;
+import notreddit.data.projections.CommentTreeRow;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Assembles a comment thread from its flat rows in O(n) with an id to node map, without recursion.
+ * Siblings keep the order of the rows, so sorting the query sorts every level of the thread.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class CommentTreeBuilder {
+
+    /**
+     * Rows whose parent isn't among the rows become the roots. Nodes at {@code maxDepth} (roots being at depth 1)
+     * have their replies cut off and counted in {@code moreReplies} - the client continues the thread
+     * by loading the replies of that comment.
+     */
+    public static List<CommentListWithChildren> build(List<CommentTreeRow> rows, int maxDepth) {
+        Map<UUID, CommentListWithChildren> nodes = new HashMap<>((int) (rows.size() / 0.75f) + 1);
+        for (CommentTreeRow row : rows) {
+            nodes.put(row.getId(), toModel(row));
+        }
+
+        List<CommentListWithChildren> roots = new ArrayList<>();
+        for (CommentTreeRow row : rows) {
+            CommentListWithChildren node = nodes.get(row.getId());
+            CommentListWithChildren parent = row.getParentId() == null ? null : nodes.get(row.getParentId());
+
+            if (parent == null) {
+                roots.add(node);
+            } else {
+                parent.getChildren().add(node);
+            }
+        }
+
+        List<CommentListWithChildren> level = roots;
+        for (int depth = 1; !level.isEmpty(); depth++) {
+            List<CommentListWithChildren> next = new ArrayList<>();
+            for (CommentListWithChildren node : level) {
+                if (depth < maxDepth) {
+                    next.addAll(node.getChildren());
+                } else if (!node.getChildren().isEmpty()) {
+                    node.setMoreReplies(node.getChildren().size());
+                    node.setChildren(new ArrayList<>());
+                }
+            }
+            level = next;
+        }
+
+        return roots;
+    }
+
+    private static CommentListWithChildren toModel(CommentTreeRow row) {
+        CommentListWithChildren model = new CommentListWithChildren();
+        model.setId(row.getId().toString());
+        model.setCreatorUsername(row.getCreatorUsername());
+        model.setCreatorEnabled(row.isCreatorEnabled());
+        model.setContent(row.getContent());
+        model.setUpvotes(row.getUpvotes());
+        model.setDownvotes(row.getDownvotes());
+        model.setCreatedOn(TimeMapper.toEpochSecond(row.getCreatedOn()));
+        return model;
+    }
+}
@@ -0,0 +1,35 @@
+package notreddit.data.mappers;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import notreddit.data.entities.Comment;
+import notreddit.data.entities.Mention;
+import notreddit.data.models.responses.mention.MentionResponseModel;
+
+/**
+ * Plain getter/setter mapping for the mention read model, used instead of the reflection based
+ * {@link org.modelmapper.ModelMapper}.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class MentionMapper {
+
+    public static MentionResponseModel toModel(Mention mention) {
+        MentionResponseModel model = new MentionResponseModel();
+        model.setId(mention.getId() == null ? null : mention.getId().toString());
+        if (mention.getCreator() != null) {
+            model.setCreatorUsername(mention.getCreator().getUsername());
+            model.setCreatorEnabled(mention.getCreator().isEnabled());
+        }
+        model.setRead(mention.isRead());
+        model.setCreatedOn(TimeMapper.toEpochSecond(mention.getCreatedOn()));
+
+        Comment comment = mention.getComment();
+        model.setCommentContent(comment.getContent());
+        if (comment.getPost() != null) {
+            model.setCommentPostTitle(comment.getPost().getTitle());
+            model.setCommentPostId(comment.getPost().getId() == null ? null : comment.getPost().getId().toString());
+        }
+
+        return model;
+    }
+}
@@ -0,0 +1,46 @@
+package notreddit.data.mappers;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import notreddit.data.entities.Post;
+import notreddit.data.models.responses.post.PostDetailsResponseModel;
+import notreddit.data.models.responses.post.PostListModel;
+import notreddit.data.models.responses.post.PostListResponseModel;
+
+/**
+ * Plain getter/setter mapping for the post read models, used on the listing paths
+ * instead of the reflection based {@link org.modelmapper.ModelMapper}.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class PostMapper {
+
+    public static PostListResponseModel toListModel(Post post) {
+        PostListResponseModel model = new PostListResponseModel();
+        copyListFields(post, model);
+        model.setId(post.getId() == null ? null : post.getId().toString());
+        model.setCommentCount(post.getCommentCount());
+        return model;
+    }
+
+    public static PostDetailsResponseModel toDetailsModel(Post post) {
+        PostDetailsResponseModel model = new PostDetailsResponseModel();
+        copyListFields(post, model);
+        model.setContent(post.getContent());
+        model.setFileUrl(post.getFile() == null ? null : post.getFile().getUrl());
+        model.setFileStatus(post.getFile() == null ? null : post.getFile().getStatus().name());
+        return model;
+    }
+
+    private static void copyListFields(Post post, PostListModel model) {
+        if (post.getCreator() != null) {
+            model.setCreatorUsername(post.getCreator().getUsername());
+            model.setCreatorEnabled(post.getCreator().isEnabled());
+        }
+        model.setTitle(post.getTitle());
+        model.setFileThumbnailUrl(post.getFile() == null ? null : post.getFile().getThumbnailUrl());
+        model.setSubredditTitle(post.getSubreddit() == null ? null : post.getSubreddit().getTitle());
+        model.setUpvotes(post.getUpvotes());
+        model.setDownvotes(post.getDownvotes());
+        model.setCreatedOn(TimeMapper.toEpochSecond(post.getCreatedOn()));
+    }
+}
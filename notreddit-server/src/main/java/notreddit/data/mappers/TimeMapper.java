@@ -0,0 +1,17 @@
+package notreddit.data.mappers;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class TimeMapper {
+
+    public static final ZoneId ZONE = ZoneId.of("Europe/Sofia");
+
+    public static long toEpochSecond(LocalDateTime dateTime) {
+        return dateTime == null ? 0 : dateTime.atZone(ZONE).toInstant().getEpochSecond();
+    }
+}
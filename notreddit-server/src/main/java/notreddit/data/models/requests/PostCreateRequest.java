@@ -7,6 +7,7 @@ import org.hibernate.validator.constraints.Length;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.validation.constraints.NotBlank;
+import java.util.UUID;
 
 @Getter
 @Setter
@@ -24,4 +25,6 @@ public class PostCreateRequest {
     private String subreddit;
 
     private MultipartFile file;
+
+    private UUID uploadSessionId;
 }
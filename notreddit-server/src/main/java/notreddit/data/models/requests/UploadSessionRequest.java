@@ -0,0 +1,21 @@
+package notreddit.data.models.requests;
+
+import lombok.Getter;
+import lombok.Setter;
+import notreddit.constants.ErrorMessages;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.Positive;
+
+@Getter
+@Setter
+public class UploadSessionRequest {
+
+    @NotBlank(message = ErrorMessages.BLANK_FILENAME)
+    private String filename;
+
+    private String contentType;
+
+    @Positive(message = ErrorMessages.NOT_POSITIVE_FILE_SIZE)
+    private long size;
+}
@@ -0,0 +1,16 @@
+package notreddit.data.models.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class PresenceResponseModel {
+
+    private int online;
+    private List<String> users;
+}
@@ -0,0 +1,15 @@
+package notreddit.data.models.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * How many sessions are on a chat room or subreddit page, e.g. {@code rooms/public} or {@code subreddits/java}.
+ */
+@Getter
+@AllArgsConstructor
+public class PresenceSnapshot {
+
+    private final String place;
+    private final int online;
+}
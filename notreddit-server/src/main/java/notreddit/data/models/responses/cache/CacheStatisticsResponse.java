@@ -0,0 +1,24 @@
+package notreddit.data.models.responses.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStatisticsResponse {
+
+    private String name;
+    private long hits;
+    private long misses;
+    private double hitRatio;
+    private long puts;
+    private long evictions;
+    private long trackedEntries;
+    private long size;
+    private long weight;
+    private long maximumWeight;
+}
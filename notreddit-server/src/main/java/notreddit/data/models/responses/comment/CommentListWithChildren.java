@@ -11,4 +11,7 @@ import java.util.List;
 public class CommentListWithChildren extends CommentListModel {
 
     private List<CommentListWithChildren> children = new ArrayList<>();
+
+    // direct replies left out because the thread got too deep, loaded with /api/comment/replies?commentId={id}
+    private int moreReplies;
 }
@@ -0,0 +1,18 @@
+package notreddit.data.models.responses.post;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class FileStatusResponseModel {
+
+    private String postId;
+    private String status;
+    private String url;
+    private String thumbnailUrl;
+}
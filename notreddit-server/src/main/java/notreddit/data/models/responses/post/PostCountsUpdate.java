@@ -0,0 +1,34 @@
+package notreddit.data.models.responses.post;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.UUID;
+
+/**
+ * How much the votes and comments of a post changed since the last update sent for it.
+ */
+@Getter
+@AllArgsConstructor
+public class PostCountsUpdate {
+
+    private final UUID postId;
+    private final int upvotes;
+    private final int downvotes;
+    private final int comments;
+
+    public PostCountsUpdate plus(PostCountsUpdate other) {
+        return new PostCountsUpdate(postId,
+                upvotes + other.upvotes,
+                downvotes + other.downvotes,
+                comments + other.comments);
+    }
+
+    public int getScore() {
+        return upvotes - downvotes;
+    }
+
+    public boolean isEmpty() {
+        return upvotes == 0 && downvotes == 0 && comments == 0;
+    }
+}
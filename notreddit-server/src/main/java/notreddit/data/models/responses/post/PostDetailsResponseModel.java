@@ -9,4 +9,5 @@ public class PostDetailsResponseModel extends PostListModel {
 
     private String content;
     private String fileUrl;
+    private String fileStatus;
 }
@@ -0,0 +1,30 @@
+package notreddit.data.models.responses.post;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.Map;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class PostsCursorResponseModel {
+
+    private List<PostListResponseModel> posts;
+
+    // cursor of the next page, null on the last one
+    private String next;
+
+    // the signed in user's votes for the posts of the page by post id, null for anonymous users
+    private Map<String, Byte> userChoices;
+
+    public PostsCursorResponseModel(List<PostListResponseModel> posts, String next) {
+        this(posts, next, null);
+    }
+
+    public PostsCursorResponseModel withUserChoices(Map<String, Byte> userChoices) {
+        return new PostsCursorResponseModel(posts, next, userChoices);
+    }
+}
@@ -5,6 +5,7 @@ import lombok.Getter;
 import lombok.Setter;
 
 import java.util.List;
+import java.util.Map;
 
 @Getter
 @Setter
@@ -13,4 +14,18 @@ public class PostsResponseModel {
 
     private long total;
     private List<? extends PostListModel> posts;
+
+    // the signed in user's votes for the posts of the page by post id, null for anonymous users
+    private Map<String, Byte> userChoices;
+
+    public PostsResponseModel(long total, List<? extends PostListModel> posts) {
+        this(total, posts, null);
+    }
+
+    /**
+     * A copy with the user's choices, the page itself is cached and shared by everyone.
+     */
+    public PostsResponseModel withUserChoices(Map<String, Byte> userChoices) {
+        return new PostsResponseModel(total, posts, userChoices);
+    }
 }
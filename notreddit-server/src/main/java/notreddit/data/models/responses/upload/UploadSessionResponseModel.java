@@ -0,0 +1,18 @@
+package notreddit.data.models.responses.upload;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadSessionResponseModel {
+
+    private String sessionId;
+    private long offset;
+    private long size;
+    private boolean completed;
+}
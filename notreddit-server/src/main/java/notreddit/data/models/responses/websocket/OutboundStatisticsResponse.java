@@ -0,0 +1,21 @@
+package notreddit.data.models.responses.websocket;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboundStatisticsResponse {
+
+    private int sessions;
+    private long queued;
+    private int maxQueueDepth;
+    private long sent;
+    private long dropped;
+    private long coalesced;
+    private long evicted;
+}
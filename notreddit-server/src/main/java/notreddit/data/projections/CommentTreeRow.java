@@ -0,0 +1,25 @@
+package notreddit.data.projections;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * One flat comment row, selected with a constructor expression so a whole thread is read
+ * without loading the {@link notreddit.data.entities.Comment} entities and their eager children.
+ */
+@Getter
+@AllArgsConstructor
+public class CommentTreeRow {
+
+    private UUID id;
+    private UUID parentId;
+    private String creatorUsername;
+    private boolean creatorEnabled;
+    private String content;
+    private int upvotes;
+    private int downvotes;
+    private LocalDateTime createdOn;
+}
@@ -0,0 +1,21 @@
+package notreddit.data.projections;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * The columns a post is ranked by, read in bulk when the in-memory rankings are rebuilt.
+ */
+@Getter
+@AllArgsConstructor
+public class PostRankRow {
+
+    private UUID id;
+    private String subredditTitle;
+    private int upvotes;
+    private int downvotes;
+    private LocalDateTime createdOn;
+}
@@ -0,0 +1,17 @@
+package notreddit.data.projections;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.UUID;
+
+/**
+ * The number of unread mentions of a receiver, selected with a constructor expression grouped by receiver.
+ */
+@Getter
+@AllArgsConstructor
+public class UnreadMentionCount {
+
+    private UUID receiverId;
+    private long count;
+}
@@ -0,0 +1,38 @@
+package notreddit.repositories;
+
+import notreddit.data.entities.Blob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface BlobRepository extends JpaRepository<Blob, String> {
+
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO blobs (hash, size, content_type, reference_count, created_on) " +
+            "VALUES (:hash, :size, :contentType, 1, now()) " +
+            "ON CONFLICT (hash) DO UPDATE SET reference_count = blobs.reference_count + 1, released_on = NULL",
+            nativeQuery = true)
+    void reference(@Param("hash") String hash, @Param("size") long size, @Param("contentType") String contentType);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Blob b SET b.referenceCount = b.referenceCount - 1, b.releasedOn = :releasedOn " +
+            "WHERE b.hash = :hash AND b.referenceCount > 0")
+    int release(@Param("hash") String hash, @Param("releasedOn") LocalDateTime releasedOn);
+
+    @Query("SELECT b.hash FROM Blob b WHERE b.referenceCount = 0 AND b.releasedOn < :releasedBefore")
+    List<String> findUnreferencedHashes(@Param("releasedBefore") LocalDateTime releasedBefore);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Blob b WHERE b.hash = :hash AND b.referenceCount = 0")
+    int deleteIfUnreferenced(@Param("hash") String hash);
+}
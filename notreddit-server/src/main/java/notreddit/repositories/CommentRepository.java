@@ -1,24 +1,49 @@
 package notreddit.repositories;
 
 import notreddit.data.entities.Comment;
+import notreddit.data.projections.CommentTreeRow;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 @Repository
 public interface CommentRepository extends JpaRepository<Comment, UUID> {
 
-    @Query("SELECT c FROM Comment c " +
-            "WHERE c.parent IS NULL " +
-            "AND c.post.id = :id")
-    List<Comment> findByPostIdWithChildren(@Param("id") UUID id, Sort sort);
+    @Query("SELECT new notreddit.data.projections.CommentTreeRow(" +
+            "c.id, p.id, cr.username, cr.enabled, c.content, c.upvotes, c.downvotes, c.createdOn) " +
+            "FROM Comment c " +
+            "JOIN c.creator cr " +
+            "LEFT JOIN c.parent p " +
+            "WHERE c.post.id = :id")
+    List<CommentTreeRow> findTreeByPostId(@Param("id") UUID id, Sort sort);
+
+    @Query("SELECT new notreddit.data.projections.CommentTreeRow(" +
+            "c.id, p.id, cr.username, cr.enabled, c.content, c.upvotes, c.downvotes, c.createdOn) " +
+            "FROM Comment c " +
+            "JOIN c.creator cr " +
+            "LEFT JOIN c.parent p " +
+            "WHERE c.id IN :ids")
+    List<CommentTreeRow> findTreeByIds(@Param("ids") Collection<UUID> ids, Sort sort);
+
+    // the replies of a comment, down to one level below maxDepth so the deepest kept replies know if they have more
+    @Query(value = "WITH RECURSIVE thread AS (" +
+            "SELECT c.id, 1 AS depth FROM comments c WHERE c.parent_id = :id " +
+            "UNION ALL " +
+            "SELECT c.id, t.depth + 1 FROM comments c " +
+            "JOIN thread t ON c.parent_id = t.id " +
+            "WHERE t.depth <= :maxDepth) " +
+            "SELECT cast(t.id as varchar) FROM thread t", nativeQuery = true)
+    List<String> findReplyIds(@Param("id") UUID id, @Param("maxDepth") int maxDepth);
 
     @Query(value = "SELECT c FROM Comment c " +
             "JOIN FETCH c.post " +
@@ -27,4 +52,10 @@ public interface CommentRepository extends JpaRepository<Comment, UUID> {
                     "FROM Comment c " +
                     "WHERE LOWER(c.creator.username) = :username")
     Page<Comment> findByCreatorUsername(@Param("username") String username, Pageable pageable);
+
+    // replies go in the same statement as their parents, so the parent_id key is only checked once they are all gone
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM Comment c WHERE c.post.id = :postId")
+    int deleteAllOfPost(@Param("postId") UUID postId);
 }
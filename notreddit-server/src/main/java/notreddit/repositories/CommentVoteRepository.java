@@ -0,0 +1,55 @@
+package notreddit.repositories;
+
+import notreddit.data.entities.CommentVote;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface CommentVoteRepository extends JpaRepository<CommentVote, CommentVote.Key> {
+
+    Optional<CommentVote> findByCommentIdAndUserId(UUID commentId, UUID userId);
+
+    List<CommentVote> findByUserId(UUID userId);
+
+    List<CommentVote> findByUserIdAndCommentIdIn(UUID userId, Collection<UUID> commentIds);
+
+    /**
+     * Votes with the given choice, or deselects the vote when it already has that choice, in one statement.
+     * Returns the previous choice, 0 when there was none, or null when a concurrent vote of the same user
+     * inserted this very choice first and nothing was changed. The row is only ever updated to the other choice,
+     * so an update means the previous choice was the opposite one.
+     */
+    @Transactional
+    @Query(value = "WITH removed AS (" +
+            "DELETE FROM comment_votes WHERE comment_id = :commentId AND user_id = :userId AND choice = :choice " +
+            "RETURNING choice), " +
+            "upserted AS (" +
+            "INSERT INTO comment_votes (comment_id, user_id, choice) " +
+            "SELECT :commentId, :userId, :choice WHERE NOT EXISTS (SELECT 1 FROM removed) " +
+            "ON CONFLICT (comment_id, user_id) DO UPDATE SET choice = EXCLUDED.choice " +
+            "WHERE comment_votes.choice <> EXCLUDED.choice " +
+            "RETURNING CASE WHEN xmax = 0 THEN 0 ELSE -choice END AS previous) " +
+            "SELECT CAST(COALESCE((SELECT choice FROM removed), (SELECT previous FROM upserted)) AS INTEGER)",
+            nativeQuery = true)
+    Integer vote(@Param("commentId") UUID commentId, @Param("userId") UUID userId, @Param("choice") byte choice);
+
+    @Transactional
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("DELETE FROM CommentVote v WHERE v.commentId = :commentId")
+    int deleteAllByCommentId(@Param("commentId") UUID commentId);
+
+    // the votes on the comments of the post
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM CommentVote v WHERE v.commentId IN (SELECT c.id FROM Comment c WHERE c.post.id = :postId)")
+    int deleteAllOfPost(@Param("postId") UUID postId);
+}
@@ -0,0 +1,29 @@
+package notreddit.repositories;
+
+import notreddit.data.entities.File;
+import notreddit.data.enums.FileStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.UUID;
+
+@Repository
+public interface FileRepository extends JpaRepository<File, UUID> {
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE File f SET f.url = :url, f.thumbnailUrl = :thumbnailUrl, f.status = :status WHERE f.id = :id")
+    int updateUpload(@Param("id") UUID id,
+                     @Param("url") String url,
+                     @Param("thumbnailUrl") String thumbnailUrl,
+                     @Param("status") FileStatus status);
+
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM File f WHERE f.id = :postId")
+    int deleteOfPost(@Param("postId") UUID postId);
+}
@@ -2,6 +2,7 @@ package notreddit.repositories;
 
 import notreddit.data.entities.Mention;
 import notreddit.data.entities.User;
+import notreddit.data.projections.UnreadMentionCount;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -12,6 +13,8 @@ import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.validation.constraints.NotNull;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -21,8 +24,26 @@ public interface MentionRepository extends JpaRepository<Mention, UUID> {
     @Query("SELECT m FROM Mention m JOIN FETCH m.receiver WHERE m.id = :id")
     Optional<Mention> findByIdWithReceiver(@NotNull @Param("id") UUID id);
 
-    @Query("SELECT COUNT(m) FROM Mention m WHERE m.isRead = false AND m.receiver = :receiver")
-    int getUnreadMentionCountByUser(@NotNull @Param("receiver") User receiver);
+    @Query("SELECT COUNT(m) FROM Mention m WHERE m.isRead = false AND m.receiver.id = :receiverId")
+    int countUnreadByReceiverId(@NotNull @Param("receiverId") UUID receiverId);
+
+    @Query("SELECT new notreddit.data.projections.UnreadMentionCount(m.receiver.id, COUNT(m)) " +
+            "FROM Mention m " +
+            "WHERE m.isRead = false AND m.receiver.id IN :receiverIds " +
+            "GROUP BY m.receiver.id")
+    List<UnreadMentionCount> countUnreadByReceiverIds(@Param("receiverIds") Collection<UUID> receiverIds);
+
+    @Query("SELECT new notreddit.data.projections.UnreadMentionCount(m.receiver.id, COUNT(m)) " +
+            "FROM Mention m " +
+            "WHERE m.isRead = false AND m.comment.id = :commentId " +
+            "GROUP BY m.receiver.id")
+    List<UnreadMentionCount> countUnreadOfComment(@Param("commentId") UUID commentId);
+
+    @Query("SELECT new notreddit.data.projections.UnreadMentionCount(m.receiver.id, COUNT(m)) " +
+            "FROM Mention m " +
+            "WHERE m.isRead = false AND m.comment.post.id = :postId " +
+            "GROUP BY m.receiver.id")
+    List<UnreadMentionCount> countUnreadOfPost(@Param("postId") UUID postId);
 
     @Query(value = "SELECT m FROM Mention m " +
             "JOIN FETCH m.comment c " +
@@ -35,4 +56,9 @@ public interface MentionRepository extends JpaRepository<Mention, UUID> {
     @Transactional
     @Modifying(clearAutomatically = true, flushAutomatically = true)
     void deleteAllByCommentId(UUID commentId);
+
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM Mention m WHERE m.comment.id IN (SELECT c.id FROM Comment c WHERE c.post.id = :postId)")
+    int deleteAllOfPost(@Param("postId") UUID postId);
 }
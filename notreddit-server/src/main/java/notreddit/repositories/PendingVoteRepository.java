@@ -0,0 +1,11 @@
+package notreddit.repositories;
+
+import notreddit.data.entities.PendingVote;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.UUID;
+
+@Repository
+public interface PendingVoteRepository extends JpaRepository<PendingVote, UUID> {
+}
@@ -2,26 +2,39 @@ package notreddit.repositories;
 
 import notreddit.data.entities.Post;
 import notreddit.data.entities.Subreddit;
+import notreddit.data.projections.PostRankRow;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Repository
 public interface PostRepository extends JpaRepository<Post, UUID> {
 
-    @Query(value = "SELECT DISTINCT p FROM Post p " +
+    // keyset pagination - every feed page seeks past the (createdOn, id) or (score, id) of the previous page's last post
+    String NEWER_THAN_CURSOR = "(p.createdOn < :createdOn OR (p.createdOn = :createdOn AND p.id < :id)) ";
+    String NEWEST_FIRST = "ORDER BY p.createdOn DESC, p.id DESC";
+    String LOWER_SCORE_THAN_CURSOR = "(p.upvotes - p.downvotes < :score " +
+            "OR (p.upvotes - p.downvotes = :score AND p.id < :id)) ";
+    String TOP_FIRST = "ORDER BY p.upvotes - p.downvotes DESC, p.id DESC";
+
+    @Query(value = "SELECT p FROM Post p " +
             "JOIN FETCH p.creator " +
             "LEFT JOIN FETCH p.subreddit " +
-            "LEFT JOIN FETCH p.comments ",
+            "LEFT JOIN FETCH p.file ",
             countQuery = "SELECT COUNT(p.id) FROM Post p")
     Page<Post> findAllPageable(Pageable pageable);
 
@@ -30,10 +43,10 @@ public interface PostRepository extends JpaRepository<Post, UUID> {
             countQuery = "SELECT COUNT(p.id) FROM Post p WHERE LOWER(p.creator.username) = :username")
     Page<UUID> findAllPostIdsByUsername(@Param("username") String username, Pageable pageable);
 
-    @Query(value = "SELECT DISTINCT p FROM Post p " +
+    @Query(value = "SELECT p FROM Post p " +
             "JOIN FETCH p.creator c " +
             "LEFT JOIN FETCH p.subreddit " +
-            "LEFT JOIN FETCH p.comments " +
+            "LEFT JOIN FETCH p.file " +
             "WHERE p.id IN :subscriptions")
     List<Post> getPostsFromIdList(@Param("subscriptions") List<UUID> subscriptions, Sort sort);
 
@@ -47,15 +60,96 @@ public interface PostRepository extends JpaRepository<Post, UUID> {
             countQuery = "SELECT COUNT(p.id) FROM Post p WHERE p.subreddit IN :subscriptions")
     Page<UUID> getSubscribedPostsIds(@Param("subscriptions") Set<Subreddit> subscriptions, Pageable pageable);
 
+    @Query("SELECT p.id FROM Post p WHERE " + NEWER_THAN_CURSOR + NEWEST_FIRST)
+    List<UUID> findNewestIds(@Param("createdOn") LocalDateTime createdOn,
+                             @Param("id") UUID id,
+                             Pageable limit);
+
+    @Query("SELECT p.id FROM Post p WHERE " + LOWER_SCORE_THAN_CURSOR + TOP_FIRST)
+    List<UUID> findTopIds(@Param("score") int score,
+                          @Param("id") UUID id,
+                          Pageable limit);
+
+    @Query("SELECT p.id FROM Post p " +
+            "WHERE LOWER(p.creator.username) = :username AND " + NEWER_THAN_CURSOR + NEWEST_FIRST)
+    List<UUID> findNewestIdsByUsername(@Param("username") String username,
+                                       @Param("createdOn") LocalDateTime createdOn,
+                                       @Param("id") UUID id,
+                                       Pageable limit);
+
+    @Query("SELECT p.id FROM Post p " +
+            "WHERE LOWER(p.creator.username) = :username AND " + LOWER_SCORE_THAN_CURSOR + TOP_FIRST)
+    List<UUID> findTopIdsByUsername(@Param("username") String username,
+                                    @Param("score") int score,
+                                    @Param("id") UUID id,
+                                    Pageable limit);
+
+    @Query("SELECT p.id FROM Post p " +
+            "WHERE LOWER(p.subreddit.title) = :title AND " + NEWER_THAN_CURSOR + NEWEST_FIRST)
+    List<UUID> findNewestIdsBySubredditTitle(@Param("title") String title,
+                                             @Param("createdOn") LocalDateTime createdOn,
+                                             @Param("id") UUID id,
+                                             Pageable limit);
+
+    @Query("SELECT p.id FROM Post p " +
+            "WHERE LOWER(p.subreddit.title) = :title AND " + LOWER_SCORE_THAN_CURSOR + TOP_FIRST)
+    List<UUID> findTopIdsBySubredditTitle(@Param("title") String title,
+                                          @Param("score") int score,
+                                          @Param("id") UUID id,
+                                          Pageable limit);
+
+    @Query("SELECT p.id FROM Post p " +
+            "WHERE p.subreddit IN :subscriptions AND " + NEWER_THAN_CURSOR + NEWEST_FIRST)
+    List<UUID> findNewestSubscribedIds(@Param("subscriptions") Set<Subreddit> subscriptions,
+                                       @Param("createdOn") LocalDateTime createdOn,
+                                       @Param("id") UUID id,
+                                       Pageable limit);
+
+    @Query("SELECT p.id FROM Post p " +
+            "WHERE p.subreddit IN :subscriptions AND " + LOWER_SCORE_THAN_CURSOR + TOP_FIRST)
+    List<UUID> findTopSubscribedIds(@Param("subscriptions") Set<Subreddit> subscriptions,
+                                    @Param("score") int score,
+                                    @Param("id") UUID id,
+                                    Pageable limit);
+
+    // the votes still waiting in pending_votes are added in the same statement, so a flush can't count them twice
+    @Query(value = "SELECT cast(p.id as varchar), s.title, " +
+            "cast(p.upvotes + COALESCE(v.upvotes, 0) as integer), " +
+            "cast(p.downvotes + COALESCE(v.downvotes, 0) as integer), " +
+            "p.created_on " +
+            "FROM posts p " +
+            "JOIN subreddits s ON s.id = p.subreddit_id " +
+            "LEFT JOIN (SELECT pv.post_id, SUM(pv.upvotes) AS upvotes, SUM(pv.downvotes) AS downvotes " +
+            "FROM pending_votes pv WHERE pv.post_id IS NOT NULL GROUP BY pv.post_id) v ON v.post_id = p.id " +
+            "WHERE p.created_on >= :since", nativeQuery = true)
+    List<Object[]> findRankColumnsCreatedSince(@Param("since") LocalDateTime since);
+
+    default List<PostRankRow> findRankRowsCreatedSince(LocalDateTime since) {
+        return findRankColumnsCreatedSince(since).stream()
+                .map(row -> new PostRankRow(
+                        UUID.fromString((String) row[0]),
+                        (String) row[1],
+                        ((Number) row[2]).intValue(),
+                        ((Number) row[3]).intValue(),
+                        ((Timestamp) row[4]).toLocalDateTime()))
+                .collect(Collectors.toList());
+    }
+
+    // id, subreddit title and creation time of the newest posts of every subreddit
+    @Query(value = "SELECT cast(t.id as varchar), t.title, t.created_on FROM (" +
+            "SELECT p.id, s.title, p.created_on, " +
+            "ROW_NUMBER() OVER (PARTITION BY p.subreddit_id ORDER BY p.created_on DESC, p.id DESC) AS position " +
+            "FROM posts p " +
+            "JOIN subreddits s ON s.id = p.subreddit_id) t " +
+            "WHERE t.position <= :perSubreddit", nativeQuery = true)
+    List<Object[]> findNewestPerSubreddit(@Param("perSubreddit") int perSubreddit);
+
     @Query(value = "SELECT cast(p.id as varchar) FROM posts p " +
-            "LEFT JOIN votes v ON v.post_id = p.id " +
-            "WHERE v.comment_id IS NULL " +
-            "AND v.choice = :choice " +
+            "JOIN post_votes v ON v.post_id = p.id " +
+            "WHERE v.choice = :choice " +
             "AND v.user_id = :userId ",
-            countQuery = "SELECT COUNT(p.id) FROM posts p " +
-                    "LEFT JOIN votes v ON v.post_id = p.id " +
-                    "WHERE v.comment_id IS NULL " +
-                    "AND v.choice = :choice " +
+            countQuery = "SELECT COUNT(v.post_id) FROM post_votes v " +
+                    "WHERE v.choice = :choice " +
                     "AND v.user_id = :userId ",
             nativeQuery = true)
     Page<String> findPostIdsByUserAndVoteChoice(@Param("userId") UUID userId,
@@ -65,20 +159,40 @@ public interface PostRepository extends JpaRepository<Post, UUID> {
     @Query("SELECT p FROM Post p " +
             "JOIN FETCH p.creator " +
             "LEFT JOIN FETCH p.subreddit " +
-            "LEFT JOIN FETCH p.comments " +
+            "LEFT JOIN FETCH p.file " +
             "WHERE p.id = :id")
     Optional<Post> findByIdEager(@Param("id") UUID id);
 
-    @Query("SELECT p FROM Post p " +
-            "JOIN FETCH p.creator " +
-            "LEFT JOIN FETCH p.comments " +
-            "WHERE p.id = :id")
-    Optional<Post> findByIdWithCreatorAndComments(@Param("id") UUID id);
-
     @Query("SELECT p FROM Post p " +
             "JOIN FETCH p.creator " +
             "LEFT JOIN FETCH p.file " +
             "LEFT JOIN FETCH p.subreddit " +
             "WHERE p.id = :id")
     Optional<Post> findByIdWithFileAnSubreddit(@Param("id") UUID id);
+
+    @Query(value = "UPDATE posts SET upvotes = upvotes + 1 " +
+            "WHERE id = (SELECT p.id FROM posts p ORDER BY RANDOM() LIMIT 1) " +
+            "RETURNING cast(id as varchar)", nativeQuery = true)
+    String upvoteRandomPost();
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Post p SET p.commentCount = p.commentCount + :delta WHERE p.id = :id")
+    void updateCommentCount(@Param("id") UUID id, @Param("delta") int delta);
+
+    @Transactional
+    @Query(value = "UPDATE posts p SET comment_count = counts.comment_count " +
+            "FROM (SELECT p2.id, COUNT(c.id) AS comment_count FROM posts p2 " +
+            "LEFT JOIN comments c ON c.post_id = p2.id " +
+            "GROUP BY p2.id) counts " +
+            "WHERE counts.id = p.id " +
+            "AND p.comment_count <> counts.comment_count " +
+            "RETURNING cast(p.id as varchar)", nativeQuery = true)
+    List<String> reconcileCommentCounts();
+
+    // skips the cascades of Post, its comments and file have to be deleted first
+    @Transactional
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("DELETE FROM Post p WHERE p.id = :id")
+    int deleteByIdInBulk(@Param("id") UUID id);
 }
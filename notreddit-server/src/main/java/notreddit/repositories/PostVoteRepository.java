@@ -0,0 +1,49 @@
+package notreddit.repositories;
+
+import notreddit.data.entities.PostVote;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface PostVoteRepository extends JpaRepository<PostVote, PostVote.Key> {
+
+    Optional<PostVote> findByPostIdAndUserId(UUID postId, UUID userId);
+
+    List<PostVote> findByUserId(UUID userId);
+
+    List<PostVote> findByUserIdAndPostIdIn(UUID userId, Collection<UUID> postIds);
+
+    /**
+     * Votes with the given choice, or deselects the vote when it already has that choice, in one statement.
+     * Returns the previous choice, 0 when there was none, or null when a concurrent vote of the same user
+     * inserted this very choice first and nothing was changed. The row is only ever updated to the other choice,
+     * so an update means the previous choice was the opposite one.
+     */
+    @Transactional
+    @Query(value = "WITH removed AS (" +
+            "DELETE FROM post_votes WHERE post_id = :postId AND user_id = :userId AND choice = :choice " +
+            "RETURNING choice), " +
+            "upserted AS (" +
+            "INSERT INTO post_votes (post_id, user_id, choice) " +
+            "SELECT :postId, :userId, :choice WHERE NOT EXISTS (SELECT 1 FROM removed) " +
+            "ON CONFLICT (post_id, user_id) DO UPDATE SET choice = EXCLUDED.choice " +
+            "WHERE post_votes.choice <> EXCLUDED.choice " +
+            "RETURNING CASE WHEN xmax = 0 THEN 0 ELSE -choice END AS previous) " +
+            "SELECT CAST(COALESCE((SELECT choice FROM removed), (SELECT previous FROM upserted)) AS INTEGER)",
+            nativeQuery = true)
+    Integer vote(@Param("postId") UUID postId, @Param("userId") UUID userId, @Param("choice") byte choice);
+
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM PostVote v WHERE v.postId = :postId")
+    int deleteAllOfPost(@Param("postId") UUID postId);
+}
@@ -28,6 +28,12 @@ public interface UserRepository extends JpaRepository<User, UUID> {
     @Query("SELECT DISTINCT u FROM User u JOIN FETCH u.roles r WHERE u.enabled = true ORDER BY u.username")
     List<User> findAllWithRoles();
 
+    @Query("SELECT u.id, u.tokenVersion FROM User u WHERE u.tokenVersion > 0")
+    List<Object[]> findRevokedTokenVersions();
+
     @Query("SELECT u FROM User u LEFT JOIN FETCH u.subscriptions WHERE u = :user")
     User getWithSubscriptions(@Param("user") User user);
+
+    @Query("SELECT u.id FROM User u JOIN u.subscriptions s WHERE LOWER(s.title) = LOWER(:title)")
+    List<UUID> findSubscriberIdsBySubredditTitle(@Param("title") String title);
 }
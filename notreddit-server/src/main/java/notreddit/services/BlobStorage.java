@@ -0,0 +1,22 @@
+package notreddit.services;
+
+import notreddit.data.entities.Blob;
+
+import java.nio.file.Path;
+import java.util.Optional;
+
+public interface BlobStorage extends CloudStorage {
+
+    Optional<Blob> find(String hash);
+
+    Path path(Blob blob);
+
+    /**
+     * Where a file made from the blob, like a thumbnail of it, is kept. Such files go away with the blob.
+     */
+    Path derivedPath(Blob blob, String name);
+
+    Optional<String> hashOf(String fileUrl);
+
+    void collectGarbage();
+}
@@ -0,0 +1,10 @@
+package notreddit.services;
+
+import java.util.List;
+
+public interface ChatHistoryService {
+
+    void record(String room, byte[] message);
+
+    List<byte[]> recent(String room, int limit);
+}
@@ -2,13 +2,42 @@ package notreddit.services;
 
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Map;
 
 public interface CloudStorage {
 
     Map<String, Object> uploadFileAndGetParams(MultipartFile file);
 
+    Map<String, Object> uploadFileAndGetParams(InputStream content, String originalFilename, String contentType);
+
     Map<String, Object> updateFile(MultipartFile newFile, String oldFileId);
 
     boolean removeFile(String fileId);
+
+    /**
+     * Whether the url points at a file kept by this storage, rather than at a link a post was created with.
+     */
+    boolean owns(String fileUrl);
+
+    /**
+     * Upload sessions take a file in chunks streamed straight into the storage, each chunk starting where
+     * the previous one ended. Returns the id of the new session.
+     */
+    String startUploadSession() throws IOException;
+
+    /**
+     * Writes the content at {@code offset}, which has to be the number of bytes the session already holds.
+     * A chunk that fails part way leaves the session as it was before it.
+     */
+    void appendToUploadSession(String sessionId, long offset, InputStream content) throws IOException;
+
+    /**
+     * Stores the {@code size} bytes of the session as a file and returns the same params as an upload would.
+     */
+    Map<String, Object> finishUploadSession(String sessionId, long size, String originalFilename, String contentType)
+            throws IOException;
+
+    void abortUploadSession(String sessionId);
 }
@@ -21,6 +21,8 @@ public interface CommentService {
 
     List<CommentListWithChildren> findAllFromPost(UUID postId, Pageable pageable);
 
+    List<CommentListWithChildren> findReplies(UUID commentId, Pageable pageable);
+
     CommentsResponseModel findAllFromUsername(String username, Pageable pageable);
 
 }
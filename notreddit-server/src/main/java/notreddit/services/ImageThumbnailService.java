@@ -0,0 +1,10 @@
+package notreddit.services;
+
+import java.util.Optional;
+
+public interface ImageThumbnailService {
+
+    Optional<String> thumbnailUrl(String imageUrl);
+
+    Optional<byte[]> thumbnail(String hash, int width);
+}
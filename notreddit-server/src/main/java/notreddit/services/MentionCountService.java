@@ -0,0 +1,12 @@
+package notreddit.services;
+
+import java.util.UUID;
+
+public interface MentionCountService {
+
+    int getUnreadCount(UUID userId);
+
+    void record(UUID receiverId, int delta);
+
+    void reconcile();
+}
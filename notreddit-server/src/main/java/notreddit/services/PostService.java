@@ -1,10 +1,12 @@
 package notreddit.services;
 
 import notreddit.data.entities.User;
+import notreddit.data.enums.FeedOrder;
 import notreddit.data.models.requests.PostCreateRequest;
 import notreddit.data.models.requests.PostEditRequest;
 import notreddit.data.models.responses.post.PostDetailsResponseModel;
 import notreddit.data.models.responses.post.PostEditResponseModel;
+import notreddit.data.models.responses.post.PostsCursorResponseModel;
 import notreddit.data.models.responses.post.PostsResponseModel;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
@@ -34,4 +36,14 @@ public interface PostService {
     PostsResponseModel findPostsByVoteChoice(User user, String username, int choice, Pageable pageable);
 
     PostsResponseModel findAllBySubreddit(String subreddit, Pageable pageable);
+
+    PostsCursorResponseModel allPostsAfter(String cursor, FeedOrder order, int size);
+
+    PostsCursorResponseModel subscribedPostsAfter(User user, String cursor, FeedOrder order, int size);
+
+    PostsCursorResponseModel findAllByUsernameAfter(String username, String cursor, FeedOrder order, int size);
+
+    PostsCursorResponseModel findAllBySubredditAfter(String subreddit, String cursor, FeedOrder order, int size);
+
+    void reconcileCommentCounts();
 }
@@ -0,0 +1,12 @@
+package notreddit.services;
+
+import java.util.UUID;
+
+public interface PostUpdateService {
+
+    void recordVotes(UUID postId, int upvotes, int downvotes);
+
+    void recordComments(UUID postId, int comments);
+
+    void publish();
+}
@@ -0,0 +1,26 @@
+package notreddit.services;
+
+import java.security.Principal;
+import java.util.List;
+import java.util.Map;
+
+public interface PresenceService {
+
+    void subscribe(String sessionId,
+                   String subscriptionId,
+                   String destination,
+                   Principal user,
+                   Map<String, Object> sessionAttributes);
+
+    void unsubscribe(String sessionId, String subscriptionId);
+
+    void disconnect(String sessionId);
+
+    void touch(String sessionId);
+
+    int countOnline(String place);
+
+    List<String> findOnlineUsers(String place, int limit);
+
+    void publish();
+}
@@ -0,0 +1,21 @@
+package notreddit.services;
+
+import notreddit.data.entities.Post;
+import notreddit.util.FeedCursor;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface RankingService {
+
+    void rebuild();
+
+    void track(Post post);
+
+    void untrack(UUID postId);
+
+    void recordVote(UUID postId, int upvotes, int downvotes);
+
+    List<FeedCursor> hotPosts(Collection<String> subreddits, FeedCursor after, int limit);
+}
@@ -2,11 +2,14 @@ package notreddit.services;
 
 import java.io.UnsupportedEncodingException;
 import java.util.Map;
+import java.util.Optional;
 
 public interface ThumbnailService {
 
     String generateThumbnailUrl(String url);
 
+    Optional<String> generateImageThumbnailUrl(String imageUrl);
+
     String generateScreenshotApiUrl(Map<String, String> options) throws UnsupportedEncodingException;
 
     String generatePdfApiUrl(Map<String, String> options) throws UnsupportedEncodingException;
@@ -0,0 +1,20 @@
+package notreddit.services;
+
+import notreddit.data.entities.Post;
+import notreddit.util.FeedCursor;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface TimelineService {
+
+    void rebuild();
+
+    void track(Post post);
+
+    void untrack(UUID postId);
+
+    Optional<List<FeedCursor>> newestPosts(Collection<String> subreddits, FeedCursor after, int limit);
+}
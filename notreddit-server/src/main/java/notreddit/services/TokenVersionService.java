@@ -0,0 +1,12 @@
+package notreddit.services;
+
+import java.util.UUID;
+
+public interface TokenVersionService {
+
+    void rebuild();
+
+    boolean isCurrent(UUID userId, int tokenVersion);
+
+    void update(UUID userId, int tokenVersion);
+}
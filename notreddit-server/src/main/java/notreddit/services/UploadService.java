@@ -0,0 +1,20 @@
+package notreddit.services;
+
+import notreddit.data.entities.Post;
+import notreddit.util.SpooledFile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.Optional;
+import java.util.UUID;
+
+public interface UploadService {
+
+    Optional<SpooledFile> reserve(MultipartFile file);
+
+    void start(Post post, SpooledFile file);
+
+    void cancel(SpooledFile file);
+
+    ResponseEntity<?> getStatus(UUID postId);
+}
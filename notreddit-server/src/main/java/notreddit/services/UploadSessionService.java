@@ -0,0 +1,23 @@
+package notreddit.services;
+
+import notreddit.data.entities.User;
+import notreddit.data.models.requests.UploadSessionRequest;
+import org.springframework.http.ResponseEntity;
+
+import java.io.InputStream;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface UploadSessionService {
+
+    ResponseEntity<?> open(UploadSessionRequest request, User user);
+
+    ResponseEntity<?> append(UUID sessionId, long offset, long contentLength, InputStream content, User user);
+
+    ResponseEntity<?> getStatus(UUID sessionId, User user);
+
+    Optional<Map<String, Object>> takeCompleted(UUID sessionId, User user);
+
+    void expireIdleSessions();
+}
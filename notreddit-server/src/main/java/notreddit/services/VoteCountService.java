@@ -0,0 +1,10 @@
+package notreddit.services;
+
+import java.util.UUID;
+
+public interface VoteCountService {
+
+    void record(UUID postId, UUID commentId, int upvotes, int downvotes);
+
+    void flush();
+}
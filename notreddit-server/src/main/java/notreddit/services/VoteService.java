@@ -4,6 +4,7 @@ import notreddit.data.entities.User;
 import notreddit.data.models.responses.post.PostVoteUserChoiceResponse;
 import org.springframework.http.ResponseEntity;
 
+import java.util.Collection;
 import java.util.Map;
 import java.util.UUID;
 
@@ -16,4 +17,11 @@ public interface VoteService {
     Map<String, Byte> findPostVotesByUser(User user);
 
     Map<String, Byte> findCommentVotesByUser(User user);
+
+    /**
+     * The user's choices for the given posts, say the ones of a feed page, leaving out the posts without a vote.
+     */
+    Map<String, Byte> findPostChoices(User user, Collection<UUID> postIds);
+
+    Map<String, Byte> findCommentChoices(User user, Collection<UUID> commentIds);
 }
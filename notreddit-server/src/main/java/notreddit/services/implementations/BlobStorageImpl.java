@@ -0,0 +1,299 @@
+package notreddit.services.implementations;
+
+import lombok.extern.slf4j.Slf4j;
+import notreddit.data.entities.Blob;
+import notreddit.repositories.BlobRepository;
+import notreddit.services.BlobStorage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Self-hosted storage that keeps every distinct content once on local disk, named by its SHA-256, and serves it
+ * from {@code /api/files/{hash}}. Uploading content that is already stored only counts one more reference to it,
+ * removing a file counts one less, and blobs left without references are deleted by {@link #collectGarbage()}
+ * once they stayed unreferenced for {@link #GARBAGE_GRACE_PERIOD}.
+ * Enabled with {@code app.storage.type=blobs}. Committing and collecting a blob lock on its hash in this process,
+ * so the blob directory must not be shared between instances.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "blobs")
+public class BlobStorageImpl implements BlobStorage {
+
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+    private static final Pattern DERIVED_NAME = Pattern.compile("[a-z0-9-]+");
+    private static final Duration GARBAGE_GRACE_PERIOD = Duration.ofMinutes(10);
+    private static final int LOCK_STRIPES = 64;
+    private static final int HASH_BUFFER_SIZE = 64 * 1024;
+
+    private final BlobRepository blobRepository;
+    private final Path blobs;
+    private final Path incoming;
+    private final UploadSessionFiles sessions;
+    private final String url;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    @Autowired
+    public BlobStorageImpl(BlobRepository blobRepository,
+                           @Value("${app.storage.blobs.directory:${java.io.tmpdir}/notreddit-blobs}") String directory,
+                           @Value("${app.storage.blobs.url:http://localhost:${server.port:8000}/api/files/}") String url) {
+        this(blobRepository, Paths.get(directory), url);
+    }
+
+    public BlobStorageImpl(BlobRepository blobRepository, Path directory, String url) {
+        this.blobRepository = blobRepository;
+        Path root = directory.toAbsolutePath().normalize();
+        this.blobs = root.resolve("blobs");
+        this.incoming = root.resolve("incoming");
+        this.sessions = new UploadSessionFiles(root.resolve("sessions"));
+        this.url = url.endsWith("/") ? url : url + "/";
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+
+        try {
+            Files.createDirectories(blobs);
+            Files.createDirectories(incoming);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public Map<String, Object> uploadFileAndGetParams(MultipartFile file) {
+        try (InputStream content = file.getInputStream()) {
+            return uploadFileAndGetParams(content, file.getOriginalFilename(), file.getContentType());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // the content is hashed while it is copied to disk, so it is read only once and never held in memory
+    @Override
+    public Map<String, Object> uploadFileAndGetParams(InputStream content, String originalFilename, String contentType) {
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(incoming, "upload-", ".tmp");
+            MessageDigest digest = sha256();
+            try (InputStream in = new DigestInputStream(content, digest)) {
+                Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return commit(temp, toHex(digest.digest()), contentType);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            deleteQuietly(temp);
+        }
+    }
+
+    @Override
+    public Map<String, Object> updateFile(MultipartFile newFile, String oldFileId) {
+        removeFile(oldFileId);
+        return uploadFileAndGetParams(newFile);
+    }
+
+    /**
+     * Drops one reference to the blob. The content stays on disk until the garbage collection finds it unreferenced.
+     */
+    @Override
+    public boolean removeFile(String fileId) {
+        String hash = hashInUrl(fileId);
+        return hash != null && blobRepository.release(hash, LocalDateTime.now()) > 0;
+    }
+
+    @Override
+    public boolean owns(String fileUrl) {
+        return hashInUrl(fileUrl) != null;
+    }
+
+    @Override
+    public String startUploadSession() throws IOException {
+        return sessions.start();
+    }
+
+    @Override
+    public void appendToUploadSession(String sessionId, long offset, InputStream content) throws IOException {
+        sessions.append(sessionId, offset, content);
+    }
+
+    @Override
+    public Map<String, Object> finishUploadSession(String sessionId,
+                                                   long size,
+                                                   String originalFilename,
+                                                   String contentType) throws IOException {
+        Path session = sessions.complete(sessionId, size);
+        try {
+            return commit(session, hash(session), contentType);
+        } finally {
+            deleteQuietly(session);
+        }
+    }
+
+    @Override
+    public void abortUploadSession(String sessionId) {
+        sessions.abort(sessionId);
+    }
+
+    @Override
+    public Optional<Blob> find(String hash) {
+        return hash != null && HASH.matcher(hash).matches()
+                ? blobRepository.findById(hash)
+                : Optional.empty();
+    }
+
+    @Override
+    public Path path(Blob blob) {
+        return blobPath(blob.getHash());
+    }
+
+    @Override
+    public Path derivedPath(Blob blob, String name) {
+        if (!DERIVED_NAME.matcher(name).matches()) {
+            throw new IllegalArgumentException("Invalid derived file name: " + name);
+        }
+        return derivedPath(blob.getHash(), name);
+    }
+
+    @Override
+    public Optional<String> hashOf(String fileUrl) {
+        return Optional.ofNullable(hashInUrl(fileUrl));
+    }
+
+    /**
+     * Deletes the blobs that have been unreferenced for longer than the grace period. A blob that is referenced
+     * again in the meantime keeps its row, and with it its content.
+     */
+    @Override
+    @Scheduled(initialDelay = 5 * 60 * 1000, fixedDelay = 60 * 60 * 1000) // five minutes after startup, then every hour
+    public void collectGarbage() {
+        List<String> candidates = blobRepository.findUnreferencedHashes(
+                LocalDateTime.now().minus(GARBAGE_GRACE_PERIOD));
+
+        int collected = 0;
+        for (String hash : candidates) {
+            synchronized (lockFor(hash)) {
+                if (blobRepository.deleteIfUnreferenced(hash) > 0) {
+                    deleteQuietly(blobPath(hash));
+                    deleteDerived(hash);
+                    collected++;
+                }
+            }
+        }
+
+        log.info("Scheduled task executed: collected {} unreferenced blobs at: {}", collected, LocalDateTime.now());
+    }
+
+    // the content is moved into place before it is referenced, so a referenced blob always has its content
+    private Map<String, Object> commit(Path file, String hash, String contentType) throws IOException {
+        Path target = blobPath(hash);
+        synchronized (lockFor(hash)) {
+            if (Files.notExists(target)) {
+                Files.createDirectories(target.getParent());
+                Files.move(file, target, StandardCopyOption.ATOMIC_MOVE);
+            }
+            blobRepository.reference(hash, Files.size(target), contentType);
+        }
+        log.info("File upload successful.");
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("url", url + hash);
+        params.put("contentType", contentType);
+        return params;
+    }
+
+    private String hashInUrl(String fileUrl) {
+        if (fileUrl == null || !fileUrl.startsWith(url)) {
+            return null;
+        }
+
+        String hash = fileUrl.substring(url.length());
+        return HASH.matcher(hash).matches() ? hash : null;
+    }
+
+    // two levels deep, so no directory ends up with every blob in it
+    private Path blobPath(String hash) {
+        return blobs.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private Path derivedPath(String hash, String name) {
+        return blobPath(hash).resolveSibling(hash + "." + name);
+    }
+
+    private void deleteDerived(String hash) {
+        try (DirectoryStream<Path> derived = Files.newDirectoryStream(blobPath(hash).getParent(), hash + ".*")) {
+            derived.forEach(BlobStorageImpl::deleteQuietly);
+        } catch (NoSuchFileException e) {
+            // nothing was made from the blob
+        } catch (IOException e) {
+            log.error("File deletion failed.");
+        }
+    }
+
+    private Object lockFor(String hash) {
+        return locks[Math.floorMod(hash.hashCode(), locks.length)];
+    }
+
+    private static String hash(Path file) throws IOException {
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[HASH_BUFFER_SIZE];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return toHex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.error("File deletion failed.");
+        }
+    }
+}
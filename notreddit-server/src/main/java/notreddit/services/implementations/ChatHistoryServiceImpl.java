@@ -0,0 +1,165 @@
+package notreddit.services.implementations;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import notreddit.services.ChatHistoryService;
+import notreddit.util.ChatRing;
+import notreddit.util.SegmentLog;
+import notreddit.web.ChatRooms;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The last messages of every chat room, as sent to its topic, in a ring per room. With persistence the messages
+ * are also appended to segment files per room, which serve the history that is longer than the rings or older
+ * than the last restart. Rooms past the maximum are dropped from memory, least recently used first.
+ */
+@Slf4j
+@Service
+public class ChatHistoryServiceImpl implements ChatHistoryService {
+
+    private final int historySize;
+    private final Path directory;
+    private final long segmentSize;
+    private final int maxSegments;
+    private final Cache<String, Room> rooms;
+
+    @Autowired
+    public ChatHistoryServiceImpl(@Value("${app.chat.historySize:100}") int historySize,
+                                  @Value("${app.chat.maxRooms:1000}") long maxRooms,
+                                  @Value("${app.chat.persistence.enabled:false}") boolean persisted,
+                                  @Value("${app.chat.persistence.directory:${java.io.tmpdir}/notreddit-chat}") String directory,
+                                  @Value("${app.chat.persistence.segmentSizeInKb:1024}") long segmentSizeInKb,
+                                  @Value("${app.chat.persistence.maxSegments:16}") int maxSegments) {
+        this(historySize, maxRooms, persisted ? Paths.get(directory) : null, segmentSizeInKb * 1024, maxSegments);
+    }
+
+    public ChatHistoryServiceImpl(int historySize, long maxRooms, Path directory, long segmentSize, int maxSegments) {
+        this.historySize = historySize;
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSegments = maxSegments;
+        this.rooms = Caffeine.newBuilder()
+                .maximumSize(maxRooms)
+                // closes the files of a dropped room right away
+                .executor(Runnable::run)
+                .<String, Room>removalListener((name, room, cause) -> {
+                    if (room != null) {
+                        room.close();
+                    }
+                })
+                .build();
+    }
+
+    @Override
+    public void record(String room, byte[] message) {
+        Room history = room(room);
+        history.ring.add(message);
+
+        if (history.segments != null) {
+            try {
+                history.segments.append(message);
+            } catch (IOException e) {
+                log.warn("Could not persist a message of chat room {}", room, e);
+            }
+        }
+    }
+
+    /**
+     * Up to the given number of the last messages of the room, oldest first. They come from the ring while it has
+     * them all, otherwise from the segment files when there are any. Reading a room nothing was ever sent to leaves
+     * no trace of it, in memory or on disk.
+     */
+    @Override
+    public List<byte[]> recent(String room, int limit) {
+        if (limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        Room history = existingRoom(room);
+        if (history == null) {
+            return Collections.emptyList();
+        }
+        if (history.segments == null || (limit <= history.ring.capacity() && history.ring.count() >= limit)) {
+            return history.ring.last(limit);
+        }
+
+        try {
+            return history.segments.last(limit);
+        } catch (IOException e) {
+            log.warn("Could not read the history of chat room {}", room, e);
+            return history.ring.last(limit);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        rooms.invalidateAll();
+        rooms.cleanUp();
+    }
+
+    private Room room(String room) {
+        if (!ChatRooms.isValid(room)) {
+            throw new IllegalArgumentException("Invalid chat room " + room);
+        }
+        return rooms.get(room, this::open);
+    }
+
+    // the room in memory, or the one on disk when it has a directory there
+    private Room existingRoom(String room) {
+        if (!ChatRooms.isValid(room)) {
+            throw new IllegalArgumentException("Invalid chat room " + room);
+        }
+
+        Room history = rooms.getIfPresent(room);
+        if (history != null || directory == null || !Files.isDirectory(directory.resolve(room))) {
+            return history;
+        }
+        return rooms.get(room, this::open);
+    }
+
+    private Room open(String room) {
+        if (directory == null) {
+            return new Room(new ChatRing(historySize), null);
+        }
+
+        try {
+            return new Room(new ChatRing(historySize), new SegmentLog(directory.resolve(room), segmentSize, maxSegments));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open the history of chat room " + room, e);
+        }
+    }
+
+    private static final class Room {
+
+        private final ChatRing ring;
+        private final SegmentLog segments;
+
+        private Room(ChatRing ring, SegmentLog segments) {
+            this.ring = ring;
+            this.segments = segments;
+        }
+
+        private void close() {
+            if (segments == null) {
+                return;
+            }
+            try {
+                segments.close();
+            } catch (IOException e) {
+                log.warn("Could not close the history of a chat room", e);
+            }
+        }
+    }
+}
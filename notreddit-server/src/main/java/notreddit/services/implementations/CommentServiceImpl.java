@@ -1,34 +1,42 @@
 package notreddit.services.implementations;
 
 import lombok.RequiredArgsConstructor;
+import notreddit.cache.CacheTags;
+import notreddit.cache.TaggedCacheManager;
 import notreddit.data.entities.Comment;
 import notreddit.data.entities.Mention;
 import notreddit.data.entities.Post;
 import notreddit.data.entities.User;
+import notreddit.data.mappers.CommentMapper;
+import notreddit.data.mappers.CommentTreeBuilder;
 import notreddit.data.models.requests.CommentCreateRequest;
 import notreddit.data.models.requests.CommentEditRequest;
 import notreddit.data.models.responses.api.ApiResponse;
 import notreddit.data.models.responses.comment.CommentListWithChildren;
 import notreddit.data.models.responses.comment.CommentListWithReplyCount;
 import notreddit.data.models.responses.comment.CommentsResponseModel;
+import notreddit.data.projections.CommentTreeRow;
+import notreddit.data.projections.UnreadMentionCount;
 import notreddit.repositories.CommentRepository;
+import notreddit.repositories.CommentVoteRepository;
 import notreddit.repositories.MentionRepository;
 import notreddit.repositories.PostRepository;
-import notreddit.repositories.VoteRepository;
 import notreddit.services.CommentService;
+import notreddit.services.MentionCountService;
+import notreddit.services.PostUpdateService;
 import org.modelmapper.ModelMapper;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.Caching;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.net.URI;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -43,21 +51,22 @@ public class CommentServiceImpl implements CommentService {
 
     private static final String MODERATOR_ROLE = "ROLE_MODERATOR";
     private static final String DELETED_CONTENT = "[deleted]";
+    private static final int MAX_THREAD_DEPTH = 10;
 
     private final PostRepository postRepository;
     private final CommentRepository commentRepository;
     private final MentionRepository mentionRepository;
-    private final VoteRepository voteRepository;
+    private final CommentVoteRepository commentVoteRepository;
+    private final MentionCountService mentionCountService;
+    private final PostUpdateService postUpdateService;
+    private final TaggedCacheManager cacheManager;
     private final ModelMapper mapper;
 
+    /**
+     * Saves the comment with its mention and moves the post's comment count in the same transaction.
+     */
     @Override
-    @Caching(evict = {
-            @CacheEvict(value = COMMENTS_BY_POST_CACHE, allEntries = true),
-            @CacheEvict(value = COMMENTS_BY_USERNAME, allEntries = true),
-            @CacheEvict(value = POSTS_BY_USERNAME_CACHE, allEntries = true),
-            @CacheEvict(value = POSTS_BY_SUBREDDIT_CACHE, allEntries = true),
-            @CacheEvict(value = SUBSCRIBED_POSTS_CACHE, allEntries = true)
-    })
+    @Transactional
     public ResponseEntity<?> create(CommentCreateRequest commentModel, User creator) {
         Post post = postRepository.findById(commentModel.getPostId()).orElse(null);
         Comment parent = null;
@@ -91,6 +100,12 @@ public class CommentServiceImpl implements CommentService {
             commentRepository.saveAndFlush(comment);
         }
 
+        postRepository.updateCommentCount(post.getId(), 1);
+        postUpdateService.recordComments(post.getId(), 1);
+        User receiver = parent != null ? parent.getCreator() : post.getCreator();
+        mentionCountService.record(receiver.getId(), 1);
+        evictCachedDependencies(comment);
+
         URI location = ServletUriComponentsBuilder
                 .fromCurrentContextPath().path("/api/comment/post")
                 .buildAndExpand().toUri();
@@ -101,10 +116,6 @@ public class CommentServiceImpl implements CommentService {
     }
 
     @Override
-    @Caching(evict = {
-            @CacheEvict(value = COMMENTS_BY_POST_CACHE, allEntries = true),
-            @CacheEvict(value = COMMENTS_BY_USERNAME, allEntries = true)
-    })
     public ResponseEntity<?> edit(CommentEditRequest commentModel, User user) {
         Comment comment = commentRepository.findById(commentModel.getCommentId()).orElse(null);
 
@@ -116,19 +127,18 @@ public class CommentServiceImpl implements CommentService {
 
         comment.setContent(commentModel.getContent());
         commentRepository.saveAndFlush(comment);
+        cacheManager.evictTagged(CacheTags.comment(comment.getId()));
 
         return ResponseEntity
                 .ok(new ApiResponse(true, SUCCESSFUL_COMMENT_EDITING));
     }
 
+    /**
+     * Deletes the comment, or blanks it when it has replies, and moves the post's comment count in the same
+     * transaction.
+     */
     @Override
-    @Caching(evict = {
-            @CacheEvict(value = COMMENTS_BY_POST_CACHE, allEntries = true),
-            @CacheEvict(value = COMMENTS_BY_USERNAME, allEntries = true),
-            @CacheEvict(value = POSTS_BY_USERNAME_CACHE, allEntries = true),
-            @CacheEvict(value = POSTS_BY_SUBREDDIT_CACHE, allEntries = true),
-            @CacheEvict(value = SUBSCRIBED_POSTS_CACHE, allEntries = true)
-    })
+    @Transactional
     public ResponseEntity<?> delete(UUID commentId, User user) {
         Comment comment = commentRepository.findById(commentId).orElse(null);
 
@@ -147,7 +157,10 @@ public class CommentServiceImpl implements CommentService {
                     .body(new ApiResponse(false, ACCESS_FORBIDDEN));
         }
 
+        List<UnreadMentionCount> unreadMentions = mentionRepository.countUnreadOfComment(commentId);
         mentionRepository.deleteAllByCommentId(commentId);
+        unreadMentions.forEach(unread -> mentionCountService.record(unread.getReceiverId(), (int) -unread.getCount()));
+        evictCachedDependencies(comment);
 
         if (!comment.getChildren().isEmpty()) {
             comment.setContent(DELETED_CONTENT);
@@ -157,8 +170,10 @@ public class CommentServiceImpl implements CommentService {
                     .ok(new ApiResponse(true, SUCCESSFUL_COMMENT_DELETION));
         }
 
-        voteRepository.deleteAllByCommentId(commentId);
+        commentVoteRepository.deleteAllByCommentId(commentId);
         commentRepository.delete(comment);
+        postRepository.updateCommentCount(comment.getPost().getId(), -1);
+        postUpdateService.recordComments(comment.getPost().getId(), -1);
 
         return ResponseEntity
                 .ok(new ApiResponse(true, SUCCESSFUL_COMMENT_DELETION));
@@ -167,11 +182,23 @@ public class CommentServiceImpl implements CommentService {
     @Override
     @Cacheable(value = COMMENTS_BY_POST_CACHE, keyGenerator = "pageableKeyGenerator")
     public List<CommentListWithChildren> findAllFromPost(UUID postId, Pageable pageable) {
-        return commentRepository
-                .findByPostIdWithChildren(postId, pageable.getSort())
-                .parallelStream()
-                .map(c -> mapper.map(c, CommentListWithChildren.class))
+        List<CommentTreeRow> rows = commentRepository.findTreeByPostId(postId, pageable.getSort());
+        return CommentTreeBuilder.build(rows, MAX_THREAD_DEPTH);
+    }
+
+    @Override
+    public List<CommentListWithChildren> findReplies(UUID commentId, Pageable pageable) {
+        List<UUID> ids = commentRepository.findReplyIds(commentId, MAX_THREAD_DEPTH)
+                .stream()
+                .map(UUID::fromString)
                 .collect(Collectors.toList());
+
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<CommentTreeRow> rows = commentRepository.findTreeByIds(ids, pageable.getSort());
+        return CommentTreeBuilder.build(rows, MAX_THREAD_DEPTH);
     }
 
     @Override
@@ -179,15 +206,33 @@ public class CommentServiceImpl implements CommentService {
     public CommentsResponseModel findAllFromUsername(String username, Pageable pageable) {
         Page<Comment> byCreatorUsername = commentRepository.findByCreatorUsername(username.toLowerCase(), pageable);
         List<CommentListWithReplyCount> comments = byCreatorUsername.stream()
-                .map(c -> {
-                    CommentListWithReplyCount model = mapper.map(c, CommentListWithReplyCount.class);
-                    model.setReplies(c.getChildren().size());
-                    return model;
-                }).collect(Collectors.toList());
+                .map(CommentMapper::toModelWithReplyCount)
+                .collect(Collectors.toList());
 
         return new CommentsResponseModel(byCreatorUsername.getTotalElements(), comments);
     }
 
+    /**
+     * Evicts the cached pages a created or deleted comment shows up in - the post's comment tree,
+     * the creator's comment list, the post's comment count and the parent's reply count.
+     */
+    private void evictCachedDependencies(Comment comment) {
+        List<String> tags = new ArrayList<>();
+        tags.add(CacheTags.comment(comment.getId()));
+        tags.add(CacheTags.userComments(comment.getCreator().getUsername()));
+
+        if (comment.getPost() != null) {
+            tags.add(CacheTags.post(comment.getPost().getId()));
+            tags.add(CacheTags.postComments(comment.getPost().getId()));
+        }
+
+        if (comment.getParent() != null) {
+            tags.add(CacheTags.comment(comment.getParent().getId()));
+        }
+
+        cacheManager.evictTagged(tags.toArray(new String[0]));
+    }
+
     private Mention createMention(Comment comment, User receiver, User creator) {
         Mention mention = new Mention();
         mention.setComment(comment);
@@ -3,23 +3,29 @@ package notreddit.services.implementations;
 import com.dropbox.core.DbxException;
 import com.dropbox.core.DbxRequestConfig;
 import com.dropbox.core.v2.DbxClientV2;
+import com.dropbox.core.v2.files.CommitInfo;
 import com.dropbox.core.v2.files.FileMetadata;
+import com.dropbox.core.v2.files.UploadSessionCursor;
 import com.dropbox.core.v2.sharing.SharedLinkMetadata;
 import lombok.extern.slf4j.Slf4j;
 import notreddit.services.CloudStorage;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
 
 @Slf4j
 @Service
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "dropbox", matchIfMissing = true)
 public class DropboxService implements CloudStorage {
 
     private static final String RAW_TYPE_POSTFIX = "&raw=1";
@@ -38,15 +44,25 @@ public class DropboxService implements CloudStorage {
 
     @Override
     public Map<String, Object> uploadFileAndGetParams(MultipartFile file) {
-        String imagePath = "/" + UUID.randomUUID().toString().substring(24) + file.getOriginalFilename();
-        uploadFile(file, imagePath);
+        try {
+            return uploadFileAndGetParams(file.getInputStream(), file.getOriginalFilename(), file.getContentType());
+        } catch (IOException e) {
+            log.error("File upload failed.", e);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public Map<String, Object> uploadFileAndGetParams(InputStream content, String originalFilename, String contentType) {
+        String imagePath = "/" + UUID.randomUUID().toString().substring(24) + originalFilename;
+        uploadFile(content, imagePath);
         log.info("File upload successful.");
 
         SharedLinkMetadata sharedLinkWithSettings = createSharedLinkFromPath(imagePath);
 
         Map<String, Object> params = new HashMap<>();
         params.put("url", sharedLinkWithSettings.getUrl() + RAW_TYPE_POSTFIX);
-        params.put("contentType", file.getContentType());
+        params.put("contentType", contentType);
         return params;
     }
 
@@ -72,16 +88,74 @@ public class DropboxService implements CloudStorage {
         return false;
     }
 
-    private FileMetadata uploadFile(MultipartFile file, String imagePath) {
-        InputStream in;
+    @Override
+    public boolean owns(String fileUrl) {
+        return fileUrl.contains("dropbox");
+    }
+
+    @Override
+    public String startUploadSession() throws IOException {
+        try {
+            return client.files().uploadSessionStart().uploadAndFinish(emptyContent()).getSessionId();
+        } catch (DbxException e) {
+            throw new IOException("Starting upload session failed.", e);
+        }
+    }
+
+    @Override
+    public void appendToUploadSession(String sessionId, long offset, InputStream content) throws IOException {
+        try {
+            client.files().uploadSessionAppendV2(new UploadSessionCursor(sessionId, offset)).uploadAndFinish(content);
+        } catch (DbxException e) {
+            throw new IOException("Appending to upload session failed.", e);
+        }
+    }
+
+    @Override
+    public Map<String, Object> finishUploadSession(String sessionId,
+                                                   long size,
+                                                   String originalFilename,
+                                                   String contentType) throws IOException {
+        String path = "/" + UUID.randomUUID().toString().substring(24) + originalFilename;
+        try {
+            client.files()
+                    .uploadSessionFinish(new UploadSessionCursor(sessionId, size), new CommitInfo(path))
+                    .uploadAndFinish(emptyContent());
+        } catch (DbxException e) {
+            throw new IOException("Finishing upload session failed.", e);
+        }
+        log.info("File upload successful.");
+
+        SharedLinkMetadata sharedLinkWithSettings = createSharedLinkFromPath(path);
+        if (sharedLinkWithSettings == null) {
+            throw new IOException("Creating shared link failed.");
+        }
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("url", sharedLinkWithSettings.getUrl() + RAW_TYPE_POSTFIX);
+        params.put("contentType", contentType);
+        return params;
+    }
+
+    @Override
+    public void abortUploadSession(String sessionId) {
+        // dropbox has no call for it, sessions that are never finished expire on their own after a week
+    }
+
+    private static InputStream emptyContent() {
+        return new ByteArrayInputStream(new byte[0]);
+    }
+
+    private FileMetadata uploadFile(InputStream in, String imagePath) {
         try {
-            in = file.getInputStream();
             return client.files().uploadBuilder(imagePath).uploadAndFinish(in);
-        } catch (IOException | DbxException e) {
-            log.error("File upload failed.");
-            e.printStackTrace();
+        } catch (IOException e) {
+            log.error("File upload failed.", e);
+            throw new UncheckedIOException(e);
+        } catch (DbxException e) {
+            log.error("File upload failed.", e);
+            throw new UncheckedIOException(new IOException("File upload failed.", e));
         }
-        return null;
     }
 
     private SharedLinkMetadata createSharedLinkFromPath(String path) {
@@ -0,0 +1,200 @@
+package notreddit.services.implementations;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import notreddit.data.entities.Blob;
+import notreddit.services.BlobStorage;
+import notreddit.services.ImageThumbnailService;
+import notreddit.util.ThumbnailRenderer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.*;
+
+/**
+ * Renders uploaded images of the blob storage as JPEG thumbnails of {@link #WIDTHS}, kept next to their blob and
+ * served from {@code /api/files/{hash}/thumbnails/{width}}. An image is rendered once for all widths on a bounded
+ * pool, right after its upload or at the first request of one of its thumbnails, and the most requested thumbnails
+ * stay in memory. A request that finds the pool full, or an image that can't be decoded, gets no thumbnail.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "blobs")
+public class ImageThumbnailServiceImpl implements ImageThumbnailService {
+
+    public static final int[] WIDTHS = {160, 320, 640};
+    public static final int DEFAULT_WIDTH = 320;
+
+    private static final String THUMBNAILS_PATH = "/thumbnails/";
+    private static final long RENDER_TIMEOUT_IN_SECONDS = 10;
+
+    private final BlobStorage blobStorage;
+    private final Executor executor;
+    private final Cache<String, byte[]> thumbnails;
+    private final Cache<String, Boolean> undecodable = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterWrite(1, TimeUnit.HOURS)
+            .build();
+    private final Map<String, CompletableFuture<Void>> rendering = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ImageThumbnailServiceImpl(BlobStorage blobStorage,
+                                     @Value("${app.thumbnails.threads:2}") int threads,
+                                     @Value("${app.thumbnails.queueCapacity:64}") int queueCapacity,
+                                     @Value("${app.thumbnails.cacheSizeInMb:32}") long cacheSizeInMb) {
+        this(blobStorage,
+                new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                        new LinkedBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("thumbnail-")),
+                cacheSizeInMb * 1024 * 1024);
+    }
+
+    public ImageThumbnailServiceImpl(BlobStorage blobStorage, Executor executor, long cacheSizeInBytes) {
+        this.blobStorage = blobStorage;
+        this.executor = executor;
+        this.thumbnails = Caffeine.newBuilder()
+                .maximumWeight(cacheSizeInBytes)
+                .<String, byte[]>weigher((key, thumbnail) -> thumbnail.length)
+                .build();
+    }
+
+    /**
+     * The url of the default thumbnail of an image in the blob storage, which starts rendering in the background.
+     */
+    @Override
+    public Optional<String> thumbnailUrl(String imageUrl) {
+        return blobStorage.hashOf(imageUrl)
+                .flatMap(blobStorage::find)
+                .map(blob -> {
+                    // the same image uploaded again already has its thumbnails
+                    if (Files.notExists(blobStorage.derivedPath(blob, name(DEFAULT_WIDTH)))) {
+                        render(blob);
+                    }
+                    return imageUrl + THUMBNAILS_PATH + DEFAULT_WIDTH;
+                });
+    }
+
+    @Override
+    public Optional<byte[]> thumbnail(String hash, int width) {
+        if (!isThumbnailWidth(width)) {
+            return Optional.empty();
+        }
+
+        byte[] cached = thumbnails.getIfPresent(key(hash, width));
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        Blob blob = blobStorage.find(hash).orElse(null);
+        if (blob == null
+                || blob.getContentType() == null
+                || !blob.getContentType().startsWith("image/")
+                || undecodable.getIfPresent(hash) != null) {
+            return Optional.empty();
+        }
+
+        Path path = blobStorage.derivedPath(blob, name(width));
+        if (Files.notExists(path)) {
+            try {
+                render(blob).get(RENDER_TIMEOUT_IN_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return Optional.empty();
+            } catch (ExecutionException | TimeoutException e) {
+                return Optional.empty();
+            }
+        }
+
+        try {
+            byte[] thumbnail = Files.readAllBytes(path);
+            thumbnails.put(key(hash, width), thumbnail);
+            return Optional.of(thumbnail);
+        } catch (IOException e) {
+            log.error("Reading thumbnail {} failed", path);
+            return Optional.empty();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor instanceof ExecutorService) {
+            ((ExecutorService) executor).shutdown();
+        }
+    }
+
+    // concurrent requests for thumbnails of the same image wait on the same rendering
+    private CompletableFuture<Void> render(Blob blob) {
+        String hash = blob.getHash();
+        CompletableFuture<Void> rendered = new CompletableFuture<>();
+        CompletableFuture<Void> current = rendering.putIfAbsent(hash, rendered);
+        if (current != null) {
+            return current;
+        }
+
+        try {
+            executor.execute(() -> {
+                try {
+                    renderAll(blob);
+                    rendered.complete(null);
+                } catch (Exception e) {
+                    log.error("Rendering thumbnails of blob {} failed: {}", hash, e.getMessage());
+                    undecodable.put(hash, Boolean.TRUE);
+                    rendered.completeExceptionally(e);
+                } finally {
+                    rendering.remove(hash, rendered);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rendering.remove(hash, rendered);
+            rendered.completeExceptionally(e);
+        }
+        return rendered;
+    }
+
+    private void renderAll(Blob blob) throws IOException {
+        Map<Integer, byte[]> rendered;
+        try (InputStream image = Files.newInputStream(blobStorage.path(blob))) {
+            rendered = ThumbnailRenderer.render(image, WIDTHS);
+        }
+
+        for (Map.Entry<Integer, byte[]> thumbnail : rendered.entrySet()) {
+            Path path = blobStorage.derivedPath(blob, name(thumbnail.getKey()));
+            Path temp = Files.createTempFile(path.getParent(), "thumbnail-", ".tmp");
+            try {
+                Files.write(temp, thumbnail.getValue());
+                Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            thumbnails.put(key(blob.getHash(), thumbnail.getKey()), thumbnail.getValue());
+        }
+    }
+
+    private static boolean isThumbnailWidth(int width) {
+        for (int thumbnailWidth : WIDTHS) {
+            if (thumbnailWidth == width) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String name(int width) {
+        return "thumbnail-" + width;
+    }
+
+    private static String key(String hash, int width) {
+        return hash + "-" + width;
+    }
+}
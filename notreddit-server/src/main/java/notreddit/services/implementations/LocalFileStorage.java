@@ -0,0 +1,138 @@
+package notreddit.services.implementations;
+
+import lombok.extern.slf4j.Slf4j;
+import notreddit.services.CloudStorage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Keeps uploaded files in a local directory instead of Dropbox, for development and tests.
+ * Enabled with {@code app.storage.type=local}; the urls it hands out are {@code file:} urls.
+ * Upload sessions are kept under {@code .sessions}.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "local")
+public class LocalFileStorage implements CloudStorage {
+
+    private static final String SESSIONS_DIRECTORY = ".sessions";
+
+    private final Path directory;
+    private final UploadSessionFiles sessions;
+
+    @Autowired
+    public LocalFileStorage(@Value("${app.storage.local.directory:${java.io.tmpdir}/notreddit-files}") String directory) {
+        this(Paths.get(directory));
+    }
+
+    public LocalFileStorage(Path directory) {
+        this.directory = directory.toAbsolutePath().normalize();
+        this.sessions = new UploadSessionFiles(this.directory.resolve(SESSIONS_DIRECTORY));
+    }
+
+    @Override
+    public Map<String, Object> uploadFileAndGetParams(MultipartFile file) {
+        try (InputStream content = file.getInputStream()) {
+            return uploadFileAndGetParams(content, file.getOriginalFilename(), file.getContentType());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public Map<String, Object> uploadFileAndGetParams(InputStream content, String originalFilename, String contentType) {
+        Path path = newFilePath(originalFilename);
+        try {
+            Files.copy(content, path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        log.info("File upload successful.");
+
+        return params(path, contentType);
+    }
+
+    @Override
+    public Map<String, Object> updateFile(MultipartFile newFile, String oldFileId) {
+        removeFile(oldFileId);
+        return uploadFileAndGetParams(newFile);
+    }
+
+    @Override
+    public boolean removeFile(String fileId) {
+        // only ever delete what was stored here
+        if (!owns(fileId)) {
+            return false;
+        }
+
+        try {
+            return Files.deleteIfExists(Paths.get(URI.create(fileId)).normalize());
+        } catch (IOException e) {
+            log.error("File deletion failed.");
+            return false;
+        }
+    }
+
+    @Override
+    public boolean owns(String fileUrl) {
+        try {
+            return Paths.get(URI.create(fileUrl)).normalize().startsWith(directory);
+        } catch (IllegalArgumentException | FileSystemNotFoundException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public String startUploadSession() throws IOException {
+        return sessions.start();
+    }
+
+    @Override
+    public void appendToUploadSession(String sessionId, long offset, InputStream content) throws IOException {
+        sessions.append(sessionId, offset, content);
+    }
+
+    @Override
+    public Map<String, Object> finishUploadSession(String sessionId,
+                                                   long size,
+                                                   String originalFilename,
+                                                   String contentType) throws IOException {
+        Path path = newFilePath(originalFilename);
+        Files.move(sessions.complete(sessionId, size), path);
+        log.info("File upload successful.");
+
+        return params(path, contentType);
+    }
+
+    @Override
+    public void abortUploadSession(String sessionId) {
+        sessions.abort(sessionId);
+    }
+
+    private Path newFilePath(String originalFilename) {
+        String filename = UUID.randomUUID().toString().substring(24) + Paths.get(String.valueOf(originalFilename)).getFileName();
+        return directory.resolve(filename);
+    }
+
+    private static Map<String, Object> params(Path path, String contentType) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("url", path.toUri().toString());
+        params.put("contentType", contentType);
+        return params;
+    }
+}
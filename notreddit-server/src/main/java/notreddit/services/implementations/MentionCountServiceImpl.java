@@ -0,0 +1,185 @@
+package notreddit.services.implementations;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import notreddit.auth.StompAuthenticationInterceptor;
+import notreddit.data.projections.UnreadMentionCount;
+import notreddit.repositories.MentionRepository;
+import notreddit.services.MentionCountService;
+import notreddit.web.broker.ClusterBus;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static notreddit.util.Transactions.afterCommit;
+
+/**
+ * Unread mention counts kept in memory per user, so polling them costs no query. A count is read from the database
+ * once, then moved by the mentions created, marked and deleted, and sent to {@code /topic/user/{userId}/mentions}
+ * on every change. The counts are checked against the database every few minutes, which corrects the rare delta
+ * applied to a count loaded after it was already committed.
+ * With more than one node the deltas are published to the others on the {@link ClusterBus} once committed.
+ */
+@Slf4j
+@Service
+public class MentionCountServiceImpl implements MentionCountService {
+
+    public static final String MENTIONS_TOPIC = "/mentions";
+
+    // the messages of the fan-out start with a node id, so they never start with this
+    static final String MESSAGE_PREFIX = "mention-count\n";
+
+    private static final int RECONCILE_BATCH_SIZE = 1000;
+
+    private final MentionRepository mentionRepository;
+    private final SimpMessageSendingOperations messagingTemplate;
+    private final ClusterBus clusterBus;
+    private final Cache<UUID, AtomicInteger> counts;
+
+    // a delta is applied to the node that published it before it is published
+    private final String nodeId = UUID.randomUUID().toString();
+
+    @Autowired
+    public MentionCountServiceImpl(MentionRepository mentionRepository,
+                                   SimpMessageSendingOperations messagingTemplate,
+                                   ObjectProvider<ClusterBus> clusterBus,
+                                   @Value("${app.mentions.maxCachedUsers:100000}") long maxCachedUsers) {
+        this(mentionRepository, messagingTemplate, clusterBus.getIfAvailable(), maxCachedUsers);
+    }
+
+    public MentionCountServiceImpl(MentionRepository mentionRepository,
+                                   SimpMessageSendingOperations messagingTemplate,
+                                   long maxCachedUsers) {
+        this(mentionRepository, messagingTemplate, (ClusterBus) null, maxCachedUsers);
+    }
+
+    public MentionCountServiceImpl(MentionRepository mentionRepository,
+                                   SimpMessageSendingOperations messagingTemplate,
+                                   ClusterBus clusterBus,
+                                   long maxCachedUsers) {
+        this.mentionRepository = mentionRepository;
+        this.messagingTemplate = messagingTemplate;
+        this.clusterBus = clusterBus;
+        this.counts = Caffeine.newBuilder()
+                .maximumSize(maxCachedUsers)
+                .expireAfterAccess(1, TimeUnit.HOURS)
+                .build();
+        if (clusterBus != null) {
+            clusterBus.subscribe(this::receive);
+        }
+    }
+
+    @Override
+    public int getUnreadCount(UUID userId) {
+        return counter(userId).get();
+    }
+
+    /**
+     * Moves the count of the receiver once the change is committed and sends the new count to the receiver.
+     */
+    @Override
+    public void record(UUID receiverId, int delta) {
+        if (delta == 0) {
+            return;
+        }
+
+        Runnable apply = () -> {
+            AtomicInteger counter = counts.getIfPresent(receiverId);
+            // a count read now already has the change
+            int count = counter != null
+                    ? counter.updateAndGet(current -> Math.max(current + delta, 0))
+                    : counter(receiverId).get();
+            send(receiverId, count);
+            if (clusterBus != null) {
+                clusterBus.publish(MESSAGE_PREFIX + nodeId + '\n' + receiverId + '\n' + delta);
+            }
+        };
+
+        afterCommit(apply);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.mentions.reconcileIntervalInMs:300000}")
+    public void reconcile() {
+        List<UUID> userIds = new ArrayList<>(counts.asMap().keySet());
+        int corrected = 0;
+
+        for (int from = 0; from < userIds.size(); from += RECONCILE_BATCH_SIZE) {
+            List<UUID> batch = userIds.subList(from, Math.min(from + RECONCILE_BATCH_SIZE, userIds.size()));
+
+            // taken before the query, a count moved while it runs is left for the next time
+            Map<UUID, Integer> expected = new HashMap<>();
+            for (UUID userId : batch) {
+                AtomicInteger counter = counts.getIfPresent(userId);
+                if (counter != null) {
+                    expected.put(userId, counter.get());
+                }
+            }
+
+            if (expected.isEmpty()) {
+                continue;
+            }
+
+            Map<UUID, Integer> actual = new HashMap<>();
+            for (UnreadMentionCount count : mentionRepository.countUnreadByReceiverIds(expected.keySet())) {
+                actual.put(count.getReceiverId(), (int) count.getCount());
+            }
+
+            for (Map.Entry<UUID, Integer> entry : expected.entrySet()) {
+                int count = actual.getOrDefault(entry.getKey(), 0);
+                AtomicInteger counter = counts.getIfPresent(entry.getKey());
+                if (count != entry.getValue() && counter != null && counter.compareAndSet(entry.getValue(), count)) {
+                    send(entry.getKey(), count);
+                    corrected++;
+                }
+            }
+        }
+
+        if (corrected > 0) {
+            log.info("Corrected the unread mention count of {} users", corrected);
+        }
+    }
+
+    // the count was already sent from the node of the change, the fan-out delivers it to the receiver on any node
+    private void receive(String message) {
+        if (!message.startsWith(MESSAGE_PREFIX)) {
+            return;
+        }
+
+        String[] parts = message.substring(MESSAGE_PREFIX.length()).split("\n");
+        try {
+            if (parts[0].equals(nodeId)) {
+                return;
+            }
+
+            int delta = Integer.parseInt(parts[2]);
+            AtomicInteger counter = counts.getIfPresent(UUID.fromString(parts[1]));
+            if (counter != null) {
+                counter.updateAndGet(current -> Math.max(current + delta, 0));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Invalid mention count message {}", message);
+        }
+    }
+
+    private AtomicInteger counter(UUID userId) {
+        return counts.get(userId, id -> new AtomicInteger(mentionRepository.countUnreadByReceiverId(id)));
+    }
+
+    private void send(UUID userId, int count) {
+        messagingTemplate.convertAndSend(
+                StompAuthenticationInterceptor.USER_TOPIC + userId + MENTIONS_TOPIC, count);
+    }
+}
@@ -3,12 +3,13 @@ package notreddit.services.implementations;
 import lombok.RequiredArgsConstructor;
 import notreddit.data.entities.Mention;
 import notreddit.data.entities.User;
+import notreddit.data.mappers.MentionMapper;
 import notreddit.data.models.responses.api.ApiResponse;
 import notreddit.data.models.responses.mention.MentionResponse;
 import notreddit.data.models.responses.mention.MentionResponseModel;
 import notreddit.repositories.MentionRepository;
+import notreddit.services.MentionCountService;
 import notreddit.services.MentionService;
-import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
@@ -26,11 +27,11 @@ import static notreddit.constants.ApiResponseMessages.NONEXISTENT_MENTION_OR_NOT
 public class MentionServiceImpl implements MentionService {
 
     private final MentionRepository mentionRepository;
-    private final ModelMapper mapper;
+    private final MentionCountService mentionCountService;
 
     @Override
     public int getUnreadMentionCountByUser(User user) {
-        return mentionRepository.getUnreadMentionCountByUser(user);
+        return mentionCountService.getUnreadCount(user.getId());
     }
 
     @Override
@@ -43,8 +44,12 @@ public class MentionServiceImpl implements MentionService {
                     .body(new ApiResponse(false, NONEXISTENT_MENTION_OR_NOT_RECEIVER));
         }
 
+        boolean changed = mention.isRead() != read;
         mention.setRead(read);
         mentionRepository.saveAndFlush(mention);
+        if (changed) {
+            mentionCountService.record(user.getId(), read ? -1 : 1);
+        }
 
         String message = String.format(MENTION_MARKED_AS, read ? "read" : "unread");
         return ResponseEntity
@@ -56,7 +61,7 @@ public class MentionServiceImpl implements MentionService {
     public MentionResponse getMentionByUser(User user, Pageable pageable) {
         Page<Mention> usersMentions = mentionRepository.getUsersMentions(user, pageable);
         List<MentionResponseModel> mentions = usersMentions.stream()
-                .map(m -> mapper.map(m, MentionResponseModel.class))
+                .map(MentionMapper::toModel)
                 .collect(Collectors.toList());
 
         return new MentionResponse(usersMentions.getTotalElements(), mentions);
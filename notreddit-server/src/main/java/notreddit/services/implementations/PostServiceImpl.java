@@ -1,6 +1,9 @@
 package notreddit.services.implementations;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import notreddit.cache.CacheTags;
+import notreddit.cache.TaggedCacheManager;
 import notreddit.constants.ApiResponseMessages;
 import notreddit.constants.ErrorMessages;
 import notreddit.constants.GeneralConstants;
@@ -8,63 +11,83 @@ import notreddit.data.entities.File;
 import notreddit.data.entities.Post;
 import notreddit.data.entities.Subreddit;
 import notreddit.data.entities.User;
+import notreddit.data.enums.FeedOrder;
+import notreddit.data.enums.FileStatus;
+import notreddit.data.mappers.PostMapper;
 import notreddit.data.models.requests.PostCreateRequest;
 import notreddit.data.models.requests.PostEditRequest;
 import notreddit.data.models.responses.api.ApiResponse;
 import notreddit.data.models.responses.post.PostDetailsResponseModel;
 import notreddit.data.models.responses.post.PostEditResponseModel;
 import notreddit.data.models.responses.post.PostListResponseModel;
+import notreddit.data.models.responses.post.PostsCursorResponseModel;
 import notreddit.data.models.responses.post.PostsResponseModel;
+import notreddit.data.projections.UnreadMentionCount;
 import notreddit.repositories.*;
 import notreddit.services.CloudStorage;
+import notreddit.services.MentionCountService;
 import notreddit.services.PostService;
+import notreddit.services.RankingService;
 import notreddit.services.ThumbnailService;
+import notreddit.services.TimelineService;
+import notreddit.services.UploadService;
+import notreddit.services.UploadSessionService;
+import notreddit.util.FeedCursor;
+import notreddit.util.SpooledFile;
 import notreddit.web.exceptions.AccessForbiddenException;
+import notreddit.web.exceptions.UnsupportedFeedOrderException;
 import org.modelmapper.ModelMapper;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.Caching;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.net.URI;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static notreddit.constants.GeneralConstants.*;
+import static notreddit.util.Transactions.afterCommit;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class PostServiceImpl implements PostService {
 
     private static final String MODERATOR_ROLE = "ROLE_MODERATOR";
+    private static final int MAX_FEED_PAGE_SIZE = 100;
+    private static final int UPLOADS_RETRY_AFTER_IN_SECONDS = 5;
 
     private final CloudStorage cloudStorage;
     private final ThumbnailService thumbnailService;
+    private final UploadService uploadService;
+    private final UploadSessionService uploadSessionService;
     private final SubredditRepository subredditRepository;
     private final PostRepository postRepository;
-    private final VoteRepository voteRepository;
+    private final PostVoteRepository postVoteRepository;
+    private final CommentVoteRepository commentVoteRepository;
     private final CommentRepository commentRepository;
     private final MentionRepository mentionRepository;
+    private final FileRepository fileRepository;
     private final UserRepository userRepository;
+    private final RankingService rankingService;
+    private final TimelineService timelineService;
+    private final MentionCountService mentionCountService;
+    private final TaggedCacheManager cacheManager;
     private final ModelMapper mapper;
 
     @Override
-    @Caching(evict = {
-            @CacheEvict(value = POSTS_BY_ID_CACHE, allEntries = true),
-            @CacheEvict(value = POSTS_BY_USERNAME_CACHE, allEntries = true),
-            @CacheEvict(value = POSTS_BY_SUBREDDIT_CACHE, allEntries = true),
-            @CacheEvict(value = SUBSCRIBED_POSTS_CACHE, allEntries = true),
-            @CacheEvict(value = SUBREDDITS_WITH_POST_AND_SUBSCRIBER_COUNT_CACHE, allEntries = true)
-    })
     public ResponseEntity<?> create(PostCreateRequest request, User creator) {
         Subreddit subreddit = subredditRepository.findByTitleIgnoreCase(request.getSubreddit()).orElse(null);
 
@@ -79,7 +102,13 @@ public class PostServiceImpl implements PostService {
         post.setSubreddit(subreddit);
         post.setCreatedOn(LocalDateTime.now());
 
-        if (request.getFile() == null && request.getUrl().isEmpty()) { // text upload
+        if (request.getUploadSessionId() != null) { // file streamed through an upload session
+            return request.getFile() == null && request.getUrl().isEmpty()
+                    ? createPostWithUploadSession(request, post, creator)
+                    : ResponseEntity
+                    .badRequest()
+                    .body(new ApiResponse(false, ApiResponseMessages.ONLY_ONE_UPLOADED_METHOD_ALLOWED));
+        } else if (request.getFile() == null && request.getUrl().isEmpty()) { // text upload
             return createPostWithoutFiles(post);
         } else if (request.getFile() != null && request.getUrl().isEmpty()) { // file upload
             return createPostWithUploadedFile(request, post);
@@ -93,13 +122,6 @@ public class PostServiceImpl implements PostService {
     }
 
     @Override
-    @Caching(evict = {
-            @CacheEvict(value = POSTS_BY_ID_CACHE, allEntries = true),
-            @CacheEvict(value = POSTS_BY_USERNAME_CACHE, allEntries = true),
-            @CacheEvict(value = POSTS_BY_SUBREDDIT_CACHE, allEntries = true),
-            @CacheEvict(value = SUBSCRIBED_POSTS_CACHE, allEntries = true),
-            @CacheEvict(value = SUBREDDITS_WITH_POST_AND_SUBSCRIBER_COUNT_CACHE, allEntries = true)
-    })
     public ResponseEntity<?> edit(PostEditRequest request, User user) {
         Post post = postRepository.findByIdWithFileAnSubreddit(request.getPostId()).orElse(null);
         if (post == null || !post.getCreator().getUsername().equalsIgnoreCase(user.getUsername())) {
@@ -115,6 +137,8 @@ public class PostServiceImpl implements PostService {
                     .body(new ApiResponse(false, ApiResponseMessages.NONEXISTENT_SUBREDDIT));
         }
 
+        String oldSubredditTitle = post.getSubreddit().getTitle();
+        String oldFileUrl = post.getFile() != null ? post.getFile().getUrl() : null;
         post.setTitle(request.getTitle());
         post.setContent(request.getContent());
         post.setSubreddit(subreddit);
@@ -133,19 +157,38 @@ public class PostServiceImpl implements PostService {
         }
 
         postRepository.saveAndFlush(post);
+        // a new upload always holds its own reference, even to the same content
+        String newFileUrl = post.getFile() != null ? post.getFile().getUrl() : null;
+        if (request.getFile() != null || !Objects.equals(oldFileUrl, newFileUrl)) {
+            releaseFileAfterCommit(oldFileUrl);
+        }
+        rankingService.track(post);
+        timelineService.track(post);
+
+        List<String> tags = new ArrayList<>(Arrays.asList(
+                CacheTags.post(post.getId()),
+                CacheTags.subredditPosts(oldSubredditTitle),
+                CacheTags.subredditPosts(subreddit.getTitle())));
+        // moved to another subreddit, the subscribed feeds of both change even where no cached page shows the post
+        if (oldSubredditTitle == null || !oldSubredditTitle.equalsIgnoreCase(subreddit.getTitle())) {
+            tags.addAll(subscriberTags(oldSubredditTitle));
+            tags.addAll(subscriberTags(subreddit.getTitle()));
+        }
+        cacheManager.evictTagged(tags.toArray(new String[0]));
+
         return ResponseEntity
                 .ok(new ApiResponse(true, ApiResponseMessages.SUCCESSFUL_POST_EDITION));
     }
 
+    /**
+     * Deletes the post with its comments, their mentions and all votes in one transaction, a set-based statement
+     * per table however many comments the post has. The file leaves the cloud storage and the unread mentions leave
+     * the counts of their receivers only once that is committed.
+     */
     @Override
-    @Caching(evict = {
-            @CacheEvict(value = POSTS_BY_ID_CACHE, allEntries = true),
-            @CacheEvict(value = POSTS_BY_USERNAME_CACHE, allEntries = true),
-            @CacheEvict(value = POSTS_BY_SUBREDDIT_CACHE, allEntries = true),
-            @CacheEvict(value = SUBSCRIBED_POSTS_CACHE, allEntries = true)
-    })
+    @Transactional
     public ResponseEntity<?> delete(UUID postId, User user) {
-        Post post = postRepository.findByIdWithCreatorAndComments(postId).orElse(null);
+        Post post = postRepository.findByIdEager(postId).orElse(null);
 
         if (post == null) {
             return ResponseEntity
@@ -162,23 +205,24 @@ public class PostServiceImpl implements PostService {
                     .body(new ApiResponse(false, ErrorMessages.ACCESS_FORBIDDEN));
         }
 
-        voteRepository.deleteAllByPostId(post.getId());
-        post.getComments()
-                .parallelStream()
-                .forEach(comment -> {
-                    mentionRepository.deleteAllByCommentId(comment.getId());
-                    voteRepository.deleteAllByCommentId(comment.getId());
-                    commentRepository.deleteById(comment.getId());
-                });
-
-        if (post.getFile() != null) {
-            String fileUrl = post.getFile().getUrl();
-            if (fileUrl.contains("dropbox")) { // if the file is uploaded to the cloud storage -> delete it
-                cloudStorage.removeFile(fileUrl);
-            }
-        }
+        String fileUrl = post.getFile() != null ? post.getFile().getUrl() : null;
+        List<UnreadMentionCount> unreadMentions = mentionRepository.countUnreadOfPost(post.getId());
+        mentionRepository.deleteAllOfPost(post.getId());
+        unreadMentions.forEach(unread -> mentionCountService.record(unread.getReceiverId(), (int) -unread.getCount()));
+        postVoteRepository.deleteAllOfPost(post.getId());
+        commentVoteRepository.deleteAllOfPost(post.getId());
+        commentRepository.deleteAllOfPost(post.getId());
+        fileRepository.deleteOfPost(post.getId());
+        postRepository.deleteByIdInBulk(post.getId());
+
+        releaseFileAfterCommit(fileUrl);
+        afterCommit(() -> {
+            rankingService.untrack(post.getId());
+            timelineService.untrack(post.getId());
+        });
+        evictCachedListings(post);
+        cacheManager.evictTagged(CacheTags.post(post.getId()), CacheTags.postComments(post.getId()));
 
-        postRepository.delete(post);
         return ResponseEntity
                 .ok(new ApiResponse(true, ApiResponseMessages.SUCCESSFUL_POST_DELETION));
     }
@@ -187,7 +231,7 @@ public class PostServiceImpl implements PostService {
     @Cacheable(value = POSTS_BY_ID_CACHE, key = "#id")
     public PostDetailsResponseModel findById(UUID id) {
         Post post = postRepository.findByIdEager(id).orElseThrow(NoSuchElementException::new);
-        return mapper.map(post, PostDetailsResponseModel.class);
+        return PostMapper.toDetailsModel(post);
     }
 
     @Override
@@ -200,11 +244,7 @@ public class PostServiceImpl implements PostService {
     public PostsResponseModel allPosts(Pageable pageable) {
         Page<Post> allPosts = postRepository.findAllPageable(pageable);
         List<PostListResponseModel> mappedPosts = allPosts.get()
-                .map(p -> {
-                    PostListResponseModel model = mapper.map(p, PostListResponseModel.class);
-                    model.setCommentCount(p.getComments().size());
-                    return model;
-                })
+                .map(PostMapper::toListModel)
                 .collect(Collectors.toList());
 
         return new PostsResponseModel(allPosts.getTotalElements(), mappedPosts);
@@ -243,6 +283,93 @@ public class PostServiceImpl implements PostService {
         return getPostsResponseModel(allBySubredditTitle);
     }
 
+    @Override
+    public PostsCursorResponseModel allPostsAfter(String cursor, FeedOrder order, int size) {
+        FeedCursor position = FeedCursor.decode(cursor, order);
+        int pageSize = feedPageSize(size);
+        Pageable limit = feedLimit(pageSize);
+
+        switch (order) {
+            case HOT:
+                return getRankedPostsCursorResponseModel(rankingService.hotPosts(null, position, pageSize + 1), pageSize);
+            case TOP:
+                return getPostsCursorResponseModel(
+                        postRepository.findTopIds(position.getScore(), position.getId(), limit), order, pageSize);
+            default:
+                return timelineService.newestPosts(null, position, pageSize + 1)
+                        .map(positions -> getRankedPostsCursorResponseModel(positions, pageSize))
+                        .orElseGet(() -> getPostsCursorResponseModel(postRepository.findNewestIds(
+                                position.getCreatedOn(), position.getId(), limit), order, pageSize));
+        }
+    }
+
+    @Override
+    public PostsCursorResponseModel subscribedPostsAfter(User user, String cursor, FeedOrder order, int size) {
+        FeedCursor position = FeedCursor.decode(cursor, order);
+        int pageSize = feedPageSize(size);
+        Pageable limit = feedLimit(pageSize);
+
+        user = userRepository.getWithSubscriptions(user);
+        Set<Subreddit> subscriptions = user.getSubscriptions();
+        if (subscriptions.isEmpty()) {
+            return new PostsCursorResponseModel(new ArrayList<>(), null);
+        }
+
+        List<String> titles = subscriptions.stream().map(Subreddit::getTitle).collect(Collectors.toList());
+        switch (order) {
+            case HOT:
+                return getRankedPostsCursorResponseModel(
+                        rankingService.hotPosts(titles, position, pageSize + 1), pageSize);
+            case TOP:
+                return getPostsCursorResponseModel(postRepository.findTopSubscribedIds(
+                        subscriptions, position.getScore(), position.getId(), limit), order, pageSize);
+            default:
+                return timelineService.newestPosts(titles, position, pageSize + 1)
+                        .map(positions -> getRankedPostsCursorResponseModel(positions, pageSize))
+                        .orElseGet(() -> getPostsCursorResponseModel(postRepository.findNewestSubscribedIds(
+                                subscriptions, position.getCreatedOn(), position.getId(), limit), order, pageSize));
+        }
+    }
+
+    @Override
+    public PostsCursorResponseModel findAllByUsernameAfter(String username, String cursor, FeedOrder order, int size) {
+        if (order == FeedOrder.HOT) {
+            throw new UnsupportedFeedOrderException(ErrorMessages.UNSUPPORTED_FEED_ORDER);
+        }
+
+        FeedCursor position = FeedCursor.decode(cursor, order);
+        int pageSize = feedPageSize(size);
+        Pageable limit = feedLimit(pageSize);
+        username = username.toLowerCase();
+
+        List<UUID> postIds = order == FeedOrder.TOP
+                ? postRepository.findTopIdsByUsername(username, position.getScore(), position.getId(), limit)
+                : postRepository.findNewestIdsByUsername(username, position.getCreatedOn(), position.getId(), limit);
+        return getPostsCursorResponseModel(postIds, order, pageSize);
+    }
+
+    @Override
+    public PostsCursorResponseModel findAllBySubredditAfter(String subreddit, String cursor, FeedOrder order, int size) {
+        FeedCursor position = FeedCursor.decode(cursor, order);
+        int pageSize = feedPageSize(size);
+        Pageable limit = feedLimit(pageSize);
+        String title = subreddit.toLowerCase();
+
+        switch (order) {
+            case HOT:
+                return getRankedPostsCursorResponseModel(rankingService.hotPosts(
+                        Collections.singletonList(title), position, pageSize + 1), pageSize);
+            case TOP:
+                return getPostsCursorResponseModel(postRepository.findTopIdsBySubredditTitle(
+                        title, position.getScore(), position.getId(), limit), order, pageSize);
+            default:
+                return timelineService.newestPosts(Collections.singletonList(title), position, pageSize + 1)
+                        .map(positions -> getRankedPostsCursorResponseModel(positions, pageSize))
+                        .orElseGet(() -> getPostsCursorResponseModel(postRepository.findNewestIdsBySubredditTitle(
+                                title, position.getCreatedOn(), position.getId(), limit), order, pageSize));
+        }
+    }
+
     @Override
     public PostsResponseModel findPostsByVoteChoice(User user, String username, int choice, Pageable pageable) {
         if (!user.getUsername().equalsIgnoreCase(username)) {
@@ -257,8 +384,23 @@ public class PostServiceImpl implements PostService {
         return getPostsResponseModel(postIdsByVoteChoice.getTotalElements(), posts);
     }
 
+    /**
+     * The counts change in the transactions of the comments, this only repairs the ones changed outside of them,
+     * like by hand in the database.
+     */
+    @Override
+    @Scheduled(initialDelay = 60 * 1000, fixedDelay = 60 * 60 * 1000) // a minute after startup, then every hour
+    public void reconcileCommentCounts() {
+        List<String> repairedPostIds = postRepository.reconcileCommentCounts();
+        if (!repairedPostIds.isEmpty()) {
+            cacheManager.evictTagged(repairedPostIds.stream().map(CacheTags::post).toArray(String[]::new));
+        }
+        log.info("Scheduled task executed: repaired comment count of {} posts at: {}",
+                repairedPostIds.size(), LocalDateTime.now());
+    }
+
     private ResponseEntity<?> createPostWithoutFiles(Post post) {
-        postRepository.saveAndFlush(post);
+        saveNewPost(post);
         return getCreatedResponseEntityWithPath();
     }
 
@@ -270,9 +412,47 @@ public class PostServiceImpl implements PostService {
                     .body(new ApiResponse(false, ApiResponseMessages.FILE_SIZE_OVER_10MB));
         }
 
-        File file = uploadFile(request.getFile());
+        SpooledFile upload = uploadService.reserve(request.getFile()).orElse(null);
+        if (upload == null) {
+            return ResponseEntity
+                    .status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(UPLOADS_RETRY_AFTER_IN_SECONDS))
+                    .body(new ApiResponse(false, ApiResponseMessages.UPLOADS_BUSY));
+        }
+
+        // the post is saved right away, its file is filled in once the upload finishes
+        File file = new File();
+        file.setStatus(FileStatus.PROCESSING);
         post.addFile(file);
-        postRepository.saveAndFlush(post);
+        try {
+            saveNewPost(post);
+        } catch (RuntimeException e) {
+            uploadService.cancel(upload);
+            throw e;
+        }
+        uploadService.start(post, upload);
+
+        URI location = ServletUriComponentsBuilder
+                .fromCurrentContextPath().path("/api/post/file-status/{id}")
+                .buildAndExpand(post.getId()).toUri();
+
+        return ResponseEntity
+                .created(location)
+                .body(new ApiResponse(true, ApiResponseMessages.SUCCESSFUL_POST_CREATION));
+    }
+
+    private ResponseEntity<?> createPostWithUploadSession(PostCreateRequest request, Post post, User creator) {
+        Map<String, Object> params = uploadSessionService
+                .takeCompleted(request.getUploadSessionId(), creator)
+                .orElse(null);
+        if (params == null) {
+            return ResponseEntity
+                    .badRequest()
+                    .body(new ApiResponse(false, ApiResponseMessages.UPLOAD_SESSION_NOT_COMPLETED));
+        }
+
+        post.addFile(toFile(params));
+        saveNewPost(post);
 
         return getCreatedResponseEntityWithPath();
     }
@@ -283,7 +463,7 @@ public class PostServiceImpl implements PostService {
         file.setThumbnailUrl(thumbnailService.generateThumbnailUrl(request.getUrl()));
 
         post.addFile(file);
-        postRepository.saveAndFlush(post);
+        saveNewPost(post);
 
         return getCreatedResponseEntityWithPath();
     }
@@ -301,40 +481,76 @@ public class PostServiceImpl implements PostService {
         file.setThumbnailUrl(thumbnailService.generateThumbnailUrl(request.getUrl()));
     }
 
+    // the replaced file is released by the caller once the new one is committed
     private void editPostWithUploadedFile(PostEditRequest request, Post post) {
         if (post.getFile() != null) {
             File file = post.getFile();
-            Map<String, Object> params = cloudStorage.updateFile(request.getFile(), post.getFile().getUrl());
+            Map<String, Object> params = cloudStorage.uploadFileAndGetParams(request.getFile());
             String fileUrl = params.get("url").toString();
 
             file.setUrl(fileUrl);
-
-            // if file is not an image -> create thumbnail, else use the image
-            if (params.get("contentType").toString().contains("image")) {
-                file.setThumbnailUrl(fileUrl);
-            } else {
-                file.setThumbnailUrl(thumbnailService.generateThumbnailUrl(fileUrl));
-            }
+            file.setThumbnailUrl(thumbnailUrlOf(params));
         } else {
             File file = uploadFile(request.getFile());
             post.addFile(file);
         }
     }
 
+    private void releaseFileAfterCommit(String fileUrl) {
+        afterCommit(() -> {
+            if (fileUrl != null && cloudStorage.owns(fileUrl)) { // if the file is uploaded to the cloud storage -> delete it
+                cloudStorage.removeFile(fileUrl);
+            }
+        });
+    }
+
     private File uploadFile(MultipartFile multipartFile) {
-        Map<String, Object> params = cloudStorage.uploadFileAndGetParams(multipartFile);
+        return toFile(cloudStorage.uploadFileAndGetParams(multipartFile));
+    }
+
+    private File toFile(Map<String, Object> params) {
         String fileUrl = params.get("url").toString();
 
         File file = new File();
         file.setUrl(fileUrl);
+        file.setThumbnailUrl(thumbnailUrlOf(params));
 
+        return file;
+    }
+
+    // if file is not an image -> create thumbnail, else use a rendered thumbnail of the image or the image itself
+    private String thumbnailUrlOf(Map<String, Object> params) {
+        String fileUrl = params.get("url").toString();
         if (params.get("contentType").toString().contains("image")) {
-            file.setThumbnailUrl(fileUrl);
-        } else {
-            file.setThumbnailUrl(thumbnailService.generateThumbnailUrl(fileUrl));
+            return thumbnailService.generateImageThumbnailUrl(fileUrl).orElse(fileUrl);
         }
+        return thumbnailService.generateThumbnailUrl(fileUrl);
+    }
 
-        return file;
+    private void saveNewPost(Post post) {
+        postRepository.saveAndFlush(post);
+        rankingService.track(post);
+        timelineService.track(post);
+        evictCachedListings(post);
+    }
+
+    /**
+     * Evicts the cached subreddit, user and subscribed listings a created or deleted post shifts. The subreddit's
+     * tag also takes the cached post counts of the subreddits with it.
+     */
+    private void evictCachedListings(Post post) {
+        String subredditTitle = post.getSubreddit().getTitle();
+        List<String> tags = subscriberTags(subredditTitle);
+        tags.add(CacheTags.subredditPosts(subredditTitle));
+        tags.add(CacheTags.userPosts(post.getCreator().getUsername()));
+        cacheManager.evictTagged(tags.toArray(new String[0]));
+    }
+
+    private List<String> subscriberTags(String subredditTitle) {
+        return userRepository.findSubscriberIdsBySubredditTitle(subredditTitle)
+                .stream()
+                .map(CacheTags::subscriber)
+                .collect(Collectors.toList());
     }
 
     private ResponseEntity<?> getCreatedResponseEntityWithPath() {
@@ -351,11 +567,7 @@ public class PostServiceImpl implements PostService {
         List<Post> posts = getPostsOrEmptyList(postIds.getContent(), postIds.getPageable());
 
         List<PostListResponseModel> mappedPosts = posts.stream()
-                .map(p -> {
-                    PostListResponseModel model = mapper.map(p, PostListResponseModel.class);
-                    model.setCommentCount(p.getComments().size());
-                    return model;
-                })
+                .map(PostMapper::toListModel)
                 .collect(Collectors.toList());
 
         return new PostsResponseModel(postIds.getTotalElements(), mappedPosts);
@@ -363,16 +575,63 @@ public class PostServiceImpl implements PostService {
 
     private PostsResponseModel getPostsResponseModel(long totalElements, List<Post> posts) {
         List<PostListResponseModel> mappedPosts = posts.stream()
-                .map(p -> {
-                    PostListResponseModel model = mapper.map(p, PostListResponseModel.class);
-                    model.setCommentCount(p.getComments().size());
-                    return model;
-                })
+                .map(PostMapper::toListModel)
                 .collect(Collectors.toList());
 
         return new PostsResponseModel(totalElements, mappedPosts);
     }
 
+    private PostsCursorResponseModel getPostsCursorResponseModel(List<UUID> postIds, FeedOrder order, int pageSize) {
+        return getPostsCursorResponseModel(postIds, pageSize, post -> FeedCursor.after(order, post));
+    }
+
+    // the cursor is the position in the ranking/timeline, a hot score may already count votes that aren't flushed yet
+    private PostsCursorResponseModel getRankedPostsCursorResponseModel(List<FeedCursor> positions, int pageSize) {
+        Map<UUID, FeedCursor> positionsById = new HashMap<>();
+        List<UUID> postIds = new ArrayList<>(positions.size());
+        for (FeedCursor position : positions) {
+            positionsById.put(position.getId(), position);
+            postIds.add(position.getId());
+        }
+
+        return getPostsCursorResponseModel(postIds, pageSize, post -> positionsById.get(post.getId()));
+    }
+
+    /**
+     * The id lookups fetch one post more than asked for, only to tell if there is a next page.
+     * Posts deleted in between the lookup and the fetch are skipped.
+     */
+    private PostsCursorResponseModel getPostsCursorResponseModel(List<UUID> postIds,
+                                                                 int pageSize,
+                                                                 Function<Post, FeedCursor> cursorOf) {
+        boolean hasNext = postIds.size() > pageSize;
+        List<UUID> pageIds = hasNext ? postIds.subList(0, pageSize) : postIds;
+
+        Map<UUID, Post> postsById = new HashMap<>();
+        getPostsOrEmptyList(pageIds, Pageable.unpaged()).forEach(post -> postsById.put(post.getId(), post));
+
+        List<PostListResponseModel> mappedPosts = new ArrayList<>(pageIds.size());
+        Post last = null;
+        for (UUID id : pageIds) {
+            Post post = postsById.get(id);
+            if (post != null) {
+                mappedPosts.add(PostMapper.toListModel(post));
+                last = post;
+            }
+        }
+
+        String next = hasNext && last != null ? cursorOf.apply(last).encode() : null;
+        return new PostsCursorResponseModel(mappedPosts, next);
+    }
+
+    private static int feedPageSize(int size) {
+        return Math.min(Math.max(size, 1), MAX_FEED_PAGE_SIZE);
+    }
+
+    private static Pageable feedLimit(int pageSize) {
+        return PageRequest.of(0, pageSize + 1);
+    }
+
     private Pageable convertToNativePageRequest(Pageable pageable) {
         if (pageable.getSort().isSorted()) {
             Sort.Order createdOn = pageable.getSort().getOrderFor("createdOn");
@@ -0,0 +1,60 @@
+package notreddit.services.implementations;
+
+import lombok.RequiredArgsConstructor;
+import notreddit.data.models.responses.post.PostCountsUpdate;
+import notreddit.services.PostUpdateService;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static notreddit.util.Transactions.afterCommit;
+
+/**
+ * Live vote and comment counts of posts. The committed deltas of a post are added up and sent to
+ * {@code /topic/post/{postId}} as one {@link PostCountsUpdate} per interval, so a post gets a few frames a second
+ * at most, however fast it is voted on. Posts nobody votes on or comments send nothing.
+ */
+@Service
+@RequiredArgsConstructor
+public class PostUpdateServiceImpl implements PostUpdateService {
+
+    public static final String POST_TOPIC = "/topic/post/";
+
+    private final SimpMessageSendingOperations messagingTemplate;
+
+    private final Map<UUID, PostCountsUpdate> pending = new ConcurrentHashMap<>();
+
+    @Override
+    public void recordVotes(UUID postId, int upvotes, int downvotes) {
+        record(new PostCountsUpdate(postId, upvotes, downvotes, 0));
+    }
+
+    @Override
+    public void recordComments(UUID postId, int comments) {
+        record(new PostCountsUpdate(postId, 0, 0, comments));
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.posts.updateIntervalInMs:250}")
+    public void publish() {
+        for (UUID postId : pending.keySet()) {
+            // a delta merged after the removal waits for the next interval
+            PostCountsUpdate update = pending.remove(postId);
+            if (update != null && !update.isEmpty()) {
+                messagingTemplate.convertAndSend(POST_TOPIC + postId, update);
+            }
+        }
+    }
+
+    private void record(PostCountsUpdate delta) {
+        if (delta.isEmpty()) {
+            return;
+        }
+
+        afterCommit(() -> pending.merge(delta.getPostId(), delta, PostCountsUpdate::plus));
+    }
+}
@@ -0,0 +1,266 @@
+package notreddit.services.implementations;
+
+import lombok.extern.slf4j.Slf4j;
+import notreddit.data.models.responses.PresenceSnapshot;
+import notreddit.services.PresenceService;
+import notreddit.web.ChatRooms;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.security.Principal;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import java.util.regex.Pattern;
+
+/**
+ * Who is on which chat room or subreddit page. A session is on a place while it is subscribed to the place's
+ * presence topic, {@code /topic/presence/rooms/{room}} or {@code /topic/presence/subreddits/{subreddit}}, and on
+ * a chat room while it is subscribed to the room's topic as well. Every message of a session, its heartbeats
+ * included, keeps it alive. Sessions not heard of for longer than the expiry leave their places but keep their
+ * subscriptions, so they are back on them with their next message, until they disconnect. The counts of the places
+ * that changed are sent to their presence topics once per interval, so a storm of connects costs one message per
+ * place and subscriber.
+ */
+@Slf4j
+@Service
+public class PresenceServiceImpl implements PresenceService {
+
+    public static final String PRESENCE_TOPIC = "/topic/presence/";
+
+    private static final Pattern PLACE = Pattern.compile("(rooms|subreddits)/[^/]{1,64}");
+    private static final String ROOMS = "rooms/";
+
+    private final SimpMessageSendingOperations messagingTemplate;
+    private final long expiryInMs;
+    private final LongSupplier clock;
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> places = new ConcurrentHashMap<>();
+    private final Set<String> changed = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public PresenceServiceImpl(SimpMessageSendingOperations messagingTemplate,
+                               @Value("${app.presence.expiryInMs:30000}") long expiryInMs) {
+        this(messagingTemplate, expiryInMs, System::currentTimeMillis);
+    }
+
+    public PresenceServiceImpl(SimpMessageSendingOperations messagingTemplate, long expiryInMs, LongSupplier clock) {
+        this.messagingTemplate = messagingTemplate;
+        this.expiryInMs = expiryInMs;
+        this.clock = clock;
+    }
+
+    /**
+     * The place of a presence or chat room topic, or null when it is no place's.
+     */
+    public static String placeOf(String destination) {
+        String room = ChatRooms.roomOf(destination);
+        if (room != null) {
+            return ROOMS + room;
+        }
+        if (destination != null && destination.startsWith(PRESENCE_TOPIC)) {
+            String place = destination.substring(PRESENCE_TOPIC.length());
+            if (!isValidPlace(place)) {
+                return null;
+            }
+            return !place.startsWith(ROOMS) || ChatRooms.isValid(place.substring(ROOMS.length())) ? place : null;
+        }
+        return null;
+    }
+
+    public static boolean isValidPlace(String place) {
+        return place != null && PLACE.matcher(place).matches();
+    }
+
+    @Override
+    public void subscribe(String sessionId,
+                          String subscriptionId,
+                          String destination,
+                          Principal user,
+                          Map<String, Object> sessionAttributes) {
+        String place = placeOf(destination);
+        if (place == null || sessionId == null || subscriptionId == null) {
+            return;
+        }
+
+        Session session = sessions.computeIfAbsent(sessionId,
+                id -> new Session(user, sessionAttributes, clock.getAsLong()));
+        synchronized (session) {
+            session.lastSeen = clock.getAsLong();
+            revive(sessionId, session);
+            if (session.subscriptions.put(subscriptionId, place) == null && session.places.add(place)) {
+                enter(place, sessionId);
+            }
+        }
+    }
+
+    @Override
+    public void unsubscribe(String sessionId, String subscriptionId) {
+        Session session = sessions.get(sessionId);
+        if (session == null || subscriptionId == null) {
+            return;
+        }
+
+        synchronized (session) {
+            String place = session.subscriptions.remove(subscriptionId);
+            // the session may still be on the place with another subscription, or have left it when it went quiet
+            if (place != null && !session.subscriptions.containsValue(place) && session.places.remove(place)) {
+                leave(place, sessionId);
+            }
+        }
+    }
+
+    @Override
+    public void disconnect(String sessionId) {
+        Session session = sessions.remove(sessionId);
+        if (session == null) {
+            return;
+        }
+
+        synchronized (session) {
+            session.places.forEach(place -> leave(place, sessionId));
+            session.places.clear();
+            session.subscriptions.clear();
+        }
+    }
+
+    @Override
+    public void touch(String sessionId) {
+        Session session = sessions.get(sessionId);
+        if (session != null) {
+            session.lastSeen = clock.getAsLong();
+            if (session.away) {
+                synchronized (session) {
+                    revive(sessionId, session);
+                }
+            }
+        }
+    }
+
+    @Override
+    public int countOnline(String place) {
+        Set<String> present = places.get(place);
+        return present == null ? 0 : present.size();
+    }
+
+    /**
+     * The names of the users on the place, sorted, without the anonymous sessions and each user once.
+     */
+    @Override
+    public List<String> findOnlineUsers(String place, int limit) {
+        Set<String> present = places.get(place);
+        if (present == null) {
+            return Collections.emptyList();
+        }
+
+        SortedSet<String> users = new TreeSet<>();
+        for (String sessionId : present) {
+            Session session = sessions.get(sessionId);
+            String username = session == null ? null : session.username();
+            if (username != null) {
+                users.add(username);
+            }
+        }
+        List<String> online = new ArrayList<>(users);
+        return online.size() > limit ? online.subList(0, limit) : online;
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.presence.snapshotIntervalInMs:5000}")
+    public void publish() {
+        expire();
+
+        for (String place : changed) {
+            changed.remove(place);
+            messagingTemplate.convertAndSend(PRESENCE_TOPIC + place, new PresenceSnapshot(place, countOnline(place)));
+        }
+    }
+
+    private void expire() {
+        long oldest = clock.getAsLong() - expiryInMs;
+        int expired = 0;
+        for (Map.Entry<String, Session> entry : sessions.entrySet()) {
+            Session session = entry.getValue();
+            if (session.away || session.lastSeen >= oldest) {
+                continue;
+            }
+
+            synchronized (session) {
+                // a message may have come in since
+                if (!session.away && session.lastSeen < oldest) {
+                    session.away = true;
+                    session.places.forEach(place -> leave(place, entry.getKey()));
+                    session.places.clear();
+                    expired++;
+                }
+            }
+        }
+
+        if (expired > 0) {
+            log.debug("{} sessions without heartbeats left their places", expired);
+        }
+    }
+
+    // called holding the session's lock
+    private void revive(String sessionId, Session session) {
+        if (!session.away) {
+            return;
+        }
+
+        session.away = false;
+        for (String place : session.subscriptions.values()) {
+            if (session.places.add(place)) {
+                enter(place, sessionId);
+            }
+        }
+    }
+
+    private void enter(String place, String sessionId) {
+        places.compute(place, (key, present) -> {
+            if (present == null) {
+                present = ConcurrentHashMap.newKeySet();
+            }
+            present.add(sessionId);
+            return present;
+        });
+        changed.add(place);
+    }
+
+    private void leave(String place, String sessionId) {
+        places.computeIfPresent(place, (key, present) -> {
+            present.remove(sessionId);
+            return present.isEmpty() ? null : present;
+        });
+        changed.add(place);
+    }
+
+    private static final class Session {
+
+        private final Principal user;
+        // the chat takes the name of anonymous users from what they send when joining
+        private final Map<String, Object> attributes;
+        private final Map<String, String> subscriptions = new HashMap<>();
+        private final Set<String> places = new HashSet<>();
+        private volatile long lastSeen;
+        // not heard of for longer than the expiry, on no place until it is
+        private volatile boolean away;
+
+        private Session(Principal user, Map<String, Object> attributes, long lastSeen) {
+            this.user = user;
+            this.attributes = attributes;
+            this.lastSeen = lastSeen;
+        }
+
+        private String username() {
+            if (user != null) {
+                return user.getName();
+            }
+            Object username = attributes == null ? null : attributes.get("username");
+            return username instanceof String ? (String) username : null;
+        }
+    }
+}
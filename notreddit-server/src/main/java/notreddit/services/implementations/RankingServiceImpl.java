@@ -0,0 +1,272 @@
+package notreddit.services.implementations;
+
+import lombok.extern.slf4j.Slf4j;
+import notreddit.data.entities.Post;
+import notreddit.data.mappers.TimeMapper;
+import notreddit.data.projections.PostRankRow;
+import notreddit.repositories.PostRepository;
+import notreddit.services.RankingService;
+import notreddit.util.FeedCursor;
+import notreddit.web.broker.ClusterBus;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import static notreddit.util.Transactions.afterCommit;
+
+/**
+ * Keeps the posts of the last {@link #HOT_WINDOW_IN_DAYS} days sorted by their hot score in one skip list per
+ * subreddit, so a hot page is a seek into the lists instead of a sort over the posts table.
+ * Committed votes move a post in place; the lists are rebuilt from the database counts, with the votes not yet flushed
+ * to them, at startup and every hour.
+ * With more than one node the tracked posts and the votes are published to the others on the {@link ClusterBus}
+ * once committed.
+ */
+@Slf4j
+@Service
+public class RankingServiceImpl implements RankingService {
+
+    // the messages of the fan-out start with a node id, so they never start with this
+    static final String MESSAGE_PREFIX = "ranking\n";
+
+    private static final int HOT_WINDOW_IN_DAYS = 30;
+    // the same decay reddit used: 10x the score is worth as much as being 12.5 hours newer
+    private static final long HOT_EPOCH = 1134028003L;
+    private static final double HOT_DECAY_IN_SECONDS = 45000d;
+
+    private final PostRepository postRepository;
+    private final ClusterBus clusterBus;
+
+    private final Map<UUID, RankedPost> posts = new ConcurrentHashMap<>();
+    private final Map<String, NavigableSet<RankedPost>> bySubreddit = new ConcurrentHashMap<>();
+
+    // a vote is counted by the node that published it before it is published
+    private final String nodeId = UUID.randomUUID().toString();
+
+    @Autowired
+    public RankingServiceImpl(PostRepository postRepository, ObjectProvider<ClusterBus> clusterBus) {
+        this(postRepository, clusterBus.getIfAvailable());
+    }
+
+    public RankingServiceImpl(PostRepository postRepository) {
+        this(postRepository, (ClusterBus) null);
+    }
+
+    public RankingServiceImpl(PostRepository postRepository, ClusterBus clusterBus) {
+        this.postRepository = postRepository;
+        this.clusterBus = clusterBus;
+        if (clusterBus != null) {
+            clusterBus.subscribe(this::receive);
+        }
+    }
+
+    public static double hotScore(int upvotes, int downvotes, LocalDateTime createdOn) {
+        int score = upvotes - downvotes;
+        double order = Math.log10(Math.max(Math.abs(score), 1));
+        long seconds = TimeMapper.toEpochSecond(createdOn) - HOT_EPOCH;
+        return Math.signum(score) * order + seconds / HOT_DECAY_IN_SECONDS;
+    }
+
+    @Override
+    @PostConstruct
+    @Scheduled(initialDelay = 60 * 60 * 1000, fixedDelay = 60 * 60 * 1000) // every hour
+    public void rebuild() {
+        LocalDateTime since = LocalDateTime.now().minusDays(HOT_WINDOW_IN_DAYS);
+
+        List<PostRankRow> rows = postRepository.findRankRowsCreatedSince(since);
+        for (PostRankRow row : rows) {
+            put(new RankedPost(row.getId(), row.getSubredditTitle().toLowerCase(),
+                    row.getUpvotes(), row.getDownvotes(), row.getCreatedOn()));
+        }
+
+        posts.values().stream()
+                .filter(post -> post.createdOn.isBefore(since))
+                .map(post -> post.id)
+                .forEach(this::doUntrack);
+
+        log.info("Scheduled task executed: ranked {} posts at: {}", posts.size(), LocalDateTime.now());
+    }
+
+    @Override
+    public void track(Post post) {
+        RankedPost ranked = track(new RankedPost(post.getId(), post.getSubreddit().getTitle().toLowerCase(),
+                post.getUpvotes(), post.getDownvotes(), post.getCreatedOn()));
+        publish("track\n" + ranked.id + '\n' + ranked.subreddit + '\n'
+                + ranked.upvotes + '\n' + ranked.downvotes + '\n' + ranked.createdOn);
+    }
+
+    @Override
+    public void untrack(UUID postId) {
+        doUntrack(postId);
+        publish("untrack\n" + postId);
+    }
+
+    @Override
+    public void recordVote(UUID postId, int upvotes, int downvotes) {
+        doRecordVote(postId, upvotes, downvotes);
+        publish("vote\n" + postId + '\n' + upvotes + '\n' + downvotes);
+    }
+
+    /**
+     * Merges the hot lists of the given subreddits, or of all subreddits when {@code subreddits} is null,
+     * and returns the positions of the first {@code limit} posts ranked below {@code after}.
+     */
+    @Override
+    public List<FeedCursor> hotPosts(Collection<String> subreddits, FeedCursor after, int limit) {
+        RankedPost from = new RankedPost(after.getId(), after.getHot());
+
+        Collection<NavigableSet<RankedPost>> lists = new ArrayList<>();
+        if (subreddits == null) {
+            lists.addAll(bySubreddit.values());
+        } else {
+            for (String subreddit : subreddits) {
+                NavigableSet<RankedPost> list = bySubreddit.get(subreddit.toLowerCase());
+                if (list != null) {
+                    lists.add(list);
+                }
+            }
+        }
+
+        PriorityQueue<Head> heads = new PriorityQueue<>(Math.max(lists.size(), 1));
+        for (NavigableSet<RankedPost> list : lists) {
+            Head.next(list.tailSet(from, false).iterator()).ifPresent(heads::add);
+        }
+
+        List<FeedCursor> page = new ArrayList<>(limit);
+        while (page.size() < limit && !heads.isEmpty()) {
+            Head head = heads.poll();
+            page.add(FeedCursor.hot(head.post.hot, head.post.id));
+            Head.next(head.rest).ifPresent(heads::add);
+        }
+
+        return page;
+    }
+
+    // an edited post keeps the votes counted so far
+    private RankedPost track(RankedPost post) {
+        return posts.compute(post.id, (id, current) -> replace(current, current == null ? post
+                : new RankedPost(id, post.subreddit, current.upvotes, current.downvotes, current.createdOn)));
+    }
+
+    private void doUntrack(UUID postId) {
+        posts.computeIfPresent(postId, (id, current) -> replace(current, null));
+    }
+
+    private void doRecordVote(UUID postId, int upvotes, int downvotes) {
+        posts.computeIfPresent(postId, (id, current) -> replace(current, new RankedPost(id, current.subreddit,
+                current.upvotes + upvotes, current.downvotes + downvotes, current.createdOn)));
+    }
+
+    private void publish(String message) {
+        if (clusterBus != null) {
+            afterCommit(() -> clusterBus.publish(MESSAGE_PREFIX + nodeId + '\n' + message));
+        }
+    }
+
+    private void receive(String message) {
+        if (!message.startsWith(MESSAGE_PREFIX)) {
+            return;
+        }
+
+        String[] parts = message.substring(MESSAGE_PREFIX.length()).split("\n");
+        try {
+            if (parts[0].equals(nodeId)) {
+                return;
+            }
+
+            UUID postId = UUID.fromString(parts[2]);
+            if (parts[1].equals("track")) {
+                track(new RankedPost(postId, parts[3], Integer.parseInt(parts[4]), Integer.parseInt(parts[5]),
+                        LocalDateTime.parse(parts[6])));
+            } else if (parts[1].equals("untrack")) {
+                doUntrack(postId);
+            } else if (parts[1].equals("vote")) {
+                doRecordVote(postId, Integer.parseInt(parts[3]), Integer.parseInt(parts[4]));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Invalid ranking message {}", message);
+        }
+    }
+
+    private void put(RankedPost ranked) {
+        posts.compute(ranked.id, (id, current) -> replace(current, ranked));
+    }
+
+    // only called inside compute() of the post's entry, so a post is never in two places at once
+    private RankedPost replace(RankedPost current, RankedPost ranked) {
+        if (current != null) {
+            NavigableSet<RankedPost> list = bySubreddit.get(current.subreddit);
+            if (list != null) {
+                list.remove(current);
+            }
+        }
+
+        if (ranked != null) {
+            bySubreddit.computeIfAbsent(ranked.subreddit, s -> new ConcurrentSkipListSet<>()).add(ranked);
+        }
+
+        return ranked;
+    }
+
+    private static final class RankedPost implements Comparable<RankedPost> {
+
+        private final UUID id;
+        private final String subreddit;
+        private final int upvotes;
+        private final int downvotes;
+        private final LocalDateTime createdOn;
+        private final double hot;
+
+        private RankedPost(UUID id, String subreddit, int upvotes, int downvotes, LocalDateTime createdOn) {
+            this.id = id;
+            this.subreddit = subreddit;
+            this.upvotes = upvotes;
+            this.downvotes = downvotes;
+            this.createdOn = createdOn;
+            this.hot = hotScore(upvotes, downvotes, createdOn);
+        }
+
+        // a position to seek from
+        private RankedPost(UUID id, double hot) {
+            this.id = id;
+            this.subreddit = null;
+            this.upvotes = 0;
+            this.downvotes = 0;
+            this.createdOn = null;
+            this.hot = hot;
+        }
+
+        @Override
+        public int compareTo(RankedPost other) {
+            int byHot = Double.compare(other.hot, this.hot);
+            return byHot != 0 ? byHot : other.id.compareTo(this.id);
+        }
+    }
+
+    private static final class Head implements Comparable<Head> {
+
+        private final RankedPost post;
+        private final Iterator<RankedPost> rest;
+
+        private Head(RankedPost post, Iterator<RankedPost> rest) {
+            this.post = post;
+            this.rest = rest;
+        }
+
+        private static Optional<Head> next(Iterator<RankedPost> iterator) {
+            return iterator.hasNext() ? Optional.of(new Head(iterator.next(), iterator)) : Optional.empty();
+        }
+
+        @Override
+        public int compareTo(Head other) {
+            return post.compareTo(other.post);
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package notreddit.services.implementations;
 
 import lombok.RequiredArgsConstructor;
+import notreddit.cache.CacheTags;
+import notreddit.cache.TaggedCacheManager;
 import notreddit.data.entities.Subreddit;
 import notreddit.data.entities.User;
 import notreddit.data.models.requests.SubredditCreateRequest;
@@ -30,10 +32,10 @@ import static notreddit.constants.GeneralConstants.SUBREDDITS_WITH_POST_AND_SUBS
 public class SubredditServiceImpl implements SubredditService {
 
     private static final String SUBREDDIT_NAMES_CACHE = "subredditNames";
-    private static final String SUBSCRIBED_POSTS_CACHE = "subscribedPosts";
 
     private final SubredditRepository subredditRepository;
     private final UserRepository userRepository;
+    private final TaggedCacheManager cacheManager;
     private final ModelMapper mapper;
 
     @Override
@@ -73,7 +75,6 @@ public class SubredditServiceImpl implements SubredditService {
     }
 
     @Override
-    @CacheEvict(value = SUBSCRIBED_POSTS_CACHE, allEntries = true)
     public ResponseEntity<?> subscribe(String subredditTitle, User user) {
         Subreddit subreddit = subredditRepository.findByTitleIgnoreCase(subredditTitle).orElse(null);
         user = userRepository.getWithSubscriptions(user);
@@ -86,13 +87,13 @@ public class SubredditServiceImpl implements SubredditService {
 
         user.subscribe(subreddit);
         userRepository.saveAndFlush(user);
+        cacheManager.evictTagged(CacheTags.subscriber(user.getId()));
 
         String responseMessage = String.format(SUCCESSFUL_SUBREDDIT_SUBSCRIPTION, subreddit.getTitle());
         return ResponseEntity.ok(new ApiResponse(true, responseMessage));
     }
 
     @Override
-    @CacheEvict(value = SUBSCRIBED_POSTS_CACHE, allEntries = true)
     public ResponseEntity<?> unsubscribe(String subredditTitle, User user) {
         Subreddit subreddit = subredditRepository.findByTitleIgnoreCase(subredditTitle).orElse(null);
         user = userRepository.getWithSubscriptions(user);
@@ -105,6 +106,7 @@ public class SubredditServiceImpl implements SubredditService {
 
         user.unsubscribe(subreddit);
         userRepository.saveAndFlush(user);
+        cacheManager.evictTagged(CacheTags.subscriber(user.getId()));
 
         String responseMessage = String.format(SUCCESSFUL_SUBREDDIT_UNSUBSCRIPTION, subreddit.getTitle());
         return ResponseEntity.ok(new ApiResponse(true, responseMessage));
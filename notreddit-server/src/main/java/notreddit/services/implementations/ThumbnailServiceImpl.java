@@ -1,7 +1,9 @@
 package notreddit.services.implementations;
 
 import lombok.extern.slf4j.Slf4j;
+import notreddit.services.ImageThumbnailService;
 import notreddit.services.ThumbnailService;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
@@ -10,6 +12,7 @@ import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 
 @Slf4j
 @Service
@@ -18,9 +21,20 @@ public class ThumbnailServiceImpl implements ThumbnailService {
     private static final String API_BASE_URL = "https://api.screenshotmachine.com/?";
     private static final String PDF_API_BASE_URL = "https://pdfapi.screenshotmachine.com/?";
 
+    private final Optional<ImageThumbnailService> imageThumbnailService;
+
     @Value("${screenshotMachine.customerKey}")
     private String customerKey;
 
+    @Autowired
+    public ThumbnailServiceImpl(Optional<ImageThumbnailService> imageThumbnailService) {
+        this.imageThumbnailService = imageThumbnailService;
+    }
+
+    public ThumbnailServiceImpl() {
+        this(Optional.empty());
+    }
+
     @Override
     public String generateThumbnailUrl(String url) {
         Map<String, String> options = new HashMap<>();
@@ -35,6 +49,14 @@ public class ThumbnailServiceImpl implements ThumbnailService {
         }
     }
 
+    /**
+     * The url of a thumbnail rendered from an uploaded image, when the storage it is in renders them.
+     */
+    @Override
+    public Optional<String> generateImageThumbnailUrl(String imageUrl) {
+        return imageThumbnailService.flatMap(service -> service.thumbnailUrl(imageUrl));
+    }
+
     @Override
     public String generateScreenshotApiUrl(Map<String, String> options) throws UnsupportedEncodingException {
         return generateUrl(API_BASE_URL, options);
@@ -0,0 +1,286 @@
+package notreddit.services.implementations;
+
+import lombok.extern.slf4j.Slf4j;
+import notreddit.data.entities.Post;
+import notreddit.repositories.PostRepository;
+import notreddit.services.TimelineService;
+import notreddit.util.FeedCursor;
+import notreddit.web.broker.ClusterBus;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static notreddit.util.Transactions.afterCommit;
+
+/**
+ * Keeps the ids of the newest {@link #TIMELINE_CAPACITY} posts of every subreddit, newest first, so the newest
+ * pages of the subscribed, subreddit and all feeds are a merge of these timelines plus one batch fetch of the posts.
+ * Pages that reach past the oldest kept post of a subreddit have to be read from the database.
+ * With more than one node the created and deleted posts are published to the others on the {@link ClusterBus} once
+ * committed, and the timelines are reloaded from the database every few minutes for the nodes that missed them.
+ */
+@Slf4j
+@Service
+public class TimelineServiceImpl implements TimelineService {
+
+    // the messages of the fan-out start with a node id, so they never start with this
+    static final String MESSAGE_PREFIX = "timeline\n";
+
+    private static final int TIMELINE_CAPACITY = 1000;
+    // posts this young may be committed after the reload read the timelines, so the reload leaves them be
+    private static final long RELOAD_GRACE_IN_SECONDS = 60;
+
+    private final PostRepository postRepository;
+    private final ClusterBus clusterBus;
+
+    private final Map<UUID, TimelinePost> posts = new ConcurrentHashMap<>();
+    private final Map<String, Timeline> bySubreddit = new ConcurrentHashMap<>();
+
+    @Autowired
+    public TimelineServiceImpl(PostRepository postRepository, ObjectProvider<ClusterBus> clusterBus) {
+        this(postRepository, clusterBus.getIfAvailable());
+    }
+
+    public TimelineServiceImpl(PostRepository postRepository, ClusterBus clusterBus) {
+        this.postRepository = postRepository;
+        this.clusterBus = clusterBus;
+        if (clusterBus != null) {
+            clusterBus.subscribe(this::receive);
+        }
+    }
+
+    @Override
+    @PostConstruct
+    public void rebuild() {
+        load();
+        log.info("Loaded the timelines of {} subreddits with {} posts", bySubreddit.size(), posts.size());
+    }
+
+    @Scheduled(initialDelayString = "${app.timelines.reloadIntervalInMs:300000}",
+            fixedDelayString = "${app.timelines.reloadIntervalInMs:300000}")
+    public void reload() {
+        load();
+    }
+
+    @Override
+    public void track(Post post) {
+        TimelinePost tracked = new TimelinePost(
+                post.getId(), post.getSubreddit().getTitle().toLowerCase(), post.getCreatedOn());
+        put(tracked);
+        if (clusterBus != null) {
+            afterCommit(() -> clusterBus.publish(MESSAGE_PREFIX + "track\n"
+                    + tracked.id + '\n' + tracked.subreddit + '\n' + tracked.createdOn));
+        }
+    }
+
+    @Override
+    public void untrack(UUID postId) {
+        remove(postId);
+        if (clusterBus != null) {
+            afterCommit(() -> clusterBus.publish(MESSAGE_PREFIX + "untrack\n" + postId));
+        }
+    }
+
+    /**
+     * Merges the timelines of the given subreddits, or of all subreddits when {@code subreddits} is null,
+     * and returns the positions of the first {@code limit} posts older than {@code after}. Empty if the page reaches
+     * past what a timeline kept, since older posts of that subreddit could belong on it.
+     */
+    @Override
+    public Optional<List<FeedCursor>> newestPosts(Collection<String> subreddits, FeedCursor after, int limit) {
+        TimelinePost from = new TimelinePost(after.getId(), null, after.getCreatedOn());
+
+        Collection<Timeline> timelines = new ArrayList<>();
+        if (subreddits == null) {
+            timelines.addAll(bySubreddit.values());
+        } else {
+            for (String subreddit : subreddits) {
+                Timeline timeline = bySubreddit.get(subreddit.toLowerCase());
+                if (timeline != null) {
+                    timelines.add(timeline);
+                }
+            }
+        }
+
+        PriorityQueue<Head> heads = new PriorityQueue<>(Math.max(timelines.size(), 1));
+        for (Timeline timeline : timelines) {
+            Iterator<TimelinePost> iterator = timeline.posts.tailSet(from, false).iterator();
+            if (iterator.hasNext()) {
+                heads.add(new Head(iterator.next(), iterator, timeline));
+            } else if (timeline.truncated) {
+                return Optional.empty();
+            }
+        }
+
+        List<FeedCursor> page = new ArrayList<>(limit);
+        while (page.size() < limit && !heads.isEmpty()) {
+            Head head = heads.poll();
+            page.add(FeedCursor.newest(head.post.createdOn, head.post.id));
+
+            if (head.rest.hasNext()) {
+                heads.add(new Head(head.rest.next(), head.rest, head.timeline));
+            } else if (head.timeline.truncated && page.size() < limit) {
+                return Optional.empty();
+            }
+        }
+
+        return Optional.of(page);
+    }
+
+    /**
+     * Adds the newest posts of every subreddit, and drops the kept posts that are no longer among them, like those
+     * deleted on a node whose message didn't arrive.
+     */
+    private void load() {
+        LocalDateTime settled = LocalDateTime.now().minusSeconds(RELOAD_GRACE_IN_SECONDS);
+        Set<UUID> loaded = new HashSet<>();
+        for (Object[] row : postRepository.findNewestPerSubreddit(TIMELINE_CAPACITY)) {
+            TimelinePost post = new TimelinePost(
+                    UUID.fromString((String) row[0]),
+                    ((String) row[1]).toLowerCase(),
+                    ((Timestamp) row[2]).toLocalDateTime());
+            put(post);
+            loaded.add(post.id);
+        }
+
+        for (TimelinePost post : posts.values()) {
+            if (!loaded.contains(post.id) && post.createdOn.isBefore(settled)) {
+                posts.computeIfPresent(post.id, (id, current) -> current == post ? replace(current, null) : current);
+            }
+        }
+
+        // a full timeline may have left out older posts of its subreddit
+        bySubreddit.values().stream()
+                .filter(timeline -> timeline.size.get() >= TIMELINE_CAPACITY)
+                .forEach(timeline -> timeline.truncated = true);
+    }
+
+    // every node gets its own messages too, applying them again changes nothing
+    private void receive(String message) {
+        if (!message.startsWith(MESSAGE_PREFIX)) {
+            return;
+        }
+
+        String[] parts = message.substring(MESSAGE_PREFIX.length()).split("\n");
+        try {
+            if (parts[0].equals("track")) {
+                put(new TimelinePost(UUID.fromString(parts[1]), parts[2], LocalDateTime.parse(parts[3])));
+            } else if (parts[0].equals("untrack")) {
+                remove(UUID.fromString(parts[1]));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Invalid timeline message {}", message);
+        }
+    }
+
+    private void remove(UUID postId) {
+        posts.computeIfPresent(postId, (id, current) -> replace(current, null));
+    }
+
+    private void put(TimelinePost post) {
+        posts.compute(post.id, (id, current) -> replace(current, post));
+        trim(bySubreddit.get(post.subreddit));
+    }
+
+    // only called inside compute() of the post's entry, so a post is never in two timelines at once
+    private TimelinePost replace(TimelinePost current, TimelinePost post) {
+        // the same post again, left in place so the pages being read don't miss it
+        if (current != null && post != null
+                && current.subreddit.equals(post.subreddit) && current.createdOn.equals(post.createdOn)) {
+            return current;
+        }
+
+        if (current != null) {
+            Timeline timeline = bySubreddit.get(current.subreddit);
+            if (timeline != null && timeline.posts.remove(current)) {
+                timeline.size.decrementAndGet();
+            }
+        }
+
+        if (post != null) {
+            Timeline timeline = bySubreddit.computeIfAbsent(post.subreddit, s -> new Timeline());
+            if (timeline.posts.add(post)) {
+                timeline.size.incrementAndGet();
+            }
+        }
+
+        return post;
+    }
+
+    // drops the oldest posts of a timeline that grew over its capacity
+    private void trim(Timeline timeline) {
+        while (timeline != null && timeline.size.get() > TIMELINE_CAPACITY) {
+            TimelinePost oldest = timeline.posts.pollLast();
+            if (oldest == null) {
+                return;
+            }
+
+            timeline.size.decrementAndGet();
+            timeline.truncated = true;
+            posts.remove(oldest.id, oldest);
+        }
+    }
+
+    private static final class Timeline {
+
+        private final NavigableSet<TimelinePost> posts = new ConcurrentSkipListSet<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private volatile boolean truncated;
+    }
+
+    private static final class TimelinePost implements Comparable<TimelinePost> {
+
+        private final UUID id;
+        private final String subreddit;
+        private final LocalDateTime createdOn;
+
+        private TimelinePost(UUID id, String subreddit, LocalDateTime createdOn) {
+            this.id = id;
+            this.subreddit = subreddit;
+            this.createdOn = createdOn;
+        }
+
+        // newest first, ties broken by the id the way postgres compares uuids, so pages continue seamlessly
+        // into the database queries when a timeline runs out
+        @Override
+        public int compareTo(TimelinePost other) {
+            int byCreatedOn = other.createdOn.compareTo(this.createdOn);
+            if (byCreatedOn != 0) {
+                return byCreatedOn;
+            }
+
+            int byMostSignificant = Long.compareUnsigned(
+                    other.id.getMostSignificantBits(), this.id.getMostSignificantBits());
+            return byMostSignificant != 0
+                    ? byMostSignificant
+                    : Long.compareUnsigned(other.id.getLeastSignificantBits(), this.id.getLeastSignificantBits());
+        }
+    }
+
+    private static final class Head implements Comparable<Head> {
+
+        private final TimelinePost post;
+        private final Iterator<TimelinePost> rest;
+        private final Timeline timeline;
+
+        private Head(TimelinePost post, Iterator<TimelinePost> rest, Timeline timeline) {
+            this.post = post;
+            this.rest = rest;
+            this.timeline = timeline;
+        }
+
+        @Override
+        public int compareTo(Head other) {
+            return post.compareTo(other.post);
+        }
+    }
+}
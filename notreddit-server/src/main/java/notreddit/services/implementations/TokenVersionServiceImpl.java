@@ -0,0 +1,95 @@
+package notreddit.services.implementations;
+
+import lombok.extern.slf4j.Slf4j;
+import notreddit.repositories.UserRepository;
+import notreddit.services.TokenVersionService;
+import notreddit.web.broker.ClusterBus;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static notreddit.util.Transactions.afterCommit;
+
+/**
+ * Keeps the token version of every user that ever had their tokens revoked, so checking a token against it
+ * is a map lookup. Users missing from the map are still on version 0.
+ * With more than one node a revocation is published to the others on the {@link ClusterBus} once committed, and
+ * the versions are reloaded from the database every minute for the nodes that missed it.
+ */
+@Slf4j
+@Service
+public class TokenVersionServiceImpl implements TokenVersionService {
+
+    // the messages of the fan-out start with a node id, so they never start with this
+    static final String MESSAGE_PREFIX = "token-version\n";
+
+    private final UserRepository userRepository;
+    private final ClusterBus clusterBus;
+
+    private final Map<UUID, Integer> versions = new ConcurrentHashMap<>();
+
+    @Autowired
+    public TokenVersionServiceImpl(UserRepository userRepository, ObjectProvider<ClusterBus> clusterBus) {
+        this(userRepository, clusterBus.getIfAvailable());
+    }
+
+    public TokenVersionServiceImpl(UserRepository userRepository, ClusterBus clusterBus) {
+        this.userRepository = userRepository;
+        this.clusterBus = clusterBus;
+        if (clusterBus != null) {
+            clusterBus.subscribe(this::receive);
+        }
+    }
+
+    @Override
+    @PostConstruct
+    public void rebuild() {
+        load();
+        log.info("Loaded the token versions of {} users", versions.size());
+    }
+
+    @Scheduled(initialDelayString = "${app.tokens.reloadIntervalInMs:60000}",
+            fixedDelayString = "${app.tokens.reloadIntervalInMs:60000}")
+    public void reload() {
+        load();
+    }
+
+    @Override
+    public boolean isCurrent(UUID userId, int tokenVersion) {
+        return versions.getOrDefault(userId, 0) == tokenVersion;
+    }
+
+    // versions only ever grow, so a late update can't bring back revoked tokens
+    @Override
+    public void update(UUID userId, int tokenVersion) {
+        versions.merge(userId, tokenVersion, Math::max);
+        if (clusterBus != null) {
+            afterCommit(() -> clusterBus.publish(MESSAGE_PREFIX + userId + '\n' + tokenVersion));
+        }
+    }
+
+    private void load() {
+        for (Object[] row : userRepository.findRevokedTokenVersions()) {
+            versions.merge((UUID) row[0], (Integer) row[1], Math::max);
+        }
+    }
+
+    private void receive(String message) {
+        if (!message.startsWith(MESSAGE_PREFIX)) {
+            return;
+        }
+
+        String[] parts = message.substring(MESSAGE_PREFIX.length()).split("\n");
+        try {
+            versions.merge(UUID.fromString(parts[0]), Integer.parseInt(parts[1]), Math::max);
+        } catch (RuntimeException e) {
+            log.warn("Invalid token version message {}", message);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package notreddit.services.implementations;
+
+import lombok.extern.slf4j.Slf4j;
+import notreddit.cache.CacheTags;
+import notreddit.cache.TaggedCacheManager;
+import notreddit.constants.ApiResponseMessages;
+import notreddit.data.entities.File;
+import notreddit.data.entities.Post;
+import notreddit.data.enums.FileStatus;
+import notreddit.data.models.responses.api.ApiResponse;
+import notreddit.data.models.responses.post.FileStatusResponseModel;
+import notreddit.repositories.FileRepository;
+import notreddit.services.CloudStorage;
+import notreddit.services.ThumbnailService;
+import notreddit.services.UploadService;
+import notreddit.util.SpooledFile;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+/**
+ * Moves uploaded files to the cloud storage off the request thread. A request first reserves one of the
+ * {@code threads + queueCapacity} upload slots and spools its file to disk; the post is saved with a processing
+ * file and the upload runs on a bounded pool, after which the file row is filled in and the outcome is pushed
+ * to {@code /topic/uploads/{postId}}. Without a free slot the request is turned away instead of queueing.
+ */
+@Slf4j
+@Service
+public class UploadServiceImpl implements UploadService {
+
+    public static final String UPLOADS_TOPIC = "/topic/uploads/";
+
+    private final CloudStorage cloudStorage;
+    private final ThumbnailService thumbnailService;
+    private final FileRepository fileRepository;
+    private final TaggedCacheManager cacheManager;
+    private final SimpMessageSendingOperations messagingTemplate;
+    private final Executor executor;
+    private final Semaphore slots;
+
+    @Autowired
+    public UploadServiceImpl(CloudStorage cloudStorage,
+                             ThumbnailService thumbnailService,
+                             FileRepository fileRepository,
+                             TaggedCacheManager cacheManager,
+                             SimpMessageSendingOperations messagingTemplate,
+                             @Value("${app.uploads.threads:2}") int threads,
+                             @Value("${app.uploads.queueCapacity:16}") int queueCapacity) {
+        this(cloudStorage, thumbnailService, fileRepository, cacheManager, messagingTemplate,
+                new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                        new LinkedBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("upload-")),
+                threads + queueCapacity);
+    }
+
+    public UploadServiceImpl(CloudStorage cloudStorage,
+                             ThumbnailService thumbnailService,
+                             FileRepository fileRepository,
+                             TaggedCacheManager cacheManager,
+                             SimpMessageSendingOperations messagingTemplate,
+                             Executor executor,
+                             int capacity) {
+        this.cloudStorage = cloudStorage;
+        this.thumbnailService = thumbnailService;
+        this.fileRepository = fileRepository;
+        this.cacheManager = cacheManager;
+        this.messagingTemplate = messagingTemplate;
+        this.executor = executor;
+        this.slots = new Semaphore(capacity);
+    }
+
+    /**
+     * Takes an upload slot and copies the file out of the request. Empty if all slots are taken.
+     */
+    @Override
+    public Optional<SpooledFile> reserve(MultipartFile file) {
+        if (!slots.tryAcquire()) {
+            return Optional.empty();
+        }
+
+        try {
+            Path path = Files.createTempFile("upload-", ".tmp");
+            file.transferTo(path.toFile());
+            return Optional.of(new SpooledFile(path, file.getOriginalFilename(), file.getContentType()));
+        } catch (IOException e) {
+            slots.release();
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void start(Post post, SpooledFile file) {
+        UUID postId = post.getId();
+        try {
+            executor.execute(() -> {
+                try {
+                    upload(postId, file);
+                } finally {
+                    cancel(file);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.error("Upload of the file of post {} was rejected", postId);
+            cancel(file);
+            complete(postId, null, null, FileStatus.FAILED);
+        }
+    }
+
+    /**
+     * Gives the slot back and deletes the spooled file.
+     */
+    @Override
+    public void cancel(SpooledFile file) {
+        try {
+            Files.deleteIfExists(file.getPath());
+        } catch (IOException e) {
+            log.error("Deleting spooled upload {} failed", file.getPath());
+        } finally {
+            slots.release();
+        }
+    }
+
+    @Override
+    public ResponseEntity<?> getStatus(UUID postId) {
+        File file = fileRepository.findById(postId).orElse(null);
+        if (file == null) {
+            return ResponseEntity
+                    .badRequest()
+                    .body(new ApiResponse(false, ApiResponseMessages.NONEXISTENT_POST));
+        }
+
+        return ResponseEntity.ok(new FileStatusResponseModel(
+                postId.toString(), file.getStatus().name(), file.getUrl(), file.getThumbnailUrl()));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor instanceof ExecutorService) {
+            ((ExecutorService) executor).shutdown();
+        }
+    }
+
+    private void upload(UUID postId, SpooledFile file) {
+        String url;
+        String thumbnailUrl;
+        try (InputStream content = Files.newInputStream(file.getPath())) {
+            Map<String, Object> params = cloudStorage
+                    .uploadFileAndGetParams(content, file.getOriginalFilename(), file.getContentType());
+            url = params.get("url").toString();
+
+            // if file is not an image -> create thumbnail, else use a rendered thumbnail of the image or the image
+            thumbnailUrl = String.valueOf(params.get("contentType")).contains("image")
+                    ? thumbnailService.generateImageThumbnailUrl(url).orElse(url)
+                    : thumbnailService.generateThumbnailUrl(url);
+        } catch (Exception e) {
+            log.error("Upload of the file of post {} failed", postId, e);
+            complete(postId, null, null, FileStatus.FAILED);
+            return;
+        }
+
+        if (!complete(postId, url, thumbnailUrl, FileStatus.READY)) {
+            // the post was deleted while its file was uploading
+            cloudStorage.removeFile(url);
+        }
+    }
+
+    private boolean complete(UUID postId, String url, String thumbnailUrl, FileStatus status) {
+        boolean updated = fileRepository.updateUpload(postId, url, thumbnailUrl, status) > 0;
+        if (updated) {
+            cacheManager.evictTagged(CacheTags.post(postId));
+            messagingTemplate.convertAndSend(UPLOADS_TOPIC + postId,
+                    new FileStatusResponseModel(postId.toString(), status.name(), url, thumbnailUrl));
+        }
+
+        return updated;
+    }
+}
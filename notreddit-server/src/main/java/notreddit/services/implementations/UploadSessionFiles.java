@@ -0,0 +1,92 @@
+package notreddit.services.implementations;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+
+/**
+ * Upload sessions of the storages that keep files on local disk. Every session is a file in {@code directory}
+ * that chunks are appended to through a fixed size buffer, so a streamed upload takes the same memory
+ * whatever the size of the file.
+ */
+@Slf4j
+class UploadSessionFiles {
+
+    private static final int CHUNK_BUFFER_SIZE = 64 * 1024;
+
+    private final Path directory;
+
+    UploadSessionFiles(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    String start() throws IOException {
+        String sessionId = UUID.randomUUID().toString();
+        Files.createFile(path(sessionId));
+        return sessionId;
+    }
+
+    void append(String sessionId, long offset, InputStream content) throws IOException {
+        try (FileChannel session = FileChannel.open(path(sessionId), StandardOpenOption.WRITE)) {
+            if (session.size() != offset) {
+                throw new IOException("Upload session holds " + session.size() + " bytes, not " + offset + ".");
+            }
+
+            session.position(offset);
+            try {
+                ReadableByteChannel in = Channels.newChannel(content);
+                ByteBuffer buffer = ByteBuffer.allocate(CHUNK_BUFFER_SIZE);
+                while (in.read(buffer) != -1) {
+                    buffer.flip();
+                    while (buffer.hasRemaining()) {
+                        session.write(buffer);
+                    }
+                    buffer.clear();
+                }
+            } catch (IOException e) {
+                // drop the part of the chunk that made it, so it can be sent again from the same offset
+                session.truncate(offset);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Returns the file of a session holding all of its {@code size} bytes, for the storage to move where it belongs.
+     */
+    Path complete(String sessionId, long size) throws IOException {
+        Path session = path(sessionId);
+        if (Files.size(session) != size) {
+            throw new IOException("Upload session holds " + Files.size(session) + " bytes, not " + size + ".");
+        }
+        return session;
+    }
+
+    void abort(String sessionId) {
+        try {
+            Files.deleteIfExists(path(sessionId));
+        } catch (IllegalArgumentException | IOException e) {
+            log.error("Upload session deletion failed.");
+        }
+    }
+
+    // session ids are uuids handed out by this class, anything else could point outside the directory
+    private Path path(String sessionId) {
+        return directory.resolve(UUID.fromString(sessionId).toString());
+    }
+}
@@ -0,0 +1,257 @@
+package notreddit.services.implementations;
+
+import lombok.extern.slf4j.Slf4j;
+import notreddit.constants.ApiResponseMessages;
+import notreddit.data.entities.User;
+import notreddit.data.models.requests.UploadSessionRequest;
+import notreddit.data.models.responses.api.ApiResponse;
+import notreddit.data.models.responses.upload.UploadSessionResponseModel;
+import notreddit.services.CloudStorage;
+import notreddit.services.UploadSessionService;
+import notreddit.util.LimitedInputStream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * Streams files to the cloud storage in chunks straight from the request body, without spooling them to disk or
+ * holding them in memory. A chunk has to start at the offset the session is at; one that fails or is turned away
+ * can be sent again from the offset the response reports, so an interrupted upload resumes where it stopped.
+ * The session is finished with the last byte, after which a post can be created from it once.
+ * Sessions idle for longer than {@link #IDLE_TIMEOUT} are dropped together with what they stored.
+ */
+@Slf4j
+@Service
+public class UploadSessionServiceImpl implements UploadSessionService {
+
+    private static final Duration IDLE_TIMEOUT = Duration.ofHours(1);
+    private static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+
+    private final CloudStorage cloudStorage;
+    private final long maxSizeInMb;
+    private final LongSupplier clock;
+
+    private final Map<UUID, UploadSession> sessions = new ConcurrentHashMap<>();
+
+    @Autowired
+    public UploadSessionServiceImpl(CloudStorage cloudStorage,
+                                    @Value("${app.uploads.maxSessionSizeInMb:100}") long maxSizeInMb) {
+        this(cloudStorage, maxSizeInMb, System::currentTimeMillis);
+    }
+
+    public UploadSessionServiceImpl(CloudStorage cloudStorage, long maxSizeInMb, LongSupplier clock) {
+        this.cloudStorage = cloudStorage;
+        this.maxSizeInMb = maxSizeInMb;
+        this.clock = clock;
+    }
+
+    @Override
+    public ResponseEntity<?> open(UploadSessionRequest request, User user) {
+        if (request.getSize() > maxSizeInMb * 1024 * 1024) {
+            return ResponseEntity
+                    .badRequest()
+                    .body(new ApiResponse(false, String.format(ApiResponseMessages.FILE_SIZE_OVER_LIMIT, maxSizeInMb)));
+        }
+
+        String storageSessionId;
+        try {
+            storageSessionId = cloudStorage.startUploadSession();
+        } catch (IOException e) {
+            log.error("Starting upload session failed.", e);
+            return ResponseEntity
+                    .status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(new ApiResponse(false, ApiResponseMessages.UPLOAD_FAILED));
+        }
+
+        String contentType = request.getContentType() == null || request.getContentType().isEmpty()
+                ? DEFAULT_CONTENT_TYPE
+                : request.getContentType();
+        UploadSession session = new UploadSession(UUID.randomUUID(), user.getId(), storageSessionId,
+                request.getFilename(), contentType, request.getSize(), clock.getAsLong());
+        sessions.put(session.id, session);
+
+        URI location = ServletUriComponentsBuilder
+                .fromCurrentContextPath().path("/api/upload/session/{id}")
+                .buildAndExpand(session.id).toUri();
+
+        return ResponseEntity
+                .created(location)
+                .body(toModel(session));
+    }
+
+    /**
+     * Appends the chunk when it starts at the session's offset. A chunk at the wrong offset, or one sent while
+     * another chunk of the session is still being stored, gets a conflict with the offset to continue from.
+     */
+    @Override
+    public ResponseEntity<?> append(UUID sessionId, long offset, long contentLength, InputStream content, User user) {
+        UploadSession session = find(sessionId, user);
+        if (session == null) {
+            return ResponseEntity
+                    .badRequest()
+                    .body(new ApiResponse(false, ApiResponseMessages.NONEXISTENT_UPLOAD_SESSION));
+        }
+
+        if (!session.appending.compareAndSet(false, true)) {
+            return ResponseEntity
+                    .status(HttpStatus.CONFLICT)
+                    .body(toModel(session));
+        }
+
+        try {
+            if (session.params != null || offset != session.offset) {
+                return ResponseEntity
+                        .status(HttpStatus.CONFLICT)
+                        .body(toModel(session));
+            }
+
+            long remaining = session.size - session.offset;
+            if (contentLength > remaining) {
+                return ResponseEntity
+                        .badRequest()
+                        .body(new ApiResponse(false, ApiResponseMessages.CHUNK_OVER_FILE_SIZE));
+            }
+
+            if (remaining > 0) {
+                LimitedInputStream chunk = new LimitedInputStream(content, remaining);
+                try {
+                    cloudStorage.appendToUploadSession(session.storageSessionId, session.offset, chunk);
+                } catch (LimitedInputStream.LimitExceededException e) {
+                    return ResponseEntity
+                            .badRequest()
+                            .body(new ApiResponse(false, ApiResponseMessages.CHUNK_OVER_FILE_SIZE));
+                } catch (IOException e) {
+                    log.error("Appending to upload session failed.", e);
+                    return ResponseEntity
+                            .status(HttpStatus.SERVICE_UNAVAILABLE)
+                            .body(new ApiResponse(false, ApiResponseMessages.UPLOAD_FAILED));
+                }
+                session.offset += chunk.getCount();
+            }
+
+            // a session whose finish failed is finished again by an empty chunk at its end
+            if (session.offset == session.size) {
+                try {
+                    session.params = cloudStorage.finishUploadSession(
+                            session.storageSessionId, session.size, session.filename, session.contentType);
+                } catch (IOException e) {
+                    log.error("Finishing upload session failed.", e);
+                    return ResponseEntity
+                            .status(HttpStatus.SERVICE_UNAVAILABLE)
+                            .body(new ApiResponse(false, ApiResponseMessages.UPLOAD_FAILED));
+                }
+            }
+
+            return ResponseEntity.ok(toModel(session));
+        } finally {
+            session.lastActivity = clock.getAsLong();
+            session.appending.set(false);
+        }
+    }
+
+    @Override
+    public ResponseEntity<?> getStatus(UUID sessionId, User user) {
+        UploadSession session = find(sessionId, user);
+        if (session == null) {
+            return ResponseEntity
+                    .badRequest()
+                    .body(new ApiResponse(false, ApiResponseMessages.NONEXISTENT_UPLOAD_SESSION));
+        }
+
+        return ResponseEntity.ok(toModel(session));
+    }
+
+    /**
+     * Hands out the stored file of a completed session of the user and ends the session, so it is used only once.
+     */
+    @Override
+    public Optional<Map<String, Object>> takeCompleted(UUID sessionId, User user) {
+        UploadSession session = find(sessionId, user);
+        if (session == null || session.params == null || !sessions.remove(sessionId, session)) {
+            return Optional.empty();
+        }
+
+        return Optional.of(session.params);
+    }
+
+    @Override
+    @Scheduled(fixedDelay = 10 * 60 * 1000)
+    public void expireIdleSessions() {
+        long idleSince = clock.getAsLong() - IDLE_TIMEOUT.toMillis();
+        int expired = 0;
+        for (UploadSession session : sessions.values()) {
+            // a session in the middle of a chunk isn't idle, the flag stays taken so no chunk starts after this
+            if (session.lastActivity > idleSince || !session.appending.compareAndSet(false, true)) {
+                continue;
+            }
+
+            if (sessions.remove(session.id, session)) {
+                if (session.params != null) {
+                    cloudStorage.removeFile(session.params.get("url").toString());
+                } else {
+                    cloudStorage.abortUploadSession(session.storageSessionId);
+                }
+                expired++;
+            }
+        }
+
+        if (expired > 0) {
+            log.info("Expired {} idle upload sessions", expired);
+        }
+    }
+
+    private UploadSession find(UUID sessionId, User user) {
+        UploadSession session = sessions.get(sessionId);
+        return session != null && session.ownerId.equals(user.getId()) ? session : null;
+    }
+
+    private static UploadSessionResponseModel toModel(UploadSession session) {
+        return new UploadSessionResponseModel(
+                session.id.toString(), session.offset, session.size, session.params != null);
+    }
+
+    private static final class UploadSession {
+
+        private final UUID id;
+        private final UUID ownerId;
+        private final String storageSessionId;
+        private final String filename;
+        private final String contentType;
+        private final long size;
+        private final AtomicBoolean appending = new AtomicBoolean();
+        private volatile long offset;
+        private volatile Map<String, Object> params;
+        private volatile long lastActivity;
+
+        private UploadSession(UUID id,
+                              UUID ownerId,
+                              String storageSessionId,
+                              String filename,
+                              String contentType,
+                              long size,
+                              long lastActivity) {
+            this.id = id;
+            this.ownerId = ownerId;
+            this.storageSessionId = storageSessionId;
+            this.filename = filename;
+            this.contentType = contentType;
+            this.size = size;
+            this.lastActivity = lastActivity;
+        }
+    }
+}
@@ -13,6 +13,7 @@ import notreddit.data.models.responses.user.UserSummaryResponse;
 import notreddit.repositories.RoleRepository;
 import notreddit.repositories.SubredditRepository;
 import notreddit.repositories.UserRepository;
+import notreddit.services.TokenVersionService;
 import notreddit.services.UserService;
 import org.modelmapper.ModelMapper;
 import org.springframework.cache.annotation.CacheEvict;
@@ -44,6 +45,7 @@ public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
     private final SubredditRepository subredditRepository;
+    private final TokenVersionService tokenVersionService;
     private final PasswordEncoder encoder;
     private final ModelMapper mapper;
 
@@ -140,7 +142,10 @@ public class UserServiceImpl implements UserService {
         }
 
         affectedUser.setRoles(this.getInheritedRolesFromRole(request.getNewRole()));
+        // the roles are claims of the user's tokens
+        affectedUser.revokeTokens();
         userRepository.saveAndFlush(affectedUser);
+        tokenVersionService.update(affectedUser.getId(), affectedUser.getTokenVersion());
 
         return ResponseEntity
                 .ok()
@@ -178,7 +183,9 @@ public class UserServiceImpl implements UserService {
         }
 
         userToDelete.setEnabled(false);
+        userToDelete.revokeTokens();
         userRepository.saveAndFlush(userToDelete);
+        tokenVersionService.update(userToDelete.getId(), userToDelete.getTokenVersion());
         return ResponseEntity
                 .ok(new ApiResponse(true,
                         String.format(SUCCESSFUL_USER_DELETION, userToDelete.getUsername())));
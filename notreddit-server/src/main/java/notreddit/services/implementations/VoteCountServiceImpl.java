@@ -0,0 +1,159 @@
+package notreddit.services.implementations;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import notreddit.cache.CacheTags;
+import notreddit.cache.TaggedCacheManager;
+import notreddit.data.entities.PendingVote;
+import notreddit.repositories.PendingVoteRepository;
+import notreddit.services.VoteCountService;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static notreddit.util.Transactions.afterCommit;
+
+/**
+ * Write-behind vote counts. Every vote appends a {@link PendingVote} row, and the rows are periodically applied
+ * to their posts/comments with batched {@code UPDATE ... SET upvotes = upvotes + ?} statements, so voters on a hot
+ * post don't queue on its row lock. A flush claims its rows with {@code DELETE ... RETURNING} and applies the
+ * deltas of the rows it actually deleted, so a row another node has already applied, or is applying, counts once.
+ * Counts read from the database are correct up to the last flush.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class VoteCountServiceImpl implements VoteCountService {
+
+    private static final String UPDATE_POST_VOTES =
+            "UPDATE posts SET upvotes = upvotes + ?, downvotes = downvotes + ? WHERE id = ?";
+    private static final String UPDATE_COMMENT_VOTES =
+            "UPDATE comments SET upvotes = upvotes + ?, downvotes = downvotes + ? WHERE id = ?";
+    private static final String CLAIM_PENDING_VOTES =
+            "DELETE FROM pending_votes WHERE id IN (%s) RETURNING post_id, comment_id, upvotes, downvotes";
+    private static final int CLAIM_BATCH_SIZE = 500;
+
+    private final PendingVoteRepository pendingVoteRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TaggedCacheManager cacheManager;
+
+    // the committed pending votes this node still has to flush
+    private final Set<UUID> pendingVoteIds = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Replays the votes that were recorded but not flushed before the last shutdown/crash. The rows of the other
+     * nodes are claimed like this node's own, whichever node deletes a row first applies it.
+     */
+    @PostConstruct
+    public void replayPendingVotes() {
+        List<PendingVote> pendingVotes = pendingVoteRepository.findAll();
+        if (pendingVotes.isEmpty()) {
+            return;
+        }
+
+        pendingVotes.forEach(vote -> pendingVoteIds.add(vote.getId()));
+
+        log.info("Replaying {} unflushed votes", pendingVotes.size());
+        flush();
+    }
+
+    @Override
+    public void record(UUID postId, UUID commentId, int upvotes, int downvotes) {
+        if (upvotes == 0 && downvotes == 0) {
+            return;
+        }
+
+        PendingVote pendingVote = new PendingVote();
+        pendingVote.setPostId(postId);
+        pendingVote.setCommentId(postId == null ? commentId : null);
+        pendingVote.setUpvotes(upvotes);
+        pendingVote.setDownvotes(downvotes);
+        pendingVote.setCreatedOn(LocalDateTime.now());
+        pendingVoteRepository.save(pendingVote);
+
+        // the row is only flushed once the vote is committed
+        afterCommit(() -> pendingVoteIds.add(pendingVote.getId()));
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.votes.flushIntervalInMs:1000}")
+    public synchronized void flush() {
+        List<UUID> ids = drain();
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        // sorted, so concurrent flushes always lock the rows in the same order
+        Map<UUID, PendingCount> posts = new TreeMap<>();
+        Map<UUID, PendingCount> comments = new TreeMap<>();
+        try {
+            transactionTemplate.execute(status -> {
+                posts.clear();
+                comments.clear();
+                for (int from = 0; from < ids.size(); from += CLAIM_BATCH_SIZE) {
+                    claim(ids.subList(from, Math.min(from + CLAIM_BATCH_SIZE, ids.size())), posts, comments);
+                }
+                jdbcTemplate.batchUpdate(UPDATE_POST_VOTES, toUpdateArgs(posts));
+                jdbcTemplate.batchUpdate(UPDATE_COMMENT_VOTES, toUpdateArgs(comments));
+                return null;
+            });
+        } catch (RuntimeException e) {
+            log.error("Flushing vote counts failed, they will be retried with the next flush", e);
+            pendingVoteIds.addAll(ids);
+            return;
+        }
+
+        if (posts.isEmpty() && comments.isEmpty()) {
+            return;
+        }
+
+        List<String> tags = new ArrayList<>();
+        posts.keySet().forEach(id -> tags.add(CacheTags.post(id)));
+        comments.keySet().forEach(id -> tags.add(CacheTags.comment(id)));
+        cacheManager.evictTagged(tags.toArray(new String[0]));
+    }
+
+    // deletes the rows and adds up the deltas of those that were still there
+    private void claim(List<UUID> ids, Map<UUID, PendingCount> posts, Map<UUID, PendingCount> comments) {
+        String sql = String.format(CLAIM_PENDING_VOTES, String.join(",", Collections.nCopies(ids.size(), "?")));
+        jdbcTemplate.query(sql, (RowCallbackHandler) rs -> {
+            UUID postId = rs.getObject("post_id", UUID.class);
+            UUID commentId = rs.getObject("comment_id", UUID.class);
+            PendingCount count = postId != null
+                    ? posts.computeIfAbsent(postId, id -> new PendingCount())
+                    : comments.computeIfAbsent(commentId, id -> new PendingCount());
+            count.upvotes += rs.getInt("upvotes");
+            count.downvotes += rs.getInt("downvotes");
+        }, ids.toArray());
+    }
+
+    // removes the ids one by one, so a concurrent vote lands either in this flush or in the next one
+    private List<UUID> drain() {
+        List<UUID> drained = new ArrayList<>();
+        for (UUID id : pendingVoteIds) {
+            if (pendingVoteIds.remove(id)) {
+                drained.add(id);
+            }
+        }
+        return drained;
+    }
+
+    private static List<Object[]> toUpdateArgs(Map<UUID, PendingCount> counts) {
+        List<Object[]> args = new ArrayList<>(counts.size());
+        counts.forEach((id, count) -> args.add(new Object[]{count.upvotes, count.downvotes, id}));
+        return args;
+    }
+
+    private static class PendingCount {
+        private int upvotes;
+        private int downvotes;
+    }
+}
@@ -2,19 +2,24 @@ package notreddit.services.implementations;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import notreddit.cache.CacheTags;
+import notreddit.cache.TaggedCache;
+import notreddit.cache.TaggedCacheManager;
 import notreddit.constants.ApiResponseMessages;
+import notreddit.data.entities.CommentVote;
+import notreddit.data.entities.PostVote;
 import notreddit.data.entities.User;
-import notreddit.data.entities.Votable;
-import notreddit.data.entities.Vote;
 import notreddit.data.models.responses.api.ApiResponse;
 import notreddit.data.models.responses.post.PostVoteUserChoiceResponse;
 import notreddit.repositories.CommentRepository;
+import notreddit.repositories.CommentVoteRepository;
 import notreddit.repositories.PostRepository;
-import notreddit.repositories.VoteRepository;
+import notreddit.repositories.PostVoteRepository;
+import notreddit.services.PostUpdateService;
+import notreddit.services.RankingService;
+import notreddit.services.VoteCountService;
 import notreddit.services.VoteService;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.Caching;
+import notreddit.util.VoteChoices;
 import org.springframework.http.ResponseEntity;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
@@ -23,11 +28,12 @@ import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.net.URI;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
-import static notreddit.constants.GeneralConstants.*;
+import static notreddit.util.Transactions.afterCommit;
 
 @Slf4j
 @Service
@@ -36,78 +42,61 @@ public class VoteServiceImpl implements VoteService {
 
     private static final String COMMENT_VOTES_BY_USER_CACHE = "commentVotesByUser";
     private static final String POST_VOTES_BY_USER_CACHE = "postVotesByUser";
-    private static final String USER_CHOICE_BY_POST_CACHE = "userChoiceByPost";
 
     private final PostRepository postRepository;
     private final CommentRepository commentRepository;
-    private final VoteRepository voteRepository;
+    private final PostVoteRepository postVoteRepository;
+    private final CommentVoteRepository commentVoteRepository;
+    private final VoteCountService voteCountService;
+    private final RankingService rankingService;
+    private final PostUpdateService postUpdateService;
+    private final TaggedCacheManager cacheManager;
 
     @Override
     @Transactional
-    @Caching(evict = {
-            @CacheEvict(value = POSTS_BY_ID_CACHE, allEntries = true),
-            @CacheEvict(value = POSTS_BY_USERNAME_CACHE, allEntries = true),
-            @CacheEvict(value = POSTS_BY_SUBREDDIT_CACHE, allEntries = true),
-            @CacheEvict(value = SUBSCRIBED_POSTS_CACHE, allEntries = true),
-            @CacheEvict(value = COMMENTS_BY_USERNAME, allEntries = true),
-            @CacheEvict(value = COMMENTS_BY_POST_CACHE, allEntries = true),
-            @CacheEvict(value = COMMENT_VOTES_BY_USER_CACHE, key = "#user.id"),
-            @CacheEvict(value = POST_VOTES_BY_USER_CACHE, key = "#user.id"),
-            @CacheEvict(value = USER_CHOICE_BY_POST_CACHE,
-                    key = "#user.id.toString().concat('-').concat(#postId)",
-                    condition = "#postId != null")
-    })
     // all the if (postId != null) are cus the method handles votes for both posts and comments
     public ResponseEntity<?> voteForPostOrComment(byte choice, UUID postId, UUID commentId, User user) {
-        Votable votable;
+        if (choice != 1 && choice != -1) {
+            return ResponseEntity
+                    .badRequest()
+                    .body(new ApiResponse(false, ApiResponseMessages.INVALID_VOTE_CHOICE));
+        }
+
+        boolean exists;
 
         if (postId != null) {
-            votable = postRepository.findById(postId).orElse(null);
+            exists = postRepository.existsById(postId);
         } else {
-            votable = commentRepository.findById(commentId).orElse(null);
+            exists = commentRepository.existsById(commentId);
         }
 
-        if (votable == null) {
+        if (!exists) {
             return ResponseEntity
                     .badRequest()
                     .body(new ApiResponse(false, ApiResponseMessages.NONEXISTENT_POST_OR_COMMENT));
         }
 
-        Vote vote;
-        if (postId != null) {
-            vote = voteRepository.findByPostIdAndUserId(postId, user.getId()).orElse(null);
-        } else {
-            vote = voteRepository.findByCommentIdAndUserId(commentId, user.getId()).orElse(null);
-        }
+        // one upsert, which deselects the vote if the user clicked the same choice again
+        Integer previous = postId != null
+                ? postVoteRepository.vote(postId, user.getId(), choice)
+                : commentVoteRepository.vote(commentId, user.getId(), choice);
 
-        // if the user clicked the same choice hes already voted for -> deselect the vote
-        if (vote != null && vote.getChoice() == choice) {
-            updateVote(true, vote, votable, (byte) 0);
-
-            voteRepository.delete(vote);
+        // a concurrent vote of the user already made this choice and counted it, nothing changed
+        if (previous == null) {
             return ResponseEntity
-                    .ok(new ApiResponse(true, ApiResponseMessages.SUCCESSFUL_VOTE_DELETION));
+                    .ok(new ApiResponse(true, ApiResponseMessages.SUCCESSFUL_VOTE_REGISTRATION));
         }
 
-        // if user hasn't yet voted for the post/comment, create a new vote, else, update choice
-        if (vote == null) {
-            vote = new Vote();
-            vote.setChoice(choice);
-            vote.setUser(user);
-
-            if (postId != null) {
-                vote.setPost(votable);
-            } else {
-                vote.setComment(votable);
-            }
-            updateVote(false, vote, votable, choice);
-        } else {
-            updateVote(true, vote, votable, choice);
-            vote.setChoice(choice);
+        byte previousChoice = previous.byteValue();
+        if (previousChoice == choice) {
+            recordVoteCounts(postId, commentId, previousChoice, (byte) 0);
+            updateCachedChoices(postId, commentId, user.getId(), (byte) 0);
+            return ResponseEntity
+                    .ok(new ApiResponse(true, ApiResponseMessages.SUCCESSFUL_VOTE_DELETION));
         }
 
-        vote.setCreatedOn(LocalDateTime.now());
-        voteRepository.saveAndFlush(vote);
+        recordVoteCounts(postId, commentId, previousChoice, choice);
+        updateCachedChoices(postId, commentId, user.getId(), choice);
 
         URI location = ServletUriComponentsBuilder
                 .fromCurrentContextPath().path("/api/comment/vote")
@@ -119,56 +108,93 @@ public class VoteServiceImpl implements VoteService {
     }
 
     @Override
-    @Cacheable(value = POST_VOTES_BY_USER_CACHE, key = "#user.id")
     public Map<String, Byte> findPostVotesByUser(User user) {
-        return voteRepository.findPostVotesByUser(user)
-                .parallelStream()
-                .collect(Collectors.toMap(
-                        v -> v.getPost().getId().toString(),
-                        Vote::getChoice));
+        return postChoices(user.getId()).toMap();
     }
 
     @Override
-    @Cacheable(value = COMMENT_VOTES_BY_USER_CACHE, key = "#user.id")
     public Map<String, Byte> findCommentVotesByUser(User user) {
-        return voteRepository.findCommentVotesByUser(user)
-                .parallelStream()
-                .collect(Collectors.toMap(
-                        v -> v.getComment().getId().toString(),
-                        Vote::getChoice));
+        return commentChoices(user.getId()).toMap();
+    }
+
+    // answered from the user's cached votes when they are loaded, otherwise with one query for just these ids
+    @Override
+    public Map<String, Byte> findPostChoices(User user, Collection<UUID> postIds) {
+        VoteChoices cached = cachedChoices(POST_VOTES_BY_USER_CACHE, user.getId());
+        if (cached != null || postIds.isEmpty()) {
+            return (cached != null ? cached : VoteChoices.empty()).choicesOf(postIds);
+        }
+
+        return VoteChoices.of(postVoteRepository.findByUserIdAndPostIdIn(user.getId(), postIds),
+                PostVote::getPostId, PostVote::getChoice).choicesOf(postIds);
+    }
+
+    @Override
+    public Map<String, Byte> findCommentChoices(User user, Collection<UUID> commentIds) {
+        VoteChoices cached = cachedChoices(COMMENT_VOTES_BY_USER_CACHE, user.getId());
+        if (cached != null || commentIds.isEmpty()) {
+            return (cached != null ? cached : VoteChoices.empty()).choicesOf(commentIds);
+        }
+
+        return VoteChoices.of(commentVoteRepository.findByUserIdAndCommentIdIn(user.getId(), commentIds),
+                CommentVote::getCommentId, CommentVote::getChoice).choicesOf(commentIds);
     }
 
     @Override
-    @Cacheable(value = USER_CHOICE_BY_POST_CACHE, key = "#user.id.toString().concat('-').concat(#postId)")
     public PostVoteUserChoiceResponse getUserChoiceForPost(User user, UUID postId) {
-        Vote vote = voteRepository.findByPostIdAndUserId(postId, user.getId()).orElse(null);
+        Byte choice = findPostChoices(user, Collections.singletonList(postId)).get(postId.toString());
 
-        if (vote == null) {
+        if (choice == null) {
             return new PostVoteUserChoiceResponse(false, null);
         }
 
-        return new PostVoteUserChoiceResponse(true, vote.getChoice());
+        return new PostVoteUserChoiceResponse(true, choice);
     }
 
     @Scheduled(cron = "0 0/5 * * * *") // every 5 minutes
     public void upvoteRandomPost() {
-        String postId = voteRepository.upvoteRandomPost();
+        String postId = postRepository.upvoteRandomPost();
+        if (postId != null) {
+            cacheManager.evictTagged(CacheTags.post(postId));
+        }
         log.info("Scheduled task executed: upvoted post: {} at: {}", postId, LocalDateTime.now());
     }
 
-    private void updateVote(boolean alreadyVoted, Vote vote, Votable votable, byte choice) {
-        if (alreadyVoted) {
-            if (vote.getChoice() < 0) {
-                votable.setDownvotes(votable.getDownvotes() - 1);
-            } else {
-                votable.setUpvotes(votable.getUpvotes() - 1);
-            }
-        }
+    // a user's votes are loaded once and then kept up to date by their own votes
+    private VoteChoices postChoices(UUID userId) {
+        return cacheManager.getCache(POST_VOTES_BY_USER_CACHE).get(userId, () -> VoteChoices.of(
+                postVoteRepository.findByUserId(userId), PostVote::getPostId, PostVote::getChoice));
+    }
 
-        if (choice == 1) {
-            votable.upvote();
-        } else if (choice == -1) {
-            votable.downvote();
+    private VoteChoices commentChoices(UUID userId) {
+        return cacheManager.getCache(COMMENT_VOTES_BY_USER_CACHE).get(userId, () -> VoteChoices.of(
+                commentVoteRepository.findByUserId(userId), CommentVote::getCommentId, CommentVote::getChoice));
+    }
+
+    private VoteChoices cachedChoices(String cacheName, UUID userId) {
+        return cacheManager.getCache(cacheName).get(userId, VoteChoices.class);
+    }
+
+    // applied once the vote is committed, so a concurrent load can't cache the votes from before it on top,
+    // the other nodes evict the user's votes instead
+    private void updateCachedChoices(UUID postId, UUID commentId, UUID userId, byte choice) {
+        String cacheName = postId != null ? POST_VOTES_BY_USER_CACHE : COMMENT_VOTES_BY_USER_CACHE;
+        UUID id = postId != null ? postId : commentId;
+
+        afterCommit(() -> ((TaggedCache) cacheManager.getCache(cacheName))
+                .updateIfPresent(userId, choices -> ((VoteChoices) choices).with(id, choice)));
+    }
+
+    // the post/comment counters are updated in batches by the vote count service, only the deltas are recorded here
+    private void recordVoteCounts(UUID postId, UUID commentId, byte previousChoice, byte choice) {
+        int upvotes = (choice == 1 ? 1 : 0) - (previousChoice == 1 ? 1 : 0);
+        int downvotes = (choice == -1 ? 1 : 0) - (previousChoice == -1 ? 1 : 0);
+
+        voteCountService.record(postId, commentId, upvotes, downvotes);
+        if (postId != null) {
+            // a rolled back vote must not move the post in the hot lists
+            afterCommit(() -> rankingService.recordVote(postId, upvotes, downvotes));
+            postUpdateService.recordVotes(postId, upvotes, downvotes);
         }
     }
 }
@@ -0,0 +1,76 @@
+package notreddit.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The last messages of a chat room, a fixed number of slots written round and round without locking. Every message
+ * takes the next sequence number and the slot it points to, so a reader can tell a slot still being written, or
+ * already written again, from the one it expects and skip it.
+ */
+public final class ChatRing {
+
+    private final AtomicReferenceArray<Entry> slots;
+    private final AtomicLong next = new AtomicLong();
+
+    public ChatRing(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    public int capacity() {
+        return slots.length();
+    }
+
+    /**
+     * How many messages were ever added, including those already written over.
+     */
+    public long count() {
+        return next.get();
+    }
+
+    public void add(byte[] message) {
+        long sequence = next.getAndIncrement();
+        slots.set(index(sequence), new Entry(sequence, message));
+    }
+
+    /**
+     * Up to the given number of the last messages, oldest first.
+     */
+    public List<byte[]> last(int limit) {
+        long end = next.get();
+        long start = Math.max(0, end - Math.min(limit, capacity()));
+        if (start >= end) {
+            return Collections.emptyList();
+        }
+
+        List<byte[]> messages = new ArrayList<>((int) (end - start));
+        for (long sequence = start; sequence < end; sequence++) {
+            Entry entry = slots.get(index(sequence));
+            if (entry != null && entry.sequence == sequence) {
+                messages.add(entry.message);
+            }
+        }
+        return messages;
+    }
+
+    private int index(long sequence) {
+        return (int) (sequence % slots.length());
+    }
+
+    private static final class Entry {
+
+        private final long sequence;
+        private final byte[] message;
+
+        private Entry(long sequence, byte[] message) {
+            this.sequence = sequence;
+            this.message = message;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package notreddit.util;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import notreddit.constants.ErrorMessages;
+import notreddit.data.entities.Post;
+import notreddit.data.enums.FeedOrder;
+import notreddit.web.exceptions.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position of the last post of a feed page, as the {@code (createdOn, id)}, {@code (score, id)} or {@code (hot, id)}
+ * pair the next page seeks past. Handed to clients as an opaque url-safe token.
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class FeedCursor {
+
+    // sorts after every stored post, so the first page can use the same seek queries
+    private static final LocalDateTime FIRST_CREATED_ON = LocalDateTime.of(9999, 12, 31, 0, 0);
+    private static final UUID FIRST_ID = new UUID(-1L, -1L);
+    private static final String SEPARATOR = "|";
+
+    private final FeedOrder order;
+    private final LocalDateTime createdOn;
+    private final int score;
+    private final double hot;
+    private final UUID id;
+
+    public static FeedCursor first(FeedOrder order) {
+        return new FeedCursor(order, FIRST_CREATED_ON, Integer.MAX_VALUE, Double.POSITIVE_INFINITY, FIRST_ID);
+    }
+
+    public static FeedCursor after(FeedOrder order, Post post) {
+        return new FeedCursor(order, post.getCreatedOn(), post.getUpvotes() - post.getDownvotes(),
+                Double.POSITIVE_INFINITY, post.getId());
+    }
+
+    public static FeedCursor newest(LocalDateTime createdOn, UUID id) {
+        return new FeedCursor(FeedOrder.NEW, createdOn, Integer.MAX_VALUE, Double.POSITIVE_INFINITY, id);
+    }
+
+    public static FeedCursor hot(double hot, UUID id) {
+        return new FeedCursor(FeedOrder.HOT, FIRST_CREATED_ON, Integer.MAX_VALUE, hot, id);
+    }
+
+    /**
+     * Reads a token made by {@link #encode()}; a blank token means the first page.
+     *
+     * @throws InvalidCursorException if the token is malformed or was made for another order
+     */
+    public static FeedCursor decode(String token, FeedOrder order) {
+        if (token == null || token.trim().isEmpty()) {
+            return first(order);
+        }
+
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = decoded.split("\\" + SEPARATOR);
+            if (parts.length != 3 || FeedOrder.valueOf(parts[0]) != order) {
+                throw new InvalidCursorException(ErrorMessages.INVALID_CURSOR);
+            }
+
+            UUID id = UUID.fromString(parts[2]);
+            switch (order) {
+                case TOP:
+                    return new FeedCursor(order, FIRST_CREATED_ON, Integer.parseInt(parts[1]),
+                            Double.POSITIVE_INFINITY, id);
+                case HOT:
+                    return hot(Double.parseDouble(parts[1]), id);
+                default:
+                    return new FeedCursor(order, LocalDateTime.parse(parts[1]), Integer.MAX_VALUE,
+                            Double.POSITIVE_INFINITY, id);
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidCursorException(ErrorMessages.INVALID_CURSOR);
+        }
+    }
+
+    public String encode() {
+        String position;
+        switch (order) {
+            case TOP:
+                position = String.valueOf(score);
+                break;
+            case HOT:
+                position = String.valueOf(hot);
+                break;
+            default:
+                position = createdOn.toString();
+        }
+
+        String raw = order.name() + SEPARATOR + position + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,69 @@
+package notreddit.util;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Counts the bytes read through it and fails as soon as there are more than {@code limit} of them,
+ * so a streamed chunk can't run past the end of its upload.
+ */
+public class LimitedInputStream extends FilterInputStream {
+
+    private final long limit;
+    private long count;
+
+    public LimitedInputStream(InputStream in, long limit) {
+        super(in);
+        this.limit = limit;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b != -1) {
+            advance(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        // never reads more than one byte past the limit, that one is enough to tell it was exceeded
+        int read = super.read(b, off, (int) Math.min(len, limit - count + 1));
+        if (read > 0) {
+            advance(read);
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(Math.min(n, limit - count + 1));
+        advance(skipped);
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    private void advance(long read) throws LimitExceededException {
+        count += read;
+        if (count > limit) {
+            throw new LimitExceededException(limit);
+        }
+    }
+
+    public static class LimitExceededException extends IOException {
+
+        public LimitExceededException(long limit) {
+            super("The stream holds more than " + limit + " bytes.");
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package notreddit.util;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.io.Serializable;
+
+/**
+ * Cache key produced by {@link PageableKeyGenerator}. The owner is the first argument of the cached
+ * method (username, subreddit title, post id or user id) so the cache layer can tell which entity a page belongs to.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+public class PageableKey implements Serializable {
+
+    private final String owner;
+    private final int pageNumber;
+    private final int pageSize;
+    private final String sort;
+}
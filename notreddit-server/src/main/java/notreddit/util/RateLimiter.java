@@ -1,42 +1,63 @@
 package notreddit.util;
 
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.Semaphore;
-import java.util.concurrent.TimeUnit;
-
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free rate limiter using the generic cell rate algorithm. Its whole state is the theoretical arrival time
+ * of the next request, advanced with a CAS on every permit. Permits refill lazily from the clock, so a limiter
+ * needs no thread of its own, and an idle limiter behaves exactly like a new one.
+ */
 public class RateLimiter {
 
-    private final Semaphore semaphore;
-    private final int maxPermits;
-    private final TimeUnit timePeriod;
-    private ScheduledExecutorService scheduler;
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final LongSupplier clock;
+    private final AtomicLong theoreticalArrival;
 
-    private RateLimiter(int permits, TimeUnit timePeriod) {
-        this.semaphore = new Semaphore(permits);
-        this.maxPermits = permits;
-        this.timePeriod = timePeriod;
-    }
+    private RateLimiter(int permits, Duration period, LongSupplier clock) {
+        if (permits < 1 || period.isZero() || period.isNegative()) {
+            throw new IllegalArgumentException("A rate limiter needs at least one permit per positive period.");
+        }
 
-    public static RateLimiter create(int permits, TimeUnit timePeriod) {
-        RateLimiter limiter = new RateLimiter(permits, timePeriod);
-        limiter.schedulePermitReplenishment();
-        return limiter;
+        this.emissionIntervalNanos = period.toNanos() / permits;
+        this.burstToleranceNanos = emissionIntervalNanos * (permits - 1);
+        this.clock = clock;
+        this.theoreticalArrival = new AtomicLong(clock.getAsLong());
     }
 
-    public boolean tryAcquire() {
-        return semaphore.tryAcquire();
+    /**
+     * Allows {@code permits} calls per {@code period}, all of them at once if the limiter was idle.
+     */
+    public static RateLimiter create(int permits, Duration period) {
+        return new RateLimiter(permits, period, System::nanoTime);
     }
 
-    public void stop() {
-        scheduler.shutdownNow();
+    static RateLimiter create(int permits, Duration period, LongSupplier clock) {
+        return new RateLimiter(permits, period, clock);
     }
 
-    public void schedulePermitReplenishment() {
-        scheduler = Executors.newScheduledThreadPool(1);
+    public boolean tryAcquire() {
+        long now = clock.getAsLong();
+
+        while (true) {
+            long arrival = theoreticalArrival.get();
+            long start = arrival - now > 0 ? arrival : now;
+
+            if (start - now > burstToleranceNanos) {
+                return false;
+            }
+            if (theoreticalArrival.compareAndSet(arrival, start + emissionIntervalNanos)) {
+                return true;
+            }
+        }
+    }
 
-        scheduler.scheduleWithFixedDelay(() -> {
-            semaphore.release(maxPermits - semaphore.availablePermits());
-        }, 0, 1, timePeriod);
+    /**
+     * True once all permits are back, after which the limiter can be dropped and recreated without any effect.
+     */
+    public boolean isIdle() {
+        return theoreticalArrival.get() - clock.getAsLong() <= 0;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,168 @@
+package notreddit.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Records appended to numbered segment files in a directory, each a length and its bytes. A segment that is full
+ * is never written again, and the oldest are deleted past the maximum number of segments. The first append after
+ * opening goes on with the last segment, cut back to its last whole record, so a record torn by a crash is dropped
+ * and reopening doesn't push out old segments. Segments are read memory-mapped, the one being written up to its
+ * last whole record.
+ */
+public final class SegmentLog implements Closeable {
+
+    private static final String SUFFIX = ".log";
+
+    private final Path directory;
+    private final long segmentSize;
+    private final int maxSegments;
+
+    private final Deque<Path> segments = new ArrayDeque<>();
+    // opened by the first append, so reading never writes
+    private FileChannel current;
+    private long written;
+    private long index;
+
+    public SegmentLog(Path directory, long segmentSize, int maxSegments) throws IOException {
+        if (segmentSize <= 0 || segmentSize > Integer.MAX_VALUE || maxSegments <= 0) {
+            throw new IllegalArgumentException("Invalid segment size or count");
+        }
+
+        this.directory = Files.createDirectories(directory);
+        this.segmentSize = segmentSize;
+        this.maxSegments = maxSegments;
+
+        List<Path> existing = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            files.forEach(existing::add);
+        }
+        // the names are zero padded, so they sort by number
+        existing.sort(null);
+        segments.addAll(existing);
+        if (!existing.isEmpty()) {
+            String last = existing.get(existing.size() - 1).getFileName().toString();
+            index = Long.parseLong(last.substring(0, last.length() - SUFFIX.length()));
+        }
+    }
+
+    public synchronized void append(byte[] record) throws IOException {
+        if (current == null) {
+            resume();
+        }
+
+        int length = Integer.BYTES + record.length;
+        if (written > 0 && written + length > segmentSize) {
+            current.close();
+            index++;
+            open();
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.putInt(record.length).put(record).flip();
+        while (buffer.hasRemaining()) {
+            current.write(buffer);
+        }
+        written += length;
+    }
+
+    /**
+     * Up to the given number of the last records, oldest first.
+     */
+    public List<byte[]> last(int limit) throws IOException {
+        List<Path> paths;
+        long currentLength;
+        synchronized (this) {
+            paths = new ArrayList<>(segments);
+            currentLength = current == null ? Long.MAX_VALUE : written;
+        }
+
+        Deque<byte[]> records = new ArrayDeque<>();
+        for (int i = paths.size() - 1; i >= 0 && records.size() < limit; i--) {
+            List<byte[]> segment = read(paths.get(i), i == paths.size() - 1 ? currentLength : Long.MAX_VALUE);
+            for (int j = segment.size() - 1; j >= 0 && records.size() < limit; j--) {
+                records.addFirst(segment.get(j));
+            }
+        }
+        return new ArrayList<>(records);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    private void resume() throws IOException {
+        Path last = segments.peekLast();
+        if (last != null) {
+            long length = wholeRecordsLength(last);
+            if (length < segmentSize) {
+                current = FileChannel.open(last, StandardOpenOption.WRITE);
+                current.truncate(length);
+                current.position(length);
+                written = length;
+                return;
+            }
+            index++;
+        }
+        open();
+    }
+
+    private void open() throws IOException {
+        Path path = directory.resolve(String.format("%020d", index) + SUFFIX);
+        current = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        written = 0;
+        segments.addLast(path);
+
+        while (segments.size() > maxSegments) {
+            Files.deleteIfExists(segments.removeFirst());
+        }
+    }
+
+    private static long wholeRecordsLength(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            while (buffer.remaining() >= Integer.BYTES) {
+                int size = buffer.getInt(buffer.position());
+                if (size < 0 || size > buffer.remaining() - Integer.BYTES) {
+                    break;
+                }
+                buffer.position(buffer.position() + Integer.BYTES + size);
+            }
+            return buffer.position();
+        }
+    }
+
+    private static List<byte[]> read(Path path, long length) throws IOException {
+        List<byte[]> records = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(length, channel.size()));
+            while (buffer.remaining() >= Integer.BYTES) {
+                int size = buffer.getInt();
+                if (size < 0 || size > buffer.remaining()) {
+                    break;
+                }
+                byte[] record = new byte[size];
+                buffer.get(record);
+                records.add(record);
+            }
+        } catch (NoSuchFileException e) {
+            // deleted as the oldest while it was read
+        }
+        return records;
+    }
+}
@@ -0,0 +1,18 @@
+package notreddit.util;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.file.Path;
+
+/**
+ * An uploaded file copied out of the request to a temporary file, so it outlives the request that brought it.
+ */
+@Getter
+@AllArgsConstructor
+public class SpooledFile {
+
+    private final Path path;
+    private final String originalFilename;
+    private final String contentType;
+}
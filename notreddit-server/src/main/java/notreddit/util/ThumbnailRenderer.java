@@ -0,0 +1,143 @@
+package notreddit.util;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Decodes an image once and renders it as JPEG thumbnails of the given widths, keeping its aspect ratio and never
+ * upscaling. Large images are subsampled while they are decoded, so a photo is never held in memory at full size,
+ * and every smaller thumbnail is scaled down from the previous one.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class ThumbnailRenderer {
+
+    private static final long MAX_PIXELS = 100_000_000L;
+    private static final float JPEG_QUALITY = 0.8f;
+
+    static {
+        // image streams are read once from start to end, caching them in temporary files only slows them down
+        ImageIO.setUseCache(false);
+    }
+
+    /**
+     * Returns the encoded thumbnails by width, largest first.
+     */
+    public static Map<Integer, byte[]> render(InputStream image, int... widths) throws IOException {
+        int[] descending = Arrays.stream(widths).distinct().boxed()
+                .sorted((a, b) -> Integer.compare(b, a))
+                .mapToInt(Integer::intValue)
+                .toArray();
+
+        BufferedImage current = toRgb(decode(image, descending[0]));
+        int originalWidth = current.getWidth();
+        int originalHeight = current.getHeight();
+
+        Map<Integer, byte[]> thumbnails = new LinkedHashMap<>();
+        for (int width : descending) {
+            int targetWidth = Math.min(width, originalWidth);
+            int targetHeight = Math.max(1, (int) Math.round((double) originalHeight * targetWidth / originalWidth));
+            current = downscale(current, targetWidth, targetHeight);
+            thumbnails.put(width, encode(current));
+        }
+        return thumbnails;
+    }
+
+    private static BufferedImage decode(InputStream in, int largestWidth) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = input == null
+                    ? null
+                    : ImageIO.getImageReaders(input);
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("Unsupported image format.");
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > MAX_PIXELS) {
+                    throw new IOException("Image of " + width + "x" + height + " is too large.");
+                }
+
+                // decoded at no less than twice the largest thumbnail, which leaves enough to scale down smoothly
+                int subsampling = Math.max(1, width / (largestWidth * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // jpeg has no alpha, transparent parts end up white
+    private static BufferedImage toRgb(BufferedImage image) {
+        if (image.getType() == BufferedImage.TYPE_INT_RGB) {
+            return image;
+        }
+
+        BufferedImage rgb = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = rgb.createGraphics();
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
+        graphics.drawImage(image, 0, 0, null);
+        graphics.dispose();
+        return rgb;
+    }
+
+    // halves the image until it is close, one bilinear step from far away would skip most of the pixels
+    private static BufferedImage downscale(BufferedImage image, int width, int height) {
+        BufferedImage current = image;
+        int currentWidth = image.getWidth();
+        int currentHeight = image.getHeight();
+        while (currentWidth > width || currentHeight > height) {
+            currentWidth = Math.max(width, currentWidth / 2);
+            currentHeight = Math.max(height, currentHeight / 2);
+
+            BufferedImage next = new BufferedImage(currentWidth, currentHeight, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = next.createGraphics();
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(current, 0, 0, currentWidth, currentHeight, null);
+            graphics.dispose();
+            current = next;
+        }
+        return current;
+    }
+
+    private static byte[] encode(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(JPEG_QUALITY);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,35 @@
+package notreddit.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public final class Transactions {
+
+    // whether this thread runs the actions of a commit, the synchronizations registered by them would never run
+    private static final ThreadLocal<Boolean> COMMITTED = ThreadLocal.withInitial(() -> false);
+
+    private Transactions() {
+    }
+
+    /**
+     * Runs the action once the current transaction commits, never when it rolls back. Without a transaction, or
+     * from the action of one that already committed, it runs right away.
+     */
+    public static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive() && !COMMITTED.get()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    COMMITTED.set(true);
+                    try {
+                        action.run();
+                    } finally {
+                        COMMITTED.remove();
+                    }
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package notreddit.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * The votes of one user, kept as two sorted arrays with the halves of the voted ids and a bitset of which votes are
+ * downvotes, about 16 bytes per vote instead of the hundred and more of a map entry. Lookups are binary searches.
+ * Instances never change, a vote gives a copy with it applied, so a cached instance can be read without locking.
+ */
+public final class VoteChoices {
+
+    private static final VoteChoices EMPTY = new VoteChoices(new long[0], new long[0], new long[0]);
+
+    private final long[] mostSignificantBits;
+    private final long[] leastSignificantBits;
+    // bit i is set when the i-th vote is a downvote, the ones not set are upvotes
+    private final long[] downvotes;
+
+    private VoteChoices(long[] mostSignificantBits, long[] leastSignificantBits, long[] downvotes) {
+        this.mostSignificantBits = mostSignificantBits;
+        this.leastSignificantBits = leastSignificantBits;
+        this.downvotes = downvotes;
+    }
+
+    public static VoteChoices empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Packs the given votes, skipping those without a choice. Of several votes for the same id the last one counts.
+     */
+    public static <T> VoteChoices of(Collection<T> votes, Function<T, UUID> id, ToIntFunction<T> choice) {
+        List<T> sorted = new ArrayList<>(votes);
+        sorted.removeIf(vote -> choice.applyAsInt(vote) == 0);
+        // stable, so the last of equal ids stays last
+        sorted.sort(Comparator.comparing(id));
+
+        int size = 0;
+        for (int i = 0; i < sorted.size(); i++) {
+            if (i == sorted.size() - 1 || !id.apply(sorted.get(i)).equals(id.apply(sorted.get(i + 1)))) {
+                sorted.set(size++, sorted.get(i));
+            }
+        }
+
+        long[] mostSignificantBits = new long[size];
+        long[] leastSignificantBits = new long[size];
+        long[] downvotes = new long[words(size)];
+        for (int i = 0; i < size; i++) {
+            T vote = sorted.get(i);
+            mostSignificantBits[i] = id.apply(vote).getMostSignificantBits();
+            leastSignificantBits[i] = id.apply(vote).getLeastSignificantBits();
+            if (choice.applyAsInt(vote) < 0) {
+                set(downvotes, i);
+            }
+        }
+
+        return new VoteChoices(mostSignificantBits, leastSignificantBits, downvotes);
+    }
+
+    public int size() {
+        return mostSignificantBits.length;
+    }
+
+    /**
+     * 1 or -1, or 0 when there is no vote for the id.
+     */
+    public byte choice(UUID id) {
+        int index = indexOf(id.getMostSignificantBits(), id.getLeastSignificantBits());
+        return index < 0 ? 0 : choiceAt(index);
+    }
+
+    /**
+     * A copy with the vote for the id set to the choice, which removes it when 0. Applying the same vote twice
+     * gives the same result, so it doesn't matter if the votes were already loaded with it.
+     */
+    public VoteChoices with(UUID id, byte choice) {
+        long most = id.getMostSignificantBits();
+        long least = id.getLeastSignificantBits();
+        int index = indexOf(most, least);
+
+        if (index >= 0) {
+            if (choice == 0) {
+                return without(index);
+            }
+            if (choice == choiceAt(index)) {
+                return this;
+            }
+
+            long[] changed = downvotes.clone();
+            changed[index >>> 6] ^= 1L << index;
+            return new VoteChoices(mostSignificantBits, leastSignificantBits, changed);
+        }
+
+        if (choice == 0) {
+            return this;
+        }
+        return inserted(-index - 1, most, least, choice);
+    }
+
+    /**
+     * The choices for the given ids that have a vote, by id string, in the order of the ids.
+     */
+    public Map<String, Byte> choicesOf(Collection<UUID> ids) {
+        Map<String, Byte> choices = new LinkedHashMap<>();
+        for (UUID id : ids) {
+            byte choice = choice(id);
+            if (choice != 0) {
+                choices.put(id.toString(), choice);
+            }
+        }
+        return choices;
+    }
+
+    /**
+     * All the choices by id string.
+     */
+    public Map<String, Byte> toMap() {
+        Map<String, Byte> choices = new HashMap<>((int) (size() / 0.75f) + 1);
+        for (int i = 0; i < size(); i++) {
+            choices.put(new UUID(mostSignificantBits[i], leastSignificantBits[i]).toString(), choiceAt(i));
+        }
+        return choices;
+    }
+
+    private VoteChoices without(int index) {
+        int size = size() - 1;
+        long[] mostSignificantBits = new long[size];
+        long[] leastSignificantBits = new long[size];
+        long[] downvotes = new long[words(size)];
+
+        for (int from = 0, to = 0; from <= size; from++) {
+            if (from == index) {
+                continue;
+            }
+            mostSignificantBits[to] = this.mostSignificantBits[from];
+            leastSignificantBits[to] = this.leastSignificantBits[from];
+            if (choiceAt(from) < 0) {
+                set(downvotes, to);
+            }
+            to++;
+        }
+
+        return new VoteChoices(mostSignificantBits, leastSignificantBits, downvotes);
+    }
+
+    private VoteChoices inserted(int index, long most, long least, byte choice) {
+        int size = size() + 1;
+        long[] mostSignificantBits = new long[size];
+        long[] leastSignificantBits = new long[size];
+        long[] downvotes = new long[words(size)];
+
+        for (int to = 0, from = 0; to < size; to++) {
+            if (to == index) {
+                mostSignificantBits[to] = most;
+                leastSignificantBits[to] = least;
+                if (choice < 0) {
+                    set(downvotes, to);
+                }
+                continue;
+            }
+            mostSignificantBits[to] = this.mostSignificantBits[from];
+            leastSignificantBits[to] = this.leastSignificantBits[from];
+            if (choiceAt(from) < 0) {
+                set(downvotes, to);
+            }
+            from++;
+        }
+
+        return new VoteChoices(mostSignificantBits, leastSignificantBits, downvotes);
+    }
+
+    // same order as UUID.compareTo, which sorted the arrays
+    private int indexOf(long most, long least) {
+        int low = 0;
+        int high = size() - 1;
+
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = Long.compare(mostSignificantBits[middle], most);
+            if (comparison == 0) {
+                comparison = Long.compare(leastSignificantBits[middle], least);
+            }
+
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private byte choiceAt(int index) {
+        return (downvotes[index >>> 6] & (1L << index)) != 0 ? (byte) -1 : (byte) 1;
+    }
+
+    private static void set(long[] bits, int index) {
+        bits[index >>> 6] |= 1L << index;
+    }
+
+    private static int words(int size) {
+        return (size + 63) >>> 6;
+    }
+}
@@ -0,0 +1,42 @@
+package notreddit.web;
+
+import java.util.regex.Pattern;
+
+/**
+ * Chat rooms and their topics. The first room, {@value #PUBLIC}, keeps the topic it always had, {@code /topic/public},
+ * the others are {@code /topic/rooms/{room}}.
+ */
+public final class ChatRooms {
+
+    public static final String PUBLIC = "public";
+
+    // also the name of the room's history directory
+    private static final Pattern NAME = Pattern.compile("[a-z0-9_-]{1,32}");
+    private static final String PUBLIC_TOPIC = "/topic/public";
+    private static final String ROOMS_TOPIC = "/topic/rooms/";
+
+    private ChatRooms() {
+    }
+
+    public static boolean isValid(String room) {
+        return room != null && NAME.matcher(room).matches();
+    }
+
+    public static String topic(String room) {
+        return PUBLIC.equals(room) ? PUBLIC_TOPIC : ROOMS_TOPIC + room;
+    }
+
+    /**
+     * The room of a topic, or null when it is no room's.
+     */
+    public static String roomOf(String destination) {
+        if (PUBLIC_TOPIC.equals(destination)) {
+            return PUBLIC;
+        }
+        if (destination != null && destination.startsWith(ROOMS_TOPIC)) {
+            String room = destination.substring(ROOMS_TOPIC.length());
+            return isValid(room) && !PUBLIC.equals(room) ? room : null;
+        }
+        return null;
+    }
+}
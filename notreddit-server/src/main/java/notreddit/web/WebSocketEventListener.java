@@ -1,44 +1,54 @@
 package notreddit.web;
 
 import lombok.extern.slf4j.Slf4j;
-import notreddit.data.models.responses.ChatMessage;
+import notreddit.services.PresenceService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.event.EventListener;
-import org.springframework.messaging.simp.SimpMessageSendingOperations;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.messaging.SessionConnectedEvent;
 import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
 
+/**
+ * Keeps the presence of the sessions up to date. Joining and leaving aren't announced one by one, the presence
+ * topics get the counts that changed instead, so reconnecting everyone after a deploy doesn't flood the rooms.
+ */
 @Slf4j
 @Component
 public class WebSocketEventListener {
 
-    private final SimpMessageSendingOperations messagingTemplate;
+    private final PresenceService presenceService;
 
     @Autowired
-    public WebSocketEventListener(SimpMessageSendingOperations messagingTemplate) {
-        this.messagingTemplate = messagingTemplate;
+    public WebSocketEventListener(PresenceService presenceService) {
+        this.presenceService = presenceService;
     }
 
     @EventListener
     public void handleWebSocketConnectListener(SessionConnectedEvent event) {
-        log.info("Received a new web socket connection");
+        log.debug("Received a new web socket connection");
     }
 
     @EventListener
-    public void handleWebSocketDisconnectListener(SessionDisconnectEvent event) {
+    public void handleWebSocketSubscribeListener(SessionSubscribeEvent event) {
         StompHeaderAccessor headerAccessor = StompHeaderAccessor.wrap(event.getMessage());
+        presenceService.subscribe(headerAccessor.getSessionId(),
+                headerAccessor.getSubscriptionId(),
+                headerAccessor.getDestination(),
+                event.getUser(),
+                headerAccessor.getSessionAttributes());
+    }
 
-        String username = (String) headerAccessor.getSessionAttributes().get("username");
-        if (username != null) {
-            log.info("User Disconnected : " + username);
-
-            ChatMessage chatMessage = new ChatMessage();
-            chatMessage.setType(ChatMessage.MessageType.LEAVE);
-            chatMessage.setSender(username);
+    @EventListener
+    public void handleWebSocketUnsubscribeListener(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor headerAccessor = StompHeaderAccessor.wrap(event.getMessage());
+        presenceService.unsubscribe(headerAccessor.getSessionId(), headerAccessor.getSubscriptionId());
+    }
 
-            messagingTemplate.convertAndSend("/topic/public", chatMessage);
-        }
+    @EventListener
+    public void handleWebSocketDisconnectListener(SessionDisconnectEvent event) {
+        presenceService.disconnect(event.getSessionId());
     }
 }
@@ -0,0 +1,45 @@
+package notreddit.web.broker;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import notreddit.services.ChatHistoryService;
+import notreddit.web.ChatRooms;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sits on the broker channel and keeps every message sent to a chat room's topic in its history, as the json the
+ * subscribers get. Messages of other nodes pass the broker channel too, so every node has the whole history.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ChatHistoryInterceptor implements ChannelInterceptor {
+
+    private final ChatHistoryService chatHistoryService;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        MessageHeaders headers = message.getHeaders();
+        if (SimpMessageHeaderAccessor.getMessageType(headers) != SimpMessageType.MESSAGE
+                || !(message.getPayload() instanceof byte[])) {
+            return message;
+        }
+
+        String room = ChatRooms.roomOf(SimpMessageHeaderAccessor.getDestination(headers));
+        if (room != null) {
+            try {
+                chatHistoryService.record(room, (byte[]) message.getPayload());
+            } catch (RuntimeException e) {
+                // the message still goes out
+                log.warn("Could not keep a message of chat room {}", room, e);
+            }
+        }
+        return message;
+    }
+}
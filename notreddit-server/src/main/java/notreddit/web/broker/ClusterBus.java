@@ -0,0 +1,14 @@
+package notreddit.web.broker;
+
+import java.util.function.Consumer;
+
+/**
+ * Passes text messages between the app nodes. Every node gets every published message, its own included.
+ * Every listener gets every message too, so each one picks out its own by their format.
+ */
+public interface ClusterBus {
+
+    void publish(String message);
+
+    void subscribe(Consumer<String> listener);
+}
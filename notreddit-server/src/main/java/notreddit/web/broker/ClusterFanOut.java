@@ -0,0 +1,83 @@
+package notreddit.web.broker;
+
+import notreddit.services.implementations.PresenceServiceImpl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Sits on the broker channel of every node and publishes the messages sent to it on the {@link ClusterBus}, so the
+ * in-memory broker of every other node delivers them to its own subscribers as well. Messages of other nodes are
+ * sent to the local broker channel marked with their origin, so they aren't published again.
+ */
+@Component
+@ConditionalOnProperty(name = "app.websocket.broker", havingValue = "postgres")
+public class ClusterFanOut implements ChannelInterceptor {
+
+    static final String ORIGIN_HEADER = "clusterOrigin";
+
+    private final ClusterBus clusterBus;
+    private final MessageChannel brokerChannel;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    @Autowired
+    public ClusterFanOut(ClusterBus clusterBus, @Lazy @Qualifier("brokerChannel") MessageChannel brokerChannel) {
+        this.clusterBus = clusterBus;
+        this.brokerChannel = brokerChannel;
+        clusterBus.subscribe(this::receive);
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        MessageHeaders headers = message.getHeaders();
+        String destination = SimpMessageHeaderAccessor.getDestination(headers);
+        if (SimpMessageHeaderAccessor.getMessageType(headers) != SimpMessageType.MESSAGE
+                || destination == null
+                // the other destinations are those of a single session, which is on this node
+                || !destination.startsWith("/topic/")
+                // every node counts and sends its own sessions
+                || destination.startsWith(PresenceServiceImpl.PRESENCE_TOPIC)
+                || headers.containsKey(ORIGIN_HEADER)
+                || !(message.getPayload() instanceof byte[])) {
+            return message;
+        }
+
+        // the payloads are converted to json, which is utf-8
+        Object contentType = headers.get(MessageHeaders.CONTENT_TYPE);
+        clusterBus.publish(nodeId + '\n'
+                + destination + '\n'
+                + (contentType == null ? "" : contentType.toString()) + '\n'
+                + new String((byte[]) message.getPayload(), StandardCharsets.UTF_8));
+        return message;
+    }
+
+    private void receive(String envelope) {
+        String[] parts = envelope.split("\n", 4);
+        if (parts.length < 4 || parts[0].equals(nodeId)) {
+            return;
+        }
+
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(parts[1]);
+        if (!parts[2].isEmpty()) {
+            accessor.setContentType(MimeTypeUtils.parseMimeType(parts[2]));
+        }
+        accessor.setHeader(ORIGIN_HEADER, parts[0]);
+
+        brokerChannel.send(MessageBuilder.createMessage(
+                parts[3].getBytes(StandardCharsets.UTF_8), accessor.getMessageHeaders()));
+    }
+}
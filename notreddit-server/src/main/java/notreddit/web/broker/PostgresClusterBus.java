@@ -0,0 +1,231 @@
+package notreddit.web.broker;
+
+import lombok.extern.slf4j.Slf4j;
+import notreddit.config.WebSocketProperties;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Passes messages between the nodes with Postgres {@code NOTIFY}, every node {@code LISTEN}s on its own connection.
+ * Notifications are only kept while a node is connected, so a node misses what is sent while it reconnects.
+ * Publishing only queues the message: one thread sends the waiting messages, up to the batch size in one statement,
+ * on a connection of its own, so the broker threads never wait on the database. Messages past the capacity of the
+ * queue are dropped and counted.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.websocket.broker", havingValue = "postgres")
+public class PostgresClusterBus implements ClusterBus {
+
+    // postgres refuses payloads of 8000 bytes and more
+    static final int MAX_PAYLOAD_BYTES = 7999;
+
+    private static final Pattern CHANNEL_NAME = Pattern.compile("[a-z_][a-z0-9_]*");
+    private static final int POLL_TIMEOUT_IN_MS = 500;
+    private static final long RECONNECT_DELAY_IN_MS = 5000;
+    private static final int DEFAULT_QUEUE_CAPACITY = 10000;
+    private static final int DEFAULT_BATCH_SIZE = 100;
+    // the messages are sent in the order of the array, in one transaction
+    private static final String NOTIFY_ALL = "SELECT pg_notify(?, m.message) "
+            + "FROM unnest(?) WITH ORDINALITY AS m(message, n) ORDER BY m.n";
+
+    private final DataSource dataSource;
+    private final String channel;
+    private final int batchSize;
+    private final BlockingQueue<String> outbox;
+
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+    // postgres delivers the same payload only once per transaction, so every message gets a number of its own
+    private final AtomicLong sequence = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private long droppedReported;
+    private volatile boolean running;
+    private Thread listenerThread;
+    private Thread publisherThread;
+
+    @Autowired
+    public PostgresClusterBus(DataSource dataSource, WebSocketProperties properties) {
+        this(dataSource, properties.getChannel(), properties.getPublishQueueCapacity(), properties.getPublishBatchSize());
+    }
+
+    public PostgresClusterBus(DataSource dataSource, String channel) {
+        this(dataSource, channel, DEFAULT_QUEUE_CAPACITY, DEFAULT_BATCH_SIZE);
+    }
+
+    public PostgresClusterBus(DataSource dataSource, String channel, int queueCapacity, int batchSize) {
+        // LISTEN takes the channel as an identifier, so it can't be a parameter
+        if (!CHANNEL_NAME.matcher(channel).matches()) {
+            throw new IllegalArgumentException("Invalid notification channel " + channel);
+        }
+
+        this.dataSource = dataSource;
+        this.channel = channel;
+        this.batchSize = Math.max(1, batchSize);
+        this.outbox = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    @Override
+    public void publish(String message) {
+        String payload = Long.toHexString(sequence.incrementAndGet()) + '\n' + message;
+        if (payload.getBytes(StandardCharsets.UTF_8).length > MAX_PAYLOAD_BYTES) {
+            log.warn("Message of {} characters is too long for the other nodes", message.length());
+            return;
+        }
+
+        if (!outbox.offer(payload)) {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * How many messages were dropped because the queue to the other nodes was full.
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    @Override
+    public void subscribe(Consumer<String> listener) {
+        listeners.add(listener);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        listenerThread = new Thread(this::listen, "cluster-bus-" + channel);
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+        publisherThread = new Thread(this::publishQueued, "cluster-bus-publisher-" + channel);
+        publisherThread.setDaemon(true);
+        publisherThread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        listenerThread.interrupt();
+        publisherThread.interrupt();
+        listenerThread.join(POLL_TIMEOUT_IN_MS * 2);
+        publisherThread.join(POLL_TIMEOUT_IN_MS * 2);
+    }
+
+    private void publishQueued() {
+        List<String> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try (Connection connection = dataSource.getConnection();
+                 PreparedStatement statement = connection.prepareStatement(NOTIFY_ALL)) {
+                statement.setString(1, channel);
+
+                while (running) {
+                    String first = outbox.poll(POLL_TIMEOUT_IN_MS, TimeUnit.MILLISECONDS);
+                    reportDropped();
+                    if (first == null) {
+                        continue;
+                    }
+
+                    batch.add(first);
+                    outbox.drainTo(batch, batchSize - 1);
+                    try {
+                        statement.setArray(2, connection.createArrayOf("text", batch.toArray()));
+                        statement.executeQuery().close();
+                    } finally {
+                        batch.clear();
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Could not publish messages to the other nodes, reconnecting", e);
+                if (!sleep(RECONNECT_DELAY_IN_MS)) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void reportDropped() {
+        long total = dropped.sum();
+        if (total > droppedReported) {
+            log.warn("Dropped {} messages for the other nodes, the queue was full", total - droppedReported);
+            droppedReported = total;
+        }
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = dataSource.getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.execute("LISTEN " + channel);
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                log.info("Listening for messages of the other nodes on {}", channel);
+
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_IN_MS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            deliver(unwrap(notification.getParameter()));
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Lost the connection listening on {}, reconnecting", channel, e);
+                if (!sleep(RECONNECT_DELAY_IN_MS)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    static String unwrap(String payload) {
+        return payload.substring(payload.indexOf('\n') + 1);
+    }
+
+    private void deliver(String message) {
+        for (Consumer<String> listener : listeners) {
+            try {
+                listener.accept(message);
+            } catch (RuntimeException e) {
+                log.error("Could not deliver a message of another node", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package notreddit.web.broker;
+
+import lombok.RequiredArgsConstructor;
+import notreddit.services.PresenceService;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sits on the client inbound channel and marks the session of every message as alive, heartbeats included.
+ */
+@Component
+@RequiredArgsConstructor
+public class PresenceInterceptor implements ChannelInterceptor {
+
+    private final PresenceService presenceService;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        if (sessionId != null) {
+            presenceService.touch(sessionId);
+        }
+        return message;
+    }
+}
@@ -0,0 +1,341 @@
+package notreddit.web.broker;
+
+import lombok.extern.slf4j.Slf4j;
+import notreddit.config.WebSocketProperties;
+import notreddit.data.models.responses.websocket.OutboundStatisticsResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * A bounded queue for every session between the client outbound channel and its socket. Spring's channel has one
+ * queue for all sessions, so a slow client fills it with its messages and holds up the others. Here the messages
+ * of a session wait in its own queue and are sent by one task of the outbound pool at a time, which also keeps
+ * them in order. Messages past a session's capacity are dropped, a session that stays at its capacity for longer
+ * than the configured time is closed, only draining below half of it counts as taking its messages again. Of the
+ * coalesced topics, like the presence counts, only the last message of a destination and subscription waits, in the
+ * place of the first. Frames other than messages, heartbeats and errors, are never dropped.
+ */
+@Slf4j
+@Component
+public class SessionOutboundQueues implements ChannelInterceptor, WebSocketHandlerDecoratorFactory {
+
+    private final int capacity;
+    private final int lowWaterMark;
+    private final long evictAfterInMs;
+    private final int batchSize;
+    private final List<String> coalescedTopics;
+    private final MessageHandler handler;
+    private final Executor executor;
+    private final LongSupplier clock;
+
+    private final Map<String, SessionQueue> queues = new ConcurrentHashMap<>();
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+
+    // the handler and the pool are defined by the configuration this is part of
+    @Autowired
+    public SessionOutboundQueues(WebSocketProperties properties,
+                                 @Lazy @Qualifier("subProtocolWebSocketHandler") MessageHandler handler,
+                                 @Lazy @Qualifier("clientOutboundChannelExecutor") Executor executor) {
+        this(properties.getSessionQueue(), handler, executor, System::currentTimeMillis);
+    }
+
+    public SessionOutboundQueues(WebSocketProperties.SessionQueue settings,
+                                 MessageHandler handler,
+                                 Executor executor,
+                                 LongSupplier clock) {
+        this.capacity = settings.getCapacity();
+        this.lowWaterMark = capacity / 2;
+        this.evictAfterInMs = settings.getEvictAfter().toMillis();
+        this.batchSize = Math.max(1, settings.getBatchSize());
+        this.coalescedTopics = new ArrayList<>(settings.getCoalescedTopics());
+        this.handler = handler;
+        this.executor = executor;
+        this.clock = clock;
+    }
+
+    /**
+     * Tracks the sessions of the socket, a session's queue lives as long as its connection.
+     */
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                open(session.getId(), session);
+                super.afterConnectionEstablished(session);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                try {
+                    super.afterConnectionClosed(session, closeStatus);
+                } finally {
+                    close(session.getId());
+                }
+            }
+        };
+    }
+
+    public void open(String sessionId, WebSocketSession session) {
+        queues.put(sessionId, new SessionQueue(sessionId, session));
+    }
+
+    public void close(String sessionId) {
+        SessionQueue queue = queues.remove(sessionId);
+        if (queue != null) {
+            queue.clear();
+        }
+    }
+
+    /**
+     * Takes the frames of the known sessions off the channel into their queues, the others pass.
+     */
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        SessionQueue queue = sessionId == null ? null : queues.get(sessionId);
+        if (queue == null) {
+            return message;
+        }
+
+        if (queue.offer(message)) {
+            schedule(queue);
+        }
+        return null;
+    }
+
+    public OutboundStatisticsResponse getStatistics() {
+        long queued = 0;
+        int maxQueueDepth = 0;
+        for (SessionQueue queue : queues.values()) {
+            int depth = queue.depth();
+            queued += depth;
+            maxQueueDepth = Math.max(maxQueueDepth, depth);
+        }
+
+        return new OutboundStatisticsResponse(queues.size(), queued, maxQueueDepth,
+                sent.sum(), dropped.sum(), coalesced.sum(), evicted.sum());
+    }
+
+    private void schedule(SessionQueue queue) {
+        try {
+            executor.execute(() -> drain(queue));
+        } catch (RejectedExecutionException e) {
+            // the messages stay queued, the next one tries again
+            queue.idle();
+            log.warn("Could not send the messages of session {}, the outbound pool is full", queue.sessionId);
+        }
+    }
+
+    private void drain(SessionQueue queue) {
+        for (int i = 0; i < batchSize; i++) {
+            Message<?> message = queue.poll();
+            if (message == null) {
+                return;
+            }
+
+            try {
+                handler.handleMessage(message);
+                sent.increment();
+            } catch (RuntimeException e) {
+                // the session is gone or its socket failed, the queue goes on
+                log.debug("Could not send a message to session {}", queue.sessionId, e);
+            }
+        }
+
+        if (queue.hasNext()) {
+            schedule(queue);
+        }
+    }
+
+    // closing a socket can block on its send lock, so it is not done on the thread that sends to the broker
+    private void evict(SessionQueue queue) {
+        if (queues.remove(queue.sessionId, queue)) {
+            queue.clear();
+            evicted.increment();
+            log.info("Closing session {}, it didn't take its messages for {} ms", queue.sessionId, evictAfterInMs);
+
+            if (queue.session != null) {
+                try {
+                    executor.execute(() -> closeSession(queue));
+                } catch (RejectedExecutionException e) {
+                    log.warn("Could not close session {}, the outbound pool is full", queue.sessionId);
+                }
+            }
+        }
+    }
+
+    private void closeSession(SessionQueue queue) {
+        try {
+            queue.session.close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (IOException e) {
+            log.debug("Could not close session {}", queue.sessionId, e);
+        }
+    }
+
+    private boolean isCoalesced(String destination) {
+        if (destination == null) {
+            return false;
+        }
+        for (String topic : coalescedTopics) {
+            if (destination.startsWith(topic)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private final class SessionQueue {
+
+        private final String sessionId;
+        private final WebSocketSession session;
+        private final Deque<Pending> pending = new ArrayDeque<>();
+        // the waiting message of every coalesced destination and subscription
+        private final Map<String, Pending> latest = new HashMap<>();
+        private int messages;
+        private boolean draining;
+        // whether and since when the queue is at its capacity
+        private boolean full;
+        private long fullSince;
+
+        private SessionQueue(String sessionId, WebSocketSession session) {
+            this.sessionId = sessionId;
+            this.session = session;
+        }
+
+        /**
+         * Queues the frame, true when the queue has to be drained.
+         */
+        private boolean offer(Message<?> message) {
+            boolean evict = false;
+            synchronized (this) {
+                if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE) {
+                    pending.add(new Pending(message, null));
+                    return start();
+                }
+
+                String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+                // a session can subscribe to the same destination more than once, every subscription gets its message
+                String key = isCoalesced(destination)
+                        ? destination + '\n' + SimpMessageHeaderAccessor.getSubscriptionId(message.getHeaders())
+                        : null;
+                Pending previous = key == null ? null : latest.get(key);
+                if (previous != null) {
+                    previous.message = message;
+                    coalesced.increment();
+                    return false;
+                }
+
+                if (messages < capacity) {
+                    Pending next = new Pending(message, key);
+                    pending.add(next);
+                    if (key != null) {
+                        latest.put(key, next);
+                    }
+                    messages++;
+                    return start();
+                }
+
+                dropped.increment();
+                long now = clock.getAsLong();
+                if (!full) {
+                    full = true;
+                    fullSince = now;
+                } else if (now - fullSince >= evictAfterInMs) {
+                    evict = true;
+                }
+            }
+
+            if (evict) {
+                evict(this);
+            }
+            return false;
+        }
+
+        private synchronized Message<?> poll() {
+            Pending next = pending.poll();
+            if (next == null) {
+                draining = false;
+                return null;
+            }
+
+            if (next.key != null) {
+                latest.remove(next.key, next);
+            }
+            if (SimpMessageHeaderAccessor.getMessageType(next.message.getHeaders()) == SimpMessageType.MESSAGE) {
+                messages--;
+                if (messages <= lowWaterMark) {
+                    full = false;
+                }
+            }
+            return next.message;
+        }
+
+        private synchronized boolean hasNext() {
+            if (pending.isEmpty()) {
+                draining = false;
+                return false;
+            }
+            return true;
+        }
+
+        private synchronized int depth() {
+            return pending.size();
+        }
+
+        private synchronized void idle() {
+            draining = false;
+        }
+
+        private synchronized void clear() {
+            pending.clear();
+            latest.clear();
+            messages = 0;
+        }
+
+        private boolean start() {
+            if (draining) {
+                return false;
+            }
+            draining = true;
+            return true;
+        }
+    }
+
+    private static final class Pending {
+
+        private Message<?> message;
+        private final String key;
+
+        private Pending(Message<?> message, String key) {
+            this.message = message;
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package notreddit.web.controllers;
+
+import lombok.RequiredArgsConstructor;
+import notreddit.cache.TaggedCacheManager;
+import notreddit.data.models.responses.cache.CacheStatisticsResponse;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/cache")
+@RequiredArgsConstructor
+public class CacheController {
+
+    private final TaggedCacheManager cacheManager;
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/stats")
+    public List<CacheStatisticsResponse> getStatistics() {
+        return cacheManager.getStatistics();
+    }
+}
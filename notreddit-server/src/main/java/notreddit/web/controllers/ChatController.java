@@ -1,26 +1,132 @@
 package notreddit.web.controllers;
 
+import notreddit.constants.ApiResponseMessages;
 import notreddit.data.models.responses.ChatMessage;
+import notreddit.data.models.responses.api.ApiResponse;
+import notreddit.services.ChatHistoryService;
+import notreddit.web.ChatRooms;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
-import org.springframework.messaging.handler.annotation.SendTo;
 import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+/**
+ * Chat rooms over STOMP. {@code /app/chat.sendMessage.{room}} sends to the room's topic and
+ * {@code /app/chat.addUser.{room}} sends the room's recent messages to the joining session alone, as one json array
+ * on {@code /user/queue/chat.history}. Without a room it is the public room. Who is in a room isn't announced with
+ * every join, the room's presence topic gets its count instead.
+ */
 @RestController
 public class ChatController {
 
+    public static final String HISTORY_QUEUE = "/queue/chat.history";
+
+    private final SimpMessageSendingOperations messagingTemplate;
+    private final ChatHistoryService chatHistoryService;
+    private final int replaySize;
+    private final int maxHistory;
+
+    @Autowired
+    public ChatController(SimpMessageSendingOperations messagingTemplate,
+                          ChatHistoryService chatHistoryService,
+                          @Value("${app.chat.replaySize:50}") int replaySize,
+                          @Value("${app.chat.maxHistory:1000}") int maxHistory) {
+        this.messagingTemplate = messagingTemplate;
+        this.chatHistoryService = chatHistoryService;
+        this.replaySize = replaySize;
+        this.maxHistory = maxHistory;
+    }
+
     @MessageMapping("/chat.sendMessage")
-    @SendTo("/topic/public")
-    public ChatMessage sendMessage(@Payload ChatMessage chatMessage) {
-        return chatMessage;
+    public void sendMessage(@Payload ChatMessage chatMessage) {
+        sendMessageToRoom(ChatRooms.PUBLIC, chatMessage);
+    }
+
+    @MessageMapping("/chat.sendMessage.{room}")
+    public void sendMessageToRoom(@DestinationVariable String room, @Payload ChatMessage chatMessage) {
+        if (ChatRooms.isValid(room)) {
+            messagingTemplate.convertAndSend(ChatRooms.topic(room), chatMessage);
+        }
     }
 
     @MessageMapping("/chat.addUser")
-    @SendTo("/topic/public")
-    public ChatMessage addUser(@Payload ChatMessage chatMessage,
-                               SimpMessageHeaderAccessor headerAccessor) {
+    public void addUser(@Payload ChatMessage chatMessage,
+                        SimpMessageHeaderAccessor headerAccessor) {
+        addUserToRoom(ChatRooms.PUBLIC, chatMessage, headerAccessor);
+    }
+
+    @MessageMapping("/chat.addUser.{room}")
+    public void addUserToRoom(@DestinationVariable String room,
+                              @Payload ChatMessage chatMessage,
+                              SimpMessageHeaderAccessor headerAccessor) {
+        if (!ChatRooms.isValid(room)) {
+            return;
+        }
+
         headerAccessor.getSessionAttributes().put("username", chatMessage.getSender());
-        return chatMessage;
+
+        replay(room, headerAccessor.getSessionId());
+    }
+
+    @PreAuthorize("permitAll()")
+    @GetMapping("/api/chat/{room}/history")
+    public ResponseEntity<?> getHistory(@PathVariable String room,
+                                        @RequestParam(defaultValue = "50") int limit) {
+        if (!ChatRooms.isValid(room)) {
+            return ResponseEntity
+                    .badRequest()
+                    .body(new ApiResponse(false, ApiResponseMessages.INVALID_CHAT_ROOM));
+        }
+
+        byte[] history = jsonArray(chatHistoryService.recent(room, Math.max(0, Math.min(limit, maxHistory))));
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(history);
+    }
+
+    private void replay(String room, String sessionId) {
+        List<byte[]> messages = chatHistoryService.recent(room, replaySize);
+        if (messages.isEmpty()) {
+            return;
+        }
+
+        // the messages are already json, the session is the user of a session-less user destination
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setLeaveMutable(true);
+
+        messagingTemplate.send("/user/" + sessionId + HISTORY_QUEUE,
+                MessageBuilder.createMessage(jsonArray(messages), accessor.getMessageHeaders()));
+    }
+
+    private static byte[] jsonArray(List<byte[]> messages) {
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        json.write('[');
+        for (int i = 0; i < messages.size(); i++) {
+            if (i > 0) {
+                json.write(',');
+            }
+            byte[] message = messages.get(i);
+            json.write(message, 0, message.length);
+        }
+        json.write(']');
+        return json.toByteArray();
     }
 }
@@ -61,6 +61,12 @@ public class CommentController {
         return commentService.findAllFromPost(postId, pageable);
     }
 
+    @PreAuthorize("permitAll()")
+    @GetMapping("/replies")
+    public List<CommentListWithChildren> findReplies(@RequestParam UUID commentId, Pageable pageable) {
+        return commentService.findReplies(commentId, pageable);
+    }
+
     @PreAuthorize("permitAll()")
     @GetMapping("/user/{username}")
     public CommentsResponseModel findAllByUsername(@PathVariable String username, Pageable pageable) {
@@ -0,0 +1,166 @@
+package notreddit.web.controllers;
+
+import lombok.RequiredArgsConstructor;
+import notreddit.data.entities.Blob;
+import notreddit.services.BlobStorage;
+import notreddit.services.ImageThumbnailService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Serves the files of the blob storage. Blobs never change under their hash, so they are cached for good and
+ * the hash is their ETag. Single byte ranges are honoured, anything else gets the whole file. Thumbnails of images
+ * are served the same way, an image without one redirects to the image itself.
+ */
+@RestController
+@RequestMapping("/api/files")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "blobs")
+public class FileController {
+
+    // tomcat writes the file to the socket itself with sendfile when the connector supports it
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final String CACHE_FOREVER = "public, max-age=31536000, immutable";
+
+    private final BlobStorage blobStorage;
+    private final ImageThumbnailService imageThumbnailService;
+
+    @PreAuthorize("permitAll()")
+    @GetMapping("/{hash}")
+    public void serve(@PathVariable String hash,
+                      HttpServletRequest request,
+                      HttpServletResponse response) throws IOException {
+        Blob blob = blobStorage.find(hash).orElse(null);
+        if (blob == null) {
+            response.sendError(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+
+        String etag = "\"" + blob.getHash() + "\"";
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_FOREVER);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (etag.equals(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+
+        long length = blob.getSize();
+        long start = 0;
+        long end = length - 1;
+
+        HttpRange range = singleRange(request, etag);
+        if (range != null) {
+            start = range.getRangeStart(length);
+            end = range.getRangeEnd(length);
+            if (start >= length || start > end) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                return;
+            }
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        }
+
+        response.setContentType(blob.getContentType() != null
+                ? blob.getContentType()
+                : MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        response.setContentLengthLong(end - start + 1);
+        if (end < start) {
+            return;
+        }
+
+        transfer(blobStorage.path(blob), start, end + 1, request, response);
+    }
+
+    @PreAuthorize("permitAll()")
+    @GetMapping("/{hash}/thumbnails/{width}")
+    public void serveThumbnail(@PathVariable String hash,
+                               @PathVariable int width,
+                               HttpServletRequest request,
+                               HttpServletResponse response) throws IOException {
+        String etag = "\"" + hash + "-" + width + "\"";
+        if (etag.equals(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            response.setHeader(HttpHeaders.ETAG, etag);
+            response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_FOREVER);
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+
+        byte[] thumbnail = imageThumbnailService.thumbnail(hash, width).orElse(null);
+        if (thumbnail == null) {
+            // not cached, the thumbnail may still come once the pool is less busy
+            response.sendRedirect(request.getContextPath() + "/api/files/" + hash);
+            return;
+        }
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_FOREVER);
+        response.setContentType(MediaType.IMAGE_JPEG_VALUE);
+        response.setContentLength(thumbnail.length);
+        response.getOutputStream().write(thumbnail);
+    }
+
+    // a range is only applied when the client's copy, if it names one, is still this blob
+    private static HttpRange singleRange(HttpServletRequest request, String etag) {
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (rangeHeader == null || (ifRange != null && !ifRange.equals(etag))) {
+            return null;
+        }
+
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static void transfer(Path path,
+                                 long start,
+                                 long end,
+                                 HttpServletRequest request,
+                                 HttpServletResponse response) throws IOException {
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, path.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end);
+            return;
+        }
+
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (position < end) {
+                long sent = file.transferTo(position, end - position, out);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+            }
+        }
+    }
+}
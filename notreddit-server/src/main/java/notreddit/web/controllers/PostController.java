@@ -2,12 +2,17 @@ package notreddit.web.controllers;
 
 import lombok.RequiredArgsConstructor;
 import notreddit.data.entities.User;
+import notreddit.data.enums.FeedOrder;
 import notreddit.data.models.requests.PostCreateRequest;
 import notreddit.data.models.requests.PostEditRequest;
 import notreddit.data.models.responses.post.PostDetailsResponseModel;
 import notreddit.data.models.responses.post.PostEditResponseModel;
+import notreddit.data.models.responses.post.PostListModel;
+import notreddit.data.models.responses.post.PostListResponseModel;
+import notreddit.data.models.responses.post.PostsCursorResponseModel;
 import notreddit.data.models.responses.post.PostsResponseModel;
 import notreddit.services.PostService;
+import notreddit.services.UploadService;
 import notreddit.services.VoteService;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
@@ -16,7 +21,9 @@ import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
+import java.util.List;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/post")
@@ -25,6 +32,7 @@ public class PostController {
 
     private final PostService postService;
     private final VoteService voteService;
+    private final UploadService uploadService;
 
     @PreAuthorize("isAuthenticated()")
     @PostMapping("/create")
@@ -61,6 +69,12 @@ public class PostController {
         return postService.findById(id);
     }
 
+    @PreAuthorize("permitAll()")
+    @GetMapping("/file-status/{id}")
+    public ResponseEntity<?> getFileStatus(@PathVariable UUID id) {
+        return uploadService.getStatus(id);
+    }
+
     @PreAuthorize("isAuthenticated()")
     @GetMapping("/edit/{id}")
     public PostEditResponseModel getPostEditDetails(@PathVariable UUID id) {
@@ -69,32 +83,91 @@ public class PostController {
 
     @PreAuthorize("hasRole('MODERATOR')")
     @GetMapping("/all")
-    public PostsResponseModel all(Pageable pageable) {
-        return postService.allPosts(pageable);
+    public PostsResponseModel all(@AuthenticationPrincipal User user, Pageable pageable) {
+        return withUserChoices(postService.allPosts(pageable), user);
+    }
+
+    @PreAuthorize("hasRole('MODERATOR')")
+    @GetMapping(value = "/all", params = "cursor")
+    public PostsCursorResponseModel all(@AuthenticationPrincipal User user,
+                                        @RequestParam String cursor,
+                                        @RequestParam(defaultValue = "NEW") FeedOrder order,
+                                        @RequestParam(defaultValue = "10") int size) {
+        return withUserChoices(postService.allPostsAfter(cursor, order, size), user);
     }
 
     @PreAuthorize("isAuthenticated()")
     @GetMapping("/subscribed")
     public PostsResponseModel getUserSubscribedPosts(@AuthenticationPrincipal User user,
                                                      Pageable pageable) {
-        return postService.subscribedPosts(user, pageable);
+        return withUserChoices(postService.subscribedPosts(user, pageable), user);
+    }
+
+    @PreAuthorize("isAuthenticated()")
+    @GetMapping(value = "/subscribed", params = "cursor")
+    public PostsCursorResponseModel getUserSubscribedPosts(@AuthenticationPrincipal User user,
+                                                           @RequestParam String cursor,
+                                                           @RequestParam(defaultValue = "NEW") FeedOrder order,
+                                                           @RequestParam(defaultValue = "10") int size) {
+        return withUserChoices(postService.subscribedPostsAfter(user, cursor, order, size), user);
     }
 
     @PreAuthorize("permitAll()")
     @GetMapping("/default-posts")
-    public PostsResponseModel getPostsFromTheDefaultSubreddits(Pageable pageable) {
-        return postService.defaultPosts(pageable);
+    public PostsResponseModel getPostsFromTheDefaultSubreddits(@AuthenticationPrincipal User user,
+                                                               Pageable pageable) {
+        return withUserChoices(postService.defaultPosts(pageable), user);
     }
 
     @PreAuthorize("permitAll()")
     @GetMapping("/user/{username}")
-    public PostsResponseModel findAllByUsername(@PathVariable String username, Pageable pageable) {
-        return postService.findAllByUsername(username, pageable);
+    public PostsResponseModel findAllByUsername(@PathVariable String username,
+                                                @AuthenticationPrincipal User user,
+                                                Pageable pageable) {
+        return withUserChoices(postService.findAllByUsername(username, pageable), user);
+    }
+
+    @PreAuthorize("permitAll()")
+    @GetMapping(value = "/user/{username}", params = "cursor")
+    public PostsCursorResponseModel findAllByUsername(@PathVariable String username,
+                                                      @AuthenticationPrincipal User user,
+                                                      @RequestParam String cursor,
+                                                      @RequestParam(defaultValue = "NEW") FeedOrder order,
+                                                      @RequestParam(defaultValue = "10") int size) {
+        return withUserChoices(postService.findAllByUsernameAfter(username, cursor, order, size), user);
     }
 
     @PreAuthorize("permitAll()")
     @GetMapping("/subreddit/{subreddit}")
-    public PostsResponseModel findAllBySubreddit(@PathVariable String subreddit, Pageable pageable) {
-        return postService.findAllBySubreddit(subreddit.toLowerCase(), pageable);
+    public PostsResponseModel findAllBySubreddit(@PathVariable String subreddit,
+                                                 @AuthenticationPrincipal User user,
+                                                 Pageable pageable) {
+        return withUserChoices(postService.findAllBySubreddit(subreddit.toLowerCase(), pageable), user);
+    }
+
+    @PreAuthorize("permitAll()")
+    @GetMapping(value = "/subreddit/{subreddit}", params = "cursor")
+    public PostsCursorResponseModel findAllBySubreddit(@PathVariable String subreddit,
+                                                       @AuthenticationPrincipal User user,
+                                                       @RequestParam String cursor,
+                                                       @RequestParam(defaultValue = "NEW") FeedOrder order,
+                                                       @RequestParam(defaultValue = "10") int size) {
+        return withUserChoices(postService.findAllBySubredditAfter(subreddit, cursor, order, size), user);
+    }
+
+    // the user's votes for a whole page take one query, instead of one request per post
+    private PostsResponseModel withUserChoices(PostsResponseModel page, User user) {
+        return user == null ? page : page.withUserChoices(voteService.findPostChoices(user, postIds(page.getPosts())));
+    }
+
+    private PostsCursorResponseModel withUserChoices(PostsCursorResponseModel page, User user) {
+        return user == null ? page : page.withUserChoices(voteService.findPostChoices(user, postIds(page.getPosts())));
+    }
+
+    static List<UUID> postIds(List<? extends PostListModel> posts) {
+        return posts.stream()
+                .filter(post -> post instanceof PostListResponseModel)
+                .map(post -> UUID.fromString(((PostListResponseModel) post).getId()))
+                .collect(Collectors.toList());
     }
 }
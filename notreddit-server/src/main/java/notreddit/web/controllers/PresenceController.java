@@ -0,0 +1,39 @@
+package notreddit.web.controllers;
+
+import lombok.RequiredArgsConstructor;
+import notreddit.constants.ApiResponseMessages;
+import notreddit.data.models.responses.PresenceResponseModel;
+import notreddit.data.models.responses.api.ApiResponse;
+import notreddit.services.PresenceService;
+import notreddit.services.implementations.PresenceServiceImpl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/presence")
+@RequiredArgsConstructor
+public class PresenceController {
+
+    private static final int MAX_USERS = 100;
+
+    private final PresenceService presenceService;
+
+    @PreAuthorize("permitAll()")
+    @GetMapping("/{kind}/{name}")
+    public ResponseEntity<?> getPresence(@PathVariable String kind, @PathVariable String name) {
+        String place = kind + "/" + name;
+        if (PresenceServiceImpl.placeOf(PresenceServiceImpl.PRESENCE_TOPIC + place) == null) {
+            return ResponseEntity
+                    .badRequest()
+                    .body(new ApiResponse(false, ApiResponseMessages.INVALID_PRESENCE_PLACE));
+        }
+
+        return ResponseEntity.ok(new PresenceResponseModel(
+                presenceService.countOnline(place),
+                presenceService.findOnlineUsers(place, MAX_USERS)));
+    }
+}
@@ -0,0 +1,48 @@
+package notreddit.web.controllers;
+
+import lombok.RequiredArgsConstructor;
+import notreddit.data.entities.User;
+import notreddit.data.models.requests.UploadSessionRequest;
+import notreddit.services.UploadSessionService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.validation.Valid;
+import java.io.IOException;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/upload")
+@RequiredArgsConstructor
+public class UploadController {
+
+    private final UploadSessionService uploadSessionService;
+
+    @PreAuthorize("isAuthenticated()")
+    @PostMapping("/session")
+    public ResponseEntity<?> open(@Valid @RequestBody UploadSessionRequest request,
+                                  @AuthenticationPrincipal User user) {
+        return uploadSessionService.open(request, user);
+    }
+
+    // the body is read straight from the servlet stream, so a chunk never passes through the multipart resolver
+    @PreAuthorize("isAuthenticated()")
+    @PutMapping("/session/{id}")
+    public ResponseEntity<?> append(@PathVariable UUID id,
+                                    @RequestParam long offset,
+                                    HttpServletRequest request,
+                                    @AuthenticationPrincipal User user) throws IOException {
+        return uploadSessionService.append(
+                id, offset, request.getContentLengthLong(), request.getInputStream(), user);
+    }
+
+    @PreAuthorize("isAuthenticated()")
+    @GetMapping("/session/{id}")
+    public ResponseEntity<?> getStatus(@PathVariable UUID id,
+                                       @AuthenticationPrincipal User user) {
+        return uploadSessionService.getStatus(id, user);
+    }
+}
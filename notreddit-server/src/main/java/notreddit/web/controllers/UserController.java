@@ -9,6 +9,7 @@ import notreddit.data.models.responses.user.UserSummaryResponse;
 import notreddit.data.models.responses.user.UsersResponse;
 import notreddit.services.PostService;
 import notreddit.services.UserService;
+import notreddit.services.VoteService;
 import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
@@ -26,6 +27,7 @@ public class UserController {
 
     private final UserService userService;
     private final PostService postService;
+    private final VoteService voteService;
     private final ModelMapper mapper;
 
     @PreAuthorize("isAnonymous()")
@@ -74,7 +76,7 @@ public class UserController {
     public PostsResponseModel getUpvotedPosts(@AuthenticationPrincipal User user,
                                               @PathVariable String username,
                                               Pageable pageable) {
-        return postService.findPostsByVoteChoice(user, username, 1, pageable);
+        return withUserChoices(postService.findPostsByVoteChoice(user, username, 1, pageable), user);
     }
 
     @PreAuthorize("isAuthenticated()")
@@ -82,6 +84,11 @@ public class UserController {
     public PostsResponseModel getDownvotedPosts(@AuthenticationPrincipal User user,
                                                 @PathVariable String username,
                                                 Pageable pageable) {
-        return postService.findPostsByVoteChoice(user, username, -1, pageable);
+        return withUserChoices(postService.findPostsByVoteChoice(user, username, -1, pageable), user);
+    }
+
+    // the same choices as the other post listings, the page shows the signed in user's votes
+    private PostsResponseModel withUserChoices(PostsResponseModel page, User user) {
+        return page.withUserChoices(voteService.findPostChoices(user, PostController.postIds(page.getPosts())));
     }
 }
@@ -1,9 +1,12 @@
 package notreddit.web.controllers;
 
 import lombok.RequiredArgsConstructor;
+import notreddit.constants.ApiResponseMessages;
 import notreddit.data.entities.User;
+import notreddit.data.models.responses.api.ApiResponse;
 import notreddit.data.models.responses.post.PostVoteUserChoiceResponse;
 import notreddit.services.VoteService;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -11,6 +14,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -19,6 +23,9 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class VoteController {
 
+    // a page of a feed or of a comment thread
+    private static final int MAX_IDS = 100;
+
     private final VoteService voteService;
 
     @PreAuthorize("isAuthenticated()")
@@ -33,10 +40,36 @@ public class VoteController {
         return voteService.findCommentVotesByUser(user);
     }
 
+    @PreAuthorize("isAuthenticated()")
+    @GetMapping("/choices-posts")
+    public ResponseEntity<?> getCurrentUserChoicesForPosts(@RequestParam List<UUID> ids,
+                                                           @AuthenticationPrincipal User user) {
+        if (ids.size() > MAX_IDS) {
+            return tooManyIds();
+        }
+        return ResponseEntity.ok(voteService.findPostChoices(user, ids));
+    }
+
+    @PreAuthorize("isAuthenticated()")
+    @GetMapping("/choices-comments")
+    public ResponseEntity<?> getCurrentUserChoicesForComments(@RequestParam List<UUID> ids,
+                                                              @AuthenticationPrincipal User user) {
+        if (ids.size() > MAX_IDS) {
+            return tooManyIds();
+        }
+        return ResponseEntity.ok(voteService.findCommentChoices(user, ids));
+    }
+
     @PreAuthorize("isAuthenticated()")
     @GetMapping("/post")
     public PostVoteUserChoiceResponse getUserVoteForPost(@RequestParam UUID postId,
                                                          @AuthenticationPrincipal User user) {
         return voteService.getUserChoiceForPost(user, postId);
     }
+
+    private static ResponseEntity<?> tooManyIds() {
+        return ResponseEntity
+                .badRequest()
+                .body(new ApiResponse(false, String.format(ApiResponseMessages.TOO_MANY_VOTE_IDS, MAX_IDS)));
+    }
 }
@@ -0,0 +1,23 @@
+package notreddit.web.controllers;
+
+import lombok.RequiredArgsConstructor;
+import notreddit.data.models.responses.websocket.OutboundStatisticsResponse;
+import notreddit.web.broker.SessionOutboundQueues;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/websocket")
+@RequiredArgsConstructor
+public class WebSocketController {
+
+    private final SessionOutboundQueues sessionOutboundQueues;
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/stats")
+    public OutboundStatisticsResponse getStatistics() {
+        return sessionOutboundQueues.getStatistics();
+    }
+}
@@ -0,0 +1,12 @@
+package notreddit.web.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class UnsupportedFeedOrderException extends RuntimeException {
+
+    public UnsupportedFeedOrderException(String message) {
+        super(message);
+    }
+}
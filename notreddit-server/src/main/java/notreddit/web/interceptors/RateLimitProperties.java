@@ -0,0 +1,38 @@
+package notreddit.web.interceptors;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rate limited routes, e.g.
+ * {@code app.rateLimits.routes.votes.paths=/api/post/vote,/api/comment/vote} with
+ * {@code app.rateLimits.routes.votes.permits=1} and {@code app.rateLimits.routes.votes.period=1s}.
+ * Every client gets its own limit per route.
+ */
+@Setter
+@Getter
+@ConfigurationProperties(prefix = "app.rate-limits")
+@Component
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+    private Map<String, Route> routes = new LinkedHashMap<>();
+
+    @Setter
+    @Getter
+    public static class Route {
+
+        private String method = "POST";
+        private List<String> paths = new ArrayList<>();
+        private int permits = 1;
+        private Duration period = Duration.ofSeconds(1);
+    }
+}
@@ -0,0 +1,95 @@
+package notreddit.web.interceptors;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import notreddit.constants.ErrorMessages;
+import notreddit.data.models.responses.api.ApiResponse;
+import notreddit.util.RateLimiter;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.security.Principal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Limits the calls every client makes to the routes in {@link RateLimitProperties}.
+ * Authenticated clients are told apart by username, anonymous ones (signing in) by address.
+ */
+@Component
+@RequiredArgsConstructor
+public class RateLimitingInterceptor extends HandlerInterceptorAdapter {
+
+    private final RateLimitProperties properties;
+
+    private final Map<String, RateLimiter> limiters = new ConcurrentHashMap<>();
+    private final PathMatcher pathMatcher = new AntPathMatcher();
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+        if (!properties.isEnabled()) {
+            return true;
+        }
+
+        for (Map.Entry<String, RateLimitProperties.Route> entry : properties.getRoutes().entrySet()) {
+            RateLimitProperties.Route route = entry.getValue();
+            if (!matches(route, request)) {
+                continue;
+            }
+
+            String key = entry.getKey() + ":" + getClientId(request);
+            RateLimiter limiter = limiters.computeIfAbsent(key, k -> RateLimiter.create(route.getPermits(), route.getPeriod()));
+            response.addHeader("X-RateLimit-Limit", String.valueOf(route.getPermits()));
+
+            if (!limiter.tryAcquire()) {
+                response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+                response.setContentType("application/json");
+                response.setCharacterEncoding("UTF-8");
+
+                ApiResponse apiResponse = new ApiResponse(false, ErrorMessages.TOO_MANY_REQUESTS);
+                PrintWriter out = response.getWriter();
+                out.print(mapper.writeValueAsString(apiResponse));
+                out.flush();
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Drops the limiters that have all their permits back, they are recreated on the client's next call.
+     * A call racing with the removal may go to the dropped limiter, costing at most one extra permit.
+     */
+    @Scheduled(fixedDelay = 60 * 1000) // every minute
+    public void evictIdleLimiters() {
+        limiters.values().removeIf(RateLimiter::isIdle);
+    }
+
+    int trackedLimiters() {
+        return limiters.size();
+    }
+
+    private boolean matches(RateLimitProperties.Route route, HttpServletRequest request) {
+        if (!route.getMethod().equalsIgnoreCase(request.getMethod())) {
+            return false;
+        }
+
+        String path = request.getRequestURI();
+        return route.getPaths().stream().anyMatch(pattern -> pathMatcher.match(pattern, path));
+    }
+
+    private static String getClientId(HttpServletRequest request) {
+        Principal client = request.getUserPrincipal();
+        return client != null ? "user:" + client.getName() : "address:" + request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,115 @@
+package notreddit.auth;
+
+import notreddit.data.entities.User;
+import notreddit.data.enums.Authority;
+import notreddit.services.TokenVersionService;
+import notreddit.services.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Collections;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class JwtAuthenticationFilterTest {
+
+    private static final String TOKEN = "header.claims.signature";
+
+    private JwtTokenProvider tokenProvider;
+    private TokenVersionService tokenVersionService;
+    private UserService userService;
+    private JwtAuthenticationFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        tokenProvider = mock(JwtTokenProvider.class);
+        tokenVersionService = mock(TokenVersionService.class);
+        userService = mock(UserService.class);
+        filter = new JwtAuthenticationFilter(tokenProvider, tokenVersionService, userService);
+        when(tokenVersionService.isCurrent(any(UUID.class), anyInt())).thenReturn(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void doFilter_withValidToken_authenticatesWithoutLoadingUser() throws Exception {
+        VerifiedToken token = token("root");
+        when(tokenProvider.verifyToken(TOKEN)).thenReturn(Optional.of(token));
+
+        filter.doFilter(request(), new MockHttpServletResponse(), new MockFilterChain());
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        User principal = (User) authentication.getPrincipal();
+        assertEquals(token.getUserId(), principal.getId());
+        assertEquals("root", principal.getUsername());
+        assertEquals("ROLE_USER", authentication.getAuthorities().iterator().next().getAuthority());
+        verifyNoInteractions(userService);
+    }
+
+    @Test
+    void doFilter_withRevokedToken_doesNotAuthenticate() throws Exception {
+        when(tokenProvider.verifyToken(TOKEN)).thenReturn(Optional.of(token("root")));
+        when(tokenVersionService.isCurrent(any(UUID.class), anyInt())).thenReturn(false);
+
+        filter.doFilter(request(), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Test
+    void doFilter_withInvalidToken_doesNotAuthenticate() throws Exception {
+        when(tokenProvider.verifyToken(TOKEN)).thenReturn(Optional.empty());
+
+        filter.doFilter(request(), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verifyNoInteractions(tokenVersionService);
+    }
+
+    @Test
+    void doFilter_withTokenWithoutUserClaims_loadsUser() throws Exception {
+        VerifiedToken token = token(null);
+        User user = new User();
+        user.setId(token.getUserId());
+        when(tokenProvider.verifyToken(TOKEN)).thenReturn(Optional.of(token));
+        when(userService.loadUserById(token.getUserId())).thenReturn(user);
+
+        filter.doFilter(request(), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertSame(user, SecurityContextHolder.getContext().getAuthentication().getPrincipal());
+    }
+
+    @Test
+    void doFilter_withoutToken_doesNotAuthenticate() throws Exception {
+        filter.doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verifyNoInteractions(tokenProvider);
+    }
+
+    private static MockHttpServletRequest request() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer " + TOKEN);
+        return request;
+    }
+
+    private static VerifiedToken token(String username) {
+        return new VerifiedToken(TOKEN, UUID.randomUUID(), username,
+                username == null ? null : Collections.singletonList(Authority.USER),
+                username == null ? null : Collections.singletonList(3L), 0, Long.MAX_VALUE);
+    }
+}
@@ -0,0 +1,153 @@
+package notreddit.auth;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import notreddit.data.entities.Role;
+import notreddit.data.entities.User;
+import notreddit.data.enums.Authority;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtTokenProviderTest {
+
+    private static final String SECRET = "secret";
+
+    private JwtTokenProvider tokenProvider;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        tokenProvider = new JwtTokenProvider();
+        tokenProvider.setJwtSecret(SECRET);
+        tokenProvider.setJwtExpirationInMs(60_000);
+
+        user = new User();
+        user.setId(UUID.randomUUID());
+        user.setUsername("root");
+        user.setTokenVersion(2);
+        user.getRoles().add(role(Authority.ADMIN));
+        user.getRoles().add(role(Authority.USER));
+    }
+
+    @Test
+    void verifyToken_withGeneratedToken_returnsItsClaims() {
+        String token = generateToken();
+
+        VerifiedToken verified = tokenProvider.verifyToken(token).orElseThrow(AssertionError::new);
+
+        assertEquals(user.getId(), verified.getUserId());
+        assertEquals("root", verified.getUsername());
+        assertEquals(2, verified.getVersion());
+        assertTrue(verified.hasUserClaims());
+        assertTrue(verified.getRoles().containsAll(Arrays.asList(Authority.ADMIN, Authority.USER)));
+    }
+
+    @Test
+    void verifyToken_twice_returnsRememberedToken() {
+        String token = generateToken();
+
+        VerifiedToken first = tokenProvider.verifyToken(token).orElseThrow(AssertionError::new);
+        VerifiedToken second = tokenProvider.verifyToken(token).orElseThrow(AssertionError::new);
+
+        assertSame(first, second);
+    }
+
+    @Test
+    void verifyToken_withOtherClaimsUnderVerifiedSignature_returnsEmpty() {
+        String token = generateToken();
+        tokenProvider.verifyToken(token);
+
+        String forgedClaims = Jwts.builder()
+                .setSubject(UUID.randomUUID().toString())
+                .claim("username", "admin")
+                .signWith(SignatureAlgorithm.HS512, "other secret")
+                .compact();
+        String[] forgedParts = forgedClaims.split("\\.");
+        String forged = forgedParts[0] + "." + forgedParts[1] + token.substring(token.lastIndexOf('.'));
+
+        assertFalse(tokenProvider.verifyToken(forged).isPresent());
+    }
+
+    @Test
+    void verifyToken_withWrongSecret_returnsEmpty() {
+        String token = Jwts.builder()
+                .setSubject(user.getId().toString())
+                .signWith(SignatureAlgorithm.HS512, "other secret")
+                .compact();
+
+        assertFalse(tokenProvider.verifyToken(token).isPresent());
+    }
+
+    @Test
+    void verifyToken_withExpiredToken_returnsEmpty() {
+        tokenProvider.setJwtExpirationInMs(-1000);
+
+        assertFalse(tokenProvider.verifyToken(generateToken()).isPresent());
+    }
+
+    @Test
+    void verifyToken_withTokenWithoutUserClaims_returnsOnlyUserId() {
+        String token = Jwts.builder()
+                .setSubject(user.getId().toString())
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(SignatureAlgorithm.HS512, SECRET)
+                .compact();
+
+        Optional<VerifiedToken> verified = tokenProvider.verifyToken(token);
+
+        assertTrue(verified.isPresent());
+        assertEquals(user.getId(), verified.get().getUserId());
+        assertEquals(0, verified.get().getVersion());
+        assertFalse(verified.get().hasUserClaims());
+    }
+
+    @Test
+    void verifyToken_withTokenWithoutRoleIds_needsTheUserLoaded() {
+        String token = Jwts.builder()
+                .setSubject(user.getId().toString())
+                .claim("username", "root")
+                .claim("roles", Arrays.asList("ADMIN", "USER"))
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(SignatureAlgorithm.HS512, SECRET)
+                .compact();
+
+        VerifiedToken verified = tokenProvider.verifyToken(token).orElseThrow(AssertionError::new);
+
+        assertFalse(verified.hasUserClaims());
+    }
+
+    @Test
+    void toPrincipal_buildsUserFromClaims() {
+        VerifiedToken verified = tokenProvider.verifyToken(generateToken()).orElseThrow(AssertionError::new);
+
+        User principal = JwtTokenProvider.toPrincipal(verified);
+
+        assertEquals(user.getId(), principal.getId());
+        assertEquals("root", principal.getUsername());
+        assertEquals(user.getRoles(), principal.getRoles());
+        assertEquals(
+                user.getAuthorities().stream().map(Object::toString).collect(Collectors.toSet()),
+                principal.getAuthorities().stream().map(Object::toString).collect(Collectors.toSet()));
+    }
+
+    private String generateToken() {
+        return tokenProvider.generateToken(new UsernamePasswordAuthenticationToken(user, null));
+    }
+
+    // ids that don't follow the order of the authorities
+    private static Role role(Authority authority) {
+        Role role = new Role();
+        role.setId(100L - authority.ordinal());
+        role.setAuthority(authority);
+        return role;
+    }
+}
@@ -0,0 +1,100 @@
+package notreddit.auth;
+
+import notreddit.data.entities.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import java.util.Collections;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StompAuthenticationInterceptorTest {
+
+    private static final String TOKEN = "header.claims.signature";
+
+    private JwtAuthenticationFilter jwtAuthenticationFilter;
+    private StompAuthenticationInterceptor interceptor;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        jwtAuthenticationFilter = mock(JwtAuthenticationFilter.class);
+        interceptor = new StompAuthenticationInterceptor(jwtAuthenticationFilter);
+        user = new User();
+        user.setId(UUID.randomUUID());
+        user.setUsername("root");
+    }
+
+    private UsernamePasswordAuthenticationToken authentication() {
+        return new UsernamePasswordAuthenticationToken(user, null, Collections.emptyList());
+    }
+
+    private Message<?> frame(StompCommand command, String destination, UsernamePasswordAuthenticationToken user) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setSessionId("session");
+        accessor.setDestination(destination);
+        accessor.setUser(user);
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private Message<?> send(Message<?> message) {
+        return interceptor.preSend(message, mock(MessageChannel.class));
+    }
+
+    @Test
+    void preSend_connectWithValidToken_setsUser() {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.CONNECT);
+        accessor.addNativeHeader("Authorization", "Bearer " + TOKEN);
+        accessor.setLeaveMutable(true);
+        Message<?> connect = MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+        when(jwtAuthenticationFilter.authenticate(TOKEN)).thenReturn(Optional.of(authentication()));
+
+        Message<?> result = send(connect);
+
+        assertSame(user, ((UsernamePasswordAuthenticationToken) StompHeaderAccessor.wrap(result).getUser())
+                .getPrincipal());
+    }
+
+    @Test
+    void preSend_subscribeToOwnUserTopic_passes() {
+        Message<?> subscribe = frame(StompCommand.SUBSCRIBE,
+                "/topic/user/" + user.getId() + "/mentions", authentication());
+
+        assertSame(subscribe, send(subscribe));
+    }
+
+    @Test
+    void preSend_subscribeToAnotherUserTopic_isDropped() {
+        assertNull(send(frame(StompCommand.SUBSCRIBE, "/topic/user/" + UUID.randomUUID() + "/mentions",
+                authentication())));
+        assertNull(send(frame(StompCommand.SUBSCRIBE, "/topic/user/" + user.getId() + "/mentions", null)));
+    }
+
+    @Test
+    void preSend_sendToUserTopic_isDropped() {
+        assertNull(send(frame(StompCommand.SEND, "/topic/user/" + user.getId() + "/mentions", authentication())));
+    }
+
+    @Test
+    void preSend_sendToPresenceTopic_isDropped() {
+        assertNull(send(frame(StompCommand.SEND, "/topic/presence/rooms/public", authentication())));
+    }
+
+    @Test
+    void preSend_anonymousSubscribeToPublicTopic_passes() {
+        Message<?> subscribe = frame(StompCommand.SUBSCRIBE, "/topic/public", null);
+
+        assertSame(subscribe, send(subscribe));
+    }
+}
@@ -0,0 +1,117 @@
+package notreddit.benchmarks;
+
+import notreddit.SingletonModelMapper;
+import notreddit.data.entities.Comment;
+import notreddit.data.entities.Mention;
+import notreddit.data.entities.Post;
+import notreddit.data.mappers.CommentTreeBuilder;
+import notreddit.data.mappers.ListingFixtures;
+import notreddit.data.mappers.MentionMapper;
+import notreddit.data.mappers.PostMapper;
+import notreddit.data.mappers.RecursiveCommentMapper;
+import notreddit.data.models.responses.comment.CommentListWithChildren;
+import notreddit.data.models.responses.mention.MentionResponseModel;
+import notreddit.data.models.responses.post.PostListResponseModel;
+import notreddit.data.projections.CommentTreeRow;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maps a feed page of posts, a post's comment tree and a page of mentions
+ * with ModelMapper and with the hand written mappers. The comment tree is also mapped entity by entity,
+ * as it was before it was built from flat rows.
+ *
+ * mvn -P benchmarks,!prod test-compile exec:exec -Dbenchmark=ListingMappingBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ListingMappingBenchmark {
+
+    private static final int MAX_THREAD_DEPTH = 10;
+
+    @Param({"25"})
+    private int pageSize;
+
+    private ModelMapper modelMapper;
+    private List<Post> posts;
+    private List<Comment> comments;
+    private List<CommentTreeRow> commentRows;
+    private List<Mention> mentions;
+
+    @Setup
+    public void setUp() {
+        modelMapper = SingletonModelMapper.mapper();
+        posts = new ArrayList<>();
+        comments = new ArrayList<>();
+        commentRows = new ArrayList<>();
+        mentions = new ArrayList<>();
+
+        Post post = ListingFixtures.post(0);
+        for (int i = 0; i < pageSize; i++) {
+            posts.add(ListingFixtures.post(i));
+            mentions.add(ListingFixtures.mention(i));
+        }
+        // top level comments with two levels of three replies
+        for (int i = 0; i < pageSize / 5; i++) {
+            Comment comment = ListingFixtures.comment(post, i, 2, 3);
+            comments.add(comment);
+            commentRows.addAll(ListingFixtures.commentRows(comment));
+        }
+    }
+
+    @Benchmark
+    public void postsWithModelMapper(Blackhole blackhole) {
+        for (Post post : posts) {
+            blackhole.consume(modelMapper.map(post, PostListResponseModel.class));
+        }
+    }
+
+    @Benchmark
+    public void postsWithPostMapper(Blackhole blackhole) {
+        for (Post post : posts) {
+            blackhole.consume(PostMapper.toListModel(post));
+        }
+    }
+
+    @Benchmark
+    public void commentTreeWithModelMapper(Blackhole blackhole) {
+        for (Comment comment : comments) {
+            blackhole.consume(modelMapper.map(comment, CommentListWithChildren.class));
+        }
+    }
+
+    @Benchmark
+    public void commentTreeWithRecursiveMapper(Blackhole blackhole) {
+        for (Comment comment : comments) {
+            blackhole.consume(RecursiveCommentMapper.toModelWithChildren(comment));
+        }
+    }
+
+    @Benchmark
+    public void commentTreeWithTreeBuilder(Blackhole blackhole) {
+        blackhole.consume(CommentTreeBuilder.build(commentRows, MAX_THREAD_DEPTH));
+    }
+
+    @Benchmark
+    public void mentionsWithModelMapper(Blackhole blackhole) {
+        for (Mention mention : mentions) {
+            blackhole.consume(modelMapper.map(mention, MentionResponseModel.class));
+        }
+    }
+
+    @Benchmark
+    public void mentionsWithMentionMapper(Blackhole blackhole) {
+        for (Mention mention : mentions) {
+            blackhole.consume(MentionMapper.toModel(mention));
+        }
+    }
+}
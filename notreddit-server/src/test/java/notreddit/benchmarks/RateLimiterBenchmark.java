@@ -0,0 +1,45 @@
+package notreddit.benchmarks;
+
+import notreddit.util.RateLimiter;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Acquires permits from one limiter shared by all threads, the worst case for the CAS loop,
+ * and from a limiter per thread, the usual case of every user having their own.
+ *
+ * mvn -P benchmarks,!prod test-compile exec:exec -Dbenchmark=RateLimiterBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class RateLimiterBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Shared {
+
+        // generous enough that most calls are granted and have to win the CAS
+        private final RateLimiter limiter = RateLimiter.create(1_000_000, Duration.ofMillis(1));
+    }
+
+    @State(Scope.Thread)
+    public static class PerThread {
+
+        private final RateLimiter limiter = RateLimiter.create(1_000_000, Duration.ofMillis(1));
+    }
+
+    @Benchmark
+    public boolean sharedLimiter(Shared state) {
+        return state.limiter.tryAcquire();
+    }
+
+    @Benchmark
+    public boolean limiterPerThread(PerThread state) {
+        return state.limiter.tryAcquire();
+    }
+}
@@ -0,0 +1,66 @@
+package notreddit.benchmarks;
+
+import notreddit.services.implementations.ImageThumbnailServiceImpl;
+import notreddit.util.ThumbnailRenderer;
+import org.openjdk.jmh.annotations.*;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renders all thumbnail widths of a phone sized photo and of a small image on a single thread, which is how many
+ * images one core of the thumbnail pool gets through.
+ *
+ * mvn -P benchmarks,!prod test-compile exec:exec -Dbenchmark=ThumbnailBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(1)
+@Fork(1)
+public class ThumbnailBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Images {
+
+        private byte[] photo;
+        private byte[] small;
+
+        @Setup
+        public void setUp() throws IOException {
+            photo = jpeg(4000, 3000);
+            small = jpeg(800, 600);
+        }
+
+        private static byte[] jpeg(int width, int height) throws IOException {
+            BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = image.createGraphics();
+            graphics.setPaint(new GradientPaint(0, 0, Color.ORANGE, width, height, Color.BLUE));
+            graphics.fillRect(0, 0, width, height);
+            graphics.dispose();
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ImageIO.write(image, "jpeg", out);
+            return out.toByteArray();
+        }
+    }
+
+    @Benchmark
+    public Map<Integer, byte[]> photo(Images images) throws IOException {
+        return ThumbnailRenderer.render(new ByteArrayInputStream(images.photo), ImageThumbnailServiceImpl.WIDTHS);
+    }
+
+    @Benchmark
+    public Map<Integer, byte[]> smallImage(Images images) throws IOException {
+        return ThumbnailRenderer.render(new ByteArrayInputStream(images.small), ImageThumbnailServiceImpl.WIDTHS);
+    }
+}
@@ -0,0 +1,55 @@
+package notreddit.cache;
+
+import notreddit.data.models.responses.cache.CacheStatisticsResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+
+import static notreddit.constants.GeneralConstants.POSTS_BY_ID_CACHE;
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedCacheManagerTest {
+
+    private TaggedCacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        CacheProperties properties = new CacheProperties();
+        properties.setDefaultSpec("maximumWeight=5");
+        properties.setSpecs(Collections.singletonMap(POSTS_BY_ID_CACHE, "maximumSize=10,expireAfterWrite=10m"));
+
+        BoundedCacheManager caffeineCacheManager = new BoundedCacheManager(properties);
+        cacheManager = new TaggedCacheManager(caffeineCacheManager);
+        caffeineCacheManager.setEvictionListener(cacheManager::onEvicted);
+    }
+
+    @Test
+    void getCache_withOwnSpec_usesItsMaximumSize() {
+        Cache cache = cacheManager.getCache(POSTS_BY_ID_CACHE);
+        cache.put(UUID.randomUUID(), "post");
+
+        CacheStatisticsResponse stats = cacheManager.getStatistics().get(0);
+
+        assertEquals(1, stats.getSize());
+        assertEquals(10, stats.getMaximumWeight());
+    }
+
+    @Test
+    void put_overMaximumWeight_evictsEntriesAndForgetsTheirTags() {
+        Cache cache = cacheManager.getCache("weighed");
+        for (int i = 0; i < 10; i++) {
+            cache.put(i, Arrays.asList(1, 2));
+        }
+
+        CacheStatisticsResponse stats = cacheManager.getStatistics().get(0);
+
+        assertTrue(stats.getWeight() <= 5);
+        assertEquals(5, stats.getMaximumWeight());
+        assertEquals(stats.getSize(), stats.getTrackedEntries());
+        assertEquals(10 - stats.getSize(), stats.getEvictions());
+    }
+}
@@ -0,0 +1,212 @@
+package notreddit.cache;
+
+import notreddit.data.models.responses.cache.CacheStatisticsResponse;
+import notreddit.data.models.responses.post.PostListResponseModel;
+import notreddit.data.models.responses.post.PostsResponseModel;
+import notreddit.data.models.responses.subreddit.SubredditWithPostsAndSubscribersCountResponse;
+import notreddit.util.PageableKey;
+import notreddit.web.broker.InMemoryClusterBus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.interceptor.SimpleKey;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static notreddit.constants.GeneralConstants.POSTS_BY_ID_CACHE;
+import static notreddit.constants.GeneralConstants.POSTS_BY_SUBREDDIT_CACHE;
+import static notreddit.constants.GeneralConstants.SUBREDDITS_WITH_POST_AND_SUBSCRIBER_COUNT_CACHE;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaggedCacheManagerTest {
+
+    private TaggedCacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new TaggedCacheManager(new ConcurrentMapCacheManager());
+    }
+
+    @Test
+    void evictTagged_withPostTag_evictsOnlyEntriesContainingThePost() {
+        UUID postId = UUID.randomUUID();
+        UUID otherPostId = UUID.randomUUID();
+        Cache byId = cacheManager.getCache(POSTS_BY_ID_CACHE);
+        Cache bySubreddit = cacheManager.getCache(POSTS_BY_SUBREDDIT_CACHE);
+        PageableKey firstPage = new PageableKey("askreddit", 0, 10, "UNSORTED");
+        PageableKey otherPage = new PageableKey("aww", 0, 10, "UNSORTED");
+
+        byId.put(postId, "post");
+        byId.put(otherPostId, "other post");
+        bySubreddit.put(firstPage, postsResponse(postId));
+        bySubreddit.put(otherPage, postsResponse(otherPostId));
+
+        cacheManager.evictTagged(CacheTags.post(postId));
+
+        assertNull(byId.get(postId));
+        assertNull(bySubreddit.get(firstPage));
+        assertNotNull(byId.get(otherPostId));
+        assertNotNull(bySubreddit.get(otherPage));
+    }
+
+    @Test
+    void evictTagged_withSubredditTag_evictsAllPagesOfTheListing() {
+        Cache bySubreddit = cacheManager.getCache(POSTS_BY_SUBREDDIT_CACHE);
+        PageableKey firstPage = new PageableKey("AskReddit", 0, 10, "UNSORTED");
+        PageableKey secondPage = new PageableKey("AskReddit", 1, 10, "UNSORTED");
+        PageableKey otherSubreddit = new PageableKey("aww", 0, 10, "UNSORTED");
+
+        bySubreddit.put(firstPage, postsResponse(UUID.randomUUID()));
+        bySubreddit.put(secondPage, postsResponse(UUID.randomUUID()));
+        bySubreddit.put(otherSubreddit, postsResponse(UUID.randomUUID()));
+
+        cacheManager.evictTagged(CacheTags.subredditPosts("askreddit"));
+
+        assertNull(bySubreddit.get(firstPage));
+        assertNull(bySubreddit.get(secondPage));
+        assertNotNull(bySubreddit.get(otherSubreddit));
+    }
+
+    @Test
+    void evictTagged_withSubredditTag_evictsTheSubredditCountsButNotOtherListings() {
+        Cache counts = cacheManager.getCache(SUBREDDITS_WITH_POST_AND_SUBSCRIBER_COUNT_CACHE);
+        Cache bySubreddit = cacheManager.getCache(POSTS_BY_SUBREDDIT_CACHE);
+        PageableKey otherSubreddit = new PageableKey("aww", 0, 10, "UNSORTED");
+
+        counts.put(SimpleKey.EMPTY, Arrays.asList(
+                new SubredditWithPostsAndSubscribersCountResponse("AskReddit", 3, 2),
+                new SubredditWithPostsAndSubscribersCountResponse("aww", 1, 1)));
+        bySubreddit.put(otherSubreddit, postsResponse(UUID.randomUUID()));
+
+        cacheManager.evictTagged(CacheTags.subredditPosts("askreddit"));
+
+        assertNull(counts.get(SimpleKey.EMPTY));
+        assertNotNull(bySubreddit.get(otherSubreddit));
+    }
+
+    @Test
+    void getStatistics_afterReadsAndWrites_returnsCounters() {
+        UUID postId = UUID.randomUUID();
+        Cache byId = cacheManager.getCache(POSTS_BY_ID_CACHE);
+
+        byId.get(postId);
+        byId.put(postId, "post");
+        byId.get(postId);
+        byId.get(postId);
+        cacheManager.evictTagged(CacheTags.post(postId));
+
+        List<CacheStatisticsResponse> statistics = cacheManager.getStatistics();
+
+        assertEquals(1, statistics.size());
+        CacheStatisticsResponse stats = statistics.get(0);
+        assertEquals(POSTS_BY_ID_CACHE, stats.getName());
+        assertEquals(2, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(1, stats.getPuts());
+        assertEquals(1, stats.getEvictions());
+        assertEquals(0, stats.getTrackedEntries());
+    }
+
+    @Test
+    void updateIfPresent_replacesOnlyCachedEntries() {
+        UUID postId = UUID.randomUUID();
+        UUID otherPostId = UUID.randomUUID();
+        TaggedCache byId = (TaggedCache) cacheManager.getCache(POSTS_BY_ID_CACHE);
+        byId.put(postId, "post");
+
+        byId.updateIfPresent(postId, post -> post + " edited");
+        byId.updateIfPresent(otherPostId, post -> post + " edited");
+
+        assertEquals("post edited", byId.get(postId, String.class));
+        assertNull(byId.get(otherPostId));
+    }
+
+    @Test
+    void evictTagged_withClusterBus_evictsTheEntriesOfTheOtherNodes() {
+        InMemoryClusterBus clusterBus = new InMemoryClusterBus();
+        TaggedCacheManager node = new TaggedCacheManager(new ConcurrentMapCacheManager(), clusterBus);
+        TaggedCacheManager otherNode = new TaggedCacheManager(new ConcurrentMapCacheManager(), clusterBus);
+        UUID postId = UUID.randomUUID();
+        otherNode.getCache(POSTS_BY_ID_CACHE).put(postId, "post");
+
+        node.evictTagged(CacheTags.post(postId));
+
+        assertNull(otherNode.getCache(POSTS_BY_ID_CACHE).get(postId));
+    }
+
+    @Test
+    void evictTagged_withManyTags_publishesThemInMessagesTheBusAccepts() {
+        InMemoryClusterBus clusterBus = new InMemoryClusterBus();
+        TaggedCacheManager node = new TaggedCacheManager(new ConcurrentMapCacheManager(), clusterBus);
+        TaggedCacheManager otherNode = new TaggedCacheManager(new ConcurrentMapCacheManager(), clusterBus);
+        Cache byId = otherNode.getCache(POSTS_BY_ID_CACHE);
+        List<String> tags = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            UUID postId = UUID.randomUUID();
+            byId.put(postId, "post");
+            tags.add(CacheTags.post(postId));
+        }
+
+        node.evictTagged(tags.toArray(new String[0]));
+
+        assertEquals(3, clusterBus.published().size());
+        assertEquals(0, otherNode.getStatistics().get(0).getTrackedEntries());
+    }
+
+    @Test
+    void evict_withClusterBus_evictsTheKeyOnTheOtherNodes() {
+        InMemoryClusterBus clusterBus = new InMemoryClusterBus();
+        TaggedCacheManager node = new TaggedCacheManager(new ConcurrentMapCacheManager(), clusterBus);
+        TaggedCacheManager otherNode = new TaggedCacheManager(new ConcurrentMapCacheManager(), clusterBus);
+        UUID postId = UUID.randomUUID();
+        UUID otherPostId = UUID.randomUUID();
+        otherNode.getCache(POSTS_BY_ID_CACHE).put(postId, "post");
+        otherNode.getCache(POSTS_BY_ID_CACHE).put(otherPostId, "other post");
+
+        node.getCache(POSTS_BY_ID_CACHE).evict(postId);
+
+        assertNull(otherNode.getCache(POSTS_BY_ID_CACHE).get(postId));
+        assertNotNull(otherNode.getCache(POSTS_BY_ID_CACHE).get(otherPostId));
+    }
+
+    @Test
+    void clear_withClusterBus_clearsTheCacheOnTheOtherNodes() {
+        InMemoryClusterBus clusterBus = new InMemoryClusterBus();
+        TaggedCacheManager node = new TaggedCacheManager(new ConcurrentMapCacheManager(), clusterBus);
+        TaggedCacheManager otherNode = new TaggedCacheManager(new ConcurrentMapCacheManager(), clusterBus);
+        UUID postId = UUID.randomUUID();
+        otherNode.getCache(POSTS_BY_ID_CACHE).put(postId, "post");
+        otherNode.getCache(POSTS_BY_SUBREDDIT_CACHE).put(postId, "listing");
+
+        node.getCache(POSTS_BY_ID_CACHE).clear();
+
+        assertNull(otherNode.getCache(POSTS_BY_ID_CACHE).get(postId));
+        assertNotNull(otherNode.getCache(POSTS_BY_SUBREDDIT_CACHE).get(postId));
+    }
+
+    @Test
+    void updateIfPresent_withClusterBus_keepsTheUpdateAndEvictsTheKeyOnTheOtherNodes() {
+        InMemoryClusterBus clusterBus = new InMemoryClusterBus();
+        TaggedCacheManager node = new TaggedCacheManager(new ConcurrentMapCacheManager(), clusterBus);
+        TaggedCacheManager otherNode = new TaggedCacheManager(new ConcurrentMapCacheManager(), clusterBus);
+        UUID postId = UUID.randomUUID();
+        node.getCache(POSTS_BY_ID_CACHE).put(postId, "post");
+        otherNode.getCache(POSTS_BY_ID_CACHE).put(postId, "post");
+
+        ((TaggedCache) node.getCache(POSTS_BY_ID_CACHE)).updateIfPresent(postId, post -> "edited post");
+
+        assertEquals("edited post", node.getCache(POSTS_BY_ID_CACHE).get(postId, String.class));
+        assertNull(otherNode.getCache(POSTS_BY_ID_CACHE).get(postId));
+    }
+
+    private PostsResponseModel postsResponse(UUID postId) {
+        PostListResponseModel post = new PostListResponseModel();
+        post.setId(postId.toString());
+        return new PostsResponseModel(1, Collections.singletonList(post));
+    }
+}
@@ -0,0 +1,51 @@
+package notreddit.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+class LegacyVoteBackfillTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private LegacyVoteBackfill backfill;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+        backfill = new LegacyVoteBackfill(mock(EntityManagerFactory.class), jdbcTemplate, transactionTemplate);
+    }
+
+    @Test
+    void backfill_withLegacyTable_copiesTheVotesThenDropsIt() {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Boolean.class))).thenReturn(true);
+
+        backfill.backfill();
+
+        InOrder inOrder = inOrder(jdbcTemplate);
+        inOrder.verify(jdbcTemplate).execute(startsWith("LOCK TABLE public.votes"));
+        inOrder.verify(jdbcTemplate).update(startsWith("INSERT INTO public.post_votes"));
+        inOrder.verify(jdbcTemplate).update(startsWith("INSERT INTO public.comment_votes"));
+        inOrder.verify(jdbcTemplate).execute("DROP TABLE public.votes");
+    }
+
+    @Test
+    void backfill_withoutLegacyTable_doesNothing() {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Boolean.class))).thenReturn(false);
+
+        backfill.backfill();
+
+        verify(jdbcTemplate, never()).update(anyString());
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+}
@@ -0,0 +1,84 @@
+package notreddit.data.mappers;
+
+import notreddit.data.models.responses.comment.CommentListWithChildren;
+import notreddit.data.projections.CommentTreeRow;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CommentTreeBuilderTest {
+
+    @Test
+    void build_withRepliesListedBeforeTheirParents_assemblesWholeTree() {
+        CommentTreeRow root = row(null, "root");
+        CommentTreeRow reply = row(root.getId(), "reply");
+        CommentTreeRow nested = row(reply.getId(), "nested");
+
+        List<CommentListWithChildren> tree = CommentTreeBuilder.build(Arrays.asList(nested, reply, root), 10);
+
+        assertEquals(1, tree.size());
+        assertEquals("root", tree.get(0).getContent());
+        assertEquals("reply", tree.get(0).getChildren().get(0).getContent());
+        assertEquals("nested", tree.get(0).getChildren().get(0).getChildren().get(0).getContent());
+    }
+
+    @Test
+    void build_keepsRowOrderForSiblings() {
+        CommentTreeRow root = row(null, "root");
+        List<CommentTreeRow> rows = Arrays.asList(
+                row(root.getId(), "first"),
+                root,
+                row(root.getId(), "second"),
+                row(null, "other root"));
+
+        List<CommentListWithChildren> tree = CommentTreeBuilder.build(rows, 10);
+
+        assertEquals(2, tree.size());
+        assertEquals("root", tree.get(0).getContent());
+        assertEquals("other root", tree.get(1).getContent());
+        assertEquals("first", tree.get(0).getChildren().get(0).getContent());
+        assertEquals("second", tree.get(0).getChildren().get(1).getContent());
+    }
+
+    @Test
+    void build_withThreadDeeperThanMaxDepth_cutsItAndCountsTheMissingReplies() {
+        List<CommentTreeRow> rows = new ArrayList<>();
+        CommentTreeRow parent = row(null, "0");
+        rows.add(parent);
+        for (int i = 1; i < 5; i++) {
+            parent = row(parent.getId(), String.valueOf(i));
+            rows.add(parent);
+        }
+        rows.add(row(rows.get(1).getId(), "second reply"));
+
+        List<CommentListWithChildren> tree = CommentTreeBuilder.build(rows, 2);
+
+        CommentListWithChildren last = tree.get(0).getChildren().get(0);
+        assertEquals("1", last.getContent());
+        assertTrue(last.getChildren().isEmpty());
+        assertEquals(2, last.getMoreReplies());
+        assertEquals(0, tree.get(0).getMoreReplies());
+    }
+
+    @Test
+    void build_withParentsOutsideTheRows_makesRowsRoots() {
+        List<CommentTreeRow> rows = Arrays.asList(
+                row(UUID.randomUUID(), "a"),
+                row(UUID.randomUUID(), "b"));
+
+        List<CommentListWithChildren> tree = CommentTreeBuilder.build(rows, 10);
+
+        assertEquals(2, tree.size());
+    }
+
+    private static CommentTreeRow row(UUID parentId, String content) {
+        return new CommentTreeRow(UUID.randomUUID(), parentId, "username", true, content, 0, 0, LocalDateTime.now());
+    }
+}
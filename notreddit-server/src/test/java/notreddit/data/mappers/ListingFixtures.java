@@ -0,0 +1,107 @@
+package notreddit.data.mappers;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import notreddit.data.entities.*;
+import notreddit.data.projections.CommentTreeRow;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Entity graphs shaped like the ones the listing queries load.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class ListingFixtures {
+
+    public static Post post(int i) {
+        User creator = new User();
+        creator.setId(UUID.randomUUID());
+        creator.setUsername("username" + i);
+
+        Subreddit subreddit = new Subreddit();
+        subreddit.setTitle("subreddit" + i);
+
+        Post post = new Post();
+        post.setId(UUID.randomUUID());
+        post.setTitle("title" + i);
+        post.setContent("content" + i);
+        post.setUpvotes(i);
+        post.setDownvotes(i + 1);
+        post.setCommentCount(i + 2);
+        post.setCreatedOn(LocalDateTime.now().minusMinutes(i));
+        post.setCreator(creator);
+        post.setSubreddit(subreddit);
+
+        File file = new File();
+        file.setUrl("url" + i);
+        file.setThumbnailUrl("thumbnailUrl" + i);
+        post.addFile(file);
+
+        return post;
+    }
+
+    public static Comment comment(Post post, int i, int depth, int childrenPerComment) {
+        User creator = new User();
+        creator.setId(UUID.randomUUID());
+        creator.setUsername("commenter" + i);
+        creator.setEnabled(i % 2 == 0);
+
+        Comment comment = new Comment();
+        comment.setId(UUID.randomUUID());
+        comment.setContent("comment" + i);
+        comment.setUpvotes(i);
+        comment.setDownvotes(i + 1);
+        comment.setCreatedOn(LocalDateTime.now().minusMinutes(i));
+        comment.setCreator(creator);
+        comment.setPost(post);
+
+        if (depth > 0) {
+            for (int j = 0; j < childrenPerComment; j++) {
+                comment.addChild(comment(post, i * 10 + j, depth - 1, childrenPerComment));
+            }
+        }
+
+        return comment;
+    }
+
+    /**
+     * The thread of the comment as the flat rows the comment tree query returns, parents before their replies.
+     */
+    public static List<CommentTreeRow> commentRows(Comment comment) {
+        List<CommentTreeRow> rows = new ArrayList<>();
+        addCommentRows(rows, comment, null);
+        return rows;
+    }
+
+    private static void addCommentRows(List<CommentTreeRow> rows, Comment comment, UUID parentId) {
+        rows.add(new CommentTreeRow(
+                comment.getId(),
+                parentId,
+                comment.getCreator().getUsername(),
+                comment.getCreator().isEnabled(),
+                comment.getContent(),
+                comment.getUpvotes(),
+                comment.getDownvotes(),
+                comment.getCreatedOn()));
+
+        for (Comment child : comment.getChildren()) {
+            addCommentRows(rows, child, comment.getId());
+        }
+    }
+
+    public static Mention mention(int i) {
+        Comment comment = comment(post(i), i, 0, 0);
+
+        Mention mention = new Mention();
+        mention.setId(UUID.randomUUID());
+        mention.setComment(comment);
+        mention.setCreator(comment.getCreator());
+        mention.setReceiver(comment.getPost().getCreator());
+        mention.setRead(i % 2 == 0);
+        mention.setCreatedOn(LocalDateTime.now().minusMinutes(i));
+        return mention;
+    }
+}
@@ -0,0 +1,89 @@
+package notreddit.data.mappers;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import notreddit.SingletonModelMapper;
+import notreddit.data.entities.Comment;
+import notreddit.data.entities.Mention;
+import notreddit.data.entities.Post;
+import notreddit.data.models.responses.comment.CommentListWithChildren;
+import notreddit.data.models.responses.comment.CommentListWithReplyCount;
+import notreddit.data.models.responses.mention.MentionResponseModel;
+import notreddit.data.models.responses.post.PostDetailsResponseModel;
+import notreddit.data.models.responses.post.PostListResponseModel;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The hand written mappers have to produce the same JSON the ModelMapper based mapping did.
+ */
+class MappersTest {
+
+    private final ModelMapper modelMapper = SingletonModelMapper.mapper();
+    private final ObjectMapper json = new ObjectMapper();
+
+    @Test
+    void postMapper_toListModel_matchesModelMapper() throws JsonProcessingException {
+        Post post = ListingFixtures.post(1);
+
+        assertSameJson(modelMapper.map(post, PostListResponseModel.class), PostMapper.toListModel(post));
+    }
+
+    @Test
+    void postMapper_toListModel_withoutFile_matchesModelMapper() throws JsonProcessingException {
+        Post post = ListingFixtures.post(1);
+        post.setFile(null);
+
+        assertSameJson(modelMapper.map(post, PostListResponseModel.class), PostMapper.toListModel(post));
+    }
+
+    @Test
+    void postMapper_toDetailsModel_matchesModelMapper() throws JsonProcessingException {
+        Post post = ListingFixtures.post(2);
+
+        assertSameJson(modelMapper.map(post, PostDetailsResponseModel.class), PostMapper.toDetailsModel(post));
+    }
+
+    @Test
+    void commentTreeBuilder_build_matchesModelMapper() throws JsonProcessingException {
+        Comment comment = ListingFixtures.comment(ListingFixtures.post(1), 1, 2, 2);
+
+        List<CommentListWithChildren> tree = CommentTreeBuilder.build(ListingFixtures.commentRows(comment), 10);
+
+        assertEquals(1, tree.size());
+        assertSameJson(modelMapper.map(comment, CommentListWithChildren.class), tree.get(0));
+    }
+
+    @Test
+    void recursiveCommentMapper_toModelWithChildren_matchesModelMapper() throws JsonProcessingException {
+        Comment comment = ListingFixtures.comment(ListingFixtures.post(1), 1, 2, 2);
+
+        assertSameJson(modelMapper.map(comment, CommentListWithChildren.class),
+                RecursiveCommentMapper.toModelWithChildren(comment));
+    }
+
+    @Test
+    void commentMapper_toModelWithReplyCount_matchesModelMapper() throws JsonProcessingException {
+        Comment comment = ListingFixtures.comment(ListingFixtures.post(1), 1, 1, 3);
+
+        CommentListWithReplyCount expected = modelMapper.map(comment, CommentListWithReplyCount.class);
+        expected.setReplies(comment.getChildren().size());
+
+        assertSameJson(expected, CommentMapper.toModelWithReplyCount(comment));
+    }
+
+    @Test
+    void mentionMapper_toModel_matchesModelMapper() throws JsonProcessingException {
+        Mention mention = ListingFixtures.mention(2);
+
+        assertSameJson(modelMapper.map(mention, MentionResponseModel.class), MentionMapper.toModel(mention));
+    }
+
+    private void assertSameJson(Object expected, Object actual) throws JsonProcessingException {
+        assertEquals(json.writeValueAsString(expected), json.writeValueAsString(actual));
+    }
+}
@@ -0,0 +1,38 @@
+package notreddit.data.mappers;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import notreddit.data.entities.Comment;
+import notreddit.data.models.responses.comment.CommentListWithChildren;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Maps a comment entity and its loaded children node by node, the way comment threads were mapped before
+ * {@link CommentTreeBuilder}. Only kept as the baseline of the mapping benchmark.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class RecursiveCommentMapper {
+
+    public static CommentListWithChildren toModelWithChildren(Comment comment) {
+        CommentListWithChildren model = new CommentListWithChildren();
+        model.setId(comment.getId() == null ? null : comment.getId().toString());
+        if (comment.getCreator() != null) {
+            model.setCreatorUsername(comment.getCreator().getUsername());
+            model.setCreatorEnabled(comment.getCreator().isEnabled());
+        }
+        model.setContent(comment.getContent());
+        model.setUpvotes(comment.getUpvotes());
+        model.setDownvotes(comment.getDownvotes());
+        model.setCreatedOn(TimeMapper.toEpochSecond(comment.getCreatedOn()));
+
+        List<CommentListWithChildren> children = new ArrayList<>(comment.getChildren().size());
+        for (Comment child : comment.getChildren()) {
+            children.add(toModelWithChildren(child));
+        }
+        model.setChildren(children);
+
+        return model;
+    }
+}
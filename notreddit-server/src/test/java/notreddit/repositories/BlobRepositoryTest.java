@@ -0,0 +1,62 @@
+package notreddit.repositories;
+
+import notreddit.PostgreSQLContainerInitializer;
+import notreddit.data.entities.Blob;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.NoSuchElementException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(initializers = {PostgreSQLContainerInitializer.class})
+class BlobRepositoryTest {
+
+    private static final String HASH = "ed7002b439e9ac845f22357d822bac1444730fbdb6016d3ec9432297b9ec9f73";
+
+    @Autowired
+    private BlobRepository blobRepository;
+
+    @Test
+    void reference_withSameHashTwice_countsBothReferences() {
+        blobRepository.reference(HASH, 7, "image/jpeg");
+        blobRepository.reference(HASH, 7, "image/png");
+
+        Blob blob = blobRepository.findById(HASH).orElseThrow(NoSuchElementException::new);
+        assertEquals(2, blob.getReferenceCount());
+        assertEquals("image/jpeg", blob.getContentType());
+    }
+
+    @Test
+    void release_withLastReference_makesBlobCollectable() {
+        blobRepository.reference(HASH, 7, "image/jpeg");
+
+        assertEquals(1, blobRepository.release(HASH, LocalDateTime.now().minusHours(1)));
+        assertEquals(0, blobRepository.release(HASH, LocalDateTime.now()));
+
+        assertEquals(Collections.singletonList(HASH),
+                blobRepository.findUnreferencedHashes(LocalDateTime.now().minusMinutes(10)));
+        assertEquals(1, blobRepository.deleteIfUnreferenced(HASH));
+        assertFalse(blobRepository.findById(HASH).isPresent());
+    }
+
+    @Test
+    void reference_afterRelease_keepsBlobFromCollection() {
+        blobRepository.reference(HASH, 7, "image/jpeg");
+        blobRepository.release(HASH, LocalDateTime.now().minusHours(1));
+
+        blobRepository.reference(HASH, 7, "image/jpeg");
+
+        assertEquals(0, blobRepository.deleteIfUnreferenced(HASH));
+        assertNull(blobRepository.findById(HASH).orElseThrow(NoSuchElementException::new).getReleasedOn());
+    }
+}
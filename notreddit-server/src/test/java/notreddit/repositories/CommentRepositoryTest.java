@@ -2,6 +2,7 @@ package notreddit.repositories;
 
 import notreddit.PostgreSQLContainerInitializer;
 import notreddit.data.entities.Comment;
+import notreddit.data.projections.CommentTreeRow;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
@@ -27,20 +28,25 @@ class CommentRepositoryTest {
     private CommentRepository commentRepository;
 
     @Test
-    void findByPostIdWithChildren() {
+    void findTreeByPostId_returnsEveryCommentOfThePostSorted() {
         UUID postId = UUID.fromString("d92e1999-fd40-4ed8-b72a-faa16b54da4f");
         Sort sort = Sort.by(Sort.Direction.DESC, "createdOn");
-        List<Comment> comments = commentRepository.findByPostIdWithChildren(postId, sort);
+        List<CommentTreeRow> rows = commentRepository.findTreeByPostId(postId, sort);
 
-        assertEquals(3, comments.size());
+        assertEquals(7, rows.size());
+        assertEquals(3, rows.stream().filter(r -> r.getParentId() == null).count());
 
-        List<Comment> sortedComments = new ArrayList<>(comments);
-        sortedComments.sort((a, b) -> b.getCreatedOn().compareTo(a.getCreatedOn()));
+        List<CommentTreeRow> sortedRows = new ArrayList<>(rows);
+        sortedRows.sort((a, b) -> b.getCreatedOn().compareTo(a.getCreatedOn()));
+        assertEquals(sortedRows, rows);
+    }
+
+    @Test
+    void findReplyIds_returnsRepliesDownToOneLevelBelowMaxDepth() {
+        UUID commentId = UUID.fromString("fb8727dd-e7b7-4611-84c8-fc39e7aa6440");
 
-        for (int i = 0; i < comments.size(); i++) {
-            assertEquals(comments.get(i).getPost().getId(), postId);
-            assertEquals(comments.get(i), sortedComments.get(i));
-        }
+        assertEquals(4, commentRepository.findReplyIds(commentId, 10).size());
+        assertEquals(3, commentRepository.findReplyIds(commentId, 1).size());
     }
 
     @Test
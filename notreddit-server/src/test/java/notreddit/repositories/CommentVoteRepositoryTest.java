@@ -0,0 +1,69 @@
+package notreddit.repositories;
+
+import notreddit.PostgreSQLContainerInitializer;
+import notreddit.data.entities.CommentVote;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(initializers = {PostgreSQLContainerInitializer.class})
+class CommentVoteRepositoryTest {
+
+    private static final UUID USER_ID = UUID.fromString("0cd5ebf9-1023-4164-81ad-e09e92f9cff2");
+
+    @Autowired
+    private CommentVoteRepository commentVoteRepository;
+
+    @Test
+    void findByCommentIdAndUserId_withExistingVote_returnsCorrectVote() {
+        UUID commentId = UUID.fromString("6ba627e8-7a3f-4e9b-ae44-675ccdbc4cf2");
+        Optional<CommentVote> vote = commentVoteRepository.findByCommentIdAndUserId(commentId, USER_ID);
+
+        assertTrue(vote.isPresent());
+        assertEquals(-1, vote.get().getChoice());
+    }
+
+    @Test
+    void findByCommentIdAndUserId_withNonExistentVote_returnsEmptyOptional() {
+        UUID commentId = UUID.fromString("ff3b4efc-34b0-4dc9-91ab-8c99ac5140cc");
+        Optional<CommentVote> vote = commentVoteRepository.findByCommentIdAndUserId(commentId, USER_ID);
+
+        assertFalse(vote.isPresent());
+    }
+
+    @Test
+    void findByUserId_shouldReturnCorrectData() {
+        List<CommentVote> votes = commentVoteRepository.findByUserId(USER_ID);
+
+        assertEquals(9, votes.size());
+        votes.forEach(v -> assertEquals(USER_ID, v.getUserId()));
+    }
+
+    @Test
+    void vote_withSameChoice_deselectsIt() {
+        UUID commentId = UUID.fromString("6ba627e8-7a3f-4e9b-ae44-675ccdbc4cf2");
+
+        assertEquals(-1, commentVoteRepository.vote(commentId, USER_ID, (byte) -1));
+        assertFalse(commentVoteRepository.findByCommentIdAndUserId(commentId, USER_ID).isPresent());
+    }
+
+    @Test
+    void deleteAllByCommentId_deletesTheVotesOfTheComment() {
+        UUID commentId = UUID.fromString("6ba627e8-7a3f-4e9b-ae44-675ccdbc4cf2");
+
+        assertEquals(1, commentVoteRepository.deleteAllByCommentId(commentId));
+        assertFalse(commentVoteRepository.findByCommentIdAndUserId(commentId, USER_ID).isPresent());
+    }
+}
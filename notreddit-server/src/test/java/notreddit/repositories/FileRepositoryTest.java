@@ -0,0 +1,49 @@
+package notreddit.repositories;
+
+import notreddit.PostgreSQLContainerInitializer;
+import notreddit.data.entities.File;
+import notreddit.data.enums.FileStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.util.NoSuchElementException;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(initializers = {PostgreSQLContainerInitializer.class})
+class FileRepositoryTest {
+
+    private static final UUID POST_ID = UUID.fromString("6d72346f-f359-40d7-b988-4f5cbc73ff5a");
+
+    @Autowired
+    private FileRepository fileRepository;
+
+    @Test
+    void findById_withExistingFile_isReady() {
+        File file = fileRepository.findById(POST_ID).orElseThrow(NoSuchElementException::new);
+
+        assertEquals(FileStatus.READY, file.getStatus());
+    }
+
+    @Test
+    void updateUpload_withExistingFile_updatesIt() {
+        int updated = fileRepository.updateUpload(POST_ID, "url", "thumbnailUrl", FileStatus.FAILED);
+
+        File file = fileRepository.findById(POST_ID).orElseThrow(NoSuchElementException::new);
+        assertEquals(1, updated);
+        assertEquals("url", file.getUrl());
+        assertEquals("thumbnailUrl", file.getThumbnailUrl());
+        assertEquals(FileStatus.FAILED, file.getStatus());
+    }
+
+    @Test
+    void updateUpload_withNonExistentFile_updatesNothing() {
+        assertEquals(0, fileRepository.updateUpload(UUID.randomUUID(), "url", null, FileStatus.READY));
+    }
+}
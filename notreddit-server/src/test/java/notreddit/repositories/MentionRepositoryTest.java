@@ -3,6 +3,7 @@ package notreddit.repositories;
 import notreddit.PostgreSQLContainerInitializer;
 import notreddit.data.entities.Mention;
 import notreddit.data.entities.User;
+import notreddit.data.projections.UnreadMentionCount;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
@@ -13,6 +14,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.test.context.ContextConfiguration;
 
 import java.util.*;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.*;
 
@@ -45,15 +47,39 @@ class MentionRepositoryTest {
     }
 
     @Test
-    void getUnreadMentionCountByUser_shouldReturnCorrectUnreadMentionCount() {
+    void countUnreadByReceiverId_shouldReturnCorrectUnreadMentionCount() {
         UUID userId = UUID.fromString("0cd5ebf9-1023-4164-81ad-e09e92f9cff2");
-        User user = userRepository.findById(userId).orElseThrow(NoSuchElementException::new);
 
-        int unreadMentions = mentionRepository.getUnreadMentionCountByUser(user);
+        int unreadMentions = mentionRepository.countUnreadByReceiverId(userId);
 
         assertEquals(4, unreadMentions);
     }
 
+    @Test
+    void countUnreadByReceiverIds_returnsOnlyUsersWithUnreadMentions() {
+        UUID userId = UUID.fromString("0cd5ebf9-1023-4164-81ad-e09e92f9cff2");
+
+        List<UnreadMentionCount> counts = mentionRepository.countUnreadByReceiverIds(
+                Arrays.asList(userId, UUID.randomUUID()));
+
+        assertEquals(1, counts.size());
+        assertEquals(userId, counts.get(0).getReceiverId());
+        assertEquals(4, counts.get(0).getCount());
+    }
+
+    @Test
+    void countUnreadOfPost_countsTheUnreadMentionsOfAllItsCommentsByReceiver() {
+        UUID postId = UUID.fromString("d92e1999-fd40-4ed8-b72a-faa16b54da4f");
+
+        Map<UUID, Long> counts = mentionRepository.countUnreadOfPost(postId)
+                .stream()
+                .collect(Collectors.toMap(UnreadMentionCount::getReceiverId, UnreadMentionCount::getCount));
+
+        assertEquals(2, counts.size());
+        assertEquals(Long.valueOf(3), counts.get(UUID.fromString("0cd5ebf9-1023-4164-81ad-e09e92f9cff2")));
+        assertEquals(Long.valueOf(1), counts.get(UUID.fromString("46cf2027-3503-4168-9d58-c5f4b81db30a")));
+    }
+
     @Test
     void getUsersMentions_shouldReturnCorrectlyOrderedAndPagedEntities() {
         Pageable pageable = PageRequest.of(0, 5);
@@ -1,8 +1,12 @@
 package notreddit.repositories;
 
 import notreddit.PostgreSQLContainerInitializer;
+import notreddit.data.entities.PendingVote;
 import notreddit.data.entities.Post;
 import notreddit.data.entities.Subreddit;
+import notreddit.data.enums.FeedOrder;
+import notreddit.data.projections.PostRankRow;
+import notreddit.util.FeedCursor;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
@@ -13,6 +17,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.test.context.ContextConfiguration;
 
+import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -30,6 +35,24 @@ class PostRepositoryTest {
     @Autowired
     private SubredditRepository subredditRepository;
 
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private PostVoteRepository postVoteRepository;
+
+    @Autowired
+    private CommentVoteRepository commentVoteRepository;
+
+    @Autowired
+    private MentionRepository mentionRepository;
+
+    @Autowired
+    private FileRepository fileRepository;
+
+    @Autowired
+    private PendingVoteRepository pendingVoteRepository;
+
     private void assertPostsPageable(Page<Post> page) {
         List<Post> posts = page.getContent();
         assertEquals(5, posts.size());
@@ -101,6 +124,83 @@ class PostRepositoryTest {
         assertEquals(2, posts.getTotalPages());
     }
 
+    @Test
+    void findNewestIdsBySubredditTitle_walkingAllPages_returnsEveryPostOnceNewestFirst() {
+        FeedCursor cursor = FeedCursor.first(FeedOrder.NEW);
+        List<Post> seen = new ArrayList<>();
+
+        List<UUID> page;
+        do {
+            page = postRepository.findNewestIdsBySubredditTitle(
+                    "aww", cursor.getCreatedOn(), cursor.getId(), PageRequest.of(0, 3));
+            for (UUID id : page) {
+                seen.add(postRepository.findById(id).orElseThrow(NoSuchElementException::new));
+            }
+            if (!page.isEmpty()) {
+                cursor = FeedCursor.after(FeedOrder.NEW, seen.get(seen.size() - 1));
+            }
+        } while (page.size() == 3);
+
+        assertEquals(8, seen.size());
+        assertEquals(8, new HashSet<>(seen).size());
+        for (int i = 1; i < seen.size(); i++) {
+            assertFalse(seen.get(i).getCreatedOn().isAfter(seen.get(i - 1).getCreatedOn()));
+        }
+    }
+
+    @Test
+    void findTopIds_returnsHighestScoreFirst() {
+        FeedCursor cursor = FeedCursor.first(FeedOrder.TOP);
+        List<UUID> ids = postRepository.findTopIds(cursor.getScore(), cursor.getId(), PageRequest.of(0, 15));
+
+        assertEquals(15, ids.size());
+        int previous = Integer.MAX_VALUE;
+        for (UUID id : ids) {
+            Post post = postRepository.findById(id).orElseThrow(NoSuchElementException::new);
+            assertTrue(post.getUpvotes() - post.getDownvotes() <= previous);
+            previous = post.getUpvotes() - post.getDownvotes();
+        }
+    }
+
+    @Test
+    void findRankRowsCreatedSince_returnsOnlyNewerPostsWithTheirSubreddit() {
+        List<PostRankRow> rows = postRepository.findRankRowsCreatedSince(LocalDateTime.of(2000, 1, 1, 0, 0));
+        assertEquals(15, rows.size());
+        rows.forEach(r -> assertNotNull(r.getSubredditTitle()));
+
+        assertTrue(postRepository.findRankRowsCreatedSince(LocalDateTime.now()).isEmpty());
+    }
+
+    @Test
+    void findRankRowsCreatedSince_addsTheVotesNotYetFlushed() {
+        Post post = postRepository.findAll().get(0);
+        for (int i = 0; i < 2; i++) {
+            PendingVote vote = new PendingVote();
+            vote.setPostId(post.getId());
+            vote.setUpvotes(3);
+            vote.setDownvotes(1);
+            vote.setCreatedOn(LocalDateTime.now());
+            pendingVoteRepository.saveAndFlush(vote);
+        }
+
+        PostRankRow row = postRepository.findRankRowsCreatedSince(LocalDateTime.of(2000, 1, 1, 0, 0)).stream()
+                .filter(r -> r.getId().equals(post.getId()))
+                .findFirst()
+                .orElseThrow(NoSuchElementException::new);
+        assertEquals(post.getUpvotes() + 6, row.getUpvotes());
+        assertEquals(post.getDownvotes() + 2, row.getDownvotes());
+    }
+
+    @Test
+    void findNewestPerSubreddit_returnsAtMostThatManyPostsOfEverySubreddit() {
+        List<Object[]> rows = postRepository.findNewestPerSubreddit(2);
+
+        Map<Object, Long> postsPerSubreddit = rows.stream()
+                .collect(Collectors.groupingBy(row -> row[1], Collectors.counting()));
+        assertEquals(2L, (long) postsPerSubreddit.get("aww"));
+        postsPerSubreddit.values().forEach(count -> assertTrue(count <= 2));
+    }
+
     @Test
     void findPostIdsByUserAndVoteChoice() {
         Pageable pageable = PageRequest.of(0, 5, Sort.by(Sort.Direction.DESC, "title"));
@@ -124,13 +224,19 @@ class PostRepositoryTest {
     }
 
     @Test
-    void findByIdWithCreatorAndComments() {
+    void deleteByIdInBulk_afterItsMentionsVotesCommentsAndFile_deletesThePost() {
         UUID postId = UUID.fromString("d92e1999-fd40-4ed8-b72a-faa16b54da4f");
-        Optional<Post> post = postRepository.findByIdWithCreatorAndComments(postId);
+        UUID nestedReplyId = UUID.fromString("9c4c99fa-f989-44e7-ba4d-c7144547c838");
 
-        assertTrue(post.isPresent());
-        assertNotNull(post.get().getComments());
-        assertNotNull(post.get().getCreator());
+        assertEquals(6, mentionRepository.deleteAllOfPost(postId));
+        assertEquals(2, postVoteRepository.deleteAllOfPost(postId));
+        assertEquals(4, commentVoteRepository.deleteAllOfPost(postId));
+        assertEquals(7, commentRepository.deleteAllOfPost(postId));
+        assertEquals(1, fileRepository.deleteOfPost(postId));
+        assertEquals(1, postRepository.deleteByIdInBulk(postId));
+
+        assertFalse(postRepository.findById(postId).isPresent());
+        assertFalse(commentRepository.findById(nestedReplyId).isPresent());
     }
 
     @Test
@@ -0,0 +1,93 @@
+package notreddit.repositories;
+
+import notreddit.PostgreSQLContainerInitializer;
+import notreddit.data.entities.PostVote;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(initializers = {PostgreSQLContainerInitializer.class})
+class PostVoteRepositoryTest {
+
+    private static final UUID USER_ID = UUID.fromString("0cd5ebf9-1023-4164-81ad-e09e92f9cff2");
+
+    @Autowired
+    private PostVoteRepository postVoteRepository;
+
+    @Test
+    void findByPostIdAndUserId_withExistingVote_returnsCorrectVote() {
+        UUID postId = UUID.fromString("d92e1999-fd40-4ed8-b72a-faa16b54da4f");
+        Optional<PostVote> vote = postVoteRepository.findByPostIdAndUserId(postId, USER_ID);
+
+        assertTrue(vote.isPresent());
+        assertEquals(1, vote.get().getChoice());
+    }
+
+    @Test
+    void findByUserIdAndPostIdIn_returnsOnlyTheVotedPostsAmongTheIds() {
+        UUID votedPostId = UUID.fromString("d92e1999-fd40-4ed8-b72a-faa16b54da4f");
+        UUID otherPostId = UUID.fromString("c1713ccd-97e8-4b50-9d6e-aa0fa2022787");
+
+        List<PostVote> votes = postVoteRepository.findByUserIdAndPostIdIn(USER_ID,
+                Arrays.asList(votedPostId, otherPostId));
+
+        assertEquals(1, votes.size());
+        assertEquals(votedPostId, votes.get(0).getPostId());
+        assertEquals(1, votes.get(0).getChoice());
+    }
+
+    @Test
+    void findByPostIdAndUserId_withNonExistentVote_returnsEmptyOptional() {
+        UUID postId = UUID.fromString("c1713ccd-97e8-4b50-9d6e-aa0fa2022787");
+        Optional<PostVote> vote = postVoteRepository.findByPostIdAndUserId(postId, USER_ID);
+
+        assertFalse(vote.isPresent());
+    }
+
+    @Test
+    void findByUserId_shouldReturnCorrectData() {
+        List<PostVote> votes = postVoteRepository.findByUserId(USER_ID);
+
+        assertEquals(7, votes.size());
+        votes.forEach(v -> assertEquals(USER_ID, v.getUserId()));
+    }
+
+    @Test
+    void vote_withoutVote_insertsItAndReturnsNoPreviousChoice() {
+        UUID postId = UUID.fromString("c1713ccd-97e8-4b50-9d6e-aa0fa2022787");
+
+        assertEquals(0, postVoteRepository.vote(postId, USER_ID, (byte) -1));
+        assertEquals((byte) -1, postVoteRepository.findByPostIdAndUserId(postId, USER_ID)
+                .map(PostVote::getChoice).orElse((byte) 0).byteValue());
+    }
+
+    @Test
+    void vote_withOtherChoice_updatesItAndReturnsPreviousChoice() {
+        UUID postId = UUID.fromString("d92e1999-fd40-4ed8-b72a-faa16b54da4f");
+
+        assertEquals(1, postVoteRepository.vote(postId, USER_ID, (byte) -1));
+        assertEquals((byte) -1, postVoteRepository.findByPostIdAndUserId(postId, USER_ID)
+                .map(PostVote::getChoice).orElse((byte) 0).byteValue());
+    }
+
+    @Test
+    void vote_withSameChoice_deselectsIt() {
+        UUID postId = UUID.fromString("d92e1999-fd40-4ed8-b72a-faa16b54da4f");
+
+        assertEquals(1, postVoteRepository.vote(postId, USER_ID, (byte) 1));
+        assertFalse(postVoteRepository.findByPostIdAndUserId(postId, USER_ID).isPresent());
+    }
+}
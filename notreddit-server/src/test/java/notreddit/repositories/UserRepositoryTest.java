@@ -46,6 +46,14 @@ class UserRepositoryTest {
         assertEquals(byUsername.get(), byEmail.get());
     }
 
+    @Test
+    void findSubscriberIdsBySubredditTitle_ignoresTheCaseOfTheTitle() {
+        List<UUID> subscriberIds = userRepository.findSubscriberIdsBySubredditTitle("humansbeingbros");
+
+        assertEquals(3, subscriberIds.size());
+        assertTrue(subscriberIds.contains(UUID.fromString("0cd5ebf9-1023-4164-81ad-e09e92f9cff2")));
+    }
+
     @Test
     void existsByUsernameIgnoreCase_withExistingUser_returnsTrue() {
         Boolean exists = userRepository.existsByUsernameIgnoreCase("rOoT");
@@ -104,4 +112,19 @@ class UserRepositoryTest {
         assertEquals(user, withSubscriptions);
         assertEquals(5, withSubscriptions.getSubscriptions().size());
     }
-}
\ No newline at end of file
+
+    @Test
+    void findRevokedTokenVersions_returnsOnlyUsersWithRevokedTokens() {
+        UUID userId = UUID.fromString("0cd5ebf9-1023-4164-81ad-e09e92f9cff2");
+        assertTrue(userRepository.findRevokedTokenVersions().isEmpty());
+
+        User user = userRepository.findByIdWithRoles(userId).orElseThrow(NoSuchElementException::new);
+        user.revokeTokens();
+        userRepository.saveAndFlush(user);
+
+        List<Object[]> versions = userRepository.findRevokedTokenVersions();
+        assertEquals(1, versions.size());
+        assertEquals(userId, versions.get(0)[0]);
+        assertEquals(1, versions.get(0)[1]);
+    }
+}
@@ -0,0 +1,159 @@
+package notreddit.services;
+
+import notreddit.data.entities.Blob;
+import notreddit.repositories.BlobRepository;
+import notreddit.services.implementations.BlobStorageImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class BlobStorageImplTest {
+
+    private static final String URL = "http://localhost:8000/api/files/";
+    // sha-256 of "content"
+    private static final String CONTENT_HASH = "ed7002b439e9ac845f22357d822bac1444730fbdb6016d3ec9432297b9ec9f73";
+
+    @TempDir
+    Path directory;
+
+    private BlobRepository blobRepository;
+    private BlobStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        blobRepository = mock(BlobRepository.class);
+        storage = new BlobStorageImpl(blobRepository, directory, URL);
+    }
+
+    private Map<String, Object> upload(String content, String contentType) {
+        return storage.uploadFileAndGetParams(new ByteArrayInputStream(content.getBytes()), "file", contentType);
+    }
+
+    private long storedBlobs() throws IOException {
+        try (Stream<Path> files = Files.walk(directory.resolve("blobs"))) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+
+    private Blob blob(String hash) {
+        Blob blob = new Blob();
+        blob.setHash(hash);
+        return blob;
+    }
+
+    @Test
+    void uploadFileAndGetParams_keysContentBySha256() throws IOException {
+        Map<String, Object> params = upload("content", "image/jpeg");
+
+        assertEquals(URL + CONTENT_HASH, params.get("url"));
+        assertEquals("image/jpeg", params.get("contentType"));
+        assertArrayEquals("content".getBytes(), Files.readAllBytes(storage.path(blob(CONTENT_HASH))));
+        verify(blobRepository).reference(CONTENT_HASH, 7, "image/jpeg");
+    }
+
+    @Test
+    void uploadFileAndGetParams_withSameContentTwice_storesItOnceAndReferencesItTwice() throws IOException {
+        Map<String, Object> first = upload("content", "image/jpeg");
+        Map<String, Object> second = upload("content", "image/jpeg");
+        upload("other content", "image/jpeg");
+
+        assertEquals(first.get("url"), second.get("url"));
+        assertEquals(2, storedBlobs());
+        verify(blobRepository, times(2)).reference(CONTENT_HASH, 7, "image/jpeg");
+        try (Stream<Path> leftovers = Files.list(directory.resolve("incoming"))) {
+            assertEquals(0, leftovers.count());
+        }
+    }
+
+    @Test
+    void removeFile_releasesReferenceButKeepsContent() {
+        String url = upload("content", "image/jpeg").get("url").toString();
+        when(blobRepository.release(eq(CONTENT_HASH), any(LocalDateTime.class))).thenReturn(1);
+
+        assertTrue(storage.removeFile(url));
+        assertTrue(Files.exists(storage.path(blob(CONTENT_HASH))));
+    }
+
+    @Test
+    void removeFile_withForeignUrl_releasesNothing() {
+        assertFalse(storage.removeFile("https://i.redd.it/m2cry0bo74p31.jpg"));
+        assertFalse(storage.removeFile(URL + "../../etc/passwd"));
+        assertFalse(storage.owns("https://www.dropbox.com/s/file.jpg?dl=0&raw=1"));
+        verify(blobRepository, never()).release(anyString(), any(LocalDateTime.class));
+    }
+
+    @Test
+    void collectGarbage_deletesOnlyBlobsStillUnreferenced() throws IOException {
+        upload("content", "image/jpeg");
+        String otherHash = upload("other content", "image/jpeg").get("url").toString().substring(URL.length());
+        when(blobRepository.findUnreferencedHashes(any(LocalDateTime.class)))
+                .thenReturn(Arrays.asList(CONTENT_HASH, otherHash));
+        when(blobRepository.deleteIfUnreferenced(CONTENT_HASH)).thenReturn(1);
+        // referenced again after it was picked
+        when(blobRepository.deleteIfUnreferenced(otherHash)).thenReturn(0);
+
+        Files.write(storage.derivedPath(blob(CONTENT_HASH), "thumbnail-320"), new byte[1]);
+        Files.write(storage.derivedPath(blob(otherHash), "thumbnail-320"), new byte[1]);
+
+        storage.collectGarbage();
+
+        assertFalse(Files.exists(storage.path(blob(CONTENT_HASH))));
+        assertFalse(Files.exists(storage.derivedPath(blob(CONTENT_HASH), "thumbnail-320")));
+        assertTrue(Files.exists(storage.path(blob(otherHash))));
+        assertTrue(Files.exists(storage.derivedPath(blob(otherHash), "thumbnail-320")));
+    }
+
+    @Test
+    void derivedPath_isNextToTheBlobAndRejectsOtherNames() {
+        Path blobPath = storage.path(blob(CONTENT_HASH));
+
+        assertEquals(blobPath.resolveSibling(CONTENT_HASH + ".thumbnail-320"),
+                storage.derivedPath(blob(CONTENT_HASH), "thumbnail-320"));
+        assertThrows(IllegalArgumentException.class, () -> storage.derivedPath(blob(CONTENT_HASH), "../x"));
+    }
+
+    @Test
+    void hashOf_returnsHashOfOwnUrlsOnly() {
+        assertEquals(Optional.of(CONTENT_HASH), storage.hashOf(URL + CONTENT_HASH));
+        assertEquals(Optional.empty(), storage.hashOf("https://i.redd.it/m2cry0bo74p31.jpg"));
+        assertEquals(Optional.empty(), storage.hashOf(URL + "../blobs"));
+    }
+
+    @Test
+    void finishUploadSession_deduplicatesWithUploadedContent() throws IOException {
+        upload("content", "image/jpeg");
+        String sessionId = storage.startUploadSession();
+        storage.appendToUploadSession(sessionId, 0, new ByteArrayInputStream("con".getBytes()));
+        storage.appendToUploadSession(sessionId, 3, new ByteArrayInputStream("tent".getBytes()));
+
+        Map<String, Object> params = storage.finishUploadSession(sessionId, 7, "file", "image/png");
+
+        assertEquals(URL + CONTENT_HASH, params.get("url"));
+        assertEquals(1, storedBlobs());
+        verify(blobRepository).reference(CONTENT_HASH, 7, "image/png");
+    }
+
+    @Test
+    void find_withInvalidHash_doesNotQuery() {
+        assertEquals(Optional.empty(), storage.find("../blobs"));
+        verify(blobRepository, never()).findById(anyString());
+        verify(blobRepository, never()).reference(anyString(), anyLong(), anyString());
+    }
+}
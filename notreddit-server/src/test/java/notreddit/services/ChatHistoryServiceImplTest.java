@@ -0,0 +1,104 @@
+package notreddit.services;
+
+import notreddit.services.implementations.ChatHistoryServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChatHistoryServiceImplTest {
+
+    @TempDir
+    Path directory;
+
+    private static List<String> strings(List<byte[]> messages) {
+        return messages.stream().map(String::new).collect(Collectors.toList());
+    }
+
+    private static void record(ChatHistoryService service, String room, String... messages) {
+        for (String message : messages) {
+            service.record(room, message.getBytes());
+        }
+    }
+
+    @Test
+    void recent_keepsEveryRoomApart() {
+        ChatHistoryService service = new ChatHistoryServiceImpl(10, 100, null, 0, 0);
+        record(service, "public", "a", "b");
+        record(service, "java", "c");
+
+        assertEquals(Arrays.asList("a", "b"), strings(service.recent("public", 50)));
+        assertEquals(Collections.singletonList("c"), strings(service.recent("java", 50)));
+        assertTrue(service.recent("empty", 50).isEmpty());
+    }
+
+    @Test
+    void recent_withoutPersistence_returnsOnlyWhatTheRingHolds() {
+        ChatHistoryService service = new ChatHistoryServiceImpl(2, 100, null, 0, 0);
+        record(service, "public", "a", "b", "c");
+
+        assertEquals(Arrays.asList("b", "c"), strings(service.recent("public", 50)));
+    }
+
+    @Test
+    void recent_withPersistence_readsLongerHistoryFromDisk() {
+        ChatHistoryService service = new ChatHistoryServiceImpl(2, 100, directory, 1024, 4);
+        record(service, "public", "a", "b", "c");
+
+        assertEquals(Arrays.asList("b", "c"), strings(service.recent("public", 2)));
+        assertEquals(Arrays.asList("a", "b", "c"), strings(service.recent("public", 50)));
+    }
+
+    @Test
+    void recent_withPersistence_survivesARestart() {
+        ChatHistoryServiceImpl before = new ChatHistoryServiceImpl(10, 100, directory, 1024, 4);
+        record(before, "public", "a", "b");
+        before.close();
+
+        ChatHistoryService after = new ChatHistoryServiceImpl(10, 100, directory, 1024, 4);
+        record(after, "public", "c");
+
+        assertEquals(Arrays.asList("a", "b", "c"), strings(after.recent("public", 3)));
+    }
+
+    @Test
+    void recent_withPersistenceOfRoomNeverSentTo_createsNothing() throws IOException {
+        ChatHistoryService service = new ChatHistoryServiceImpl(10, 100, directory, 1024, 4);
+
+        assertTrue(service.recent("nobody", 50).isEmpty());
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void recent_withPersistence_afterManyRestartsKeepsTheOldestMessages() {
+        for (int i = 0; i < 6; i++) {
+            ChatHistoryServiceImpl service = new ChatHistoryServiceImpl(10, 100, directory, 1024, 2);
+            record(service, "public", "m" + i);
+            service.recent("public", 50);
+            service.close();
+        }
+
+        ChatHistoryService after = new ChatHistoryServiceImpl(2, 100, directory, 1024, 2);
+        assertEquals(Arrays.asList("m0", "m1", "m2", "m3", "m4", "m5"), strings(after.recent("public", 50)));
+    }
+
+    @Test
+    void record_withInvalidRoom_throws() {
+        ChatHistoryService service = new ChatHistoryServiceImpl(10, 100, directory, 1024, 4);
+
+        assertThrows(IllegalArgumentException.class, () -> service.record("../etc", new byte[0]));
+        assertThrows(IllegalArgumentException.class, () -> service.recent("Public", 1));
+    }
+}
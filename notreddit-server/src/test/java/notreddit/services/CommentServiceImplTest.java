@@ -1,6 +1,7 @@
 package notreddit.services;
 
 import notreddit.SingletonModelMapper;
+import notreddit.cache.TaggedCacheManager;
 import notreddit.data.entities.Comment;
 import notreddit.data.entities.Post;
 import notreddit.data.entities.Role;
@@ -10,10 +11,12 @@ import notreddit.data.models.requests.CommentCreateRequest;
 import notreddit.data.models.requests.CommentEditRequest;
 import notreddit.data.models.responses.comment.CommentListWithChildren;
 import notreddit.data.models.responses.comment.CommentsResponseModel;
+import notreddit.data.projections.CommentTreeRow;
+import notreddit.data.projections.UnreadMentionCount;
 import notreddit.repositories.CommentRepository;
+import notreddit.repositories.CommentVoteRepository;
 import notreddit.repositories.MentionRepository;
 import notreddit.repositories.PostRepository;
-import notreddit.repositories.VoteRepository;
 import notreddit.services.implementations.CommentServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -28,7 +31,7 @@ import java.time.LocalDateTime;
 import java.util.*;
 
 import static org.junit.Assert.*;
-import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 class CommentServiceImplTest {
@@ -37,7 +40,10 @@ class CommentServiceImplTest {
     private CommentRepository commentRepository;
     private PostRepository postRepository;
     private MentionRepository mentionRepository;
-    private VoteRepository voteRepository;
+    private CommentVoteRepository commentVoteRepository;
+    private MentionCountService mentionCountService;
+    private PostUpdateService postUpdateService;
+    private TaggedCacheManager cacheManager;
 
     @BeforeEach
     void setUp() {
@@ -45,12 +51,18 @@ class CommentServiceImplTest {
         commentRepository = mock(CommentRepository.class);
         postRepository = mock(PostRepository.class);
         mentionRepository = mock(MentionRepository.class);
-        voteRepository = mock(VoteRepository.class);
+        commentVoteRepository = mock(CommentVoteRepository.class);
+        mentionCountService = mock(MentionCountService.class);
+        postUpdateService = mock(PostUpdateService.class);
+        cacheManager = mock(TaggedCacheManager.class);
         commentService = new CommentServiceImpl(
                 postRepository,
                 commentRepository,
                 mentionRepository,
-                voteRepository,
+                commentVoteRepository,
+                mentionCountService,
+                postUpdateService,
+                cacheManager,
                 SingletonModelMapper.mapper());
     }
 
@@ -72,13 +84,23 @@ class CommentServiceImplTest {
             comment.setUpvotes(i);
             comment.setDownvotes(i);
             comment.setCreatedOn(LocalDateTime.now());
-            comment.setChildren(comments);
+            comment.getChildren().add(createChild(user, comment));
             comments.add(comment);
         }
 
         return new PageImpl<>(comments, pageable, comments.size());
     }
 
+    private Comment createChild(User creator, Comment parent) {
+        Comment child = new Comment();
+        child.setId(UUID.randomUUID());
+        child.setCreator(creator);
+        child.setParent(parent);
+        child.setContent("reply to " + parent.getContent());
+        child.setCreatedOn(LocalDateTime.now());
+        return child;
+    }
+
     @Test
     void create_withParentComment_shouldAddCommentToParentAndSave() {
         User user = mock(User.class);
@@ -86,6 +108,10 @@ class CommentServiceImplTest {
         Post post = mock(Post.class);
         when(post.getCreator()).thenReturn(user);
         Comment comment = mock(Comment.class);
+        User parentCreator = mock(User.class);
+        UUID parentCreatorId = UUID.randomUUID();
+        when(parentCreator.getId()).thenReturn(parentCreatorId);
+        when(comment.getCreator()).thenReturn(parentCreator);
 
         CommentCreateRequest model = mock(CommentCreateRequest.class);
         UUID parentId = UUID.randomUUID();
@@ -101,12 +127,17 @@ class CommentServiceImplTest {
         verify(comment).addChild(any(Comment.class));
         verify(commentRepository).findById(parentId);
         verify(commentRepository).saveAndFlush(comment);
+        verify(postRepository).updateCommentCount(post.getId(), 1);
+        verify(postUpdateService).recordComments(post.getId(), 1);
+        verify(mentionCountService).record(parentCreatorId, 1);
     }
 
     @Test
     void create_withNoParentComment_shouldSaveComment() {
         User user = mock(User.class);
         when(user.getUsername()).thenReturn("username");
+        UUID userId = UUID.randomUUID();
+        when(user.getId()).thenReturn(userId);
         Post post = mock(Post.class);
         when(post.getCreator()).thenReturn(user);
 
@@ -122,6 +153,9 @@ class CommentServiceImplTest {
         assertEquals(HttpStatus.CREATED, result.getStatusCode());
         verify(commentRepository).saveAndFlush(any(Comment.class));
         verify(commentRepository, never()).findById(any(UUID.class));
+        verify(postRepository).updateCommentCount(post.getId(), 1);
+        verify(postUpdateService).recordComments(post.getId(), 1);
+        verify(mentionCountService).record(userId, 1);
     }
 
     @Test
@@ -135,11 +169,23 @@ class CommentServiceImplTest {
         verify(commentRepository, never()).findById(any(UUID.class));
     }
 
+    private List<CommentTreeRow> createThread(int roots) {
+        List<CommentTreeRow> rows = new ArrayList<>();
+
+        for (int i = 0; i < roots; i++) {
+            UUID rootId = UUID.randomUUID();
+            rows.add(new CommentTreeRow(rootId, null, "username" + i, true, "content" + i, i, i, LocalDateTime.now()));
+            rows.add(new CommentTreeRow(UUID.randomUUID(), rootId, "reply" + i, true, "reply" + i, 0, 0, LocalDateTime.now()));
+        }
+
+        return rows;
+    }
+
     @Test
     void findAllFromPost_shouldWorkCorrectly() {
         Pageable pageable = PageRequest.of(0, 3, Sort.unsorted());
-        when(commentRepository.findByPostIdWithChildren(any(UUID.class), any(Sort.class)))
-                .thenReturn(createComments(3, pageable).getContent());
+        when(commentRepository.findTreeByPostId(any(UUID.class), any(Sort.class)))
+                .thenReturn(createThread(3));
 
         List<CommentListWithChildren> result = commentService.findAllFromPost(UUID.randomUUID(), pageable);
 
@@ -150,20 +196,49 @@ class CommentServiceImplTest {
             assertEquals("content" + i, result.get(i).getContent());
             assertEquals(i, result.get(i).getUpvotes());
             assertEquals(i, result.get(i).getDownvotes());
-            assertFalse(result.get(i).getChildren().isEmpty());
+            assertEquals(1, result.get(i).getChildren().size());
+            assertEquals("reply" + i, result.get(i).getChildren().get(0).getContent());
         }
     }
 
     @Test
     void findAllFromPost_withNoComments_returnsEmptyList() {
         Pageable pageable = PageRequest.of(0, 3, Sort.unsorted());
-        when(commentRepository.findByPostIdWithChildren(any(UUID.class), any(Sort.class)))
+        when(commentRepository.findTreeByPostId(any(UUID.class), any(Sort.class)))
                 .thenReturn(new ArrayList<>());
 
         List<CommentListWithChildren> result = commentService.findAllFromPost(UUID.randomUUID(), pageable);
         assertTrue(result.isEmpty());
     }
 
+    @Test
+    void findReplies_shouldReturnRepliesAsRoots() {
+        UUID commentId = UUID.randomUUID();
+        UUID replyId = UUID.randomUUID();
+        List<CommentTreeRow> rows = Arrays.asList(
+                new CommentTreeRow(replyId, commentId, "username", true, "reply", 0, 0, LocalDateTime.now()),
+                new CommentTreeRow(UUID.randomUUID(), replyId, "username", true, "nested", 0, 0, LocalDateTime.now()));
+        when(commentRepository.findReplyIds(eq(commentId), anyInt()))
+                .thenReturn(Arrays.asList(rows.get(0).getId().toString(), rows.get(1).getId().toString()));
+        when(commentRepository.findTreeByIds(anyCollection(), any(Sort.class))).thenReturn(rows);
+
+        List<CommentListWithChildren> result = commentService.findReplies(commentId, PageRequest.of(0, 3));
+
+        assertEquals(1, result.size());
+        assertEquals("reply", result.get(0).getContent());
+        assertEquals("nested", result.get(0).getChildren().get(0).getContent());
+    }
+
+    @Test
+    void findReplies_withNoReplies_doesNotLoadRows() {
+        when(commentRepository.findReplyIds(any(UUID.class), anyInt())).thenReturn(new ArrayList<>());
+
+        List<CommentListWithChildren> result = commentService.findReplies(UUID.randomUUID(), PageRequest.of(0, 3));
+
+        assertTrue(result.isEmpty());
+        verify(commentRepository, never()).findTreeByIds(anyCollection(), any(Sort.class));
+    }
+
     @Test
     void findAllFromUsername_shouldWorkCorrectly() {
         Pageable pageable = PageRequest.of(0, 3);
@@ -203,14 +278,23 @@ class CommentServiceImplTest {
         Comment comment = mock(Comment.class);
         when(comment.getCreator()).thenReturn(creator);
         when(comment.getChildren()).thenReturn(new ArrayList<>());
+        Post post = new Post();
+        post.setId(UUID.randomUUID());
+        when(comment.getPost()).thenReturn(post);
 
         when(commentRepository.findById(any(UUID.class))).thenReturn(Optional.of(comment));
+        UUID receiverId = UUID.randomUUID();
+        when(mentionRepository.countUnreadOfComment(any(UUID.class)))
+                .thenReturn(Collections.singletonList(new UnreadMentionCount(receiverId, 1)));
 
         commentService.delete(UUID.randomUUID(), user);
 
         verify(mentionRepository).deleteAllByCommentId(any(UUID.class));
-        verify(voteRepository).deleteAllByCommentId(any(UUID.class));
+        verify(mentionCountService).record(receiverId, -1);
+        verify(commentVoteRepository).deleteAllByCommentId(any(UUID.class));
         verify(commentRepository).delete(comment);
+        verify(postRepository).updateCommentCount(post.getId(), -1);
+        verify(postUpdateService).recordComments(post.getId(), -1);
 
         verify(comment, never()).setContent(any(String.class));
         verify(commentRepository, never()).saveAndFlush(any(Comment.class));
@@ -239,8 +323,10 @@ class CommentServiceImplTest {
         verify(mentionRepository).deleteAllByCommentId(any(UUID.class));
         verify(comment).setContent("[deleted]");
         verify(commentRepository).saveAndFlush(comment);
+        verify(postRepository, never()).updateCommentCount(any(UUID.class), anyInt());
+        verify(postUpdateService, never()).recordComments(any(UUID.class), anyInt());
 
-        verify(voteRepository, never()).deleteAllByCommentId(any(UUID.class));
+        verify(commentVoteRepository, never()).deleteAllByCommentId(any(UUID.class));
         verify(commentRepository, never()).delete(any(Comment.class));
     }
 
@@ -252,14 +338,19 @@ class CommentServiceImplTest {
         Comment comment = mock(Comment.class);
         when(comment.getCreator()).thenReturn(user);
         when(comment.getChildren()).thenReturn(new ArrayList<>());
+        Post post = new Post();
+        post.setId(UUID.randomUUID());
+        when(comment.getPost()).thenReturn(post);
 
         when(commentRepository.findById(any(UUID.class))).thenReturn(Optional.of(comment));
 
         commentService.delete(UUID.randomUUID(), user);
 
         verify(mentionRepository).deleteAllByCommentId(any(UUID.class));
-        verify(voteRepository).deleteAllByCommentId(any(UUID.class));
+        verify(commentVoteRepository).deleteAllByCommentId(any(UUID.class));
         verify(commentRepository).delete(comment);
+        verify(postRepository).updateCommentCount(post.getId(), -1);
+        verify(postUpdateService).recordComments(post.getId(), -1);
 
         verify(comment, never()).setContent(any(String.class));
         verify(commentRepository, never()).saveAndFlush(any(Comment.class));
@@ -281,8 +372,10 @@ class CommentServiceImplTest {
         verify(mentionRepository).deleteAllByCommentId(any(UUID.class));
         verify(comment).setContent("[deleted]");
         verify(commentRepository).saveAndFlush(comment);
+        verify(postRepository, never()).updateCommentCount(any(UUID.class), anyInt());
+        verify(postUpdateService, never()).recordComments(any(UUID.class), anyInt());
 
-        verify(voteRepository, never()).deleteAllByCommentId(any(UUID.class));
+        verify(commentVoteRepository, never()).deleteAllByCommentId(any(UUID.class));
         verify(commentRepository, never()).delete(any(Comment.class));
     }
 
@@ -306,7 +399,7 @@ class CommentServiceImplTest {
         verify(comment, never()).setContent("[deleted]");
         verify(commentRepository, never()).saveAndFlush(comment);
 
-        verify(voteRepository, never()).deleteAllByCommentId(any(UUID.class));
+        verify(commentVoteRepository, never()).deleteAllByCommentId(any(UUID.class));
         verify(commentRepository, never()).delete(any(Comment.class));
     }
 
@@ -318,7 +411,7 @@ class CommentServiceImplTest {
 
         verify(mentionRepository, never()).deleteAllByCommentId(any(UUID.class));
         verify(commentRepository, never()).saveAndFlush(any(Comment.class));
-        verify(voteRepository, never()).deleteAllByCommentId(any(UUID.class));
+        verify(commentVoteRepository, never()).deleteAllByCommentId(any(UUID.class));
         verify(commentRepository, never()).delete(any(Comment.class));
     }
 
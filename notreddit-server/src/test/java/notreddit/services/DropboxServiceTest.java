@@ -18,11 +18,14 @@ import org.springframework.web.multipart.MultipartFile;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.Date;
 import java.util.Map;
 
 import static org.junit.Assert.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 class DropboxServiceTest {
@@ -72,6 +75,30 @@ class DropboxServiceTest {
         assertEquals("null&raw=1", response.get("url"));
     }
 
+    @Test
+    void uploadFileAndGetParams_withUnreadableFile_throws() throws IOException {
+        MultipartFile file = mock(MultipartFile.class);
+        when(file.getInputStream()).thenThrow(new IOException("gone"));
+
+        assertThrows(UncheckedIOException.class, () -> dropboxService.uploadFileAndGetParams(file));
+        verify(client, never()).sharing();
+    }
+
+    @Test
+    void uploadFileAndGetParams_withFailedUpload_throwsWithoutCreatingALink() throws IOException, DbxException {
+        DbxUserSharingRequests sharing = mock(DbxUserSharingRequests.class);
+        DbxUserFilesRequests files = mock(DbxUserFilesRequests.class, RETURNS_DEEP_STUBS);
+        when(client.sharing()).thenReturn(sharing);
+        when(client.files()).thenReturn(files);
+        when(files.uploadBuilder(any(String.class)).uploadAndFinish(any(InputStream.class)))
+                .thenThrow(new IOException("reset"));
+
+        MultipartFile file = new MockMultipartFile("name", "originalName", "image/jpeg", "test".getBytes());
+
+        assertThrows(UncheckedIOException.class, () -> dropboxService.uploadFileAndGetParams(file));
+        verify(sharing, never()).createSharedLinkWithSettings(any(String.class));
+    }
+
     @Test
     void updateFile() throws IOException, DbxException {
         DbxUserSharingRequests sharing = mock(DbxUserSharingRequests.class, RETURNS_DEEP_STUBS);
@@ -175,4 +202,25 @@ class DropboxServiceTest {
             e.printStackTrace();
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void finishUploadSession_commitsSessionAndReturnsSharedLink() throws IOException, DbxException {
+        DbxUserSharingRequests sharing = mock(DbxUserSharingRequests.class, RETURNS_DEEP_STUBS);
+        DbxUserFilesRequests files = mock(DbxUserFilesRequests.class, RETURNS_DEEP_STUBS);
+        when(client.sharing()).thenReturn(sharing);
+        when(client.files()).thenReturn(files);
+
+        SharedLinkMetadata sharedLinkMetadata = SharedLinkMetadata.
+                newBuilder("url", "name", LinkPermissions.newBuilder(true).build())
+                .build();
+        when(sharing.createSharedLinkWithSettings(any(String.class))).thenReturn(sharedLinkMetadata);
+
+        Map<String, Object> response = dropboxService.finishUploadSession("session", 10, "video.mp4", "video/mp4");
+
+        verify(files).uploadSessionFinish(
+                argThat(cursor -> cursor.getSessionId().equals("session") && cursor.getOffset() == 10),
+                argThat(commit -> commit.getPath().endsWith("video.mp4")));
+        assertEquals("url&raw=1", response.get("url"));
+        assertEquals("video/mp4", response.get("contentType"));
+    }
+}
@@ -0,0 +1,151 @@
+package notreddit.services;
+
+import notreddit.data.entities.Blob;
+import notreddit.repositories.BlobRepository;
+import notreddit.services.implementations.BlobStorageImpl;
+import notreddit.services.implementations.ImageThumbnailServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class ImageThumbnailServiceImplTest {
+
+    private static final String URL = "http://localhost:8000/api/files/";
+
+    @TempDir
+    Path directory;
+
+    private BlobRepository blobRepository;
+    private BlobStorage blobStorage;
+    private List<Runnable> queued;
+    private ImageThumbnailService imageThumbnailService;
+
+    @BeforeEach
+    void setUp() {
+        blobRepository = mock(BlobRepository.class);
+        when(blobRepository.findById(anyString())).thenReturn(Optional.empty());
+        blobStorage = new BlobStorageImpl(blobRepository, directory, URL);
+        queued = new ArrayList<>();
+        imageThumbnailService = new ImageThumbnailServiceImpl(blobStorage, queued::add, 1024 * 1024);
+    }
+
+    private Blob upload(byte[] content, String contentType) {
+        String url = blobStorage.uploadFileAndGetParams(new ByteArrayInputStream(content), "file", contentType)
+                .get("url").toString();
+        Blob blob = new Blob();
+        blob.setHash(url.substring(URL.length()));
+        blob.setSize(content.length);
+        blob.setContentType(contentType);
+        when(blobRepository.findById(blob.getHash())).thenReturn(Optional.of(blob));
+        return blob;
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", out);
+        return out.toByteArray();
+    }
+
+    @Test
+    void thumbnailUrl_withImage_rendersAllWidthsNextToTheBlob() throws IOException {
+        Blob blob = upload(png(1000, 500), "image/png");
+
+        Optional<String> url = imageThumbnailService.thumbnailUrl(URL + blob.getHash());
+
+        assertEquals(Optional.of(URL + blob.getHash() + "/thumbnails/320"), url);
+        assertEquals(1, queued.size());
+        queued.forEach(Runnable::run);
+        for (int width : ImageThumbnailServiceImpl.WIDTHS) {
+            Path thumbnail = blobStorage.derivedPath(blob, "thumbnail-" + width);
+            assertEquals(width, ImageIO.read(thumbnail.toFile()).getWidth());
+        }
+    }
+
+    @Test
+    void thumbnailUrl_withRenderedImage_doesNotRenderAgain() throws IOException {
+        Blob blob = upload(png(1000, 500), "image/png");
+        imageThumbnailService.thumbnailUrl(URL + blob.getHash());
+        queued.forEach(Runnable::run);
+        queued.clear();
+
+        assertTrue(imageThumbnailService.thumbnailUrl(URL + blob.getHash()).isPresent());
+        assertTrue(queued.isEmpty());
+    }
+
+    @Test
+    void thumbnailUrl_withForeignUrl_returnsEmpty() {
+        assertEquals(Optional.empty(), imageThumbnailService.thumbnailUrl("https://i.redd.it/m2cry0bo74p31.jpg"));
+        assertTrue(queued.isEmpty());
+    }
+
+    @Test
+    void thumbnail_withRenderedImage_isServedFromMemory() throws IOException {
+        Blob blob = upload(png(1000, 500), "image/png");
+        imageThumbnailService.thumbnailUrl(URL + blob.getHash());
+        queued.forEach(Runnable::run);
+        Files.delete(blobStorage.derivedPath(blob, "thumbnail-160"));
+
+        Optional<byte[]> thumbnail = imageThumbnailService.thumbnail(blob.getHash(), 160);
+
+        assertTrue(thumbnail.isPresent());
+        assertEquals(160, ImageIO.read(new ByteArrayInputStream(thumbnail.get())).getWidth());
+    }
+
+    @Test
+    void thumbnail_withMissingThumbnail_rendersItOnRequest() throws IOException {
+        Blob blob = upload(png(1000, 500), "image/png");
+        imageThumbnailService = new ImageThumbnailServiceImpl(blobStorage, Runnable::run, 1024 * 1024);
+
+        Optional<byte[]> thumbnail = imageThumbnailService.thumbnail(blob.getHash(), 640);
+
+        assertTrue(thumbnail.isPresent());
+        assertTrue(Files.exists(blobStorage.derivedPath(blob, "thumbnail-640")));
+    }
+
+    @Test
+    void thumbnail_withUndecodableImage_givesUpUntilItExpires() {
+        Blob blob = upload("not an image".getBytes(), "image/png");
+        imageThumbnailService = new ImageThumbnailServiceImpl(blobStorage, Runnable::run, 1024 * 1024);
+
+        assertEquals(Optional.empty(), imageThumbnailService.thumbnail(blob.getHash(), 320));
+        assertEquals(Optional.empty(), imageThumbnailService.thumbnail(blob.getHash(), 160));
+        verify(blobRepository, times(2)).findById(blob.getHash());
+        assertFalse(Files.exists(blobStorage.derivedPath(blob, "thumbnail-320")));
+    }
+
+    @Test
+    void thumbnail_withOtherWidthOrFile_returnsEmpty() throws IOException {
+        Blob image = upload(png(100, 100), "image/png");
+        Blob video = upload("video".getBytes(), "video/mp4");
+
+        assertEquals(Optional.empty(), imageThumbnailService.thumbnail(image.getHash(), 1000));
+        assertEquals(Optional.empty(), imageThumbnailService.thumbnail(video.getHash(), 320));
+        assertTrue(queued.isEmpty());
+    }
+
+    @Test
+    void thumbnail_withFullPool_returnsEmpty() throws IOException {
+        Blob blob = upload(png(100, 100), "image/png");
+        imageThumbnailService = new ImageThumbnailServiceImpl(blobStorage, command -> {
+            throw new RejectedExecutionException();
+        }, 1024 * 1024);
+
+        assertEquals(Optional.empty(), imageThumbnailService.thumbnail(blob.getHash(), 320));
+    }
+}
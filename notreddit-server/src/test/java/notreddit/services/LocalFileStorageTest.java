@@ -0,0 +1,149 @@
+package notreddit.services;
+
+import notreddit.services.implementations.LocalFileStorage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalFileStorageTest {
+
+    @TempDir
+    Path directory;
+
+    private CloudStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        storage = new LocalFileStorage(directory);
+    }
+
+    @Test
+    void uploadFileAndGetParams_storesFileInDirectory() throws Exception {
+        Map<String, Object> params = storage.uploadFileAndGetParams(
+                new ByteArrayInputStream("content".getBytes()), "cat.jpg", "image/jpeg");
+
+        Path stored = Paths.get(URI.create(params.get("url").toString()));
+        assertEquals(directory.toAbsolutePath().normalize(), stored.getParent());
+        assertTrue(stored.getFileName().toString().endsWith("cat.jpg"));
+        assertArrayEquals("content".getBytes(), Files.readAllBytes(stored));
+        assertEquals("image/jpeg", params.get("contentType"));
+    }
+
+    @Test
+    void uploadFileAndGetParams_withPathInFilename_staysInDirectory() {
+        Map<String, Object> params = storage.uploadFileAndGetParams(
+                new ByteArrayInputStream("content".getBytes()), "../../cat.jpg", "image/jpeg");
+
+        Path stored = Paths.get(URI.create(params.get("url").toString()));
+        assertEquals(directory.toAbsolutePath().normalize(), stored.getParent());
+    }
+
+    @Test
+    void updateFile_replacesOldFile() {
+        String oldUrl = storage.uploadFileAndGetParams(
+                new MockMultipartFile("file", "old.txt", "text/plain", "old".getBytes())).get("url").toString();
+
+        String newUrl = storage.updateFile(
+                new MockMultipartFile("file", "new.txt", "text/plain", "new".getBytes()), oldUrl).get("url").toString();
+
+        assertFalse(Files.exists(Paths.get(URI.create(oldUrl))));
+        assertTrue(Files.exists(Paths.get(URI.create(newUrl))));
+    }
+
+    @Test
+    void removeFile_outsideDirectory_returnsFalse() throws Exception {
+        Path outside = Files.createTempFile("outside", ".txt");
+        try {
+            assertFalse(storage.removeFile(outside.toUri().toString()));
+            assertTrue(Files.exists(outside));
+            assertFalse(storage.removeFile("not a url"));
+        } finally {
+            Files.deleteIfExists(outside);
+        }
+    }
+
+    @Test
+    void owns_onlyFilesInDirectory() {
+        String url = storage.uploadFileAndGetParams(
+                new ByteArrayInputStream("content".getBytes()), "cat.jpg", "image/jpeg").get("url").toString();
+
+        assertTrue(storage.owns(url));
+        assertFalse(storage.owns("https://i.redd.it/m2cry0bo74p31.jpg"));
+        assertFalse(storage.owns("not a url"));
+    }
+
+    @Test
+    void uploadSession_withChunks_storesThemAsOneFile() throws Exception {
+        String sessionId = storage.startUploadSession();
+        storage.appendToUploadSession(sessionId, 0, new ByteArrayInputStream("first ".getBytes()));
+        storage.appendToUploadSession(sessionId, 6, new ByteArrayInputStream("second".getBytes()));
+
+        Map<String, Object> params = storage.finishUploadSession(sessionId, 12, "video.mp4", "video/mp4");
+
+        Path stored = Paths.get(URI.create(params.get("url").toString()));
+        assertEquals(directory.toAbsolutePath().normalize(), stored.getParent());
+        assertArrayEquals("first second".getBytes(), Files.readAllBytes(stored));
+        assertEquals("video/mp4", params.get("contentType"));
+    }
+
+    @Test
+    void appendToUploadSession_atWrongOffset_throwsAndKeepsContent() throws Exception {
+        String sessionId = storage.startUploadSession();
+        storage.appendToUploadSession(sessionId, 0, new ByteArrayInputStream("first".getBytes()));
+
+        assertThrows(IOException.class, () ->
+                storage.appendToUploadSession(sessionId, 2, new ByteArrayInputStream("second".getBytes())));
+        assertThrows(IOException.class, () -> storage.finishUploadSession(sessionId, 11, "a.txt", "text/plain"));
+
+        storage.appendToUploadSession(sessionId, 5, new ByteArrayInputStream("second".getBytes()));
+        Map<String, Object> params = storage.finishUploadSession(sessionId, 11, "a.txt", "text/plain");
+        assertArrayEquals("firstsecond".getBytes(), Files.readAllBytes(Paths.get(URI.create(params.get("url").toString()))));
+    }
+
+    @Test
+    void appendToUploadSession_whenStreamBreaks_dropsThePartialChunk() throws Exception {
+        String sessionId = storage.startUploadSession();
+        InputStream broken = new SequenceInputStream(new ByteArrayInputStream("partial".getBytes()), new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("connection reset");
+            }
+        });
+
+        assertThrows(IOException.class, () -> storage.appendToUploadSession(sessionId, 0, broken));
+
+        storage.appendToUploadSession(sessionId, 0, new ByteArrayInputStream("whole".getBytes()));
+        Map<String, Object> params = storage.finishUploadSession(sessionId, 5, "a.txt", "text/plain");
+        assertArrayEquals("whole".getBytes(), Files.readAllBytes(Paths.get(URI.create(params.get("url").toString()))));
+    }
+
+    @Test
+    void uploadSession_withForeignId_isRejected() {
+        assertThrows(IllegalArgumentException.class, () ->
+                storage.appendToUploadSession("../../escape", 0, new ByteArrayInputStream("x".getBytes())));
+    }
+
+    @Test
+    void abortUploadSession_removesSessionFile() throws Exception {
+        String sessionId = storage.startUploadSession();
+        storage.appendToUploadSession(sessionId, 0, new ByteArrayInputStream("content".getBytes()));
+
+        storage.abortUploadSession(sessionId);
+
+        assertThrows(IOException.class, () ->
+                storage.appendToUploadSession(sessionId, 7, new ByteArrayInputStream("more".getBytes())));
+    }
+}
@@ -0,0 +1,146 @@
+package notreddit.services;
+
+import notreddit.data.projections.UnreadMentionCount;
+import notreddit.repositories.MentionRepository;
+import notreddit.services.implementations.MentionCountServiceImpl;
+import notreddit.web.broker.InMemoryClusterBus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class MentionCountServiceImplTest {
+
+    private MentionRepository mentionRepository;
+    private SimpMessageSendingOperations messagingTemplate;
+    private MentionCountService mentionCountService;
+
+    @BeforeEach
+    void setUp() {
+        mentionRepository = mock(MentionRepository.class);
+        messagingTemplate = mock(SimpMessageSendingOperations.class);
+        mentionCountService = new MentionCountServiceImpl(mentionRepository, messagingTemplate, 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static String topic(UUID userId) {
+        return "/topic/user/" + userId + "/mentions";
+    }
+
+    @Test
+    void getUnreadCount_calledRepeatedly_countsOnce() {
+        UUID userId = UUID.randomUUID();
+        when(mentionRepository.countUnreadByReceiverId(userId)).thenReturn(4);
+
+        mentionCountService.getUnreadCount(userId);
+        int count = mentionCountService.getUnreadCount(userId);
+
+        assertEquals(4, count);
+        verify(mentionRepository, times(1)).countUnreadByReceiverId(userId);
+    }
+
+    @Test
+    void record_withLoadedCount_movesItAndSendsIt() {
+        UUID userId = UUID.randomUUID();
+        when(mentionRepository.countUnreadByReceiverId(userId)).thenReturn(1);
+        mentionCountService.getUnreadCount(userId);
+
+        mentionCountService.record(userId, 2);
+        mentionCountService.record(userId, -5);
+
+        assertEquals(0, mentionCountService.getUnreadCount(userId));
+        verify(messagingTemplate).convertAndSend(topic(userId), (Object) 3);
+        verify(messagingTemplate).convertAndSend(topic(userId), (Object) 0);
+        verify(mentionRepository, times(1)).countUnreadByReceiverId(userId);
+    }
+
+    @Test
+    void record_withCountNotLoaded_sendsTheCommittedCount() {
+        UUID userId = UUID.randomUUID();
+        when(mentionRepository.countUnreadByReceiverId(userId)).thenReturn(3);
+
+        mentionCountService.record(userId, 1);
+
+        assertEquals(3, mentionCountService.getUnreadCount(userId));
+        verify(messagingTemplate).convertAndSend(topic(userId), (Object) 3);
+    }
+
+    @Test
+    void record_movesTheLoadedCountOfTheOtherNodesWithoutSendingItAgain() {
+        UUID userId = UUID.randomUUID();
+        when(mentionRepository.countUnreadByReceiverId(userId)).thenReturn(1);
+        InMemoryClusterBus clusterBus = new InMemoryClusterBus();
+        SimpMessageSendingOperations otherMessagingTemplate = mock(SimpMessageSendingOperations.class);
+        MentionCountService node = new MentionCountServiceImpl(mentionRepository, messagingTemplate, clusterBus, 100);
+        MentionCountService otherNode =
+                new MentionCountServiceImpl(mentionRepository, otherMessagingTemplate, clusterBus, 100);
+        node.getUnreadCount(userId);
+        otherNode.getUnreadCount(userId);
+
+        node.record(userId, 2);
+
+        assertEquals(3, node.getUnreadCount(userId));
+        assertEquals(3, otherNode.getUnreadCount(userId));
+        verify(messagingTemplate).convertAndSend(topic(userId), (Object) 3);
+        verify(otherMessagingTemplate, never()).convertAndSend(anyString(), any(Object.class));
+        verify(mentionRepository, times(2)).countUnreadByReceiverId(userId);
+    }
+
+    @Test
+    void record_insideTransaction_waitsForCommit() {
+        UUID userId = UUID.randomUUID();
+        when(mentionRepository.countUnreadByReceiverId(userId)).thenReturn(0);
+        mentionCountService.getUnreadCount(userId);
+        TransactionSynchronizationManager.initSynchronization();
+
+        mentionCountService.record(userId, 1);
+
+        assertEquals(0, mentionCountService.getUnreadCount(userId));
+        verifyNoInteractions(messagingTemplate);
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        assertEquals(1, mentionCountService.getUnreadCount(userId));
+    }
+
+    @Test
+    void reconcile_correctsDriftedCountsAndSendsThem() {
+        UUID drifted = UUID.randomUUID();
+        UUID correct = UUID.randomUUID();
+        UUID noLongerMentioned = UUID.randomUUID();
+        when(mentionRepository.countUnreadByReceiverId(any(UUID.class))).thenReturn(2);
+        mentionCountService.getUnreadCount(drifted);
+        mentionCountService.getUnreadCount(correct);
+        mentionCountService.getUnreadCount(noLongerMentioned);
+        when(mentionRepository.countUnreadByReceiverIds(anyCollection())).thenReturn(Arrays.asList(
+                new UnreadMentionCount(drifted, 5),
+                new UnreadMentionCount(correct, 2)));
+
+        mentionCountService.reconcile();
+
+        assertEquals(5, mentionCountService.getUnreadCount(drifted));
+        assertEquals(2, mentionCountService.getUnreadCount(correct));
+        assertEquals(0, mentionCountService.getUnreadCount(noLongerMentioned));
+        verify(messagingTemplate).convertAndSend(topic(drifted), (Object) 5);
+        verify(messagingTemplate).convertAndSend(topic(noLongerMentioned), (Object) 0);
+        verify(messagingTemplate, never()).convertAndSend(eq(topic(correct)), any(Object.class));
+        verify(messagingTemplate, times(2)).convertAndSend(anyString(), any(Object.class));
+    }
+}
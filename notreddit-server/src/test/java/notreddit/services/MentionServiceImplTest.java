@@ -1,6 +1,5 @@
 package notreddit.services;
 
-import notreddit.SingletonModelMapper;
 import notreddit.data.entities.Comment;
 import notreddit.data.entities.Mention;
 import notreddit.data.entities.Post;
@@ -30,11 +29,13 @@ class MentionServiceImplTest {
 
     private MentionService mentionService;
     private MentionRepository mentionRepository;
+    private MentionCountService mentionCountService;
 
     @BeforeEach
     public void setUp() {
         mentionRepository = mock(MentionRepository.class);
-        mentionService = new MentionServiceImpl(mentionRepository, SingletonModelMapper.mapper());
+        mentionCountService = mock(MentionCountService.class);
+        mentionService = new MentionServiceImpl(mentionRepository, mentionCountService);
     }
 
     private Page<Mention> createMentions(int count, Pageable pageable) {
@@ -64,9 +65,12 @@ class MentionServiceImplTest {
 
     @Test
     void getUnreadMentionCountByUser_shouldWorkCorrectly() {
-        when(mentionRepository.getUnreadMentionCountByUser(any(User.class))).thenReturn(5);
-        int actual = mentionService.getUnreadMentionCountByUser(mock(User.class));
+        User user = new User();
+        user.setId(UUID.randomUUID());
+        when(mentionCountService.getUnreadCount(user.getId())).thenReturn(5);
+        int actual = mentionService.getUnreadMentionCountByUser(user);
         assertEquals(5, actual);
+        verifyNoInteractions(mentionRepository);
     }
 
     @Test
@@ -108,10 +112,14 @@ class MentionServiceImplTest {
         when(mention.getReceiver()).thenReturn(user);
         when(user.getUsername()).thenReturn("username");
 
+        UUID userId = UUID.randomUUID();
+        when(user.getId()).thenReturn(userId);
+
         mentionService.mark(true, user, UUID.randomUUID());
 
         verify(mention).setRead(true);
         verify(mentionRepository).saveAndFlush(mention);
+        verify(mentionCountService).record(userId, -1);
     }
 
     @Test
@@ -127,6 +135,8 @@ class MentionServiceImplTest {
 
         verify(mention).setRead(false);
         verify(mentionRepository).saveAndFlush(mention);
+        // it wasn't read
+        verifyNoInteractions(mentionCountService);
     }
 
     @Test
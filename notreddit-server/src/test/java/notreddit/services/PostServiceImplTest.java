@@ -1,35 +1,57 @@
 package notreddit.services;
 
 import notreddit.SingletonModelMapper;
+import notreddit.cache.CacheTags;
+import notreddit.cache.TaggedCacheManager;
+import notreddit.constants.ApiResponseMessages;
 import notreddit.data.entities.*;
 import notreddit.data.enums.Authority;
+import notreddit.data.enums.FeedOrder;
+import notreddit.data.enums.FileStatus;
 import notreddit.data.models.requests.PostCreateRequest;
 import notreddit.data.models.requests.PostEditRequest;
+import notreddit.data.models.responses.api.ApiResponse;
 import notreddit.data.models.responses.post.PostDetailsResponseModel;
 import notreddit.data.models.responses.post.PostEditResponseModel;
 import notreddit.data.models.responses.post.PostListResponseModel;
+import notreddit.data.models.responses.post.PostsCursorResponseModel;
 import notreddit.data.models.responses.post.PostsResponseModel;
+import notreddit.data.projections.UnreadMentionCount;
 import notreddit.repositories.*;
 import notreddit.services.implementations.PostServiceImpl;
+import notreddit.util.FeedCursor;
+import notreddit.util.SpooledFile;
 import notreddit.web.exceptions.AccessForbiddenException;
+import notreddit.web.exceptions.InvalidCursorException;
+import notreddit.web.exceptions.UnsupportedFeedOrderException;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.data.domain.*;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.util.*;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class PostServiceImplTest {
@@ -37,12 +59,20 @@ class PostServiceImplTest {
     private PostService postService;
     private CloudStorage cloudStorage;
     private ThumbnailService thumbnailService;
+    private UploadService uploadService;
+    private UploadSessionService uploadSessionService;
     private SubredditRepository subredditRepository;
     private PostRepository postRepository;
-    private VoteRepository voteRepository;
+    private PostVoteRepository postVoteRepository;
+    private CommentVoteRepository commentVoteRepository;
     private CommentRepository commentRepository;
     private MentionRepository mentionRepository;
+    private FileRepository fileRepository;
     private UserRepository userRepository;
+    private RankingService rankingService;
+    private TimelineService timelineService;
+    private MentionCountService mentionCountService;
+    private TaggedCacheManager cacheManager;
 
     private Page<Post> createPosts(int count, Pageable pageable) {
         List<Post> posts = new ArrayList<>();
@@ -64,7 +94,7 @@ class PostServiceImplTest {
             post.setCreator(user);
             post.setFile(file);
             post.setSubreddit(subreddit);
-            post.setComments(Collections.singletonList(new Comment()));
+            post.setCommentCount(1);
 
             posts.add(post);
         }
@@ -93,14 +123,23 @@ class PostServiceImplTest {
         RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
         cloudStorage = mock(CloudStorage.class);
         thumbnailService = mock(ThumbnailService.class);
+        uploadService = mock(UploadService.class);
+        uploadSessionService = mock(UploadSessionService.class);
         subredditRepository = mock(SubredditRepository.class);
         postRepository = mock(PostRepository.class);
-        voteRepository = mock(VoteRepository.class);
+        postVoteRepository = mock(PostVoteRepository.class);
+        commentVoteRepository = mock(CommentVoteRepository.class);
         commentRepository = mock(CommentRepository.class);
         mentionRepository = mock(MentionRepository.class);
+        fileRepository = mock(FileRepository.class);
         userRepository = mock(UserRepository.class);
-        postService = new PostServiceImpl(cloudStorage, thumbnailService, subredditRepository, postRepository,
-                voteRepository, commentRepository, mentionRepository, userRepository, SingletonModelMapper.mapper());
+        rankingService = mock(RankingService.class);
+        timelineService = mock(TimelineService.class);
+        mentionCountService = mock(MentionCountService.class);
+        cacheManager = mock(TaggedCacheManager.class);
+        postService = new PostServiceImpl(cloudStorage, thumbnailService, uploadService, uploadSessionService,
+                subredditRepository, postRepository, postVoteRepository, commentVoteRepository, commentRepository, mentionRepository, fileRepository, userRepository, rankingService, timelineService, mentionCountService, cacheManager,
+                SingletonModelMapper.mapper());
     }
 
     @Test
@@ -260,6 +299,139 @@ class PostServiceImplTest {
         assertTrue(response.getPosts().isEmpty());
     }
 
+    @Test
+    void allPostsAfter_withMorePostsThanPageSize_returnsPageInIdOrderWithNextCursor() {
+        List<Post> posts = createPosts(4, PageRequest.of(0, 4)).getContent();
+        List<UUID> ids = new ArrayList<>();
+        posts.forEach(p -> ids.add(p.getId()));
+        List<Post> shuffled = new ArrayList<>(posts.subList(0, 3));
+        Collections.reverse(shuffled);
+
+        when(postRepository.findNewestIds(any(LocalDateTime.class), any(UUID.class), any(Pageable.class)))
+                .thenReturn(ids);
+        when(postRepository.getPostsFromIdList(any(), any(Sort.class))).thenReturn(shuffled);
+
+        PostsCursorResponseModel response = postService.allPostsAfter(null, FeedOrder.NEW, 3);
+
+        assertPostResponseModel(new PostsResponseModel(3, response.getPosts()));
+        FeedCursor next = FeedCursor.decode(response.getNext(), FeedOrder.NEW);
+        assertEquals(posts.get(2).getId(), next.getId());
+        assertEquals(posts.get(2).getCreatedOn(), next.getCreatedOn());
+    }
+
+    @Test
+    void allPostsAfter_withLastPage_returnsNoNextCursor() {
+        List<Post> posts = createPosts(2, PageRequest.of(0, 2)).getContent();
+        List<UUID> ids = new ArrayList<>();
+        posts.forEach(p -> ids.add(p.getId()));
+
+        when(postRepository.findTopIds(anyInt(), any(UUID.class), any(Pageable.class))).thenReturn(ids);
+        when(postRepository.getPostsFromIdList(any(), any(Sort.class))).thenReturn(posts);
+
+        PostsCursorResponseModel response = postService.allPostsAfter(null, FeedOrder.TOP, 3);
+
+        assertEquals(2, response.getPosts().size());
+        assertNull(response.getNext());
+    }
+
+    @Test
+    void findAllBySubredditAfter_withCursor_seeksPastIt() {
+        Post post = createPosts(1, PageRequest.of(0, 1)).getContent().get(0);
+        String cursor = FeedCursor.after(FeedOrder.TOP, post).encode();
+        when(postRepository.findTopIdsBySubredditTitle(any(), anyInt(), any(UUID.class), any(Pageable.class)))
+                .thenReturn(new ArrayList<>());
+
+        PostsCursorResponseModel response = postService.findAllBySubredditAfter("Aww", cursor, FeedOrder.TOP, 10);
+
+        assertTrue(response.getPosts().isEmpty());
+        verify(postRepository).findTopIdsBySubredditTitle("aww", 0, post.getId(), PageRequest.of(0, 11));
+        verify(postRepository, never()).getPostsFromIdList(any(), any(Sort.class));
+    }
+
+    @Test
+    void subscribedPostsAfter_withNoSubscriptions_doesNotQueryPosts() {
+        User user = mock(User.class);
+        when(user.getSubscriptions()).thenReturn(new HashSet<>());
+        when(userRepository.getWithSubscriptions(any(User.class))).thenReturn(user);
+
+        PostsCursorResponseModel response = postService.subscribedPostsAfter(user, "", FeedOrder.NEW, 10);
+
+        assertTrue(response.getPosts().isEmpty());
+        assertNull(response.getNext());
+        verifyNoInteractions(postRepository);
+    }
+
+    @Test
+    void findAllByUsernameAfter_withCursorOfAnotherOrder_throwsInvalidCursorException() {
+        Post post = createPosts(1, PageRequest.of(0, 1)).getContent().get(0);
+        String cursor = FeedCursor.after(FeedOrder.TOP, post).encode();
+
+        Assertions.assertThrows(InvalidCursorException.class,
+                () -> postService.findAllByUsernameAfter("username", cursor, FeedOrder.NEW, 10));
+    }
+
+    @Test
+    void subscribedPostsAfter_withTimelinesCoveringThePage_mergesThemWithoutQueryingIds() {
+        Subreddit subreddit = new Subreddit();
+        subreddit.setTitle("aww");
+        User user = mock(User.class);
+        when(user.getSubscriptions()).thenReturn(new HashSet<>(Collections.singletonList(subreddit)));
+        when(userRepository.getWithSubscriptions(any(User.class))).thenReturn(user);
+
+        List<Post> posts = createPosts(3, PageRequest.of(0, 3)).getContent();
+        List<FeedCursor> positions = new ArrayList<>();
+        posts.forEach(p -> positions.add(FeedCursor.newest(p.getCreatedOn(), p.getId())));
+        when(timelineService.newestPosts(any(), any(FeedCursor.class), anyInt())).thenReturn(Optional.of(positions));
+        when(postRepository.getPostsFromIdList(any(), any(Sort.class))).thenReturn(posts);
+
+        PostsCursorResponseModel response = postService.subscribedPostsAfter(user, "", FeedOrder.NEW, 2);
+
+        assertEquals(2, response.getPosts().size());
+        assertEquals(posts.get(1).getId(), FeedCursor.decode(response.getNext(), FeedOrder.NEW).getId());
+        verify(timelineService).newestPosts(eq(Collections.singletonList("aww")), any(FeedCursor.class), eq(3));
+        verify(postRepository, never()).findNewestSubscribedIds(any(), any(), any(), any());
+    }
+
+    @Test
+    void subscribedPostsAfter_withPagePastTheTimelines_readsIdsFromDatabase() {
+        User user = mock(User.class);
+        when(user.getSubscriptions()).thenReturn(new HashSet<>(Collections.singletonList(new Subreddit())));
+        when(userRepository.getWithSubscriptions(any(User.class))).thenReturn(user);
+        when(timelineService.newestPosts(any(), any(FeedCursor.class), anyInt())).thenReturn(Optional.empty());
+        when(postRepository.findNewestSubscribedIds(any(), any(), any(), any())).thenReturn(new ArrayList<>());
+
+        PostsCursorResponseModel response = postService.subscribedPostsAfter(user, "", FeedOrder.NEW, 2);
+
+        assertTrue(response.getPosts().isEmpty());
+        verify(postRepository).findNewestSubscribedIds(any(), any(), any(), eq(PageRequest.of(0, 3)));
+    }
+
+    @Test
+    void findAllBySubredditAfter_withHotOrder_returnsRankedPageWithRankedNextCursor() {
+        List<Post> posts = createPosts(4, PageRequest.of(0, 4)).getContent();
+        List<FeedCursor> positions = new ArrayList<>();
+        for (int i = 0; i < posts.size(); i++) {
+            positions.add(FeedCursor.hot(10 - i, posts.get(i).getId()));
+        }
+
+        when(rankingService.hotPosts(any(), any(FeedCursor.class), anyInt())).thenReturn(positions);
+        when(postRepository.getPostsFromIdList(any(), any(Sort.class))).thenReturn(posts.subList(0, 3));
+
+        PostsCursorResponseModel response = postService.findAllBySubredditAfter("Aww", null, FeedOrder.HOT, 3);
+
+        assertPostResponseModel(new PostsResponseModel(3, response.getPosts()));
+        FeedCursor next = FeedCursor.decode(response.getNext(), FeedOrder.HOT);
+        assertEquals(8d, next.getHot(), 0d);
+        assertEquals(posts.get(2).getId(), next.getId());
+        verify(rankingService).hotPosts(eq(Collections.singletonList("aww")), any(FeedCursor.class), eq(4));
+    }
+
+    @Test
+    void findAllByUsernameAfter_withHotOrder_throwsUnsupportedFeedOrderException() {
+        Assertions.assertThrows(UnsupportedFeedOrderException.class,
+                () -> postService.findAllByUsernameAfter("username", null, FeedOrder.HOT, 10));
+    }
+
     @Test
     void defaultPosts_withExistingPosts_returnsCorrectlyMappedObjects() {
         Pageable pageable = PageRequest.of(0, 3, Sort.unsorted());
@@ -333,7 +505,7 @@ class PostServiceImplTest {
     }
 
     @Test
-    void create_withMultipartFile_shouldInvokeAllNeededMethods() {
+    void create_withMultipartFile_savesPostWithProcessingFileAndStartsUpload() {
         PostCreateRequest request = new PostCreateRequest();
         request.setTitle("title");
         request.setContent("content");
@@ -341,23 +513,23 @@ class PostServiceImplTest {
         request.setUrl("");
         request.setFile(new MockMultipartFile("name", new byte[1]));
 
-        Map<String, Object> cloudStorageParams = new HashMap<>();
-        cloudStorageParams.put("url", "url");
-        cloudStorageParams.put("contentType", "text/html");
-
+        SpooledFile upload = new SpooledFile(Paths.get("upload"), "name", "image/jpeg");
         when(subredditRepository.findByTitleIgnoreCase(any(String.class))).thenReturn(Optional.of(new Subreddit()));
-        when(cloudStorage.uploadFileAndGetParams(any(MultipartFile.class))).thenReturn(cloudStorageParams);
+        when(uploadService.reserve(request.getFile())).thenReturn(Optional.of(upload));
 
         ResponseEntity<?> response = postService.create(request, new User());
 
         assertEquals(HttpStatus.CREATED, response.getStatusCode());
-        verify(cloudStorage).uploadFileAndGetParams(any(MultipartFile.class));
-        verify(thumbnailService).generateThumbnailUrl(cloudStorageParams.get("url").toString());
-        verify(postRepository).saveAndFlush(any(Post.class));
+        ArgumentCaptor<Post> captor = ArgumentCaptor.forClass(Post.class);
+        verify(postRepository).saveAndFlush(captor.capture());
+        assertEquals(FileStatus.PROCESSING, captor.getValue().getFile().getStatus());
+        assertNull(captor.getValue().getFile().getUrl());
+        verify(uploadService).start(captor.getValue(), upload);
+        verifyNoInteractions(cloudStorage);
     }
 
     @Test
-    void create_withMultipartFileThatIsNotAnImage_shouldInvokeAllNeededMethods() {
+    void create_withMultipartFileWhenUploadsAreBusy_returnsServiceUnavailable() {
         PostCreateRequest request = new PostCreateRequest();
         request.setTitle("title");
         request.setContent("content");
@@ -365,23 +537,19 @@ class PostServiceImplTest {
         request.setUrl("");
         request.setFile(new MockMultipartFile("name", new byte[1]));
 
-        Map<String, Object> cloudStorageParams = new HashMap<>();
-        cloudStorageParams.put("url", "url");
-        cloudStorageParams.put("contentType", "text/html");
-
         when(subredditRepository.findByTitleIgnoreCase(any(String.class))).thenReturn(Optional.of(new Subreddit()));
-        when(cloudStorage.uploadFileAndGetParams(any(MultipartFile.class))).thenReturn(cloudStorageParams);
+        when(uploadService.reserve(request.getFile())).thenReturn(Optional.empty());
 
         ResponseEntity<?> response = postService.create(request, new User());
 
-        assertEquals(HttpStatus.CREATED, response.getStatusCode());
-        verify(cloudStorage).uploadFileAndGetParams(any(MultipartFile.class));
-        verify(thumbnailService).generateThumbnailUrl(cloudStorageParams.get("url").toString());
-        verify(postRepository).saveAndFlush(any(Post.class));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertNotNull(response.getHeaders().get(HttpHeaders.RETRY_AFTER));
+        verify(postRepository, never()).saveAndFlush(any(Post.class));
+        verify(uploadService, never()).start(any(Post.class), any(SpooledFile.class));
     }
 
     @Test
-    void create_withMultipartFileThatInAnImage_shouldInvokeAllNeededMethods() {
+    void create_withMultipartFileWhenSavingFails_cancelsUpload() {
         PostCreateRequest request = new PostCreateRequest();
         request.setTitle("title");
         request.setContent("content");
@@ -389,19 +557,15 @@ class PostServiceImplTest {
         request.setUrl("");
         request.setFile(new MockMultipartFile("name", new byte[1]));
 
-        Map<String, Object> cloudStorageParams = new HashMap<>();
-        cloudStorageParams.put("url", "url");
-        cloudStorageParams.put("contentType", "image/jpeg");
-
+        SpooledFile upload = new SpooledFile(Paths.get("upload"), "name", "image/jpeg");
         when(subredditRepository.findByTitleIgnoreCase(any(String.class))).thenReturn(Optional.of(new Subreddit()));
-        when(cloudStorage.uploadFileAndGetParams(any(MultipartFile.class))).thenReturn(cloudStorageParams);
+        when(uploadService.reserve(request.getFile())).thenReturn(Optional.of(upload));
+        when(postRepository.saveAndFlush(any(Post.class))).thenThrow(new QueryTimeoutException("timeout"));
 
-        ResponseEntity<?> response = postService.create(request, new User());
+        Assertions.assertThrows(QueryTimeoutException.class, () -> postService.create(request, new User()));
 
-        assertEquals(HttpStatus.CREATED, response.getStatusCode());
-        verify(cloudStorage).uploadFileAndGetParams(any(MultipartFile.class));
-        verify(postRepository).saveAndFlush(any(Post.class));
-        verify(thumbnailService, never()).generateThumbnailUrl(cloudStorageParams.get("url").toString());
+        verify(uploadService).cancel(upload);
+        verify(uploadService, never()).start(any(Post.class), any(SpooledFile.class));
     }
 
     @Test
@@ -423,11 +587,73 @@ class PostServiceImplTest {
         ResponseEntity<?> response = postService.create(request, new User());
 
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
-        verify(cloudStorage, never()).uploadFileAndGetParams(any(MultipartFile.class));
+        verify(uploadService, never()).reserve(any(MultipartFile.class));
         verify(postRepository, never()).saveAndFlush(any(Post.class));
         verify(thumbnailService, never()).generateThumbnailUrl(cloudStorageParams.get("url").toString());
     }
 
+    @Test
+    void create_withCompletedUploadSession_savesPostWithReadyFile() {
+        User creator = new User();
+        PostCreateRequest request = new PostCreateRequest();
+        request.setTitle("title");
+        request.setSubreddit("subreddit");
+        request.setUrl("");
+        request.setUploadSessionId(UUID.randomUUID());
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("url", "url");
+        params.put("contentType", "video/mp4");
+        when(subredditRepository.findByTitleIgnoreCase(any(String.class))).thenReturn(Optional.of(new Subreddit()));
+        when(uploadSessionService.takeCompleted(request.getUploadSessionId(), creator)).thenReturn(Optional.of(params));
+        when(thumbnailService.generateThumbnailUrl("url")).thenReturn("thumbnail");
+
+        ResponseEntity<?> response = postService.create(request, creator);
+
+        ArgumentCaptor<Post> saved = ArgumentCaptor.forClass(Post.class);
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        verify(postRepository).saveAndFlush(saved.capture());
+        assertEquals("url", saved.getValue().getFile().getUrl());
+        assertEquals("thumbnail", saved.getValue().getFile().getThumbnailUrl());
+        assertEquals(FileStatus.READY, saved.getValue().getFile().getStatus());
+        verifyNoInteractions(uploadService);
+    }
+
+    @Test
+    void create_withUnfinishedUploadSession_returnsBadRequest() {
+        PostCreateRequest request = new PostCreateRequest();
+        request.setTitle("title");
+        request.setSubreddit("subreddit");
+        request.setUrl("");
+        request.setUploadSessionId(UUID.randomUUID());
+
+        when(subredditRepository.findByTitleIgnoreCase(any(String.class))).thenReturn(Optional.of(new Subreddit()));
+        when(uploadSessionService.takeCompleted(any(UUID.class), any(User.class))).thenReturn(Optional.empty());
+
+        ResponseEntity<?> response = postService.create(request, new User());
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals(ApiResponseMessages.UPLOAD_SESSION_NOT_COMPLETED, ((ApiResponse) response.getBody()).getMessage());
+        verify(postRepository, never()).saveAndFlush(any(Post.class));
+    }
+
+    @Test
+    void create_withUploadSessionAndUrl_returnsBadRequest() {
+        PostCreateRequest request = new PostCreateRequest();
+        request.setTitle("title");
+        request.setSubreddit("subreddit");
+        request.setUrl("url");
+        request.setUploadSessionId(UUID.randomUUID());
+
+        when(subredditRepository.findByTitleIgnoreCase(any(String.class))).thenReturn(Optional.of(new Subreddit()));
+
+        ResponseEntity<?> response = postService.create(request, new User());
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verifyNoInteractions(uploadSessionService);
+        verify(postRepository, never()).saveAndFlush(any(Post.class));
+    }
+
     @Test
     void create_withUrl_shouldInvokeAllNeededMethods() {
         PostCreateRequest request = new PostCreateRequest();
@@ -460,6 +686,32 @@ class PostServiceImplTest {
         assertEquals(HttpStatus.CREATED, response.getStatusCode());
         verify(thumbnailService, never()).generateThumbnailUrl(request.getUrl());
         verify(postRepository).saveAndFlush(any(Post.class));
+        verify(rankingService).track(any(Post.class));
+        verify(timelineService).track(any(Post.class));
+    }
+
+    @Test
+    void create_evictsOnlyTheListingsOfTheSubredditItsSubscribersAndTheCreator() {
+        PostCreateRequest request = new PostCreateRequest();
+        request.setTitle("title");
+        request.setContent("content");
+        request.setSubreddit("aww");
+        request.setUrl("");
+        Subreddit subreddit = new Subreddit();
+        subreddit.setTitle("aww");
+        User creator = new User();
+        creator.setUsername("Creator");
+        UUID subscriberId = UUID.randomUUID();
+
+        when(subredditRepository.findByTitleIgnoreCase("aww")).thenReturn(Optional.of(subreddit));
+        when(userRepository.findSubscriberIdsBySubredditTitle("aww")).thenReturn(Collections.singletonList(subscriberId));
+
+        postService.create(request, creator);
+
+        verify(cacheManager).evictTagged(
+                CacheTags.subscriber(subscriberId),
+                CacheTags.subredditPosts("aww"),
+                CacheTags.userPosts("creator"));
     }
 
     @Test
@@ -504,6 +756,7 @@ class PostServiceImplTest {
         File file = new File();
         file.setUrl("fileUrl");
         Post post = new Post();
+        post.setSubreddit(new Subreddit());
         post.setFile(file);
         post.setCreator(user);
 
@@ -513,12 +766,12 @@ class PostServiceImplTest {
 
         when(postRepository.findByIdWithFileAnSubreddit(any(UUID.class))).thenReturn(Optional.of(post));
         when(subredditRepository.findByTitleIgnoreCase(any(String.class))).thenReturn(Optional.of(new Subreddit()));
-        when(cloudStorage.updateFile(any(MultipartFile.class), any(String.class))).thenReturn(cloudStorageParams);
+        when(cloudStorage.uploadFileAndGetParams(any(MultipartFile.class))).thenReturn(cloudStorageParams);
 
         ResponseEntity<?> response = postService.edit(request, user);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        verify(cloudStorage).updateFile(any(MultipartFile.class), any(String.class));
+        verify(cloudStorage).uploadFileAndGetParams(any(MultipartFile.class));
         verify(thumbnailService).generateThumbnailUrl(cloudStorageParams.get("url").toString());
         verify(postRepository).saveAndFlush(any(Post.class));
     }
@@ -538,6 +791,7 @@ class PostServiceImplTest {
         File file = new File();
         file.setUrl("fileUrl");
         Post post = new Post();
+        post.setSubreddit(new Subreddit());
         post.setFile(file);
         post.setCreator(user);
 
@@ -547,12 +801,12 @@ class PostServiceImplTest {
 
         when(postRepository.findByIdWithFileAnSubreddit(any(UUID.class))).thenReturn(Optional.of(post));
         when(subredditRepository.findByTitleIgnoreCase(any(String.class))).thenReturn(Optional.of(new Subreddit()));
-        when(cloudStorage.updateFile(any(MultipartFile.class), any(String.class))).thenReturn(cloudStorageParams);
+        when(cloudStorage.uploadFileAndGetParams(any(MultipartFile.class))).thenReturn(cloudStorageParams);
 
         ResponseEntity<?> response = postService.edit(request, user);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        verify(cloudStorage).updateFile(any(MultipartFile.class), any(String.class));
+        verify(cloudStorage).uploadFileAndGetParams(any(MultipartFile.class));
         verify(postRepository).saveAndFlush(any(Post.class));
         verify(thumbnailService, never()).generateThumbnailUrl(cloudStorageParams.get("url").toString());
     }
@@ -570,6 +824,7 @@ class PostServiceImplTest {
         User user = new User();
         user.setUsername("username");
         Post post = new Post();
+        post.setSubreddit(new Subreddit());
         post.setCreator(user);
 
         Map<String, Object> cloudStorageParams = new HashMap<>();
@@ -603,6 +858,7 @@ class PostServiceImplTest {
         File file = new File();
         file.setUrl("fileUrl");
         Post post = new Post();
+        post.setSubreddit(new Subreddit());
         post.setCreator(user);
         post.setFile(file);
 
@@ -628,6 +884,7 @@ class PostServiceImplTest {
         User user = new User();
         user.setUsername("username");
         Post post = new Post();
+        post.setSubreddit(new Subreddit());
         post.setCreator(user);
 
         when(postRepository.findByIdWithFileAnSubreddit(any(UUID.class))).thenReturn(Optional.of(post));
@@ -653,6 +910,7 @@ class PostServiceImplTest {
         User user = new User();
         user.setUsername("username");
         Post post = new Post();
+        post.setSubreddit(new Subreddit());
         post.setCreator(user);
 
         when(postRepository.findByIdWithFileAnSubreddit(any(UUID.class))).thenReturn(Optional.of(post));
@@ -664,6 +922,162 @@ class PostServiceImplTest {
         verify(postRepository).saveAndFlush(any(Post.class));
     }
 
+    private Post postWithUploadedFile(User user) {
+        File file = new File();
+        file.setUrl("uploadedUrl");
+        Post post = new Post();
+        post.setSubreddit(new Subreddit());
+        post.setCreator(user);
+        post.setFile(file);
+
+        when(postRepository.findByIdWithFileAnSubreddit(any(UUID.class))).thenReturn(Optional.of(post));
+        when(subredditRepository.findByTitleIgnoreCase(any(String.class))).thenReturn(Optional.of(new Subreddit()));
+        when(cloudStorage.owns("uploadedUrl")).thenReturn(true);
+        return post;
+    }
+
+    private PostEditRequest editRequest(String url, MultipartFile file) {
+        PostEditRequest request = new PostEditRequest();
+        request.setPostId(UUID.randomUUID());
+        request.setTitle("title");
+        request.setContent("content");
+        request.setSubreddit("subreddit");
+        request.setUrl(url);
+        request.setFile(file);
+        return request;
+    }
+
+    @Test
+    void edit_withUrlAndPostWithUploadedFile_releasesTheOldFileAfterCommit() {
+        User user = new User();
+        user.setUsername("username");
+        postWithUploadedFile(user);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            ResponseEntity<?> response = postService.edit(editRequest("webUrl", null), user);
+
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+            verify(cloudStorage, never()).removeFile(any(String.class));
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(cloudStorage).removeFile("uploadedUrl");
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void edit_withNewFileAndPostWithUploadedFile_releasesTheOldFileAfterCommit() {
+        User user = new User();
+        user.setUsername("username");
+        Post post = postWithUploadedFile(user);
+
+        Map<String, Object> cloudStorageParams = new HashMap<>();
+        cloudStorageParams.put("url", "newUrl");
+        cloudStorageParams.put("contentType", "image/jpg");
+        when(cloudStorage.uploadFileAndGetParams(any(MultipartFile.class))).thenReturn(cloudStorageParams);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            ResponseEntity<?> response = postService.edit(editRequest("", new MockMultipartFile("name", new byte[1])), user);
+
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+            assertEquals("newUrl", post.getFile().getUrl());
+            verify(cloudStorage, never()).removeFile(any(String.class));
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(cloudStorage).removeFile("uploadedUrl");
+            verify(cloudStorage, never()).removeFile("newUrl");
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void edit_withNoUrlOrFileAndPostWithUploadedFile_releasesTheOldFile() {
+        User user = new User();
+        user.setUsername("username");
+        Post post = postWithUploadedFile(user);
+
+        ResponseEntity<?> response = postService.edit(editRequest("", null), user);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNull(post.getFile());
+        verify(cloudStorage).removeFile("uploadedUrl");
+    }
+
+    @Test
+    void edit_keepingTheUploadedFile_doesNotReleaseIt() {
+        User user = new User();
+        user.setUsername("username");
+        postWithUploadedFile(user);
+        PostEditRequest request = editRequest("", null);
+        request.setHasUploadedFile(true);
+
+        ResponseEntity<?> response = postService.edit(request, user);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(cloudStorage, never()).removeFile(any(String.class));
+    }
+
+    @Test
+    void edit_toAnotherSubreddit_evictsThePostAndTheListingsOfBothSubreddits() {
+        User user = new User();
+        user.setUsername("username");
+        Subreddit oldSubreddit = new Subreddit();
+        oldSubreddit.setTitle("aww");
+        Subreddit newSubreddit = new Subreddit();
+        newSubreddit.setTitle("EyeBleach");
+        Post post = new Post();
+        post.setId(UUID.randomUUID());
+        post.setSubreddit(oldSubreddit);
+        post.setCreator(user);
+        UUID oldSubscriberId = UUID.randomUUID();
+        UUID newSubscriberId = UUID.randomUUID();
+
+        when(postRepository.findByIdWithFileAnSubreddit(any(UUID.class))).thenReturn(Optional.of(post));
+        when(subredditRepository.findByTitleIgnoreCase("EyeBleach")).thenReturn(Optional.of(newSubreddit));
+        when(userRepository.findSubscriberIdsBySubredditTitle("aww")).thenReturn(Collections.singletonList(oldSubscriberId));
+        when(userRepository.findSubscriberIdsBySubredditTitle("EyeBleach")).thenReturn(Collections.singletonList(newSubscriberId));
+        PostEditRequest request = editRequest("", null);
+        request.setSubreddit("EyeBleach");
+
+        postService.edit(request, user);
+
+        verify(cacheManager).evictTagged(
+                CacheTags.post(post.getId()),
+                CacheTags.subredditPosts("aww"),
+                CacheTags.subredditPosts("eyebleach"),
+                CacheTags.subscriber(oldSubscriberId),
+                CacheTags.subscriber(newSubscriberId));
+    }
+
+    @Test
+    void edit_inTheSameSubreddit_doesNotEvictTheSubscribedFeeds() {
+        User user = new User();
+        user.setUsername("username");
+        Subreddit subreddit = new Subreddit();
+        subreddit.setTitle("aww");
+        Post post = new Post();
+        post.setId(UUID.randomUUID());
+        post.setSubreddit(subreddit);
+        post.setCreator(user);
+
+        when(postRepository.findByIdWithFileAnSubreddit(any(UUID.class))).thenReturn(Optional.of(post));
+        when(subredditRepository.findByTitleIgnoreCase("AWW")).thenReturn(Optional.of(subreddit));
+        PostEditRequest request = editRequest("", null);
+        request.setSubreddit("AWW");
+
+        postService.edit(request, user);
+
+        verify(userRepository, never()).findSubscriberIdsBySubredditTitle(any());
+        verify(cacheManager).evictTagged(
+                CacheTags.post(post.getId()),
+                CacheTags.subredditPosts("aww"),
+                CacheTags.subredditPosts("aww"));
+    }
+
     @Test
     void edit_withBothUrlAndFile_shouldDoNothing() {
         PostEditRequest request = new PostEditRequest();
@@ -674,6 +1088,7 @@ class PostServiceImplTest {
         User user = new User();
         user.setUsername("user");
         Post post = new Post();
+        post.setSubreddit(new Subreddit());
         post.setCreator(user);
 
         when(postRepository.findByIdWithFileAnSubreddit(any(UUID.class))).thenReturn(Optional.of(post));
@@ -693,6 +1108,7 @@ class PostServiceImplTest {
         User user = new User();
         user.setUsername("user");
         Post post = new Post();
+        post.setSubreddit(new Subreddit());
         post.setCreator(user);
 
         when(postRepository.findByIdWithFileAnSubreddit(any(UUID.class))).thenReturn(Optional.of(post));
@@ -713,6 +1129,7 @@ class PostServiceImplTest {
         User user = new User();
         user.setUsername("user");
         Post post = new Post();
+        post.setSubreddit(new Subreddit());
         post.setCreator(creator);
 
         when(postRepository.findByIdWithFileAnSubreddit(any(UUID.class))).thenReturn(Optional.of(post));
@@ -739,21 +1156,26 @@ class PostServiceImplTest {
         file.setUrl("dropboxFileUrl");
 
         Post post = new Post();
+        post.setSubreddit(new Subreddit());
         post.setId(UUID.randomUUID());
         post.setCreator(new User());
         post.setFile(file);
         post.getComments().add(comment);
 
-        when(postRepository.findByIdWithCreatorAndComments(any(UUID.class))).thenReturn(Optional.of(post));
+        when(postRepository.findByIdEager(any(UUID.class))).thenReturn(Optional.of(post));
+        when(cloudStorage.owns(file.getUrl())).thenReturn(true);
 
         postService.delete(UUID.randomUUID(), user);
 
-        verify(voteRepository).deleteAllByPostId(post.getId());
-        verify(voteRepository).deleteAllByCommentId(comment.getId());
-        verify(mentionRepository).deleteAllByCommentId(comment.getId());
-        verify(commentRepository).deleteById(comment.getId());
+        verify(mentionRepository).deleteAllOfPost(post.getId());
+        verify(postVoteRepository).deleteAllOfPost(post.getId());
+        verify(commentVoteRepository).deleteAllOfPost(post.getId());
+        verify(commentRepository).deleteAllOfPost(post.getId());
+        verify(fileRepository).deleteOfPost(post.getId());
+        verify(postRepository).deleteByIdInBulk(post.getId());
         verify(cloudStorage).removeFile(file.getUrl());
-        verify(postRepository).delete(post);
+        verify(mentionRepository, never()).deleteAllByCommentId(comment.getId());
+        verify(commentRepository, never()).deleteById(comment.getId());
     }
 
     @Test
@@ -772,21 +1194,102 @@ class PostServiceImplTest {
         file.setUrl("dropboxFileUrl");
 
         Post post = new Post();
+        post.setSubreddit(new Subreddit());
         post.setId(UUID.randomUUID());
         post.setCreator(user);
         post.setFile(file);
         post.getComments().add(comment);
 
-        when(postRepository.findByIdWithCreatorAndComments(any(UUID.class))).thenReturn(Optional.of(post));
+        when(postRepository.findByIdEager(any(UUID.class))).thenReturn(Optional.of(post));
+        when(cloudStorage.owns(file.getUrl())).thenReturn(true);
 
         postService.delete(UUID.randomUUID(), user);
 
-        verify(voteRepository).deleteAllByPostId(post.getId());
-        verify(voteRepository).deleteAllByCommentId(comment.getId());
-        verify(mentionRepository).deleteAllByCommentId(comment.getId());
-        verify(commentRepository).deleteById(comment.getId());
+        verify(mentionRepository).deleteAllOfPost(post.getId());
+        verify(postVoteRepository).deleteAllOfPost(post.getId());
+        verify(commentVoteRepository).deleteAllOfPost(post.getId());
+        verify(commentRepository).deleteAllOfPost(post.getId());
+        verify(fileRepository).deleteOfPost(post.getId());
+        verify(postRepository).deleteByIdInBulk(post.getId());
         verify(cloudStorage).removeFile(file.getUrl());
-        verify(postRepository).delete(post);
+        verify(mentionRepository, never()).deleteAllByCommentId(comment.getId());
+        verify(commentRepository, never()).deleteById(comment.getId());
+    }
+
+    @Test
+    void delete_withUnreadMentions_takesThemOffTheCountsOfTheirReceivers() {
+        User user = new User();
+        user.setUsername("username");
+        Post post = new Post();
+        post.setId(UUID.randomUUID());
+        post.setSubreddit(new Subreddit());
+        post.setCreator(user);
+        UUID receiverId = UUID.randomUUID();
+        UUID otherReceiverId = UUID.randomUUID();
+
+        when(postRepository.findByIdEager(any(UUID.class))).thenReturn(Optional.of(post));
+        when(mentionRepository.countUnreadOfPost(post.getId())).thenReturn(Arrays.asList(
+                new UnreadMentionCount(receiverId, 3), new UnreadMentionCount(otherReceiverId, 1)));
+
+        postService.delete(post.getId(), user);
+
+        verify(mentionCountService).record(receiverId, -3);
+        verify(mentionCountService).record(otherReceiverId, -1);
+    }
+
+    @Test
+    void delete_insideTransaction_removesFileFromStorageOnlyAfterCommit() {
+        User user = new User();
+        user.setUsername("username");
+
+        File file = new File();
+        file.setUrl("dropboxFileUrl");
+
+        Post post = new Post();
+        post.setSubreddit(new Subreddit());
+        post.setId(UUID.randomUUID());
+        post.setCreator(user);
+        post.setFile(file);
+
+        when(postRepository.findByIdEager(any(UUID.class))).thenReturn(Optional.of(post));
+        when(cloudStorage.owns(file.getUrl())).thenReturn(true);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            postService.delete(UUID.randomUUID(), user);
+
+            verify(postRepository).deleteByIdInBulk(post.getId());
+            verify(cloudStorage, never()).removeFile(any(String.class));
+            verify(rankingService, never()).untrack(post.getId());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(cloudStorage).removeFile(file.getUrl());
+            verify(rankingService).untrack(post.getId());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void delete_withLinkedFile_doesNotRemoveItFromStorage() {
+        User user = new User();
+        user.setUsername("username");
+
+        File file = new File();
+        file.setUrl("https://i.redd.it/m2cry0bo74p31.jpg");
+
+        Post post = new Post();
+        post.setSubreddit(new Subreddit());
+        post.setId(UUID.randomUUID());
+        post.setCreator(user);
+        post.setFile(file);
+
+        when(postRepository.findByIdEager(any(UUID.class))).thenReturn(Optional.of(post));
+
+        postService.delete(UUID.randomUUID(), user);
+
+        verify(cloudStorage, never()).removeFile(any(String.class));
+        verify(postRepository).deleteByIdInBulk(post.getId());
     }
 
     @Test
@@ -805,34 +1308,54 @@ class PostServiceImplTest {
         file.setUrl("dropboxFileUrl");
 
         Post post = new Post();
+        post.setSubreddit(new Subreddit());
         post.setId(UUID.randomUUID());
         post.setCreator(new User());
         post.setFile(file);
         post.getComments().add(comment);
 
-        when(postRepository.findByIdWithCreatorAndComments(any(UUID.class))).thenReturn(Optional.of(post));
+        when(postRepository.findByIdEager(any(UUID.class))).thenReturn(Optional.of(post));
 
         postService.delete(UUID.randomUUID(), user);
 
-        verify(voteRepository, never()).deleteAllByPostId(post.getId());
-        verify(voteRepository, never()).deleteAllByCommentId(comment.getId());
-        verify(mentionRepository, never()).deleteAllByCommentId(comment.getId());
-        verify(commentRepository, never()).deleteById(comment.getId());
+        verify(mentionRepository, never()).deleteAllOfPost(post.getId());
+        verify(postVoteRepository, never()).deleteAllOfPost(post.getId());
+        verify(commentVoteRepository, never()).deleteAllOfPost(post.getId());
+        verify(commentRepository, never()).deleteAllOfPost(post.getId());
         verify(cloudStorage, never()).removeFile(file.getUrl());
-        verify(postRepository, never()).delete(post);
+        verify(postRepository, never()).deleteByIdInBulk(post.getId());
     }
 
     @Test
     void delete_withNonExistingPost_shouldDoNothing() {
-        when(postRepository.findByIdWithCreatorAndComments(any(UUID.class))).thenReturn(Optional.empty());
+        when(postRepository.findByIdEager(any(UUID.class))).thenReturn(Optional.empty());
 
         postService.delete(UUID.randomUUID(), new User());
 
-        verify(voteRepository, never()).deleteAllByPostId(any(UUID.class));
-        verify(voteRepository, never()).deleteAllByCommentId(any(UUID.class));
-        verify(mentionRepository, never()).deleteAllByCommentId(any(UUID.class));
-        verify(commentRepository, never()).deleteById(any(UUID.class));
+        verify(mentionRepository, never()).deleteAllOfPost(any(UUID.class));
+        verify(postVoteRepository, never()).deleteAllOfPost(any(UUID.class));
+        verify(commentVoteRepository, never()).deleteAllOfPost(any(UUID.class));
+        verify(commentRepository, never()).deleteAllOfPost(any(UUID.class));
         verify(cloudStorage, never()).removeFile(any(String.class));
-        verify(postRepository, never()).delete(any(Post.class));
+        verify(postRepository, never()).deleteByIdInBulk(any(UUID.class));
+    }
+
+    @Test
+    void reconcileCommentCounts_withRepairedPosts_evictsTheirCachedPages() {
+        String postId = UUID.randomUUID().toString();
+        when(postRepository.reconcileCommentCounts()).thenReturn(Collections.singletonList(postId));
+
+        postService.reconcileCommentCounts();
+
+        verify(cacheManager).evictTagged(CacheTags.post(postId));
+    }
+
+    @Test
+    void reconcileCommentCounts_withNoDrift_doesNotEvictAnything() {
+        when(postRepository.reconcileCommentCounts()).thenReturn(new ArrayList<>());
+
+        postService.reconcileCommentCounts();
+
+        verify(cacheManager, never()).evictTagged(any());
     }
-}
\ No newline at end of file
+}
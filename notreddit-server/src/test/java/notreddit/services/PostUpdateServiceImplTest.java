@@ -0,0 +1,100 @@
+package notreddit.services;
+
+import notreddit.data.models.responses.post.PostCountsUpdate;
+import notreddit.services.implementations.PostUpdateServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class PostUpdateServiceImplTest {
+
+    private SimpMessageSendingOperations messagingTemplate;
+    private PostUpdateService postUpdateService;
+
+    @BeforeEach
+    void setUp() {
+        messagingTemplate = mock(SimpMessageSendingOperations.class);
+        postUpdateService = new PostUpdateServiceImpl(messagingTemplate);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private PostCountsUpdate sentUpdate(UUID postId) {
+        ArgumentCaptor<Object> update = ArgumentCaptor.forClass(Object.class);
+        verify(messagingTemplate).convertAndSend(eq(PostUpdateServiceImpl.POST_TOPIC + postId), update.capture());
+        return (PostCountsUpdate) update.getValue();
+    }
+
+    @Test
+    void publish_withManyDeltas_sendsOneUpdatePerPost() {
+        UUID postId = UUID.randomUUID();
+        UUID otherPostId = UUID.randomUUID();
+        for (int i = 0; i < 100; i++) {
+            postUpdateService.recordVotes(postId, 1, 0);
+        }
+        postUpdateService.recordVotes(postId, -1, 1);
+        postUpdateService.recordComments(postId, 1);
+        postUpdateService.recordComments(otherPostId, 1);
+
+        postUpdateService.publish();
+
+        PostCountsUpdate update = sentUpdate(postId);
+        assertEquals(postId, update.getPostId());
+        assertEquals(99, update.getUpvotes());
+        assertEquals(1, update.getDownvotes());
+        assertEquals(98, update.getScore());
+        assertEquals(1, update.getComments());
+        assertEquals(1, sentUpdate(otherPostId).getComments());
+    }
+
+    @Test
+    void publish_afterPublishing_sendsNothingUntilTheNextDelta() {
+        postUpdateService.recordVotes(UUID.randomUUID(), 1, 0);
+        postUpdateService.publish();
+        postUpdateService.publish();
+
+        verify(messagingTemplate, times(1)).convertAndSend(anyString(), any(Object.class));
+    }
+
+    @Test
+    void publish_withDeltasCancellingOut_sendsNothing() {
+        UUID postId = UUID.randomUUID();
+        postUpdateService.recordVotes(postId, 1, 0);
+        postUpdateService.recordVotes(postId, -1, 0);
+
+        postUpdateService.publish();
+
+        verifyNoInteractions(messagingTemplate);
+    }
+
+    @Test
+    void recordVotes_inTransaction_countsOnlyOnceCommitted() {
+        UUID postId = UUID.randomUUID();
+        TransactionSynchronizationManager.initSynchronization();
+
+        postUpdateService.recordVotes(postId, 1, 0);
+        postUpdateService.publish();
+        verifyNoInteractions(messagingTemplate);
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        postUpdateService.publish();
+
+        assertEquals(1, sentUpdate(postId).getUpvotes());
+    }
+}
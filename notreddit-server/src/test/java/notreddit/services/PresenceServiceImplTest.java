@@ -0,0 +1,161 @@
+package notreddit.services;
+
+import notreddit.data.models.responses.PresenceSnapshot;
+import notreddit.services.implementations.PresenceServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class PresenceServiceImplTest {
+
+    private static final long EXPIRY = 30_000;
+
+    private SimpMessageSendingOperations messagingTemplate;
+    private AtomicLong now;
+    private PresenceService presenceService;
+
+    @BeforeEach
+    void setUp() {
+        messagingTemplate = mock(SimpMessageSendingOperations.class);
+        now = new AtomicLong();
+        presenceService = new PresenceServiceImpl(messagingTemplate, EXPIRY, now::get);
+    }
+
+    private void subscribe(String sessionId, String subscriptionId, String destination) {
+        presenceService.subscribe(sessionId, subscriptionId, destination, null, new HashMap<>());
+    }
+
+    private PresenceSnapshot sentSnapshot(String place) {
+        ArgumentCaptor<Object> snapshot = ArgumentCaptor.forClass(Object.class);
+        verify(messagingTemplate).convertAndSend(eq(PresenceServiceImpl.PRESENCE_TOPIC + place), snapshot.capture());
+        return (PresenceSnapshot) snapshot.getValue();
+    }
+
+    @Test
+    void placeOf_mapsRoomAndPresenceTopics() {
+        assertEquals("rooms/public", PresenceServiceImpl.placeOf("/topic/public"));
+        assertEquals("rooms/java", PresenceServiceImpl.placeOf("/topic/rooms/java"));
+        assertEquals("rooms/java", PresenceServiceImpl.placeOf("/topic/presence/rooms/java"));
+        assertEquals("subreddits/Java Jobs", PresenceServiceImpl.placeOf("/topic/presence/subreddits/Java Jobs"));
+        assertNull(PresenceServiceImpl.placeOf("/topic/presence/rooms/Java"));
+        assertNull(PresenceServiceImpl.placeOf("/topic/presence/users/java"));
+        assertNull(PresenceServiceImpl.placeOf("/topic/post/1"));
+    }
+
+    @Test
+    void subscribe_countsEverySessionOnceWhateverItsSubscriptions() {
+        subscribe("first", "0", "/topic/public");
+        subscribe("first", "1", "/topic/presence/rooms/public");
+        subscribe("second", "0", "/topic/presence/rooms/public");
+        subscribe("second", "1", "/topic/user/1/mentions");
+
+        assertEquals(2, presenceService.countOnline("rooms/public"));
+
+        presenceService.unsubscribe("first", "1");
+        assertEquals(2, presenceService.countOnline("rooms/public"));
+
+        presenceService.unsubscribe("first", "0");
+        assertEquals(1, presenceService.countOnline("rooms/public"));
+
+        presenceService.disconnect("second");
+        assertEquals(0, presenceService.countOnline("rooms/public"));
+    }
+
+    @Test
+    void publish_withStormOfSubscriptions_sendsOneSnapshotPerChangedPlace() {
+        for (int i = 0; i < 1000; i++) {
+            subscribe("session" + i, "0", "/topic/public");
+        }
+        subscribe("other", "0", "/topic/presence/subreddits/java");
+
+        presenceService.publish();
+
+        assertEquals(1000, sentSnapshot("rooms/public").getOnline());
+        assertEquals(1, sentSnapshot("subreddits/java").getOnline());
+        verify(messagingTemplate, times(2)).convertAndSend(anyString(), any(Object.class));
+
+        clearInvocations(messagingTemplate);
+        presenceService.publish();
+        verifyNoInteractions(messagingTemplate);
+    }
+
+    @Test
+    void publish_dropsSessionsWithoutHeartbeats() {
+        subscribe("quiet", "0", "/topic/public");
+        subscribe("alive", "0", "/topic/public");
+        presenceService.publish();
+        clearInvocations(messagingTemplate);
+
+        now.addAndGet(EXPIRY);
+        presenceService.touch("alive");
+        now.addAndGet(1);
+        presenceService.publish();
+
+        assertEquals(1, sentSnapshot("rooms/public").getOnline());
+    }
+
+    @Test
+    void touch_afterExpiry_bringsTheSessionBackOnItsPlaces() {
+        subscribe("quiet", "0", "/topic/public");
+        subscribe("quiet", "1", "/topic/presence/subreddits/java");
+        now.addAndGet(EXPIRY + 1);
+        presenceService.publish();
+        assertEquals(0, presenceService.countOnline("rooms/public"));
+        assertEquals(0, presenceService.countOnline("subreddits/java"));
+        clearInvocations(messagingTemplate);
+
+        presenceService.touch("quiet");
+        presenceService.publish();
+
+        assertEquals(1, sentSnapshot("rooms/public").getOnline());
+        assertEquals(1, sentSnapshot("subreddits/java").getOnline());
+    }
+
+    @Test
+    void unsubscribe_afterExpiry_doesNotCountTheSessionTwice() {
+        subscribe("quiet", "0", "/topic/public");
+        subscribe("other", "0", "/topic/public");
+        now.addAndGet(EXPIRY + 1);
+        presenceService.touch("other");
+        presenceService.publish();
+
+        presenceService.unsubscribe("quiet", "0");
+        presenceService.touch("quiet");
+        subscribe("quiet", "1", "/topic/public");
+
+        assertEquals(2, presenceService.countOnline("rooms/public"));
+        presenceService.disconnect("quiet");
+        assertEquals(1, presenceService.countOnline("rooms/public"));
+    }
+
+    @Test
+    void findOnlineUsers_returnsNamedUsersSortedOnce() {
+        Map<String, Object> attributes = new HashMap<>();
+        presenceService.subscribe("anonymous", "0", "/topic/public", null, new HashMap<>());
+        presenceService.subscribe("chatting", "0", "/topic/public", null, attributes);
+        presenceService.subscribe("signedIn", "0", "/topic/public",
+                new UsernamePasswordAuthenticationToken("zoe", null, Collections.emptyList()), null);
+        presenceService.subscribe("signedInTwice", "0", "/topic/public",
+                new UsernamePasswordAuthenticationToken("zoe", null, Collections.emptyList()), null);
+        // set when joining the chat, after subscribing
+        attributes.put("username", "adam");
+
+        assertEquals(4, presenceService.countOnline("rooms/public"));
+        assertEquals(Arrays.asList("adam", "zoe"), presenceService.findOnlineUsers("rooms/public", 10));
+        assertEquals(Collections.singletonList("adam"), presenceService.findOnlineUsers("rooms/public", 1));
+        assertTrue(presenceService.findOnlineUsers("rooms/java", 10).isEmpty());
+    }
+}
@@ -0,0 +1,196 @@
+package notreddit.services;
+
+import notreddit.data.entities.Post;
+import notreddit.data.entities.Subreddit;
+import notreddit.data.enums.FeedOrder;
+import notreddit.data.projections.PostRankRow;
+import notreddit.repositories.PostRepository;
+import notreddit.services.implementations.RankingServiceImpl;
+import notreddit.util.FeedCursor;
+import notreddit.web.broker.InMemoryClusterBus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RankingServiceImplTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.now();
+
+    private PostRepository postRepository;
+    private RankingService rankingService;
+
+    @BeforeEach
+    void setUp() {
+        postRepository = mock(PostRepository.class);
+        rankingService = new RankingServiceImpl(postRepository);
+    }
+
+    @Test
+    void hotScore_withSameScore_ranksNewerPostHigher() {
+        assertTrue(RankingServiceImpl.hotScore(10, 0, NOW) > RankingServiceImpl.hotScore(10, 0, NOW.minusHours(1)));
+    }
+
+    @Test
+    void hotScore_withTenTimesTheScore_isWorthTwelveAndAHalfHours() {
+        double older = RankingServiceImpl.hotScore(100, 0, NOW.minusSeconds(45000));
+        double newer = RankingServiceImpl.hotScore(10, 0, NOW);
+
+        assertEquals(newer, older, 1e-9);
+    }
+
+    @Test
+    void hotScore_withNegativeScore_ranksBelowZeroScore() {
+        assertTrue(RankingServiceImpl.hotScore(0, 5, NOW) < RankingServiceImpl.hotScore(0, 0, NOW));
+    }
+
+    @Test
+    void rebuild_thenHotPosts_returnsPostsOfSubredditHottestFirst() {
+        UUID cold = UUID.randomUUID();
+        UUID hot = UUID.randomUUID();
+        UUID otherSubreddit = UUID.randomUUID();
+        when(postRepository.findRankRowsCreatedSince(any(LocalDateTime.class))).thenReturn(Arrays.asList(
+                new PostRankRow(cold, "Aww", 1, 0, NOW.minusDays(2)),
+                new PostRankRow(hot, "Aww", 50, 2, NOW),
+                new PostRankRow(otherSubreddit, "eli5", 100, 0, NOW)));
+
+        rankingService.rebuild();
+
+        assertEquals(Arrays.asList(hot, cold), hotIds(Collections.singletonList("aww"), 10));
+        assertEquals(Arrays.asList(otherSubreddit, hot, cold), hotIds(null, 10));
+    }
+
+    @Test
+    void hotPosts_afterCursor_continuesWhereThePreviousPageStopped() {
+        List<PostRankRow> rows = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            // scores 1, 10, 100... so no two posts tie on the log of their score
+            rows.add(new PostRankRow(UUID.randomUUID(), i % 2 == 0 ? "aww" : "eli5", (int) Math.pow(10, i), 0, NOW));
+        }
+        when(postRepository.findRankRowsCreatedSince(any(LocalDateTime.class))).thenReturn(rows);
+        rankingService.rebuild();
+
+        List<UUID> seen = new ArrayList<>();
+        FeedCursor cursor = FeedCursor.first(FeedOrder.HOT);
+        List<FeedCursor> page;
+        do {
+            page = rankingService.hotPosts(Arrays.asList("aww", "eli5"), cursor, 3);
+            page.forEach(position -> seen.add(position.getId()));
+            if (!page.isEmpty()) {
+                cursor = page.get(page.size() - 1);
+            }
+        } while (page.size() == 3);
+
+        List<UUID> expected = rows.stream().map(PostRankRow::getId).collect(Collectors.toList());
+        Collections.reverse(expected);
+        assertEquals(expected, seen);
+    }
+
+    @Test
+    void recordVote_movesPostAboveOthers() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        when(postRepository.findRankRowsCreatedSince(any(LocalDateTime.class))).thenReturn(Arrays.asList(
+                new PostRankRow(first, "aww", 10, 0, NOW),
+                new PostRankRow(second, "aww", 5, 0, NOW)));
+        rankingService.rebuild();
+
+        rankingService.recordVote(second, 100, 0);
+
+        assertEquals(Arrays.asList(second, first), hotIds(Collections.singletonList("aww"), 10));
+    }
+
+    @Test
+    void track_withEditedPost_movesItToTheNewSubredditKeepingItsVotes() {
+        UUID id = UUID.randomUUID();
+        when(postRepository.findRankRowsCreatedSince(any(LocalDateTime.class)))
+                .thenReturn(Collections.singletonList(new PostRankRow(id, "aww", 10, 0, NOW)));
+        rankingService.rebuild();
+        rankingService.recordVote(id, 5, 0);
+
+        Post post = post(id, "eli5");
+        rankingService.track(post);
+
+        assertTrue(hotIds(Collections.singletonList("aww"), 10).isEmpty());
+        List<FeedCursor> page = rankingService.hotPosts(
+                Collections.singletonList("eli5"), FeedCursor.first(FeedOrder.HOT), 10);
+        assertEquals(1, page.size());
+        assertEquals(RankingServiceImpl.hotScore(15, 0, NOW), page.get(0).getHot(), 1e-9);
+    }
+
+    @Test
+    void untrack_removesPost() {
+        Post post = post(UUID.randomUUID(), "aww");
+        rankingService.track(post);
+
+        rankingService.untrack(post.getId());
+
+        assertTrue(hotIds(null, 10).isEmpty());
+    }
+
+    @Test
+    void rebuild_dropsPostsOlderThanTheWindow() {
+        Post post = post(UUID.randomUUID(), "aww");
+        post.setCreatedOn(NOW.minusDays(31));
+        rankingService.track(post);
+        when(postRepository.findRankRowsCreatedSince(any(LocalDateTime.class))).thenReturn(new ArrayList<>());
+
+        rankingService.rebuild();
+
+        assertTrue(hotIds(null, 10).isEmpty());
+    }
+
+    @Test
+    void recordVote_isCountedOnceOnEveryNode() {
+        InMemoryClusterBus clusterBus = new InMemoryClusterBus();
+        RankingService node = new RankingServiceImpl(postRepository, clusterBus);
+        RankingService otherNode = new RankingServiceImpl(postRepository, clusterBus);
+        Post post = post(UUID.randomUUID(), "aww");
+        node.track(post);
+
+        node.recordVote(post.getId(), 10, 0);
+
+        double expected = RankingServiceImpl.hotScore(10, 0, NOW);
+        assertEquals(expected, node.hotPosts(null, FeedCursor.first(FeedOrder.HOT), 10).get(0).getHot(), 1e-9);
+        assertEquals(expected, otherNode.hotPosts(null, FeedCursor.first(FeedOrder.HOT), 10).get(0).getHot(), 1e-9);
+    }
+
+    @Test
+    void untrack_removesPostFromEveryNode() {
+        InMemoryClusterBus clusterBus = new InMemoryClusterBus();
+        RankingService node = new RankingServiceImpl(postRepository, clusterBus);
+        RankingService otherNode = new RankingServiceImpl(postRepository, clusterBus);
+        Post post = post(UUID.randomUUID(), "aww");
+        node.track(post);
+        assertEquals(1, otherNode.hotPosts(null, FeedCursor.first(FeedOrder.HOT), 10).size());
+
+        node.untrack(post.getId());
+
+        assertTrue(otherNode.hotPosts(null, FeedCursor.first(FeedOrder.HOT), 10).isEmpty());
+    }
+
+    private List<UUID> hotIds(Collection<String> subreddits, int limit) {
+        return rankingService.hotPosts(subreddits, FeedCursor.first(FeedOrder.HOT), limit)
+                .stream()
+                .map(FeedCursor::getId)
+                .collect(Collectors.toList());
+    }
+
+    private static Post post(UUID id, String subredditTitle) {
+        Subreddit subreddit = new Subreddit();
+        subreddit.setTitle(subredditTitle);
+
+        Post post = new Post();
+        post.setId(id);
+        post.setSubreddit(subreddit);
+        post.setCreatedOn(NOW);
+        return post;
+    }
+}
@@ -1,6 +1,7 @@
 package notreddit.services;
 
 import notreddit.SingletonModelMapper;
+import notreddit.cache.TaggedCacheManager;
 import notreddit.data.entities.Subreddit;
 import notreddit.data.entities.User;
 import notreddit.data.models.requests.SubredditCreateRequest;
@@ -27,15 +28,18 @@ class SubredditServiceImplTest {
     private SubredditService subredditService;
     private UserRepository userRepository;
     private SubredditRepository subredditRepository;
+    private TaggedCacheManager cacheManager;
 
     @BeforeEach
     void setUp() {
         RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
         subredditRepository = mock(SubredditRepository.class);
         userRepository = mock(UserRepository.class);
+        cacheManager = mock(TaggedCacheManager.class);
         subredditService = new SubredditServiceImpl(
                 subredditRepository,
                 userRepository,
+                cacheManager,
                 SingletonModelMapper.mapper());
     }
 
@@ -0,0 +1,222 @@
+package notreddit.services;
+
+import notreddit.data.entities.Post;
+import notreddit.data.entities.Subreddit;
+import notreddit.data.enums.FeedOrder;
+import notreddit.repositories.PostRepository;
+import notreddit.services.implementations.TimelineServiceImpl;
+import notreddit.util.FeedCursor;
+import notreddit.web.broker.InMemoryClusterBus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TimelineServiceImplTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.now();
+
+    private PostRepository postRepository;
+    private InMemoryClusterBus clusterBus;
+    private TimelineService timelineService;
+
+    @BeforeEach
+    void setUp() {
+        postRepository = mock(PostRepository.class);
+        when(postRepository.findNewestPerSubreddit(anyInt())).thenReturn(new ArrayList<>());
+        clusterBus = new InMemoryClusterBus();
+        timelineService = new TimelineServiceImpl(postRepository, clusterBus);
+    }
+
+    @Test
+    void newestPosts_mergesSubscribedTimelinesNewestFirst() {
+        Post oldest = post("aww", NOW.minusHours(3));
+        Post middle = post("eli5", NOW.minusHours(2));
+        Post newest = post("aww", NOW.minusHours(1));
+        Post notSubscribed = post("bjj", NOW);
+        Arrays.asList(oldest, middle, newest, notSubscribed).forEach(timelineService::track);
+
+        List<UUID> page = ids(timelineService.newestPosts(
+                Arrays.asList("aww", "ELI5"), FeedCursor.first(FeedOrder.NEW), 10));
+
+        assertEquals(Arrays.asList(newest.getId(), middle.getId(), oldest.getId()), page);
+    }
+
+    @Test
+    void newestPosts_afterCursor_continuesWhereThePreviousPageStopped() {
+        List<Post> posts = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            Post post = post(i % 2 == 0 ? "aww" : "eli5", NOW.minusMinutes(i));
+            posts.add(post);
+            timelineService.track(post);
+        }
+
+        List<UUID> seen = new ArrayList<>();
+        FeedCursor cursor = FeedCursor.first(FeedOrder.NEW);
+        List<FeedCursor> page;
+        do {
+            page = timelineService.newestPosts(null, cursor, 3).orElseThrow(NoSuchElementException::new);
+            page.forEach(position -> seen.add(position.getId()));
+            if (!page.isEmpty()) {
+                cursor = page.get(page.size() - 1);
+            }
+        } while (page.size() == 3);
+
+        assertEquals(posts.stream().map(Post::getId).collect(Collectors.toList()), seen);
+    }
+
+    @Test
+    void newestPosts_withSameCreationTime_ordersByIdLikePostgres() {
+        Post low = post("aww", NOW);
+        low.setId(UUID.fromString("00000000-0000-0000-0000-000000000001"));
+        Post high = post("aww", NOW);
+        high.setId(UUID.fromString("f0000000-0000-0000-0000-000000000000"));
+        timelineService.track(low);
+        timelineService.track(high);
+
+        List<UUID> page = ids(timelineService.newestPosts(null, FeedCursor.first(FeedOrder.NEW), 10));
+
+        assertEquals(Arrays.asList(high.getId(), low.getId()), page);
+    }
+
+    @Test
+    void newestPosts_withPageReachingPastAFullTimeline_returnsEmpty() {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            rows.add(new Object[]{UUID.randomUUID().toString(), "Aww", Timestamp.valueOf(NOW.minusMinutes(i))});
+        }
+        when(postRepository.findNewestPerSubreddit(anyInt())).thenReturn(rows);
+        timelineService.rebuild();
+
+        assertEquals(10, timelineService.newestPosts(
+                Collections.singletonList("aww"), FeedCursor.first(FeedOrder.NEW), 10).get().size());
+        assertFalse(timelineService.newestPosts(
+                Collections.singletonList("aww"), FeedCursor.first(FeedOrder.NEW), 1001).isPresent());
+    }
+
+    @Test
+    void track_overCapacity_dropsOldestAndFallsBackPastIt() {
+        Post oldest = post("aww", NOW.minusYears(1));
+        timelineService.track(oldest);
+        for (int i = 0; i < 1000; i++) {
+            timelineService.track(post("aww", NOW.minusMinutes(i)));
+        }
+
+        List<UUID> page = ids(timelineService.newestPosts(null, FeedCursor.first(FeedOrder.NEW), 1000));
+        assertEquals(1000, page.size());
+        assertFalse(page.contains(oldest.getId()));
+        assertFalse(timelineService.newestPosts(null, FeedCursor.first(FeedOrder.NEW), 1001).isPresent());
+    }
+
+    @Test
+    void track_withEditedPost_movesItToTheNewSubreddit() {
+        Post post = post("aww", NOW);
+        timelineService.track(post);
+        post.getSubreddit().setTitle("eli5");
+
+        timelineService.track(post);
+
+        assertTrue(ids(timelineService.newestPosts(
+                Collections.singletonList("aww"), FeedCursor.first(FeedOrder.NEW), 10)).isEmpty());
+        assertEquals(1, ids(timelineService.newestPosts(
+                Collections.singletonList("eli5"), FeedCursor.first(FeedOrder.NEW), 10)).size());
+    }
+
+    @Test
+    void untrack_removesPost() {
+        Post post = post("aww", NOW);
+        timelineService.track(post);
+
+        timelineService.untrack(post.getId());
+
+        assertTrue(ids(timelineService.newestPosts(null, FeedCursor.first(FeedOrder.NEW), 10)).isEmpty());
+    }
+
+    @Test
+    void track_isPublishedToTheOtherNodes() {
+        TimelineService otherNode = new TimelineServiceImpl(postRepository, clusterBus);
+        Post post = post("Aww", NOW);
+
+        timelineService.track(post);
+
+        assertEquals(Collections.singletonList(post.getId()), ids(otherNode.newestPosts(
+                Collections.singletonList("aww"), FeedCursor.first(FeedOrder.NEW), 10)));
+    }
+
+    @Test
+    void untrack_isPublishedToTheOtherNodes() {
+        TimelineService otherNode = new TimelineServiceImpl(postRepository, clusterBus);
+        Post post = post("aww", NOW);
+        timelineService.track(post);
+
+        timelineService.untrack(post.getId());
+
+        assertTrue(ids(otherNode.newestPosts(null, FeedCursor.first(FeedOrder.NEW), 10)).isEmpty());
+    }
+
+    @Test
+    void track_inTransaction_isPublishedOnlyAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            timelineService.track(post("aww", NOW));
+            assertTrue(clusterBus.published().isEmpty());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertEquals(1, clusterBus.published().size());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void receive_ignoresTheMessagesOfTheFanOut() {
+        clusterBus.publish(UUID.randomUUID() + "\n/topic/public\napplication/json\n{}");
+
+        assertTrue(ids(timelineService.newestPosts(null, FeedCursor.first(FeedOrder.NEW), 10)).isEmpty());
+    }
+
+    @Test
+    void reload_addsPostsCreatedAndDropsPostsDeletedOnOtherNodes() {
+        Post deleted = post("aww", NOW.minusHours(1));
+        Post justCreated = post("aww", NOW);
+        timelineService.track(deleted);
+        timelineService.track(justCreated);
+        UUID createdElsewhere = UUID.randomUUID();
+        when(postRepository.findNewestPerSubreddit(anyInt())).thenReturn(Collections.singletonList(
+                new Object[]{createdElsewhere.toString(), "aww", Timestamp.valueOf(NOW.minusMinutes(30))}));
+
+        ((TimelineServiceImpl) timelineService).reload();
+
+        // the post created a moment ago may not have been committed when the reload read the timelines
+        assertEquals(Arrays.asList(justCreated.getId(), createdElsewhere),
+                ids(timelineService.newestPosts(null, FeedCursor.first(FeedOrder.NEW), 10)));
+    }
+
+    private static List<UUID> ids(Optional<List<FeedCursor>> page) {
+        return page.orElseThrow(NoSuchElementException::new)
+                .stream()
+                .map(FeedCursor::getId)
+                .collect(Collectors.toList());
+    }
+
+    private static Post post(String subredditTitle, LocalDateTime createdOn) {
+        Subreddit subreddit = new Subreddit();
+        subreddit.setTitle(subredditTitle);
+
+        Post post = new Post();
+        post.setId(UUID.randomUUID());
+        post.setSubreddit(subreddit);
+        post.setCreatedOn(createdOn);
+        return post;
+    }
+}
@@ -0,0 +1,131 @@
+package notreddit.services;
+
+import notreddit.repositories.UserRepository;
+import notreddit.services.implementations.TokenVersionServiceImpl;
+import notreddit.web.broker.ClusterBus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TokenVersionServiceImplTest {
+
+    private UserRepository userRepository;
+    private LocalBus clusterBus;
+    private TokenVersionService tokenVersionService;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        clusterBus = new LocalBus();
+        tokenVersionService = new TokenVersionServiceImpl(userRepository, clusterBus);
+    }
+
+    @Test
+    void isCurrent_withUserThatWasNeverRevoked_acceptsOnlyFirstVersion() {
+        UUID userId = UUID.randomUUID();
+
+        assertTrue(tokenVersionService.isCurrent(userId, 0));
+        assertFalse(tokenVersionService.isCurrent(userId, 1));
+    }
+
+    @Test
+    void rebuild_loadsRevokedVersions() {
+        UUID userId = UUID.randomUUID();
+        when(userRepository.findRevokedTokenVersions())
+                .thenReturn(Collections.singletonList(new Object[]{userId, 2}));
+
+        tokenVersionService.rebuild();
+
+        assertFalse(tokenVersionService.isCurrent(userId, 0));
+        assertTrue(tokenVersionService.isCurrent(userId, 2));
+    }
+
+    @Test
+    void update_withOlderVersion_keepsNewerOne() {
+        UUID userId = UUID.randomUUID();
+
+        tokenVersionService.update(userId, 3);
+        tokenVersionService.update(userId, 2);
+
+        assertTrue(tokenVersionService.isCurrent(userId, 3));
+        assertFalse(tokenVersionService.isCurrent(userId, 2));
+    }
+
+    @Test
+    void update_isPublishedToTheOtherNodes() {
+        UUID userId = UUID.randomUUID();
+        TokenVersionService otherNode = new TokenVersionServiceImpl(userRepository, clusterBus);
+
+        tokenVersionService.update(userId, 1);
+
+        assertFalse(otherNode.isCurrent(userId, 0));
+        assertTrue(otherNode.isCurrent(userId, 1));
+    }
+
+    @Test
+    void update_inTransaction_isPublishedOnlyAfterCommit() {
+        UUID userId = UUID.randomUUID();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            tokenVersionService.update(userId, 1);
+            assertTrue(clusterBus.published.isEmpty());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertEquals(1, clusterBus.published.size());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void receive_ignoresTheMessagesOfTheFanOut() {
+        UUID userId = UUID.randomUUID();
+
+        clusterBus.publish(UUID.randomUUID() + "\n/topic/public\napplication/json\n{}");
+
+        assertTrue(tokenVersionService.isCurrent(userId, 0));
+    }
+
+    @Test
+    void reload_picksUpVersionsRevokedOnOtherNodes() {
+        UUID userId = UUID.randomUUID();
+        tokenVersionService.rebuild();
+        when(userRepository.findRevokedTokenVersions())
+                .thenReturn(Collections.singletonList(new Object[]{userId, 1}));
+
+        ((TokenVersionServiceImpl) tokenVersionService).reload();
+
+        assertTrue(tokenVersionService.isCurrent(userId, 1));
+    }
+
+    private static class LocalBus implements ClusterBus {
+
+        private final List<String> published = new ArrayList<>();
+        private final List<Consumer<String>> listeners = new ArrayList<>();
+
+        @Override
+        public void publish(String message) {
+            published.add(message);
+            listeners.forEach(listener -> listener.accept(message));
+        }
+
+        @Override
+        public void subscribe(Consumer<String> listener) {
+            listeners.add(listener);
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package notreddit.services;
+
+import notreddit.cache.TaggedCacheManager;
+import notreddit.data.entities.File;
+import notreddit.data.entities.Post;
+import notreddit.data.enums.FileStatus;
+import notreddit.data.models.responses.post.FileStatusResponseModel;
+import notreddit.repositories.FileRepository;
+import notreddit.services.implementations.UploadServiceImpl;
+import notreddit.util.SpooledFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class UploadServiceImplTest {
+
+    private CloudStorage cloudStorage;
+    private ThumbnailService thumbnailService;
+    private FileRepository fileRepository;
+    private TaggedCacheManager cacheManager;
+    private SimpMessageSendingOperations messagingTemplate;
+    private List<Runnable> queued;
+    private UploadService uploadService;
+
+    @BeforeEach
+    void setUp() {
+        cloudStorage = mock(CloudStorage.class);
+        thumbnailService = mock(ThumbnailService.class);
+        fileRepository = mock(FileRepository.class);
+        cacheManager = mock(TaggedCacheManager.class);
+        messagingTemplate = mock(SimpMessageSendingOperations.class);
+        queued = new ArrayList<>();
+        uploadService = createUploadService(queued::add, 2);
+
+        when(fileRepository.updateUpload(any(UUID.class), any(), any(), any(FileStatus.class))).thenReturn(1);
+    }
+
+    @Test
+    void reserve_spoolsFileToDisk() throws Exception {
+        SpooledFile spooled = uploadService.reserve(file("image/jpeg")).orElseThrow(AssertionError::new);
+
+        assertArrayEquals("content".getBytes(), Files.readAllBytes(spooled.getPath()));
+        assertEquals("cat.jpg", spooled.getOriginalFilename());
+        assertEquals("image/jpeg", spooled.getContentType());
+        uploadService.cancel(spooled);
+        assertFalse(Files.exists(spooled.getPath()));
+    }
+
+    @Test
+    void reserve_withAllSlotsTaken_returnsEmptyUntilOneIsFreed() {
+        SpooledFile first = uploadService.reserve(file("image/jpeg")).orElseThrow(AssertionError::new);
+        uploadService.reserve(file("image/jpeg")).orElseThrow(AssertionError::new);
+
+        assertFalse(uploadService.reserve(file("image/jpeg")).isPresent());
+
+        uploadService.cancel(first);
+        assertTrue(uploadService.reserve(file("image/jpeg")).isPresent());
+    }
+
+    @Test
+    void start_withImage_uploadsAndMarksFileReady() throws Exception {
+        Post post = post();
+        when(cloudStorage.uploadFileAndGetParams(any(InputStream.class), eq("cat.jpg"), eq("image/jpeg")))
+                .thenReturn(params("url", "image/jpeg"));
+        SpooledFile spooled = uploadService.reserve(file("image/jpeg")).orElseThrow(AssertionError::new);
+
+        uploadService.start(post, spooled);
+        verify(cloudStorage, never()).uploadFileAndGetParams(any(InputStream.class), any(), any());
+        queued.forEach(Runnable::run);
+
+        verify(fileRepository).updateUpload(post.getId(), "url", "url", FileStatus.READY);
+        verify(cacheManager).evictTagged("post:" + post.getId());
+        verify(thumbnailService, never()).generateThumbnailUrl(any());
+        assertFalse(Files.exists(spooled.getPath()));
+
+        ArgumentCaptor<FileStatusResponseModel> captor = ArgumentCaptor.forClass(FileStatusResponseModel.class);
+        verify(messagingTemplate).convertAndSend(eq(UploadServiceImpl.UPLOADS_TOPIC + post.getId()), captor.capture());
+        assertEquals(FileStatus.READY.name(), captor.getValue().getStatus());
+    }
+
+    @Test
+    void start_withImageInStorageRenderingThumbnails_usesRenderedThumbnail() {
+        Post post = post();
+        when(cloudStorage.uploadFileAndGetParams(any(InputStream.class), any(), any()))
+                .thenReturn(params("url", "image/jpeg"));
+        when(thumbnailService.generateImageThumbnailUrl("url")).thenReturn(Optional.of("url/thumbnails/320"));
+
+        uploadService.start(post, uploadService.reserve(file("image/jpeg")).orElseThrow(AssertionError::new));
+        queued.forEach(Runnable::run);
+
+        verify(fileRepository).updateUpload(post.getId(), "url", "url/thumbnails/320", FileStatus.READY);
+    }
+
+    @Test
+    void start_withOtherFile_generatesThumbnail() {
+        Post post = post();
+        when(cloudStorage.uploadFileAndGetParams(any(InputStream.class), any(), any()))
+                .thenReturn(params("url", "application/pdf"));
+        when(thumbnailService.generateThumbnailUrl("url")).thenReturn("thumbnail");
+
+        uploadService.start(post, uploadService.reserve(file("application/pdf")).orElseThrow(AssertionError::new));
+        queued.forEach(Runnable::run);
+
+        verify(fileRepository).updateUpload(post.getId(), "url", "thumbnail", FileStatus.READY);
+    }
+
+    @Test
+    void start_whenUploadFails_marksFileFailedAndFreesSlot() {
+        uploadService = createUploadService(Runnable::run, 1);
+        Post post = post();
+        when(cloudStorage.uploadFileAndGetParams(any(InputStream.class), any(), any()))
+                .thenThrow(new IllegalStateException("dropbox is down"));
+
+        uploadService.start(post, uploadService.reserve(file("image/jpeg")).orElseThrow(AssertionError::new));
+
+        verify(fileRepository).updateUpload(post.getId(), null, null, FileStatus.FAILED);
+        assertTrue(uploadService.reserve(file("image/jpeg")).isPresent());
+    }
+
+    @Test
+    void start_whenPostWasDeletedMeanwhile_removesUploadedFile() {
+        uploadService = createUploadService(Runnable::run, 1);
+        Post post = post();
+        when(cloudStorage.uploadFileAndGetParams(any(InputStream.class), any(), any()))
+                .thenReturn(params("url", "image/jpeg"));
+        when(fileRepository.updateUpload(any(UUID.class), any(), any(), any(FileStatus.class))).thenReturn(0);
+
+        uploadService.start(post, uploadService.reserve(file("image/jpeg")).orElseThrow(AssertionError::new));
+
+        verify(cloudStorage).removeFile("url");
+        verifyNoInteractions(messagingTemplate);
+    }
+
+    @Test
+    void start_whenExecutorRejects_marksFileFailed() {
+        uploadService = createUploadService(task -> {
+            throw new RejectedExecutionException();
+        }, 1);
+        Post post = post();
+
+        uploadService.start(post, uploadService.reserve(file("image/jpeg")).orElseThrow(AssertionError::new));
+
+        verify(fileRepository).updateUpload(post.getId(), null, null, FileStatus.FAILED);
+        assertTrue(uploadService.reserve(file("image/jpeg")).isPresent());
+    }
+
+    @Test
+    void getStatus_withExistingFile_returnsIt() {
+        UUID postId = UUID.randomUUID();
+        File file = new File();
+        file.setStatus(FileStatus.PROCESSING);
+        when(fileRepository.findById(postId)).thenReturn(Optional.of(file));
+
+        ResponseEntity<?> response = uploadService.getStatus(postId);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(FileStatus.PROCESSING.name(), ((FileStatusResponseModel) response.getBody()).getStatus());
+    }
+
+    @Test
+    void getStatus_withNonExistentFile_returnsBadRequest() {
+        when(fileRepository.findById(any(UUID.class))).thenReturn(Optional.empty());
+
+        assertEquals(HttpStatus.BAD_REQUEST, uploadService.getStatus(UUID.randomUUID()).getStatusCode());
+    }
+
+    private UploadService createUploadService(Executor executor, int capacity) {
+        return new UploadServiceImpl(cloudStorage, thumbnailService, fileRepository, cacheManager,
+                messagingTemplate, executor, capacity);
+    }
+
+    private static MockMultipartFile file(String contentType) {
+        return new MockMultipartFile("file", "cat.jpg", contentType, "content".getBytes());
+    }
+
+    private static Post post() {
+        Post post = new Post();
+        post.setId(UUID.randomUUID());
+        return post;
+    }
+
+    private static Map<String, Object> params(String url, String contentType) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("url", url);
+        params.put("contentType", contentType);
+        return params;
+    }
+}
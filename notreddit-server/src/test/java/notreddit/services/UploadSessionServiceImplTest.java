@@ -0,0 +1,200 @@
+package notreddit.services;
+
+import notreddit.data.entities.User;
+import notreddit.data.models.requests.UploadSessionRequest;
+import notreddit.data.models.responses.upload.UploadSessionResponseModel;
+import notreddit.services.implementations.UploadSessionServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class UploadSessionServiceImplTest {
+
+    private static final Map<String, Object> PARAMS = Collections.singletonMap("url", "file:/stored.mp4");
+
+    // reads the chunk to its end like a storage would
+    private static final Answer<Void> DRAIN = invocation -> {
+        InputStream content = invocation.getArgument(2);
+        while (content.read() != -1) {
+            // nothing to keep
+        }
+        return null;
+    };
+
+    private CloudStorage cloudStorage;
+    private AtomicLong now;
+    private UploadSessionService uploadSessionService;
+    private User user;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        cloudStorage = mock(CloudStorage.class);
+        when(cloudStorage.startUploadSession()).thenReturn("storage-session");
+        doAnswer(DRAIN).when(cloudStorage).appendToUploadSession(anyString(), anyLong(), any(InputStream.class));
+        when(cloudStorage.finishUploadSession(anyString(), anyLong(), anyString(), anyString())).thenReturn(PARAMS);
+        now = new AtomicLong();
+        uploadSessionService = new UploadSessionServiceImpl(cloudStorage, 1, now::get);
+        user = new User();
+        user.setId(UUID.randomUUID());
+    }
+
+    private UUID open(long size) {
+        UploadSessionRequest request = new UploadSessionRequest();
+        request.setFilename("video.mp4");
+        request.setContentType("video/mp4");
+        request.setSize(size);
+
+        ResponseEntity<?> response = uploadSessionService.open(request, user);
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        return UUID.fromString(((UploadSessionResponseModel) response.getBody()).getSessionId());
+    }
+
+    private ResponseEntity<?> append(UUID sessionId, long offset, String chunk) {
+        return uploadSessionService.append(
+                sessionId, offset, chunk.length(), new ByteArrayInputStream(chunk.getBytes()), user);
+    }
+
+    @Test
+    void open_withFileOverTheLimit_returnsBadRequest() throws IOException {
+        UploadSessionRequest request = new UploadSessionRequest();
+        request.setFilename("video.mp4");
+        request.setSize(1024 * 1024 + 1);
+
+        ResponseEntity<?> response = uploadSessionService.open(request, user);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verify(cloudStorage, never()).startUploadSession();
+    }
+
+    @Test
+    void append_withAllChunks_advancesOffsetAndFinishesWithLastByte() throws IOException {
+        UUID sessionId = open(10);
+
+        ResponseEntity<?> first = append(sessionId, 0, "01234");
+        assertEquals(HttpStatus.OK, first.getStatusCode());
+        assertEquals(5, ((UploadSessionResponseModel) first.getBody()).getOffset());
+        assertFalse(((UploadSessionResponseModel) first.getBody()).isCompleted());
+
+        ResponseEntity<?> last = append(sessionId, 5, "56789");
+        assertEquals(10, ((UploadSessionResponseModel) last.getBody()).getOffset());
+        assertTrue(((UploadSessionResponseModel) last.getBody()).isCompleted());
+
+        verify(cloudStorage).appendToUploadSession(eq("storage-session"), eq(0L), any(InputStream.class));
+        verify(cloudStorage).appendToUploadSession(eq("storage-session"), eq(5L), any(InputStream.class));
+        verify(cloudStorage).finishUploadSession("storage-session", 10, "video.mp4", "video/mp4");
+    }
+
+    @Test
+    void append_atWrongOffset_returnsConflictWithCurrentOffset() throws IOException {
+        UUID sessionId = open(10);
+        append(sessionId, 0, "01234");
+
+        ResponseEntity<?> response = append(sessionId, 2, "23456");
+
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        assertEquals(5, ((UploadSessionResponseModel) response.getBody()).getOffset());
+        verify(cloudStorage, never()).appendToUploadSession(anyString(), eq(2L), any(InputStream.class));
+    }
+
+    @Test
+    void append_whenStorageFails_keepsOffsetSoTheChunkCanBeResent() throws IOException {
+        UUID sessionId = open(5);
+        doThrow(new IOException("connection reset"))
+                .doAnswer(DRAIN)
+                .when(cloudStorage).appendToUploadSession(anyString(), anyLong(), any(InputStream.class));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, append(sessionId, 0, "01234").getStatusCode());
+        UploadSessionResponseModel status =
+                (UploadSessionResponseModel) uploadSessionService.getStatus(sessionId, user).getBody();
+        assertEquals(0, status.getOffset());
+
+        assertEquals(HttpStatus.OK, append(sessionId, 0, "01234").getStatusCode());
+    }
+
+    @Test
+    void append_withChunkLongerThanTheRestOfTheFile_returnsBadRequest() throws IOException {
+        UUID sessionId = open(4);
+
+        ResponseEntity<?> response = append(sessionId, 0, "01234");
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verify(cloudStorage, never()).appendToUploadSession(anyString(), anyLong(), any(InputStream.class));
+    }
+
+    @Test
+    void append_withChunkOfUnknownLengthRunningPastTheFile_returnsBadRequest() throws IOException {
+        UUID sessionId = open(4);
+
+        ResponseEntity<?> response = uploadSessionService.append(
+                sessionId, 0, -1, new ByteArrayInputStream("01234".getBytes()), user);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        UploadSessionResponseModel status =
+                (UploadSessionResponseModel) uploadSessionService.getStatus(sessionId, user).getBody();
+        assertEquals(0, status.getOffset());
+    }
+
+    @Test
+    void append_toSessionOfAnotherUser_returnsBadRequest() {
+        UUID sessionId = open(5);
+        User other = new User();
+        other.setId(UUID.randomUUID());
+
+        ResponseEntity<?> response = uploadSessionService.append(
+                sessionId, 0, 5, new ByteArrayInputStream("01234".getBytes()), other);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    @Test
+    void takeCompleted_handsOutTheFileOnlyOnce() {
+        UUID sessionId = open(5);
+        assertEquals(Optional.empty(), uploadSessionService.takeCompleted(sessionId, user));
+
+        append(sessionId, 0, "01234");
+
+        assertEquals(Optional.of(PARAMS), uploadSessionService.takeCompleted(sessionId, user));
+        assertEquals(Optional.empty(), uploadSessionService.takeCompleted(sessionId, user));
+    }
+
+    @Test
+    void expireIdleSessions_abortsUnfinishedAndRemovesUnusedFiles() {
+        UUID unfinished = open(10);
+        UUID completed = open(5);
+        append(completed, 0, "01234");
+        now.addAndGet(Duration.ofMinutes(30).toMillis());
+        UUID recent = open(10);
+        now.addAndGet(Duration.ofMinutes(31).toMillis());
+
+        uploadSessionService.expireIdleSessions();
+
+        verify(cloudStorage).abortUploadSession("storage-session");
+        verify(cloudStorage).removeFile("file:/stored.mp4");
+        assertEquals(HttpStatus.BAD_REQUEST, uploadSessionService.getStatus(unfinished, user).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, uploadSessionService.getStatus(completed, user).getStatusCode());
+        assertEquals(HttpStatus.OK, uploadSessionService.getStatus(recent, user).getStatusCode());
+    }
+}
@@ -36,6 +36,7 @@ class UserServiceImplTest {
     private UserRepository userRepository;
     private RoleRepository roleRepository;
     private SubredditRepository subredditRepository;
+    private TokenVersionService tokenVersionService;
 
     private List<Role> getRoles() {
         Role rootRole = new Role();
@@ -72,10 +73,12 @@ class UserServiceImplTest {
         userRepository = mock(UserRepository.class);
         roleRepository = mock(RoleRepository.class);
         subredditRepository = mock(SubredditRepository.class);
+        tokenVersionService = mock(TokenVersionService.class);
         userService = new UserServiceImpl(
                 userRepository,
                 roleRepository,
                 subredditRepository,
+                tokenVersionService,
                 new BCryptPasswordEncoder(),
                 SingletonModelMapper.mapper());
     }
@@ -219,7 +222,9 @@ class UserServiceImplTest {
         userService.changeRole(request, root);
 
         verify(user).setRoles(roleCaptor.capture());
+        verify(user).revokeTokens();
         verify(userRepository).saveAndFlush(user);
+        verify(tokenVersionService).update(user.getId(), user.getTokenVersion());
         Set<String> roles = roleCaptor.getValue().parallelStream().map(Role::getAuthority).collect(Collectors.toSet());
         assertEquals(2, roles.size());
         assertTrue(roles.contains("ROLE_MODERATOR"));
@@ -287,7 +292,9 @@ class UserServiceImplTest {
         when(userRepository.findById(any(UUID.class))).thenReturn(Optional.of(userToDelete));
         userService.deleteUser(UUID.randomUUID().toString(), user);
 
+        verify(userToDelete).revokeTokens();
         verify(userRepository).saveAndFlush(userToDelete);
+        verify(tokenVersionService).update(userToDelete.getId(), userToDelete.getTokenVersion());
     }
 
     @Test
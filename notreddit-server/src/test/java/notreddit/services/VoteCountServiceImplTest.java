@@ -0,0 +1,213 @@
+package notreddit.services;
+
+import notreddit.cache.TaggedCacheManager;
+import notreddit.data.entities.PendingVote;
+import notreddit.repositories.PendingVoteRepository;
+import notreddit.services.implementations.VoteCountServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs against an in-memory pending_votes table, the claim deletes from it and returns what it deleted.
+ */
+class VoteCountServiceImplTest {
+
+    private static final String UPDATE_POST_VOTES =
+            "UPDATE posts SET upvotes = upvotes + ?, downvotes = downvotes + ? WHERE id = ?";
+    private static final String UPDATE_COMMENT_VOTES =
+            "UPDATE comments SET upvotes = upvotes + ?, downvotes = downvotes + ? WHERE id = ?";
+
+    private Map<UUID, PendingVote> pendingVotes;
+    private PendingVoteRepository pendingVoteRepository;
+    private JdbcTemplate jdbcTemplate;
+    private TaggedCacheManager cacheManager;
+    private VoteCountServiceImpl voteCountService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws Exception {
+        pendingVotes = new ConcurrentHashMap<>();
+        pendingVoteRepository = mock(PendingVoteRepository.class);
+        when(pendingVoteRepository.save(any(PendingVote.class))).thenAnswer(i -> {
+            PendingVote vote = i.getArgument(0);
+            vote.setId(UUID.randomUUID());
+            pendingVotes.put(vote.getId(), vote);
+            return vote;
+        });
+        when(pendingVoteRepository.findAll()).thenAnswer(i -> new ArrayList<>(pendingVotes.values()));
+
+        jdbcTemplate = mock(JdbcTemplate.class);
+        doAnswer(i -> {
+            RowCallbackHandler handler = i.getArgument(1);
+            for (int arg = 2; arg < i.getArguments().length; arg++) {
+                PendingVote vote = pendingVotes.remove((UUID) i.getArgument(arg));
+                if (vote != null) {
+                    handler.processRow(row(vote));
+                }
+            }
+            return null;
+        }).when(jdbcTemplate).query(startsWith("DELETE FROM pending_votes"), any(RowCallbackHandler.class), any());
+        cacheManager = mock(TaggedCacheManager.class);
+
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(i -> ((TransactionCallback<Object>) i.getArgument(0)).doInTransaction(null));
+
+        voteCountService = new VoteCountServiceImpl(
+                pendingVoteRepository,
+                jdbcTemplate,
+                transactionTemplate,
+                cacheManager);
+    }
+
+    @Test
+    void record_withNoChange_doesNotSavePendingVote() {
+        voteCountService.record(UUID.randomUUID(), null, 0, 0);
+
+        verify(pendingVoteRepository, never()).save(any(PendingVote.class));
+    }
+
+    @Test
+    void flush_withNothingRecorded_doesNotTouchDatabase() {
+        voteCountService.flush();
+
+        verifyNoInteractions(jdbcTemplate);
+        verifyNoInteractions(cacheManager);
+    }
+
+    @Test
+    void flush_withRecordedVotes_appliesSummedDeltasAndDeletesPendingVotes() {
+        UUID postId = UUID.randomUUID();
+        UUID commentId = UUID.randomUUID();
+
+        voteCountService.record(postId, null, 1, 0);
+        voteCountService.record(postId, null, -1, 1);
+        voteCountService.record(postId, null, 1, 0);
+        voteCountService.record(null, commentId, 0, 1);
+        voteCountService.flush();
+
+        verify(pendingVoteRepository, times(4)).save(any(PendingVote.class));
+
+        List<Object[]> postArgs = captureBatch(UPDATE_POST_VOTES);
+        assertEquals(1, postArgs.size());
+        assertArrayEquals(new Object[]{1, 1, postId}, postArgs.get(0));
+
+        List<Object[]> commentArgs = captureBatch(UPDATE_COMMENT_VOTES);
+        assertEquals(1, commentArgs.size());
+        assertArrayEquals(new Object[]{0, 1, commentId}, commentArgs.get(0));
+
+        assertTrue(pendingVotes.isEmpty());
+        verify(cacheManager).evictTagged(any());
+    }
+
+    @Test
+    void flush_afterSuccessfulFlush_doesNotApplyVotesAgain() {
+        voteCountService.record(UUID.randomUUID(), null, 1, 0);
+        voteCountService.flush();
+        voteCountService.flush();
+
+        verify(jdbcTemplate, times(1)).batchUpdate(eq(UPDATE_POST_VOTES), anyList());
+    }
+
+    @Test
+    void flush_withVotesAnotherNodeAlreadyApplied_appliesOnlyTheRemainingOnes() {
+        UUID postId = UUID.randomUUID();
+        voteCountService.record(postId, null, 1, 0);
+        voteCountService.record(postId, null, 1, 0);
+        // a restarted node replayed one of the rows in the meantime
+        pendingVotes.remove(pendingVotes.keySet().iterator().next());
+
+        voteCountService.flush();
+
+        assertArrayEquals(new Object[]{1, 0, postId}, captureBatch(UPDATE_POST_VOTES).get(0));
+    }
+
+    @Test
+    void flush_whenUpdateFails_retriesCountsWithNextFlush() {
+        UUID postId = UUID.randomUUID();
+        Map<UUID, PendingVote> claimed = new HashMap<>();
+        when(jdbcTemplate.batchUpdate(eq(UPDATE_POST_VOTES), anyList()))
+                .thenAnswer(i -> {
+                    // the failed transaction rolls back, the claimed rows are back
+                    pendingVotes.putAll(claimed);
+                    throw new QueryTimeoutException("timeout");
+                })
+                .thenReturn(new int[]{1});
+
+        voteCountService.record(postId, null, 1, 0);
+        claimed.putAll(pendingVotes);
+        voteCountService.flush();
+        voteCountService.record(postId, null, 1, 0);
+        voteCountService.flush();
+
+        ArgumentCaptor<List<Object[]>> captor = batchCaptor();
+        verify(jdbcTemplate, times(2)).batchUpdate(eq(UPDATE_POST_VOTES), captor.capture());
+        assertArrayEquals(new Object[]{2, 0, postId}, captor.getAllValues().get(1).get(0));
+        verify(cacheManager, times(1)).evictTagged(any());
+    }
+
+    @Test
+    void replayPendingVotes_withUnflushedVotes_appliesThem() {
+        UUID postId = UUID.randomUUID();
+        pendingVoteRepository.save(pendingVote(postId, 1, 0));
+        pendingVoteRepository.save(pendingVote(postId, 0, 1));
+
+        voteCountService.replayPendingVotes();
+
+        assertArrayEquals(new Object[]{1, 1, postId}, captureBatch(UPDATE_POST_VOTES).get(0));
+        assertTrue(pendingVotes.isEmpty());
+    }
+
+    @Test
+    void replayPendingVotes_withNoPendingVotes_doesNotTouchDatabase() {
+        voteCountService.replayPendingVotes();
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    private List<Object[]> captureBatch(String sql) {
+        ArgumentCaptor<List<Object[]>> captor = batchCaptor();
+        verify(jdbcTemplate).batchUpdate(eq(sql), captor.capture());
+        return captor.getValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private ArgumentCaptor<List<Object[]>> batchCaptor() {
+        return ArgumentCaptor.forClass(List.class);
+    }
+
+    private static ResultSet row(PendingVote vote) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getObject("post_id", UUID.class)).thenReturn(vote.getPostId());
+        when(rs.getObject("comment_id", UUID.class)).thenReturn(vote.getCommentId());
+        when(rs.getInt("upvotes")).thenReturn(vote.getUpvotes());
+        when(rs.getInt("downvotes")).thenReturn(vote.getDownvotes());
+        return rs;
+    }
+
+    private PendingVote pendingVote(UUID postId, int upvotes, int downvotes) {
+        PendingVote vote = new PendingVote();
+        vote.setPostId(postId);
+        vote.setUpvotes(upvotes);
+        vote.setDownvotes(downvotes);
+        vote.setCreatedOn(LocalDateTime.now());
+        return vote;
+    }
+}
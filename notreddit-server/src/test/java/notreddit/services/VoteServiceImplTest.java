@@ -1,17 +1,27 @@
 package notreddit.services;
 
-import notreddit.data.entities.*;
+import notreddit.cache.TaggedCacheManager;
+import notreddit.data.entities.CommentVote;
+import notreddit.data.entities.PostVote;
+import notreddit.data.entities.User;
+import notreddit.data.models.responses.api.ApiResponse;
 import notreddit.data.models.responses.post.PostVoteUserChoiceResponse;
 import notreddit.repositories.CommentRepository;
+import notreddit.repositories.CommentVoteRepository;
 import notreddit.repositories.PostRepository;
-import notreddit.repositories.VoteRepository;
+import notreddit.repositories.PostVoteRepository;
 import notreddit.services.implementations.VoteServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
@@ -21,12 +31,19 @@ import static org.junit.Assert.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyByte;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 class VoteServiceImplTest {
 
     @Mock
-    private VoteRepository voteRepository;
+    private PostVoteRepository postVoteRepository;
+
+    @Mock
+    private CommentVoteRepository commentVoteRepository;
 
     @Mock
     private PostRepository postRepository;
@@ -34,6 +51,18 @@ class VoteServiceImplTest {
     @Mock
     private CommentRepository commentRepository;
 
+    @Mock
+    private VoteCountService voteCountService;
+
+    @Mock
+    private RankingService rankingService;
+
+    @Mock
+    private PostUpdateService postUpdateService;
+
+    @Mock
+    private TaggedCacheManager cacheManager;
+
     @InjectMocks
     private VoteServiceImpl voteService;
 
@@ -41,385 +70,318 @@ class VoteServiceImplTest {
     void setUp() {
         RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
         MockitoAnnotations.initMocks(this);
+
+        TaggedCacheManager caches = new TaggedCacheManager(new ConcurrentMapCacheManager());
+        when(cacheManager.getCache(anyString())).thenAnswer(invocation -> caches.getCache(invocation.getArgument(0)));
     }
 
-    private List<Vote> createVotes(int count) {
-        List<Vote> votes = new ArrayList<>();
+    private List<PostVote> createPostVotes(int count) {
+        List<PostVote> votes = new ArrayList<>();
         for (int i = 0; i < count; i++) {
-            Post post = new Post();
-            post.setId(UUID.randomUUID());
-            Comment comment = new Comment();
-            comment.setId(UUID.randomUUID());
+            PostVote vote = new PostVote();
+            vote.setChoice(i % 2 == 0 ? (byte) 1 : (byte) -1);
+            vote.setPostId(UUID.randomUUID());
+            votes.add(vote);
+        }
+
+        return votes;
+    }
 
-            Vote vote = new Vote();
+    private List<CommentVote> createCommentVotes(int count) {
+        List<CommentVote> votes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            CommentVote vote = new CommentVote();
             vote.setChoice(i % 2 == 0 ? (byte) 1 : (byte) -1);
-            vote.setPost(post);
-            vote.setComment(comment);
+            vote.setCommentId(UUID.randomUUID());
             votes.add(vote);
         }
 
         return votes;
     }
 
-    @Test
-    void voteForPostOrComment_withPostAndSameVoteUpvotedChoice_shouldUpdatePostVotesAndDeleteVote() {
-        byte choice = 1;
+    private User user() {
         User user = mock(User.class);
         when(user.getId()).thenReturn(UUID.randomUUID());
+        return user;
+    }
 
-        Post post = mock(Post.class);
-        when(postRepository.findById(any(UUID.class))).thenReturn(Optional.of(post));
-
-        Vote vote = mock(Vote.class);
-        when(vote.getChoice()).thenReturn(choice);
-        when(voteRepository.findByPostIdAndUserId(any(UUID.class), any(UUID.class))).thenReturn(Optional.of(vote));
-
-        voteService.voteForPostOrComment(choice, UUID.randomUUID(), null, user);
-
-        verify(voteRepository).delete(vote);
-        verify(post).setUpvotes(any(int.class));
-        verify(post).getUpvotes();
-        verify(post, never()).setDownvotes(any(int.class));
-        verify(post, never()).getDownvotes();
-        verify(post, never()).upvote();
-        verify(post, never()).downvote();
-        verify(voteRepository, never()).findByCommentIdAndUserId(any(UUID.class), any(UUID.class));
-        verify(voteRepository, never()).saveAndFlush(any(Vote.class));
-        verify(commentRepository, never()).findById(any(UUID.class));
+    @Test
+    void voteForPostOrComment_withPostAndSameVoteUpvotedChoice_shouldUpdatePostVotesAndDeleteVote() {
+        UUID postId = UUID.randomUUID();
+        User user = user();
+        when(postRepository.existsById(postId)).thenReturn(true);
+        when(postVoteRepository.vote(postId, user.getId(), (byte) 1)).thenReturn(1);
+
+        ResponseEntity<?> response = voteService.voteForPostOrComment((byte) 1, postId, null, user);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(voteCountService).record(postId, null, -1, 0);
+        verify(rankingService).recordVote(postId, -1, 0);
+        verify(postUpdateService).recordVotes(postId, -1, 0);
+        verify(commentVoteRepository, never()).vote(any(UUID.class), any(UUID.class), anyByte());
+        verify(commentRepository, never()).existsById(any(UUID.class));
     }
 
     @Test
     void voteForPostOrComment_withPostAndSameVoteDownvotedChoice_shouldUpdatePostVotesAndDeleteVote() {
-        byte choice = -1;
-        User user = mock(User.class);
-        when(user.getId()).thenReturn(UUID.randomUUID());
-
-        Post post = mock(Post.class);
-        when(postRepository.findById(any(UUID.class))).thenReturn(Optional.of(post));
-
-        Vote vote = mock(Vote.class);
-        when(vote.getChoice()).thenReturn(choice);
-        when(voteRepository.findByPostIdAndUserId(any(UUID.class), any(UUID.class))).thenReturn(Optional.of(vote));
-
-        voteService.voteForPostOrComment(choice, UUID.randomUUID(), null, user);
-
-        verify(voteRepository).delete(vote);
-        verify(post).setDownvotes(any(int.class));
-        verify(post).getDownvotes();
-        verify(post, never()).setUpvotes(any(int.class));
-        verify(post, never()).getUpvotes();
-        verify(post, never()).upvote();
-        verify(post, never()).downvote();
-        verify(voteRepository, never()).findByCommentIdAndUserId(any(UUID.class), any(UUID.class));
-        verify(voteRepository, never()).saveAndFlush(any(Vote.class));
-        verify(commentRepository, never()).findById(any(UUID.class));
+        UUID postId = UUID.randomUUID();
+        User user = user();
+        when(postRepository.existsById(postId)).thenReturn(true);
+        when(postVoteRepository.vote(postId, user.getId(), (byte) -1)).thenReturn(-1);
+
+        ResponseEntity<?> response = voteService.voteForPostOrComment((byte) -1, postId, null, user);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(voteCountService).record(postId, null, 0, -1);
+        verify(rankingService).recordVote(postId, 0, -1);
+        verify(postUpdateService).recordVotes(postId, 0, -1);
+        verify(commentVoteRepository, never()).vote(any(UUID.class), any(UUID.class), anyByte());
+        verify(commentRepository, never()).existsById(any(UUID.class));
     }
 
     @Test
-    void voteForPostOrComment_withPostAndDifferentDownvotedChoice_shouldUpdatePostDownvotesUpvotePostAndSave() {
-        User user = mock(User.class);
-        when(user.getId()).thenReturn(UUID.randomUUID());
-
-        Post post = mock(Post.class);
-        when(postRepository.findById(any(UUID.class))).thenReturn(Optional.of(post));
-
-        Vote vote = mock(Vote.class);
-        when(vote.getChoice()).thenReturn((byte) -1);
-        when(voteRepository.findByPostIdAndUserId(any(UUID.class), any(UUID.class))).thenReturn(Optional.of(vote));
-
-        voteService.voteForPostOrComment((byte) 1, UUID.randomUUID(), null, user);
-
-        verify(vote).setChoice((byte) 1);
-        verify(post).setDownvotes(any(int.class));
-        verify(post).getDownvotes();
-        verify(post).upvote();
-        verify(voteRepository).saveAndFlush(any(Vote.class));
-        verify(post, never()).downvote();
-        verify(post, never()).setUpvotes(any(int.class));
-        verify(post, never()).getUpvotes();
-        verify(vote, never()).setPost(any(Votable.class));
-        verify(vote, never()).setComment(any(Votable.class));
-        verify(vote, never()).setUser(any(User.class));
-        verify(voteRepository, never()).delete(vote);
-        verify(voteRepository, never()).findByCommentIdAndUserId(any(UUID.class), any(UUID.class));
-        verify(commentRepository, never()).findById(any(UUID.class));
+    void voteForPostOrComment_withPostAndDifferentDownvotedChoice_shouldUpdatePostDownvotesAndUpvotePost() {
+        UUID postId = UUID.randomUUID();
+        User user = user();
+        when(postRepository.existsById(postId)).thenReturn(true);
+        when(postVoteRepository.vote(postId, user.getId(), (byte) 1)).thenReturn(-1);
+
+        ResponseEntity<?> response = voteService.voteForPostOrComment((byte) 1, postId, null, user);
+
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        verify(voteCountService).record(postId, null, 1, -1);
+        verify(rankingService).recordVote(postId, 1, -1);
+        verify(postUpdateService).recordVotes(postId, 1, -1);
+        verify(commentVoteRepository, never()).vote(any(UUID.class), any(UUID.class), anyByte());
+        verify(commentRepository, never()).existsById(any(UUID.class));
     }
 
     @Test
-    void voteForPostOrComment_withPostAndDifferentUpvotedChoice_shouldUpdatePostUpvotesDownvotePostAndSave() {
-        User user = mock(User.class);
-        when(user.getId()).thenReturn(UUID.randomUUID());
-
-        Post post = mock(Post.class);
-        when(postRepository.findById(any(UUID.class))).thenReturn(Optional.of(post));
-
-        Vote vote = mock(Vote.class);
-        when(vote.getChoice()).thenReturn((byte) 1);
-        when(voteRepository.findByPostIdAndUserId(any(UUID.class), any(UUID.class))).thenReturn(Optional.of(vote));
-
-        voteService.voteForPostOrComment((byte) -1, UUID.randomUUID(), null, user);
-
-        verify(vote).setChoice((byte) -1);
-        verify(post).setUpvotes(any(int.class));
-        verify(post).getUpvotes();
-        verify(post).downvote();
-        verify(voteRepository).saveAndFlush(any(Vote.class));
-        verify(post, never()).setDownvotes(any(int.class));
-        verify(post, never()).getDownvotes();
-        verify(post, never()).upvote();
-        verify(vote, never()).setPost(any(Votable.class));
-        verify(vote, never()).setComment(any(Votable.class));
-        verify(vote, never()).setUser(any(User.class));
-        verify(voteRepository, never()).delete(vote);
-        verify(voteRepository, never()).findByCommentIdAndUserId(any(UUID.class), any(UUID.class));
-        verify(commentRepository, never()).findById(any(UUID.class));
+    void voteForPostOrComment_withPostAndDifferentUpvotedChoice_shouldUpdatePostUpvotesAndDownvotePost() {
+        UUID postId = UUID.randomUUID();
+        User user = user();
+        when(postRepository.existsById(postId)).thenReturn(true);
+        when(postVoteRepository.vote(postId, user.getId(), (byte) -1)).thenReturn(1);
+
+        ResponseEntity<?> response = voteService.voteForPostOrComment((byte) -1, postId, null, user);
+
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        verify(voteCountService).record(postId, null, -1, 1);
+        verify(rankingService).recordVote(postId, -1, 1);
+        verify(postUpdateService).recordVotes(postId, -1, 1);
+        verify(commentVoteRepository, never()).vote(any(UUID.class), any(UUID.class), anyByte());
+        verify(commentRepository, never()).existsById(any(UUID.class));
     }
 
     @Test
-    void voteForPostOrComment_withPostNoVoteAndUpvotedChoice_shouldUpvotePostCreateVoteAndSaveIt() {
-        byte choice = 1;
-        User user = mock(User.class);
-        when(user.getId()).thenReturn(UUID.randomUUID());
-
-        Post post = mock(Post.class);
-        when(postRepository.findById(any(UUID.class))).thenReturn(Optional.of(post));
-        when(voteRepository.findByPostIdAndUserId(any(UUID.class), any(UUID.class))).thenReturn(Optional.empty());
-
-        voteService.voteForPostOrComment(choice, UUID.randomUUID(), null, user);
-
-        verify(post).upvote();
-        verify(voteRepository).saveAndFlush(any(Vote.class));
-        verify(post, never()).downvote();
-        verify(post, never()).setUpvotes(any(int.class));
-        verify(post, never()).getUpvotes();
-        verify(post, never()).setDownvotes(any(int.class));
-        verify(post, never()).getDownvotes();
-        verify(voteRepository, never()).delete(any(Vote.class));
-        verify(voteRepository, never()).findByCommentIdAndUserId(any(UUID.class), any(UUID.class));
-        verify(commentRepository, never()).findById(any(UUID.class));
+    void voteForPostOrComment_withPostNoVoteAndUpvotedChoice_shouldUpvotePost() {
+        UUID postId = UUID.randomUUID();
+        User user = user();
+        when(postRepository.existsById(postId)).thenReturn(true);
+        when(postVoteRepository.vote(postId, user.getId(), (byte) 1)).thenReturn(0);
+
+        ResponseEntity<?> response = voteService.voteForPostOrComment((byte) 1, postId, null, user);
+
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        verify(voteCountService).record(postId, null, 1, 0);
+        verify(rankingService).recordVote(postId, 1, 0);
+        verify(postUpdateService).recordVotes(postId, 1, 0);
+        verify(commentVoteRepository, never()).vote(any(UUID.class), any(UUID.class), anyByte());
+        verify(commentRepository, never()).existsById(any(UUID.class));
     }
 
     @Test
-    void voteForPostOrComment_withPostNoVoteAndDownvotedChoice_shouldDownvotePostCreateVoteAndSaveIt() {
-        byte choice = -1;
-        User user = mock(User.class);
-        when(user.getId()).thenReturn(UUID.randomUUID());
-
-        Post post = mock(Post.class);
-        when(postRepository.findById(any(UUID.class))).thenReturn(Optional.of(post));
-        when(voteRepository.findByPostIdAndUserId(any(UUID.class), any(UUID.class))).thenReturn(Optional.empty());
+    void voteForPostOrComment_withConcurrentSameFirstVote_shouldChangeNothing() {
+        UUID postId = UUID.randomUUID();
+        User user = user();
+        when(postRepository.existsById(postId)).thenReturn(true);
+        when(postVoteRepository.vote(postId, user.getId(), (byte) 1)).thenReturn(null);
+
+        ResponseEntity<?> response = voteService.voteForPostOrComment((byte) 1, postId, null, user);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(voteCountService, never()).record(any(UUID.class), any(), anyInt(), anyInt());
+        verify(rankingService, never()).recordVote(any(UUID.class), anyInt(), anyInt());
+        verify(postUpdateService, never()).recordVotes(any(UUID.class), anyInt(), anyInt());
+    }
 
-        voteService.voteForPostOrComment(choice, UUID.randomUUID(), null, user);
+    @Test
+    void voteForPostOrComment_withPostNoVoteAndDownvotedChoice_shouldDownvotePost() {
+        UUID postId = UUID.randomUUID();
+        User user = user();
+        when(postRepository.existsById(postId)).thenReturn(true);
+        when(postVoteRepository.vote(postId, user.getId(), (byte) -1)).thenReturn(0);
+
+        ResponseEntity<?> response = voteService.voteForPostOrComment((byte) -1, postId, null, user);
+
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        verify(voteCountService).record(postId, null, 0, 1);
+        verify(rankingService).recordVote(postId, 0, 1);
+        verify(postUpdateService).recordVotes(postId, 0, 1);
+        verify(commentVoteRepository, never()).vote(any(UUID.class), any(UUID.class), anyByte());
+        verify(commentRepository, never()).existsById(any(UUID.class));
+    }
 
-        verify(post).downvote();
-        verify(voteRepository).saveAndFlush(any(Vote.class));
-        verify(post, never()).upvote();
-        verify(post, never()).setUpvotes(any(int.class));
-        verify(post, never()).getUpvotes();
-        verify(post, never()).setDownvotes(any(int.class));
-        verify(post, never()).getDownvotes();
-        verify(voteRepository, never()).delete(any(Vote.class));
-        verify(voteRepository, never()).findByCommentIdAndUserId(any(UUID.class), any(UUID.class));
-        verify(commentRepository, never()).findById(any(UUID.class));
+    @Test
+    void voteForPostOrComment_inTransaction_movesTheRankingOnlyAfterCommit() {
+        UUID postId = UUID.randomUUID();
+        User user = user();
+        when(postRepository.existsById(postId)).thenReturn(true);
+        when(postVoteRepository.vote(postId, user.getId(), (byte) 1)).thenReturn(0);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            voteService.voteForPostOrComment((byte) 1, postId, null, user);
+            verify(rankingService, never()).recordVote(any(UUID.class), anyInt(), anyInt());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(rankingService).recordVote(postId, 1, 0);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
     }
 
     @Test
     void voteForPostOrComment_withCommentAndSameVoteUpvotedChoice_shouldUpdatePostVotesAndDeleteVote() {
-        byte choice = 1;
-        User user = mock(User.class);
-        when(user.getId()).thenReturn(UUID.randomUUID());
-
-        Comment comment = mock(Comment.class);
-        when(commentRepository.findById(any(UUID.class))).thenReturn(Optional.of(comment));
-
-        Vote vote = mock(Vote.class);
-        when(vote.getChoice()).thenReturn(choice);
-        when(voteRepository.findByCommentIdAndUserId(any(UUID.class), any(UUID.class))).thenReturn(Optional.of(vote));
-
-        voteService.voteForPostOrComment(choice, null, UUID.randomUUID(), user);
-
-        verify(voteRepository).delete(vote);
-        verify(comment).setUpvotes(any(int.class));
-        verify(comment).getUpvotes();
-        verify(comment, never()).setDownvotes(any(int.class));
-        verify(comment, never()).getDownvotes();
-        verify(comment, never()).upvote();
-        verify(comment, never()).downvote();
-        verify(voteRepository, never()).findByPostIdAndUserId(any(UUID.class), any(UUID.class));
-        verify(postRepository, never()).findById(any(UUID.class));
-        verify(voteRepository, never()).saveAndFlush(any(Vote.class));
+        UUID commentId = UUID.randomUUID();
+        User user = user();
+        when(commentRepository.existsById(commentId)).thenReturn(true);
+        when(commentVoteRepository.vote(commentId, user.getId(), (byte) 1)).thenReturn(1);
+
+        ResponseEntity<?> response = voteService.voteForPostOrComment((byte) 1, null, commentId, user);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(voteCountService).record(null, commentId, -1, 0);
+        verify(rankingService, never()).recordVote(any(UUID.class), anyInt(), anyInt());
+        verify(postVoteRepository, never()).vote(any(UUID.class), any(UUID.class), anyByte());
+        verify(postRepository, never()).existsById(any(UUID.class));
     }
 
     @Test
     void voteForPostOrComment_withCommentAndSameVoteDownvotedChoice_shouldUpdatePostVotesAndDeleteVote() {
-        byte choice = -1;
-        User user = mock(User.class);
-        when(user.getId()).thenReturn(UUID.randomUUID());
-
-        Comment comment = mock(Comment.class);
-        when(commentRepository.findById(any(UUID.class))).thenReturn(Optional.of(comment));
-
-        Vote vote = mock(Vote.class);
-        when(vote.getChoice()).thenReturn(choice);
-        when(voteRepository.findByCommentIdAndUserId(any(UUID.class), any(UUID.class))).thenReturn(Optional.of(vote));
-
-        voteService.voteForPostOrComment(choice, null, UUID.randomUUID(), user);
-
-        verify(voteRepository).delete(vote);
-        verify(comment).setDownvotes(any(int.class));
-        verify(comment).getDownvotes();
-        verify(comment, never()).setUpvotes(any(int.class));
-        verify(comment, never()).getUpvotes();
-        verify(comment, never()).upvote();
-        verify(comment, never()).downvote();
-        verify(voteRepository, never()).findByPostIdAndUserId(any(UUID.class), any(UUID.class));
-        verify(postRepository, never()).findById(any(UUID.class));
-        verify(voteRepository, never()).saveAndFlush(any(Vote.class));
+        UUID commentId = UUID.randomUUID();
+        User user = user();
+        when(commentRepository.existsById(commentId)).thenReturn(true);
+        when(commentVoteRepository.vote(commentId, user.getId(), (byte) -1)).thenReturn(-1);
+
+        ResponseEntity<?> response = voteService.voteForPostOrComment((byte) -1, null, commentId, user);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(voteCountService).record(null, commentId, 0, -1);
+        verify(rankingService, never()).recordVote(any(UUID.class), anyInt(), anyInt());
+        verify(postVoteRepository, never()).vote(any(UUID.class), any(UUID.class), anyByte());
+        verify(postRepository, never()).existsById(any(UUID.class));
     }
 
     @Test
-    void voteForPostOrComment_withCommentAndDifferentDownvotedChoice_shouldUpdatePostDownvotesUpvotePostAndSave() {
-        User user = mock(User.class);
-        when(user.getId()).thenReturn(UUID.randomUUID());
-
-        Comment comment = mock(Comment.class);
-        when(commentRepository.findById(any(UUID.class))).thenReturn(Optional.of(comment));
-
-        Vote vote = mock(Vote.class);
-        when(vote.getChoice()).thenReturn((byte) -1);
-        when(voteRepository.findByCommentIdAndUserId(any(UUID.class), any(UUID.class))).thenReturn(Optional.of(vote));
-
-        voteService.voteForPostOrComment((byte) 1, null, UUID.randomUUID(), user);
-
-        verify(vote).setChoice((byte) 1);
-        verify(comment).setDownvotes(any(int.class));
-        verify(comment).getDownvotes();
-        verify(comment).upvote();
-        verify(voteRepository).saveAndFlush(any(Vote.class));
-        verify(comment, never()).downvote();
-        verify(comment, never()).setUpvotes(any(int.class));
-        verify(comment, never()).getUpvotes();
-        verify(vote, never()).setPost(any(Votable.class));
-        verify(vote, never()).setComment(any(Votable.class));
-        verify(vote, never()).setUser(any(User.class));
-        verify(voteRepository, never()).delete(vote);
-        verify(postRepository, never()).findById(any(UUID.class));
-        verify(voteRepository, never()).findByPostIdAndUserId(any(UUID.class), any(UUID.class));
+    void voteForPostOrComment_withCommentAndDifferentDownvotedChoice_shouldUpdatePostDownvotesAndUpvotePost() {
+        UUID commentId = UUID.randomUUID();
+        User user = user();
+        when(commentRepository.existsById(commentId)).thenReturn(true);
+        when(commentVoteRepository.vote(commentId, user.getId(), (byte) 1)).thenReturn(-1);
+
+        ResponseEntity<?> response = voteService.voteForPostOrComment((byte) 1, null, commentId, user);
+
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        verify(voteCountService).record(null, commentId, 1, -1);
+        verify(rankingService, never()).recordVote(any(UUID.class), anyInt(), anyInt());
+        verify(postVoteRepository, never()).vote(any(UUID.class), any(UUID.class), anyByte());
+        verify(postRepository, never()).existsById(any(UUID.class));
     }
 
     @Test
-    void voteForPostOrComment_withCommentAndDifferentUpvotedChoice_shouldUpdatePostUpvotesDownvotePostAndSave() {
-        User user = mock(User.class);
-        when(user.getId()).thenReturn(UUID.randomUUID());
-
-        Comment comment = mock(Comment.class);
-        when(commentRepository.findById(any(UUID.class))).thenReturn(Optional.of(comment));
-
-        Vote vote = mock(Vote.class);
-        when(vote.getChoice()).thenReturn((byte) 1);
-        when(voteRepository.findByCommentIdAndUserId(any(UUID.class), any(UUID.class))).thenReturn(Optional.of(vote));
-
-        voteService.voteForPostOrComment((byte) -1, null, UUID.randomUUID(), user);
-
-        verify(vote).setChoice((byte) -1);
-        verify(comment).setUpvotes(any(int.class));
-        verify(comment).getUpvotes();
-        verify(comment).downvote();
-        verify(voteRepository).saveAndFlush(any(Vote.class));
-        verify(comment, never()).setDownvotes(any(int.class));
-        verify(comment, never()).getDownvotes();
-        verify(comment, never()).upvote();
-        verify(vote, never()).setPost(any(Votable.class));
-        verify(vote, never()).setComment(any(Votable.class));
-        verify(vote, never()).setUser(any(User.class));
-        verify(voteRepository, never()).delete(vote);
-        verify(postRepository, never()).findById(any(UUID.class));
-        verify(voteRepository, never()).findByPostIdAndUserId(any(UUID.class), any(UUID.class));
+    void voteForPostOrComment_withCommentAndDifferentUpvotedChoice_shouldUpdatePostUpvotesAndDownvotePost() {
+        UUID commentId = UUID.randomUUID();
+        User user = user();
+        when(commentRepository.existsById(commentId)).thenReturn(true);
+        when(commentVoteRepository.vote(commentId, user.getId(), (byte) -1)).thenReturn(1);
+
+        ResponseEntity<?> response = voteService.voteForPostOrComment((byte) -1, null, commentId, user);
+
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        verify(voteCountService).record(null, commentId, -1, 1);
+        verify(rankingService, never()).recordVote(any(UUID.class), anyInt(), anyInt());
+        verify(postVoteRepository, never()).vote(any(UUID.class), any(UUID.class), anyByte());
+        verify(postRepository, never()).existsById(any(UUID.class));
     }
 
     @Test
-    void voteForPostOrComment_withCommentNoVoteAndUpvotedChoice_shouldUpvotePostCreateVoteAndSaveIt() {
-        byte choice = 1;
-        User user = mock(User.class);
-        when(user.getId()).thenReturn(UUID.randomUUID());
-
-        Comment comment = mock(Comment.class);
-        when(commentRepository.findById(any(UUID.class))).thenReturn(Optional.of(comment));
-        when(voteRepository.findByCommentIdAndUserId(any(UUID.class), any(UUID.class))).thenReturn(Optional.empty());
-
-        voteService.voteForPostOrComment(choice, null, UUID.randomUUID(), user);
-
-        verify(comment).upvote();
-        verify(voteRepository).saveAndFlush(any(Vote.class));
-        verify(comment, never()).downvote();
-        verify(comment, never()).setUpvotes(any(int.class));
-        verify(comment, never()).getUpvotes();
-        verify(comment, never()).setDownvotes(any(int.class));
-        verify(comment, never()).getDownvotes();
-        verify(voteRepository, never()).delete(any(Vote.class));
-        verify(postRepository, never()).findById(any(UUID.class));
-        verify(voteRepository, never()).findByPostIdAndUserId(any(UUID.class), any(UUID.class));
+    void voteForPostOrComment_withCommentNoVoteAndUpvotedChoice_shouldUpvotePost() {
+        UUID commentId = UUID.randomUUID();
+        User user = user();
+        when(commentRepository.existsById(commentId)).thenReturn(true);
+        when(commentVoteRepository.vote(commentId, user.getId(), (byte) 1)).thenReturn(0);
+
+        ResponseEntity<?> response = voteService.voteForPostOrComment((byte) 1, null, commentId, user);
+
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        verify(voteCountService).record(null, commentId, 1, 0);
+        verify(rankingService, never()).recordVote(any(UUID.class), anyInt(), anyInt());
+        verify(postVoteRepository, never()).vote(any(UUID.class), any(UUID.class), anyByte());
+        verify(postRepository, never()).existsById(any(UUID.class));
     }
 
     @Test
-    void voteForPostOrComment_withCommentNoVoteAndDownvotedChoice_shouldDownvotePostCreateVoteAndSaveIt() {
-        byte choice = -1;
-        User user = mock(User.class);
-        when(user.getId()).thenReturn(UUID.randomUUID());
-
-        Comment comment = mock(Comment.class);
-        when(commentRepository.findById(any(UUID.class))).thenReturn(Optional.of(comment));
-        when(voteRepository.findByCommentIdAndUserId(any(UUID.class), any(UUID.class))).thenReturn(Optional.empty());
+    void voteForPostOrComment_withCommentNoVoteAndDownvotedChoice_shouldDownvotePost() {
+        UUID commentId = UUID.randomUUID();
+        User user = user();
+        when(commentRepository.existsById(commentId)).thenReturn(true);
+        when(commentVoteRepository.vote(commentId, user.getId(), (byte) -1)).thenReturn(0);
+
+        ResponseEntity<?> response = voteService.voteForPostOrComment((byte) -1, null, commentId, user);
+
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        verify(voteCountService).record(null, commentId, 0, 1);
+        verify(rankingService, never()).recordVote(any(UUID.class), anyInt(), anyInt());
+        verify(postVoteRepository, never()).vote(any(UUID.class), any(UUID.class), anyByte());
+        verify(postRepository, never()).existsById(any(UUID.class));
+    }
 
-        voteService.voteForPostOrComment(choice, null, UUID.randomUUID(), user);
+    @Test
+    void voteForPostOrComment_withInvalidChoice_shouldDoNothing() {
+        ResponseEntity<?> response = voteService.voteForPostOrComment((byte) 0, UUID.randomUUID(), null, user());
 
-        verify(comment).downvote();
-        verify(voteRepository).saveAndFlush(any(Vote.class));
-        verify(comment, never()).upvote();
-        verify(comment, never()).setUpvotes(any(int.class));
-        verify(comment, never()).getUpvotes();
-        verify(comment, never()).setDownvotes(any(int.class));
-        verify(comment, never()).getDownvotes();
-        verify(voteRepository, never()).delete(any(Vote.class));
-        verify(postRepository, never()).findById(any(UUID.class));
-        verify(voteRepository, never()).findByPostIdAndUserId(any(UUID.class), any(UUID.class));
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertFalse(((ApiResponse) Objects.requireNonNull(response.getBody())).getSuccess());
+        verify(postVoteRepository, never()).vote(any(UUID.class), any(UUID.class), anyByte());
+        verifyNoInteractions(voteCountService);
     }
 
     @Test
     void voteForPostOrComment_withNonExistingComment_shouldDoNothing() {
-        when(commentRepository.findById(any(UUID.class))).thenReturn(Optional.empty());
+        when(commentRepository.existsById(any(UUID.class))).thenReturn(false);
 
         voteService.voteForPostOrComment((byte) 1, null, UUID.randomUUID(), new User());
 
-        verify(voteRepository, never()).delete(any(Vote.class));
-        verify(voteRepository, never()).saveAndFlush(any(Vote.class));
+        verify(commentVoteRepository, never()).vote(any(UUID.class), any(UUID.class), anyByte());
+        verifyNoInteractions(voteCountService);
     }
 
     @Test
     void voteForPostOrComment_withNonExistingPost_shouldDoNothing() {
-        when(postRepository.findById(any(UUID.class))).thenReturn(Optional.empty());
+        when(postRepository.existsById(any(UUID.class))).thenReturn(false);
 
         voteService.voteForPostOrComment((byte) 1, UUID.randomUUID(), null, new User());
 
-        verify(voteRepository, never()).delete(any(Vote.class));
-        verify(voteRepository, never()).saveAndFlush(any(Vote.class));
+        verify(postVoteRepository, never()).vote(any(UUID.class), any(UUID.class), anyByte());
+        verifyNoInteractions(voteCountService);
     }
 
     @Test
     void voteForPostOrComment_withNullPostOrCommentIds_shouldDoNothing() {
-        when(commentRepository.findById(any())).thenReturn(Optional.empty());
-        when(postRepository.findById(any())).thenReturn(Optional.empty());
+        when(commentRepository.existsById(any())).thenReturn(false);
+        when(postRepository.existsById(any())).thenReturn(false);
 
         voteService.voteForPostOrComment((byte) 1, null, null, new User());
 
-        verify(voteRepository, never()).delete(any(Vote.class));
-        verify(voteRepository, never()).saveAndFlush(any(Vote.class));
+        verify(postVoteRepository, never()).vote(any(), any(), anyByte());
+        verify(commentVoteRepository, never()).vote(any(), any(), anyByte());
     }
 
     @Test
     void findPostVotesByUser_shouldWorkCorrectly() {
-        User user = mock(User.class);
-        when(voteRepository.findPostVotesByUser(user)).thenReturn(createVotes(3));
+        User user = user();
+        when(postVoteRepository.findByUserId(user.getId())).thenReturn(createPostVotes(3));
 
         Map<String, Byte> response = voteService.findPostVotesByUser(user);
         assertEquals(3, response.size());
@@ -431,8 +393,8 @@ class VoteServiceImplTest {
 
     @Test
     void findPostVotesByUser_withNoVotes_returnsEmptyMap() {
-        User user = mock(User.class);
-        when(voteRepository.findPostVotesByUser(user)).thenReturn(createVotes(0));
+        User user = user();
+        when(postVoteRepository.findByUserId(user.getId())).thenReturn(createPostVotes(0));
 
         Map<String, Byte> response = voteService.findPostVotesByUser(user);
         assertTrue(response.isEmpty());
@@ -440,8 +402,8 @@ class VoteServiceImplTest {
 
     @Test
     void findCommentVotesByUser_shouldWorkCorrectly() {
-        User user = mock(User.class);
-        when(voteRepository.findCommentVotesByUser(user)).thenReturn(createVotes(3));
+        User user = user();
+        when(commentVoteRepository.findByUserId(user.getId())).thenReturn(createCommentVotes(3));
 
         Map<String, Byte> response = voteService.findCommentVotesByUser(user);
         assertEquals(3, response.size());
@@ -453,23 +415,114 @@ class VoteServiceImplTest {
 
     @Test
     void findCommentVotesByUser_withNoVotes_returnsEmptyMap() {
-        User user = mock(User.class);
-        when(voteRepository.findCommentVotesByUser(user)).thenReturn(createVotes(0));
+        User user = user();
+        when(commentVoteRepository.findByUserId(user.getId())).thenReturn(createCommentVotes(0));
 
         Map<String, Byte> response = voteService.findCommentVotesByUser(user);
         assertTrue(response.isEmpty());
     }
 
+    @Test
+    void findPostVotesByUser_calledTwice_loadsVotesOnce() {
+        User user = user();
+        List<PostVote> votes = createPostVotes(3);
+        when(postVoteRepository.findByUserId(user.getId())).thenReturn(votes);
+
+        voteService.findPostVotesByUser(user);
+        Map<String, Byte> response = voteService.findPostVotesByUser(user);
+
+        assertEquals(3, response.size());
+        votes.forEach(v -> assertEquals(v.getChoice(), response.get(v.getPostId().toString()).byteValue()));
+        verify(postVoteRepository, times(1)).findByUserId(user.getId());
+    }
+
+    @Test
+    void findPostChoices_withVotesNotCached_queriesOnlyThePage() {
+        User user = user();
+        List<PostVote> votes = createPostVotes(2);
+        UUID notVoted = UUID.randomUUID();
+        List<UUID> page = Arrays.asList(votes.get(0).getPostId(), notVoted, votes.get(1).getPostId());
+        when(postVoteRepository.findByUserIdAndPostIdIn(user.getId(), page)).thenReturn(votes);
+
+        Map<String, Byte> response = voteService.findPostChoices(user, page);
+
+        assertEquals(2, response.size());
+        assertEquals((byte) 1, response.get(votes.get(0).getPostId().toString()).byteValue());
+        assertEquals((byte) -1, response.get(votes.get(1).getPostId().toString()).byteValue());
+        assertFalse(response.containsKey(notVoted.toString()));
+        verify(postVoteRepository, never()).findByUserId(any(UUID.class));
+    }
+
+    @Test
+    void findPostChoices_withVotesCached_doesNotQuery() {
+        User user = user();
+        List<PostVote> votes = createPostVotes(10);
+        when(postVoteRepository.findByUserId(user.getId())).thenReturn(votes);
+        voteService.findPostVotesByUser(user);
+
+        Map<String, Byte> response = voteService.findPostChoices(user,
+                Arrays.asList(votes.get(3).getPostId(), UUID.randomUUID()));
+
+        assertEquals(1, response.size());
+        assertEquals((byte) -1, response.get(votes.get(3).getPostId().toString()).byteValue());
+        verify(postVoteRepository, never()).findByUserIdAndPostIdIn(any(UUID.class), anyCollection());
+    }
+
+    @Test
+    void findCommentChoices_withNoIds_doesNotQuery() {
+        assertTrue(voteService.findCommentChoices(user(), Collections.emptyList()).isEmpty());
+        verifyNoInteractions(commentVoteRepository);
+    }
+
+    @Test
+    void voteForPostOrComment_withCachedVotes_updatesThemWithoutReloading() {
+        User user = user();
+        List<PostVote> votes = createPostVotes(2);
+        UUID upvoted = votes.get(0).getPostId();
+        UUID newPost = UUID.randomUUID();
+        when(postVoteRepository.findByUserId(user.getId())).thenReturn(votes);
+        when(postRepository.existsById(any(UUID.class))).thenReturn(true);
+        when(postVoteRepository.vote(upvoted, user.getId(), (byte) 1)).thenReturn(1);
+        when(postVoteRepository.vote(newPost, user.getId(), (byte) -1)).thenReturn(0);
+        voteService.findPostVotesByUser(user);
+
+        voteService.voteForPostOrComment((byte) 1, upvoted, null, user);
+        voteService.voteForPostOrComment((byte) -1, newPost, null, user);
+        Map<String, Byte> response = voteService.findPostVotesByUser(user);
+
+        assertEquals(2, response.size());
+        assertFalse(response.containsKey(upvoted.toString()));
+        assertEquals((byte) -1, response.get(newPost.toString()).byteValue());
+        verify(postVoteRepository, times(1)).findByUserId(user.getId());
+    }
+
+    @Test
+    void voteForPostOrComment_withCachedCommentVotes_updatesOnlyThem() {
+        User user = user();
+        UUID commentId = UUID.randomUUID();
+        when(commentVoteRepository.findByUserId(user.getId())).thenReturn(createCommentVotes(1));
+        when(postVoteRepository.findByUserId(user.getId())).thenReturn(createPostVotes(1));
+        when(commentRepository.existsById(commentId)).thenReturn(true);
+        when(commentVoteRepository.vote(commentId, user.getId(), (byte) 1)).thenReturn(0);
+        voteService.findCommentVotesByUser(user);
+        voteService.findPostVotesByUser(user);
+
+        voteService.voteForPostOrComment((byte) 1, null, commentId, user);
+
+        assertEquals((byte) 1, voteService.findCommentVotesByUser(user).get(commentId.toString()).byteValue());
+        assertEquals(1, voteService.findPostVotesByUser(user).size());
+    }
+
     @Test
     void getUserChoiceForPost_withUpvotedVote_returnsCorrectResponse() {
-        Vote vote = mock(Vote.class);
-        when(vote.getChoice()).thenReturn((byte) 1);
-        User user = mock(User.class);
-        when(user.getId()).thenReturn(UUID.randomUUID());
-        when(voteRepository.findByPostIdAndUserId(any(UUID.class), any(UUID.class)))
-                .thenReturn(Optional.of(vote));
+        UUID postId = UUID.randomUUID();
+        PostVote vote = new PostVote();
+        vote.setPostId(postId);
+        vote.setChoice((byte) 1);
+        when(postVoteRepository.findByUserIdAndPostIdIn(any(UUID.class), anyCollection()))
+                .thenReturn(Collections.singletonList(vote));
 
-        PostVoteUserChoiceResponse response = voteService.getUserChoiceForPost(user, UUID.randomUUID());
+        PostVoteUserChoiceResponse response = voteService.getUserChoiceForPost(user(), postId);
 
         assertTrue(response.isHasVoted());
         assertEquals((byte) 1, response.getChoice());
@@ -477,14 +530,14 @@ class VoteServiceImplTest {
 
     @Test
     void getUserChoiceForPost_withDownvotedVote_returnsCorrectResponse() {
-        Vote vote = mock(Vote.class);
-        when(vote.getChoice()).thenReturn((byte) -1);
-        User user = mock(User.class);
-        when(user.getId()).thenReturn(UUID.randomUUID());
-        when(voteRepository.findByPostIdAndUserId(any(UUID.class), any(UUID.class)))
-                .thenReturn(Optional.of(vote));
+        UUID postId = UUID.randomUUID();
+        PostVote vote = new PostVote();
+        vote.setPostId(postId);
+        vote.setChoice((byte) -1);
+        when(postVoteRepository.findByUserIdAndPostIdIn(any(UUID.class), anyCollection()))
+                .thenReturn(Collections.singletonList(vote));
 
-        PostVoteUserChoiceResponse response = voteService.getUserChoiceForPost(user, UUID.randomUUID());
+        PostVoteUserChoiceResponse response = voteService.getUserChoiceForPost(user(), postId);
 
         assertTrue(response.isHasVoted());
         assertEquals((byte) -1, response.getChoice());
@@ -492,12 +545,10 @@ class VoteServiceImplTest {
 
     @Test
     void getUserChoiceForPost_withNonExistingVote_returnsCorrectResponse() {
-        User user = mock(User.class);
-        when(user.getId()).thenReturn(UUID.randomUUID());
-        when(voteRepository.findByPostIdAndUserId(any(UUID.class), any(UUID.class)))
-                .thenReturn(Optional.empty());
+        when(postVoteRepository.findByUserIdAndPostIdIn(any(UUID.class), anyCollection()))
+                .thenReturn(Collections.emptyList());
 
-        PostVoteUserChoiceResponse response = voteService.getUserChoiceForPost(user, UUID.randomUUID());
+        PostVoteUserChoiceResponse response = voteService.getUserChoiceForPost(user(), UUID.randomUUID());
 
         assertFalse(response.isHasVoted());
         assertNull(response.getChoice());
@@ -506,6 +557,6 @@ class VoteServiceImplTest {
     @Test
     void upvoteRandomPost_shouldCallRepositoryMethod() {
         voteService.upvoteRandomPost();
-        verify(voteRepository, times(1)).upvoteRandomPost();
+        verify(postRepository, times(1)).upvoteRandomPost();
     }
-}
\ No newline at end of file
+}
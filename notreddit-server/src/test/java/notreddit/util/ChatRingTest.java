@@ -0,0 +1,74 @@
+package notreddit.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChatRingTest {
+
+    private static List<String> strings(List<byte[]> messages) {
+        return messages.stream().map(String::new).collect(Collectors.toList());
+    }
+
+    @Test
+    void last_withFewerMessagesThanCapacity_returnsThemOldestFirst() {
+        ChatRing ring = new ChatRing(4);
+        ring.add("a".getBytes());
+        ring.add("b".getBytes());
+
+        assertEquals(Arrays.asList("a", "b"), strings(ring.last(10)));
+        assertEquals(Collections.singletonList("b"), strings(ring.last(1)));
+        assertTrue(ring.last(0).isEmpty());
+    }
+
+    @Test
+    void add_pastCapacity_writesOverTheOldest() {
+        ChatRing ring = new ChatRing(3);
+        for (String message : new String[]{"a", "b", "c", "d", "e"}) {
+            ring.add(message.getBytes());
+        }
+
+        assertEquals(5, ring.count());
+        assertEquals(Arrays.asList("c", "d", "e"), strings(ring.last(10)));
+    }
+
+    @Test
+    void add_fromManyThreads_keepsTheLastMessagesOfAll() throws InterruptedException {
+        ChatRing ring = new ChatRing(64);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int thread = 0; thread < 4; thread++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 10_000; i++) {
+                    ring.add(new byte[]{1});
+                    assertTrue(ring.last(64).size() <= 64);
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(40_000, ring.count());
+        assertEquals(64, ring.last(100).size());
+    }
+
+    @Test
+    void constructor_withoutCapacity_throws() {
+        assertThrows(IllegalArgumentException.class, () -> new ChatRing(0));
+    }
+}
@@ -0,0 +1,74 @@
+package notreddit.util;
+
+import notreddit.data.entities.Post;
+import notreddit.data.enums.FeedOrder;
+import notreddit.web.exceptions.InvalidCursorException;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FeedCursorTest {
+
+    @Test
+    void decode_withEncodedNewCursor_returnsSamePosition() {
+        Post post = post(LocalDateTime.of(2019, 11, 8, 20, 44, 11, 802461000), 5, 2);
+
+        FeedCursor cursor = FeedCursor.decode(FeedCursor.after(FeedOrder.NEW, post).encode(), FeedOrder.NEW);
+
+        assertEquals(post.getCreatedOn(), cursor.getCreatedOn());
+        assertEquals(post.getId(), cursor.getId());
+    }
+
+    @Test
+    void decode_withEncodedTopCursor_returnsSameScore() {
+        Post post = post(LocalDateTime.now(), 2, 5);
+
+        FeedCursor cursor = FeedCursor.decode(FeedCursor.after(FeedOrder.TOP, post).encode(), FeedOrder.TOP);
+
+        assertEquals(-3, cursor.getScore());
+        assertEquals(post.getId(), cursor.getId());
+    }
+
+    @Test
+    void decode_withEncodedHotCursor_returnsSameHotScore() {
+        UUID id = UUID.randomUUID();
+
+        FeedCursor cursor = FeedCursor.decode(FeedCursor.hot(3456.789123, id).encode(), FeedOrder.HOT);
+
+        assertEquals(3456.789123, cursor.getHot());
+        assertEquals(id, cursor.getId());
+    }
+
+    @Test
+    void decode_withBlankToken_returnsFirstPage() {
+        FeedCursor cursor = FeedCursor.decode(" ", FeedOrder.TOP);
+
+        assertEquals(Integer.MAX_VALUE, cursor.getScore());
+        assertTrue(cursor.getCreatedOn().isAfter(LocalDateTime.now()));
+    }
+
+    @Test
+    void decode_withMalformedToken_throwsInvalidCursorException() {
+        assertThrows(InvalidCursorException.class, () -> FeedCursor.decode("not a cursor", FeedOrder.NEW));
+        assertThrows(InvalidCursorException.class, () -> FeedCursor.decode("Tk VXfGZvb3xiYXI", FeedOrder.NEW));
+    }
+
+    @Test
+    void decode_withCursorOfAnotherOrder_throwsInvalidCursorException() {
+        String token = FeedCursor.after(FeedOrder.NEW, post(LocalDateTime.now(), 0, 0)).encode();
+
+        assertThrows(InvalidCursorException.class, () -> FeedCursor.decode(token, FeedOrder.TOP));
+    }
+
+    private static Post post(LocalDateTime createdOn, int upvotes, int downvotes) {
+        Post post = new Post();
+        post.setId(UUID.randomUUID());
+        post.setCreatedOn(createdOn);
+        post.setUpvotes(upvotes);
+        post.setDownvotes(downvotes);
+        return post;
+    }
+}
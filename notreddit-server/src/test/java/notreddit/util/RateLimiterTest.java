@@ -0,0 +1,116 @@
+package notreddit.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterTest {
+
+    private AtomicLong clock;
+
+    @BeforeEach
+    void setUp() {
+        clock = new AtomicLong(-Duration.ofDays(1).toNanos());
+    }
+
+    @Test
+    void tryAcquire_withFreshLimiter_allowsWholeBurst() {
+        RateLimiter limiter = RateLimiter.create(3, Duration.ofSeconds(1), clock::get);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+    }
+
+    @Test
+    void tryAcquire_afterEmissionInterval_refillsOnePermit() {
+        RateLimiter limiter = RateLimiter.create(2, Duration.ofSeconds(1), clock::get);
+        limiter.tryAcquire();
+        limiter.tryAcquire();
+
+        clock.addAndGet(Duration.ofMillis(499).toNanos());
+        assertFalse(limiter.tryAcquire());
+
+        clock.addAndGet(Duration.ofMillis(1).toNanos());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+    }
+
+    @Test
+    void tryAcquire_afterLongPause_doesNotAccumulateMoreThanBurst() {
+        RateLimiter limiter = RateLimiter.create(2, Duration.ofSeconds(1), clock::get);
+
+        clock.addAndGet(Duration.ofMinutes(10).toNanos());
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+    }
+
+    @Test
+    void tryAcquire_whenRejected_doesNotConsumePermit() {
+        RateLimiter limiter = RateLimiter.create(1, Duration.ofSeconds(1), clock::get);
+        limiter.tryAcquire();
+        for (int i = 0; i < 10; i++) {
+            limiter.tryAcquire();
+        }
+
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    void isIdle_onlyOnceAllPermitsAreBack() {
+        RateLimiter limiter = RateLimiter.create(2, Duration.ofSeconds(1), clock::get);
+        assertTrue(limiter.isIdle());
+
+        limiter.tryAcquire();
+        assertFalse(limiter.isIdle());
+
+        clock.addAndGet(Duration.ofMillis(500).toNanos());
+        assertTrue(limiter.isIdle());
+    }
+
+    @Test
+    void create_withoutPermits_throwsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> RateLimiter.create(0, Duration.ofSeconds(1)));
+        assertThrows(IllegalArgumentException.class, () -> RateLimiter.create(1, Duration.ZERO));
+    }
+
+    @Test
+    void tryAcquire_fromManyThreads_neverGrantsMoreThanBurst() throws Exception {
+        RateLimiter limiter = RateLimiter.create(100, Duration.ofHours(1), clock::get);
+        AtomicInteger granted = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+
+        try {
+            for (int i = 0; i < 8; i++) {
+                executor.submit(() -> {
+                    start.await();
+                    for (int j = 0; j < 1000; j++) {
+                        if (limiter.tryAcquire()) {
+                            granted.incrementAndGet();
+                        }
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(100, granted.get());
+    }
+}
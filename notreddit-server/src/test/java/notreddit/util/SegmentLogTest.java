@@ -0,0 +1,112 @@
+package notreddit.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SegmentLogTest {
+
+    @TempDir
+    Path directory;
+
+    private static List<String> strings(List<byte[]> records) {
+        return records.stream().map(String::new).collect(Collectors.toList());
+    }
+
+    private long segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    @Test
+    void last_readsAcrossSegmentsOldestFirst() throws IOException {
+        // 4 bytes of length and 2 of record, two records to a segment
+        try (SegmentLog log = new SegmentLog(directory, 12, 10)) {
+            for (String record : new String[]{"r1", "r2", "r3", "r4", "r5"}) {
+                log.append(record.getBytes());
+            }
+
+            assertEquals(3, segments());
+            assertEquals(Arrays.asList("r2", "r3", "r4", "r5"), strings(log.last(4)));
+            assertEquals(Arrays.asList("r1", "r2", "r3", "r4", "r5"), strings(log.last(100)));
+        }
+    }
+
+    @Test
+    void append_pastMaxSegments_deletesTheOldest() throws IOException {
+        try (SegmentLog log = new SegmentLog(directory, 12, 2)) {
+            for (String record : new String[]{"r1", "r2", "r3", "r4", "r5"}) {
+                log.append(record.getBytes());
+            }
+
+            assertEquals(2, segments());
+            assertEquals(Arrays.asList("r3", "r4", "r5"), strings(log.last(100)));
+        }
+    }
+
+    @Test
+    void constructor_withExistingSegments_appendsToTheLastOne() throws IOException {
+        try (SegmentLog log = new SegmentLog(directory, 1024, 10)) {
+            log.append("before".getBytes());
+        }
+
+        try (SegmentLog log = new SegmentLog(directory, 1024, 10)) {
+            log.append("after".getBytes());
+
+            assertEquals(1, segments());
+            assertEquals(Arrays.asList("before", "after"), strings(log.last(10)));
+        }
+    }
+
+    @Test
+    void constructor_manyTimes_keepsTheOldSegments() throws IOException {
+        for (int i = 0; i < 5; i++) {
+            try (SegmentLog log = new SegmentLog(directory, 1024, 2)) {
+                log.append(("m" + i).getBytes());
+            }
+        }
+
+        try (SegmentLog log = new SegmentLog(directory, 1024, 2)) {
+            assertEquals(Arrays.asList("m0", "m1", "m2", "m3", "m4"), strings(log.last(10)));
+        }
+    }
+
+    @Test
+    void constructor_withoutAppending_writesNothing() throws IOException {
+        try (SegmentLog log = new SegmentLog(directory, 1024, 10)) {
+            assertTrue(log.last(10).isEmpty());
+        }
+
+        assertEquals(0, segments());
+    }
+
+    @Test
+    void last_withTornRecord_stopsBeforeIt() throws IOException {
+        try (SegmentLog log = new SegmentLog(directory, 1024, 10)) {
+            log.append("whole".getBytes());
+        }
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.findFirst().orElseThrow(IllegalStateException::new);
+        }
+        // a length written without all of its record
+        Files.write(segment, new byte[]{0, 0, 0, 9, 'x'}, StandardOpenOption.APPEND);
+
+        try (SegmentLog log = new SegmentLog(directory, 1024, 10)) {
+            log.append("next".getBytes());
+
+            assertEquals(Arrays.asList("whole", "next"), strings(log.last(10)));
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package notreddit.util;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Map;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThumbnailRendererTest {
+
+    private static byte[] image(int width, int height, String format) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, format, out);
+        return out.toByteArray();
+    }
+
+    private static BufferedImage decode(byte[] thumbnail) throws IOException {
+        return ImageIO.read(new ByteArrayInputStream(thumbnail));
+    }
+
+    @Test
+    void render_returnsJpegOfEveryWidthLargestFirstKeepingAspectRatio() throws IOException {
+        Map<Integer, byte[]> thumbnails =
+                ThumbnailRenderer.render(new ByteArrayInputStream(image(1600, 1200, "png")), 160, 640, 320);
+
+        assertEquals(asList(640, 320, 160), new ArrayList<>(thumbnails.keySet()));
+        BufferedImage medium = decode(thumbnails.get(320));
+        assertEquals(320, medium.getWidth());
+        assertEquals(240, medium.getHeight());
+        assertEquals(120, decode(thumbnails.get(160)).getHeight());
+    }
+
+    @Test
+    void render_withSmallImage_doesNotUpscale() throws IOException {
+        Map<Integer, byte[]> thumbnails =
+                ThumbnailRenderer.render(new ByteArrayInputStream(image(200, 50, "png")), 160, 320);
+
+        assertEquals(200, decode(thumbnails.get(320)).getWidth());
+        BufferedImage small = decode(thumbnails.get(160));
+        assertEquals(160, small.getWidth());
+        assertEquals(40, small.getHeight());
+    }
+
+    @Test
+    void render_withInvalidImage_throwsIOException() {
+        assertThrows(IOException.class,
+                () -> ThumbnailRenderer.render(new ByteArrayInputStream("not an image".getBytes()), 160));
+    }
+}
@@ -0,0 +1,112 @@
+package notreddit.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VoteChoicesTest {
+
+    private static VoteChoices of(List<Map.Entry<UUID, Byte>> votes) {
+        return VoteChoices.of(votes, Map.Entry::getKey, Map.Entry::getValue);
+    }
+
+    private static Map.Entry<UUID, Byte> vote(UUID id, int choice) {
+        return new SimpleEntry<>(id, (byte) choice);
+    }
+
+    @Test
+    void of_withManyVotes_findsEveryChoice() {
+        Random random = new Random(42);
+        List<Map.Entry<UUID, Byte>> votes = new ArrayList<>();
+        Map<String, Byte> expected = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            // ids on both sides of the signed comparison
+            UUID id = new UUID(random.nextLong(), random.nextLong());
+            byte choice = random.nextBoolean() ? (byte) 1 : (byte) -1;
+            votes.add(vote(id, choice));
+            expected.put(id.toString(), choice);
+        }
+
+        VoteChoices choices = of(votes);
+
+        assertEquals(1000, choices.size());
+        assertEquals(expected, choices.toMap());
+        votes.forEach(v -> assertEquals(v.getValue().byteValue(), choices.choice(v.getKey())));
+        assertEquals(0, choices.choice(UUID.randomUUID()));
+    }
+
+    @Test
+    void of_withRepeatedIdsAndNoChoice_keepsLastVoteOnly() {
+        UUID id = UUID.randomUUID();
+        UUID unvoted = UUID.randomUUID();
+
+        VoteChoices choices = of(Arrays.asList(vote(id, 1), vote(unvoted, 0), vote(id, -1)));
+
+        assertEquals(1, choices.size());
+        assertEquals(-1, choices.choice(id));
+        assertEquals(0, choices.choice(unvoted));
+    }
+
+    @Test
+    void with_insertsChangesAndRemovesVotes() {
+        List<Map.Entry<UUID, Byte>> votes = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            votes.add(vote(UUID.randomUUID(), i % 3 == 0 ? -1 : 1));
+        }
+        VoteChoices original = of(votes);
+        UUID added = UUID.randomUUID();
+        UUID changed = votes.get(1).getKey();
+        UUID removed = votes.get(3).getKey();
+
+        VoteChoices updated = original
+                .with(added, (byte) -1)
+                .with(changed, (byte) -1)
+                .with(removed, (byte) 0);
+
+        assertEquals(100, updated.size());
+        assertEquals(-1, updated.choice(added));
+        assertEquals(-1, updated.choice(changed));
+        assertEquals(0, updated.choice(removed));
+        for (Map.Entry<UUID, Byte> vote : votes) {
+            if (!vote.getKey().equals(changed) && !vote.getKey().equals(removed)) {
+                assertEquals(vote.getValue().byteValue(), updated.choice(vote.getKey()));
+            }
+        }
+        // the original is left as it was
+        assertEquals(100, original.size());
+        assertEquals(1, original.choice(changed));
+        assertEquals(0, original.choice(added));
+    }
+
+    @Test
+    void with_sameVoteAgain_returnsSameInstance() {
+        UUID id = UUID.randomUUID();
+        VoteChoices choices = VoteChoices.empty().with(id, (byte) 1);
+
+        assertSame(choices, choices.with(id, (byte) 1));
+        assertSame(choices, choices.with(UUID.randomUUID(), (byte) 0));
+        assertEquals(0, choices.with(id, (byte) 0).size());
+    }
+
+    @Test
+    void choicesOf_returnsVotedIdsInRequestedOrder() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        VoteChoices choices = of(Arrays.asList(vote(first, -1), vote(second, 1)));
+
+        Map<String, Byte> page = choices.choicesOf(Arrays.asList(second, UUID.randomUUID(), first));
+
+        assertEquals(Arrays.asList(second.toString(), first.toString()), new ArrayList<>(page.keySet()));
+        assertEquals(1, page.get(second.toString()).byteValue());
+        assertEquals(-1, page.get(first.toString()).byteValue());
+    }
+}
@@ -0,0 +1,61 @@
+package notreddit.validations.entities;
+
+import notreddit.data.entities.CommentVote;
+import notreddit.validations.HibernateValidatorTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+public class CommentVoteValidationTests extends HibernateValidatorTest {
+
+    private CommentVote target;
+
+    @BeforeEach
+    public void setUp() {
+        target = new CommentVote();
+        target.setCommentId(UUID.randomUUID());
+        target.setUserId(UUID.randomUUID());
+    }
+
+    @Test
+    public void isValid() {
+        target.setChoice((byte) 1);
+
+        isValid(target);
+    }
+
+    @Test
+    public void notValid_withChoiceUnderTheLimit() {
+        target.setChoice((byte) -2);
+
+        isInvalid(target);
+        assertMessage(target, "choice", "must be greater than or equal to -1");
+    }
+
+    @Test
+    public void notValid_withChoiceOverTheLimit() {
+        target.setChoice((byte) 2);
+
+        isInvalid(target);
+        assertMessage(target, "choice", "must be less than or equal to 1");
+    }
+
+    @Test
+    public void notValid_withNullCommentId() {
+        target.setChoice((byte) 1);
+        target.setCommentId(null);
+
+        isInvalid(target);
+        assertMessage(target, "commentId", "must not be null");
+    }
+
+    @Test
+    public void notValid_withNullUserId() {
+        target.setChoice((byte) 1);
+        target.setUserId(null);
+
+        isInvalid(target);
+        assertMessage(target, "userId", "must not be null");
+    }
+}
@@ -2,6 +2,7 @@ package notreddit.validations.entities;
 
 import notreddit.data.entities.File;
 import notreddit.data.entities.Post;
+import notreddit.data.enums.FileStatus;
 import notreddit.validations.HibernateValidatorTest;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -37,6 +38,15 @@ public class FileValidationTests extends HibernateValidatorTest {
         isValid(target);
     }
 
+    @Test
+    public void isValid_withProcessingFileWithoutUrl() {
+        target.setId(UUID.randomUUID());
+        target.setStatus(FileStatus.PROCESSING);
+        target.setPost(new Post());
+
+        isValid(target);
+    }
+
     @Test
     public void notValid_withBlankUrl() {
         target.setId(UUID.randomUUID());
@@ -0,0 +1,61 @@
+package notreddit.validations.entities;
+
+import notreddit.data.entities.PostVote;
+import notreddit.validations.HibernateValidatorTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+public class PostVoteValidationTests extends HibernateValidatorTest {
+
+    private PostVote target;
+
+    @BeforeEach
+    public void setUp() {
+        target = new PostVote();
+        target.setPostId(UUID.randomUUID());
+        target.setUserId(UUID.randomUUID());
+    }
+
+    @Test
+    public void isValid() {
+        target.setChoice((byte) 1);
+
+        isValid(target);
+    }
+
+    @Test
+    public void notValid_withChoiceUnderTheLimit() {
+        target.setChoice((byte) -2);
+
+        isInvalid(target);
+        assertMessage(target, "choice", "must be greater than or equal to -1");
+    }
+
+    @Test
+    public void notValid_withChoiceOverTheLimit() {
+        target.setChoice((byte) 2);
+
+        isInvalid(target);
+        assertMessage(target, "choice", "must be less than or equal to 1");
+    }
+
+    @Test
+    public void notValid_withNullPostId() {
+        target.setChoice((byte) 1);
+        target.setPostId(null);
+
+        isInvalid(target);
+        assertMessage(target, "postId", "must not be null");
+    }
+
+    @Test
+    public void notValid_withNullUserId() {
+        target.setChoice((byte) 1);
+        target.setUserId(null);
+
+        isInvalid(target);
+        assertMessage(target, "userId", "must not be null");
+    }
+}
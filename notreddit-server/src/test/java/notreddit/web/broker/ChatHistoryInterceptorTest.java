@@ -0,0 +1,60 @@
+package notreddit.web.broker;
+
+import notreddit.services.ChatHistoryService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class ChatHistoryInterceptorTest {
+
+    private ChatHistoryService chatHistoryService;
+    private ChatHistoryInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        chatHistoryService = mock(ChatHistoryService.class);
+        interceptor = new ChatHistoryInterceptor(chatHistoryService);
+    }
+
+    private static Message<byte[]> message(SimpMessageType type, String destination, byte[] payload) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(type);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+
+    @Test
+    void preSend_withMessageToRoomTopic_recordsItInTheRoom() {
+        byte[] payload = "{}".getBytes();
+        interceptor.preSend(message(SimpMessageType.MESSAGE, "/topic/public", payload), mock(MessageChannel.class));
+        interceptor.preSend(message(SimpMessageType.MESSAGE, "/topic/rooms/java", payload), mock(MessageChannel.class));
+
+        verify(chatHistoryService).record("public", payload);
+        verify(chatHistoryService).record("java", payload);
+    }
+
+    @Test
+    void preSend_withOtherDestinationsOrTypes_recordsNothing() {
+        interceptor.preSend(message(SimpMessageType.MESSAGE, "/topic/user/1/mentions", new byte[0]), mock(MessageChannel.class));
+        interceptor.preSend(message(SimpMessageType.MESSAGE, "/topic/rooms/../x", new byte[0]), mock(MessageChannel.class));
+        interceptor.preSend(message(SimpMessageType.SUBSCRIBE, "/topic/public", new byte[0]), mock(MessageChannel.class));
+
+        verify(chatHistoryService, never()).record(anyString(), any());
+    }
+
+    @Test
+    void preSend_whenRecordingFails_stillSendsTheMessage() {
+        doThrow(new IllegalStateException()).when(chatHistoryService).record(anyString(), any());
+        Message<byte[]> message = message(SimpMessageType.MESSAGE, "/topic/public", new byte[0]);
+
+        assertSame(message, interceptor.preSend(message, mock(MessageChannel.class)));
+    }
+}
@@ -0,0 +1,102 @@
+package notreddit.web.broker;
+
+import notreddit.data.models.responses.ChatMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClusterFanOutTest {
+
+    private InMemoryClusterBus bus;
+    private Node first;
+    private Node second;
+
+    @BeforeEach
+    void setUp() {
+        bus = new InMemoryClusterBus();
+        first = new Node(bus);
+        second = new Node(bus);
+    }
+
+    private static ChatMessage chatMessage(String content) {
+        ChatMessage chatMessage = new ChatMessage();
+        chatMessage.setType(ChatMessage.MessageType.CHAT);
+        chatMessage.setSender("user");
+        chatMessage.setContent(content);
+        return chatMessage;
+    }
+
+    @Test
+    void preSend_withMessageForTopic_reachesTheBrokerOfEveryNodeOnce() {
+        first.template.convertAndSend("/topic/public", chatMessage("hello\nthere"));
+
+        assertEquals(1, first.received.size());
+        assertEquals(1, second.received.size());
+        assertEquals(1, bus.published().size());
+
+        Message<?> message = second.received.get(0);
+        assertEquals("/topic/public", SimpMessageHeaderAccessor.getDestination(message.getHeaders()));
+        assertEquals(SimpMessageType.MESSAGE, SimpMessageHeaderAccessor.getMessageType(message.getHeaders()));
+        assertEquals("application/json", message.getHeaders().get(MessageHeaders.CONTENT_TYPE).toString());
+        String payload = new String((byte[]) message.getPayload(), StandardCharsets.UTF_8);
+        assertTrue(payload.contains("\"content\":\"hello\\nthere\""));
+        assertEquals(payload, new String((byte[]) first.received.get(0).getPayload(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void preSend_withMessageOfAnotherNode_isNotPublishedAgain() {
+        first.template.convertAndSend("/topic/public", chatMessage("hello"));
+        second.template.convertAndSend("/topic/public", chatMessage("hi"));
+
+        assertEquals(2, bus.published().size());
+        assertEquals(2, first.received.size());
+        assertEquals(2, second.received.size());
+    }
+
+    @Test
+    void preSend_withMessageForSingleSession_staysOnItsNode() {
+        first.template.convertAndSend("/queue/chat.history-usersession", chatMessage("hello"));
+
+        assertTrue(bus.published().isEmpty());
+        assertEquals(1, first.received.size());
+        assertTrue(second.received.isEmpty());
+    }
+
+    @Test
+    void preSend_withOtherMessageTypes_publishesNothing() {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+        accessor.setDestination("/topic/public");
+        accessor.setSessionId("session");
+        first.channel.send(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()));
+
+        assertTrue(bus.published().isEmpty());
+        assertTrue(second.received.isEmpty());
+    }
+
+    private static class Node {
+
+        private final ExecutorSubscribableChannel channel = new ExecutorSubscribableChannel();
+        private final SimpMessagingTemplate template = new SimpMessagingTemplate(channel);
+        private final List<Message<?>> received = new CopyOnWriteArrayList<>();
+
+        Node(ClusterBus bus) {
+            channel.addInterceptor(new ClusterFanOut(bus, channel));
+            channel.subscribe(received::add);
+            template.setMessageConverter(new MappingJackson2MessageConverter());
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package notreddit.web.broker;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Stands in for Postgres, every node of a test subscribes to the same instance.
+ */
+public class InMemoryClusterBus implements ClusterBus {
+
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+    private final List<String> published = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(String message) {
+        published.add(message);
+        listeners.forEach(listener -> listener.accept(message));
+    }
+
+    @Override
+    public void subscribe(Consumer<String> listener) {
+        listeners.add(listener);
+    }
+
+    public List<String> published() {
+        return published;
+    }
+}
@@ -0,0 +1,97 @@
+package notreddit.web.broker;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.postgresql.PGConnection;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Only what needs no database, the tests listening on Postgres need Docker.
+ */
+class PostgresClusterBusTest {
+
+    @Test
+    void constructor_withChannelThatIsNoIdentifier_throws() {
+        DataSource dataSource = mock(DataSource.class);
+
+        assertThrows(IllegalArgumentException.class, () -> new PostgresClusterBus(dataSource, "broker; DROP TABLE users"));
+        assertThrows(IllegalArgumentException.class, () -> new PostgresClusterBus(dataSource, "Broker"));
+    }
+
+    @Test
+    void publish_withMessageOverTheNotifyLimit_isDropped() {
+        DataSource dataSource = mock(DataSource.class);
+        PostgresClusterBus bus = new PostgresClusterBus(dataSource, "notreddit_broker");
+
+        char[] message = new char[PostgresClusterBus.MAX_PAYLOAD_BYTES + 1];
+        Arrays.fill(message, 'a');
+        bus.publish(new String(message));
+
+        verifyNoInteractions(dataSource);
+    }
+
+    @Test
+    void publish_pastTheQueueCapacity_dropsAndCountsTheMessages() {
+        DataSource dataSource = mock(DataSource.class);
+        PostgresClusterBus bus = new PostgresClusterBus(dataSource, "notreddit_broker", 2, 10);
+
+        bus.publish("a");
+        bus.publish("b");
+        bus.publish("c");
+
+        assertEquals(1, bus.getDropped());
+        verifyNoInteractions(dataSource);
+    }
+
+    @Test
+    void start_sendsTheQueuedMessagesInOrderInOneStatement() throws Exception {
+        Connection connection = mock(Connection.class);
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(mock(Statement.class));
+        when(connection.unwrap(PGConnection.class)).thenReturn(mock(PGConnection.class));
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(mock(ResultSet.class));
+
+        PostgresClusterBus bus = new PostgresClusterBus(dataSource, "notreddit_broker", 10, 10);
+        bus.publish("a");
+        bus.publish("b");
+        bus.publish("a");
+        bus.start();
+        try {
+            ArgumentCaptor<Object[]> batch = ArgumentCaptor.forClass(Object[].class);
+            verify(connection, timeout(2000)).createArrayOf(eq("text"), batch.capture());
+            verify(statement, timeout(2000)).executeQuery();
+
+            List<Object> payloads = Arrays.asList(batch.getValue());
+            assertEquals(Arrays.asList("a", "b", "a"), payloads.stream()
+                    .map(payload -> PostgresClusterBus.unwrap(payload.toString()))
+                    .collect(Collectors.toList()));
+            // the same message twice must not look the same to postgres
+            assertEquals(3, payloads.stream().distinct().count());
+            verify(statement).setString(1, "notreddit_broker");
+        } finally {
+            bus.stop();
+        }
+    }
+
+    @Test
+    void unwrap_removesTheSequenceNumber() {
+        assertEquals("node\n/topic/public\n\n{}", PostgresClusterBus.unwrap("1f\nnode\n/topic/public\n\n{}"));
+    }
+}
@@ -0,0 +1,196 @@
+package notreddit.web.broker;
+
+import notreddit.config.WebSocketProperties;
+import notreddit.data.models.responses.websocket.OutboundStatisticsResponse;
+import notreddit.services.implementations.ChatHistoryServiceImpl;
+import notreddit.web.controllers.ChatController;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.annotation.support.SimpAnnotationMethodMessageHandler;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Thousands of simulated STOMP sessions on the public room, wired like the application without the sockets: chat
+ * messages go through the {@link ChatController} and the simple broker to the session queues. A few sessions never
+ * take their messages, like a stalled mobile client, until they are closed. The clock moves a millisecond with every
+ * chat message, so when the stalled sessions are evicted doesn't depend on the speed of the machine.
+ */
+class SessionOutboundQueuesLoadTest {
+
+    private static final int SESSIONS = 2000;
+    private static final int STALLED = 8;
+    private static final int MESSAGES = 300;
+    private static final int CAPACITY = 150;
+    private static final long EVICT_AFTER_IN_MS = 50;
+
+    private final Map<String, AtomicInteger> received = new ConcurrentHashMap<>();
+    private final Map<String, CountDownLatch> stalled = new ConcurrentHashMap<>();
+    private final AtomicLong clock = new AtomicLong(1);
+
+    private ExecutorService executor;
+    private ExecutorSubscribableChannel inbound;
+    private SessionOutboundQueues queues;
+    private SimpleBrokerMessageHandler broker;
+    private SimpAnnotationMethodMessageHandler annotationHandler;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(32);
+        inbound = new ExecutorSubscribableChannel();
+        ExecutorSubscribableChannel brokerChannel = new ExecutorSubscribableChannel();
+
+        WebSocketProperties.SessionQueue settings = new WebSocketProperties.SessionQueue();
+        settings.setCapacity(CAPACITY);
+        settings.setEvictAfter(Duration.ofMillis(EVICT_AFTER_IN_MS));
+        settings.setBatchSize(16);
+        queues = new SessionOutboundQueues(settings, this::deliver, executor, clock::get);
+        // the client outbound channel with the queues as its only interceptor
+        MessageChannel outbound = (message, timeout) -> {
+            Message<?> passed = queues.preSend(message, null);
+            if (passed != null) {
+                deliver(passed);
+            }
+            return true;
+        };
+
+        broker = new SimpleBrokerMessageHandler(inbound, outbound, brokerChannel, Collections.singletonList("/topic"));
+        broker.start();
+
+        SimpMessagingTemplate template = new SimpMessagingTemplate(brokerChannel);
+        template.setMessageConverter(new MappingJackson2MessageConverter());
+        ChatController controller = new ChatController(template, new ChatHistoryServiceImpl(100, 10, null, 0, 0), 50, 100);
+
+        StaticApplicationContext context = new StaticApplicationContext();
+        context.getBeanFactory().registerSingleton("chatController", controller);
+        context.refresh();
+        annotationHandler = new SimpAnnotationMethodMessageHandler(inbound, outbound, template);
+        annotationHandler.setDestinationPrefixes(Collections.singletonList("/app"));
+        annotationHandler.setMessageConverter(new MappingJackson2MessageConverter());
+        annotationHandler.setApplicationContext(context);
+        annotationHandler.afterPropertiesSet();
+        annotationHandler.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        annotationHandler.stop();
+        broker.stop();
+        stalled.values().forEach(CountDownLatch::countDown);
+        executor.shutdownNow();
+    }
+
+    private void deliver(Message<?> message) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        CountDownLatch closed = stalled.get(sessionId);
+        if (closed != null) {
+            try {
+                closed.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return;
+        }
+        if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) == SimpMessageType.MESSAGE) {
+            received.get(sessionId).incrementAndGet();
+        }
+    }
+
+    private void connect(String sessionId) throws Exception {
+        WebSocketSession session = null;
+        if (stalled.containsKey(sessionId)) {
+            session = mock(WebSocketSession.class);
+            doAnswer(invocation -> {
+                stalled.get(sessionId).countDown();
+                return null;
+            }).when(session).close(any(CloseStatus.class));
+        } else {
+            received.put(sessionId, new AtomicInteger());
+        }
+        queues.open(sessionId, session);
+
+        inbound.send(frame(SimpMessageType.CONNECT, sessionId, null, new byte[0]));
+        SimpMessageHeaderAccessor subscribe = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+        subscribe.setSessionId(sessionId);
+        subscribe.setSubscriptionId("sub-0");
+        subscribe.setDestination("/topic/public");
+        inbound.send(MessageBuilder.createMessage(new byte[0], subscribe.getMessageHeaders()));
+    }
+
+    private static Message<byte[]> frame(SimpMessageType type, String sessionId, String destination, byte[] payload) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(type);
+        accessor.setSessionId(sessionId);
+        accessor.setDestination(destination);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setSessionAttributes(new HashMap<>());
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+
+    @Test
+    void chat_withThousandsOfSessions_keepsTheQueuesBoundedAndEvictsTheStalledOnes() throws Exception {
+        for (int i = 0; i < STALLED; i++) {
+            stalled.put("stalled-" + i, new CountDownLatch(1));
+        }
+        for (int i = 0; i < SESSIONS; i++) {
+            connect(i < STALLED ? "stalled-" + i : "session-" + i);
+        }
+
+        int maxQueueDepth = 0;
+        for (int i = 0; i < MESSAGES; i++) {
+            String json = "{\"type\":\"CHAT\",\"content\":\"" + i + "\",\"sender\":\"load\"}";
+            inbound.send(frame(SimpMessageType.MESSAGE, "sender", "/app/chat.sendMessage",
+                    json.getBytes(StandardCharsets.UTF_8)));
+            clock.incrementAndGet();
+
+            if (i % 25 == 0) {
+                maxQueueDepth = Math.max(maxQueueDepth, queues.getStatistics().getMaxQueueDepth());
+            }
+        }
+
+        long expected = (long) (SESSIONS - STALLED) * MESSAGES;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (delivered() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        OutboundStatisticsResponse statistics = queues.getStatistics();
+        assertEquals(expected, delivered());
+        received.values().forEach(count -> assertEquals(MESSAGES, count.get()));
+        assertEquals(STALLED, statistics.getEvicted());
+        assertEquals(SESSIONS - STALLED, statistics.getSessions());
+        assertTrue(statistics.getDropped() > 0);
+        // the connect acknowledgement is the only frame that isn't a chat message
+        assertTrue(maxQueueDepth <= CAPACITY + 1, "max queue depth " + maxQueueDepth);
+    }
+
+    private long delivered() {
+        return received.values().stream().mapToLong(AtomicInteger::get).sum();
+    }
+}
@@ -0,0 +1,240 @@
+package notreddit.web.broker;
+
+import notreddit.config.WebSocketProperties;
+import notreddit.data.models.responses.websocket.OutboundStatisticsResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SessionOutboundQueuesTest {
+
+    private List<Message<?>> delivered;
+    private Deque<Runnable> tasks;
+    private AtomicLong clock;
+    private WebSocketSession session;
+    private SessionOutboundQueues queues;
+
+    @BeforeEach
+    void setUp() {
+        delivered = new ArrayList<>();
+        tasks = new ArrayDeque<>();
+        clock = new AtomicLong();
+        session = mock(WebSocketSession.class);
+
+        WebSocketProperties.SessionQueue settings = new WebSocketProperties.SessionQueue();
+        settings.setCapacity(3);
+        settings.setEvictAfter(Duration.ofSeconds(1));
+        settings.setBatchSize(2);
+        queues = new SessionOutboundQueues(settings, delivered::add, tasks::add, clock::get);
+        queues.open("session", session);
+    }
+
+    private static Message<String> message(SimpMessageType type, String destination, String payload) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(type);
+        accessor.setSessionId("session");
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+
+    private static Message<String> message(String destination, String payload) {
+        return message(SimpMessageType.MESSAGE, destination, payload);
+    }
+
+    private static Message<String> message(String destination, String subscriptionId, String payload) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId("session");
+        accessor.setDestination(destination);
+        accessor.setSubscriptionId(subscriptionId);
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+
+    private Message<?> send(Message<?> message) {
+        return queues.preSend(message, mock(MessageChannel.class));
+    }
+
+    private void runTasks() {
+        while (!tasks.isEmpty()) {
+            tasks.poll().run();
+        }
+    }
+
+    private List<Object> deliveredPayloads() {
+        return delivered.stream().map(Message::getPayload).collect(Collectors.toList());
+    }
+
+    @Test
+    void preSend_withUnknownSession_passesTheMessageOn() {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId("other");
+        Message<String> message = MessageBuilder.createMessage("a", accessor.getMessageHeaders());
+
+        assertSame(message, send(message));
+        assertTrue(tasks.isEmpty());
+    }
+
+    @Test
+    void preSend_withKnownSession_sendsTheMessagesInOrderFromOneTask() {
+        assertNull(send(message("/topic/public", "a")));
+        assertNull(send(message("/topic/public", "b")));
+        assertEquals(1, tasks.size());
+
+        runTasks();
+
+        assertEquals(Arrays.asList("a", "b"), deliveredPayloads());
+        assertEquals(2, queues.getStatistics().getSent());
+    }
+
+    @Test
+    void preSend_pastTheBatchSize_letsTheOtherSessionsGoFirst() {
+        send(message("/topic/public", "a"));
+        send(message("/topic/public", "b"));
+        send(message("/topic/public", "c"));
+
+        tasks.poll().run();
+
+        assertEquals(Arrays.asList("a", "b"), deliveredPayloads());
+        assertEquals(1, tasks.size());
+        runTasks();
+        assertEquals(Arrays.asList("a", "b", "c"), deliveredPayloads());
+    }
+
+    @Test
+    void preSend_pastTheCapacity_dropsTheMessagesButNotTheOtherFrames() {
+        for (int i = 0; i < 5; i++) {
+            send(message("/topic/public", "m" + i));
+        }
+        send(message(SimpMessageType.HEARTBEAT, null, "heartbeat"));
+
+        OutboundStatisticsResponse statistics = queues.getStatistics();
+        assertEquals(1, statistics.getSessions());
+        assertEquals(4, statistics.getMaxQueueDepth());
+        assertEquals(2, statistics.getDropped());
+
+        runTasks();
+        assertEquals(Arrays.asList("m0", "m1", "m2", "heartbeat"), deliveredPayloads());
+    }
+
+    @Test
+    void preSend_withCoalescedTopic_keepsTheLastMessageInThePlaceOfTheFirst() {
+        send(message("/topic/presence/rooms/public", "1 online"));
+        send(message("/topic/public", "a"));
+        send(message("/topic/presence/rooms/public", "2 online"));
+        send(message("/topic/presence/rooms/public", "3 online"));
+
+        runTasks();
+
+        assertEquals(Arrays.asList("3 online", "a"), deliveredPayloads());
+        assertEquals(2, queues.getStatistics().getCoalesced());
+
+        // once sent the next one waits again
+        send(message("/topic/presence/rooms/public", "4 online"));
+        runTasks();
+        assertEquals("4 online", delivered.get(2).getPayload());
+    }
+
+    @Test
+    void preSend_withCoalescedTopicOnTwoSubscriptions_keepsTheLastMessageOfEach() {
+        send(message("/topic/presence/rooms/public", "sub-1", "1 online"));
+        send(message("/topic/presence/rooms/public", "sub-2", "1 online"));
+        send(message("/topic/presence/rooms/public", "sub-1", "2 online"));
+
+        runTasks();
+
+        assertEquals(Arrays.asList("2 online", "1 online"), deliveredPayloads());
+        assertEquals("sub-2", SimpMessageHeaderAccessor.getSubscriptionId(delivered.get(1).getHeaders()));
+        assertEquals(1, queues.getStatistics().getCoalesced());
+    }
+
+    @Test
+    void preSend_whenAtCapacityForTooLong_closesTheSession() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            send(message("/topic/public", "m" + i));
+        }
+        clock.addAndGet(999);
+        send(message("/topic/public", "late"));
+        verify(session, never()).close(any());
+
+        clock.addAndGet(1);
+        send(message("/topic/public", "later"));
+
+        // closed on the outbound pool, not on the thread sending to the broker
+        verify(session, never()).close(any());
+        runTasks();
+        verify(session).close(CloseStatus.SESSION_NOT_RELIABLE);
+        OutboundStatisticsResponse statistics = queues.getStatistics();
+        assertEquals(1, statistics.getEvicted());
+        assertEquals(0, statistics.getSessions());
+
+        // what was queued is gone, later frames go to the channel
+        assertTrue(delivered.isEmpty());
+        Message<String> message = message("/topic/public", "after");
+        assertSame(message, send(message));
+    }
+
+    @Test
+    void preSend_whenTheQueueDrainsBelowCapacity_startsTheEvictionTimeOver() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            send(message("/topic/public", "m" + i));
+        }
+        runTasks();
+        clock.addAndGet(5000);
+
+        for (int i = 0; i < 4; i++) {
+            send(message("/topic/public", "n" + i));
+        }
+
+        verify(session, never()).close(any());
+        assertEquals(0, queues.getStatistics().getEvicted());
+    }
+
+    @Test
+    void preSend_whenTheQueueDrainsOnlyALittle_keepsTheEvictionTime() throws Exception {
+        WebSocketProperties.SessionQueue settings = new WebSocketProperties.SessionQueue();
+        settings.setCapacity(4);
+        settings.setEvictAfter(Duration.ofSeconds(1));
+        settings.setBatchSize(1);
+        queues = new SessionOutboundQueues(settings, delivered::add, tasks::add, clock::get);
+        queues.open("session", session);
+
+        for (int i = 0; i < 5; i++) {
+            send(message("/topic/public", "m" + i));
+        }
+        // one message taken is still above half of the capacity
+        tasks.poll().run();
+        clock.addAndGet(1000);
+        send(message("/topic/public", "n0"));
+        send(message("/topic/public", "n1"));
+
+        runTasks();
+        verify(session).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertEquals(1, queues.getStatistics().getEvicted());
+    }
+
+    @Test
+    void decorate_opensAndClosesTheQueueWithTheConnection() throws Exception {
+        WebSocketSession other = mock(WebSocketSession.class);
+        when(other.getId()).thenReturn("other");
+        WebSocketHandler handler = queues.decorate(mock(WebSocketHandler.class));
+
+        handler.afterConnectionEstablished(other);
+        assertEquals(2, queues.getStatistics().getSessions());
+
+        handler.afterConnectionClosed(other, CloseStatus.NORMAL);
+        assertEquals(1, queues.getStatistics().getSessions());
+    }
+}
@@ -0,0 +1,116 @@
+package notreddit.web.controllers;
+
+import notreddit.data.models.responses.ChatMessage;
+import notreddit.services.ChatHistoryService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Runs against the controller alone, with the messaging template mocked.
+ */
+class ChatControllerTest {
+
+    private SimpMessageSendingOperations messagingTemplate;
+    private ChatHistoryService chatHistoryService;
+    private ChatController controller;
+
+    @BeforeEach
+    void setUp() {
+        messagingTemplate = mock(SimpMessageSendingOperations.class);
+        chatHistoryService = mock(ChatHistoryService.class);
+        when(chatHistoryService.recent(anyString(), anyInt())).thenReturn(Collections.emptyList());
+        controller = new ChatController(messagingTemplate, chatHistoryService, 50, 100);
+    }
+
+    private static ChatMessage chatMessage() {
+        ChatMessage chatMessage = new ChatMessage();
+        chatMessage.setType(ChatMessage.MessageType.JOIN);
+        chatMessage.setSender("user");
+        return chatMessage;
+    }
+
+    private static SimpMessageHeaderAccessor session(String sessionId) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setSessionAttributes(new HashMap<>());
+        return accessor;
+    }
+
+    @Test
+    void sendMessage_withoutRoom_sendsToPublicTopic() {
+        ChatMessage chatMessage = chatMessage();
+
+        controller.sendMessage(chatMessage);
+        controller.sendMessageToRoom("java", chatMessage);
+
+        verify(messagingTemplate).convertAndSend("/topic/public", chatMessage);
+        verify(messagingTemplate).convertAndSend("/topic/rooms/java", chatMessage);
+    }
+
+    @Test
+    void sendMessageToRoom_withInvalidRoom_sendsNothing() {
+        controller.sendMessageToRoom("../java", chatMessage());
+
+        verifyNoInteractions(messagingTemplate);
+    }
+
+    @Test
+    void addUserToRoom_replaysHistoryToTheJoiningSessionOnly() {
+        when(chatHistoryService.recent("java", 50)).thenReturn(Arrays.asList("{\"a\":1}".getBytes(), "{\"b\":2}".getBytes()));
+        SimpMessageHeaderAccessor session = session("session");
+        ChatMessage chatMessage = chatMessage();
+
+        controller.addUserToRoom("java", chatMessage, session);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Message<byte[]>> replay = ArgumentCaptor.forClass(Message.class);
+        verify(messagingTemplate).send(eq("/user/session" + ChatController.HISTORY_QUEUE), replay.capture());
+        assertEquals("[{\"a\":1},{\"b\":2}]", new String(replay.getValue().getPayload()));
+        assertEquals("session", SimpMessageHeaderAccessor.getSessionId(replay.getValue().getHeaders()));
+        verify(messagingTemplate, never()).convertAndSend(anyString(), any(Object.class));
+        assertEquals("user", session.getSessionAttributes().get("username"));
+    }
+
+    @Test
+    void addUser_withEmptyHistory_sendsNothing() {
+        SimpMessageHeaderAccessor session = session("session");
+
+        controller.addUser(chatMessage(), session);
+
+        verifyNoInteractions(messagingTemplate);
+        assertEquals("user", session.getSessionAttributes().get("username"));
+    }
+
+    @Test
+    void getHistory_returnsMessagesAsJsonArrayUpToTheMaximum() throws Exception {
+        when(chatHistoryService.recent("public", 100)).thenReturn(Collections.singletonList("{\"a\":1}".getBytes()));
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+
+        mockMvc.perform(get("/api/chat/public/history").param("limit", "1000"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/json"))
+                .andExpect(content().string("[{\"a\":1}]"));
+        mockMvc.perform(get("/api/chat/Public/history"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -75,6 +75,16 @@ class CommentControllerTest extends AbstractIntegrationTest {
                 .andExpect(jsonPath("$.length()", is(1)));
     }
 
+    @Test
+    @WithAnonymousUser
+    void findReplies() throws Exception {
+        String commentId = "fb8727dd-e7b7-4611-84c8-fc39e7aa6440";
+        mockMvc.perform(get("/api/comment/replies?commentId=" + commentId + "&sort=createdOn"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(1)))
+                .andExpect(jsonPath("$[0].children.length()", is(2)));
+    }
+
     @Test
     @WithAnonymousUser
     void findAllByUsername() throws Exception {
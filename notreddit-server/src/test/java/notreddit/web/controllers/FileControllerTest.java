@@ -0,0 +1,149 @@
+package notreddit.web.controllers;
+
+import notreddit.data.entities.Blob;
+import notreddit.services.BlobStorage;
+import notreddit.services.ImageThumbnailService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Runs against the controller alone, the blob storage is only active with {@code app.storage.type=blobs}.
+ */
+class FileControllerTest {
+
+    private static final String HASH = "ed7002b439e9ac845f22357d822bac1444730fbdb6016d3ec9432297b9ec9f73";
+
+    @TempDir
+    Path directory;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Path file = Files.write(directory.resolve(HASH), "0123456789".getBytes());
+
+        Blob blob = new Blob();
+        blob.setHash(HASH);
+        blob.setSize(10);
+        blob.setContentType("video/mp4");
+
+        BlobStorage blobStorage = mock(BlobStorage.class);
+        when(blobStorage.find(anyString())).thenReturn(Optional.empty());
+        when(blobStorage.find(HASH)).thenReturn(Optional.of(blob));
+        when(blobStorage.path(blob)).thenReturn(file);
+
+        ImageThumbnailService imageThumbnailService = mock(ImageThumbnailService.class);
+        when(imageThumbnailService.thumbnail(anyString(), anyInt())).thenReturn(Optional.empty());
+        when(imageThumbnailService.thumbnail(HASH, 320)).thenReturn(Optional.of("thumbnail".getBytes()));
+
+        mockMvc = MockMvcBuilders.standaloneSetup(new FileController(blobStorage, imageThumbnailService)).build();
+    }
+
+    @Test
+    void serve_withExistingBlob_returnsWholeFileCachedForGood() throws Exception {
+        mockMvc.perform(get("/api/files/" + HASH))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("video/mp4"))
+                .andExpect(content().string("0123456789"))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + HASH + "\""))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable"));
+    }
+
+    @Test
+    void serve_withRange_returnsPartialContent() throws Exception {
+        mockMvc.perform(get("/api/files/" + HASH).header(HttpHeaders.RANGE, "bytes=2-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/10"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 4))
+                .andExpect(content().string("2345"));
+    }
+
+    @Test
+    void serve_withSuffixRange_returnsTheEnd() throws Exception {
+        mockMvc.perform(get("/api/files/" + HASH).header(HttpHeaders.RANGE, "bytes=-3"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 7-9/10"))
+                .andExpect(content().string("789"));
+    }
+
+    @Test
+    void serve_withRangePastTheEnd_returnsRangeNotSatisfiable() throws Exception {
+        mockMvc.perform(get("/api/files/" + HASH).header(HttpHeaders.RANGE, "bytes=10-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */10"));
+    }
+
+    @Test
+    void serve_withRangeForAnotherVersion_returnsWholeFile() throws Exception {
+        mockMvc.perform(get("/api/files/" + HASH)
+                .header(HttpHeaders.RANGE, "bytes=2-5")
+                .header(HttpHeaders.IF_RANGE, "\"other\""))
+                .andExpect(status().isOk())
+                .andExpect(content().string("0123456789"));
+    }
+
+    @Test
+    void serve_withMatchingETag_returnsNotModified() throws Exception {
+        mockMvc.perform(get("/api/files/" + HASH).header(HttpHeaders.IF_NONE_MATCH, "\"" + HASH + "\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void serve_withSendfileSupport_handsTheFileToTheContainer() throws Exception {
+        mockMvc.perform(get("/api/files/" + HASH)
+                .header(HttpHeaders.RANGE, "bytes=2-5")
+                .requestAttr("org.apache.tomcat.sendfile.support", true))
+                .andExpect(status().isPartialContent())
+                .andExpect(request().attribute("org.apache.tomcat.sendfile.start", 2L))
+                .andExpect(request().attribute("org.apache.tomcat.sendfile.end", 6L))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void serve_withUnknownHash_returnsNotFound() throws Exception {
+        mockMvc.perform(get("/api/files/unknown"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void serveThumbnail_withRenderedThumbnail_returnsJpegCachedForGood() throws Exception {
+        mockMvc.perform(get("/api/files/" + HASH + "/thumbnails/320"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("image/jpeg"))
+                .andExpect(content().string("thumbnail"))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + HASH + "-320\""))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable"));
+    }
+
+    @Test
+    void serveThumbnail_withMatchingETag_returnsNotModified() throws Exception {
+        mockMvc.perform(get("/api/files/" + HASH + "/thumbnails/320")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"" + HASH + "-320\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void serveThumbnail_withoutThumbnail_redirectsToTheFile() throws Exception {
+        mockMvc.perform(get("/api/files/" + HASH + "/thumbnails/1000"))
+                .andExpect(status().isFound())
+                .andExpect(redirectedUrl("/api/files/" + HASH));
+    }
+}
@@ -9,6 +9,7 @@ import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
 import static notreddit.constants.ApiResponseMessages.*;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.Matchers.hasSize;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
@@ -171,7 +172,8 @@ class PostControllerTest extends AbstractIntegrationTest {
         mockMvc.perform(get("/api/post/subscribed?page=0&size=5&sort=downvotes"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.total", is(12)))
-                .andExpect(jsonPath("$.posts", hasSize(5)));
+                .andExpect(jsonPath("$.posts", hasSize(5)))
+                .andExpect(jsonPath("$.userChoices").isMap());
     }
 
     @Test
@@ -187,7 +189,8 @@ class PostControllerTest extends AbstractIntegrationTest {
         mockMvc.perform(get("/api/post/default-posts?page=0&size=5&sort=downvotes"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.total", is(11)))
-                .andExpect(jsonPath("$.posts", hasSize(5)));
+                .andExpect(jsonPath("$.posts", hasSize(5)))
+                .andExpect(jsonPath("$.userChoices").doesNotExist());
     }
 
     @Test
@@ -208,6 +211,22 @@ class PostControllerTest extends AbstractIntegrationTest {
                 .andExpect(jsonPath("$.posts", hasSize(5)));
     }
 
+    @Test
+    @WithAnonymousUser
+    void findAllBySubreddit_withCursor_returnsPageAndNextCursor() throws Exception {
+        mockMvc.perform(get("/api/post/subreddit/aww?cursor=&order=NEW&size=5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.posts", hasSize(5)))
+                .andExpect(jsonPath("$.next", notNullValue()));
+    }
+
+    @Test
+    @WithAnonymousUser
+    void findAllBySubreddit_withInvalidCursor_returnsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/post/subreddit/aww?cursor=invalid&order=NEW&size=5"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @WithAnonymousUser
     void findById() throws Exception {
@@ -280,4 +299,21 @@ class PostControllerTest extends AbstractIntegrationTest {
                 .andExpect(jsonPath("$.success", is(true)))
                 .andExpect(jsonPath("$.message", is(SUCCESSFUL_POST_DELETION)));
     }
-}
\ No newline at end of file
+
+    @Test
+    @WithAnonymousUser
+    void getFileStatus_withUploadedFile_returnsReadyFile() throws Exception {
+        mockMvc.perform(get("/api/post/file-status/6d72346f-f359-40d7-b988-4f5cbc73ff5a"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is("READY")))
+                .andExpect(jsonPath("$.url", is("https://i.redd.it/m2cry0bo74p31.jpg")));
+    }
+
+    @Test
+    @WithAnonymousUser
+    void getFileStatus_withNonExistentPost_returnsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/post/file-status/00000000-0000-0000-0000-000000000000"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", is(NONEXISTENT_POST)));
+    }
+}
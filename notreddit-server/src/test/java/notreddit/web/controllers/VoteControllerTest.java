@@ -5,6 +5,8 @@ import notreddit.web.controllers.utils.WithMockCustomUser;
 import org.junit.jupiter.api.Test;
 import org.springframework.security.test.context.support.WithAnonymousUser;
 
+import java.util.UUID;
+
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.nullValue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -43,6 +45,36 @@ class VoteControllerTest extends AbstractIntegrationTest {
                 .andExpect(status().isUnauthorized());
     }
 
+    @Test
+    @WithMockCustomUser("root")
+    void getCurrentUserChoicesForPosts_returnsOnlyTheVotedPosts() throws Exception {
+        String votedPostId = "d92e1999-fd40-4ed8-b72a-faa16b54da4f";
+        String otherPostId = "730e6c67-2fbf-49d0-9762-42364a7841c2";
+        mockMvc.perform(get("/api/vote/choices-posts?ids=" + votedPostId + "," + otherPostId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(1)))
+                .andExpect(jsonPath("$['" + votedPostId + "']", is(1)));
+    }
+
+    @Test
+    @WithMockCustomUser("root")
+    void getCurrentUserChoicesForPosts_withTooManyIds_returnsBadRequest() throws Exception {
+        StringBuilder ids = new StringBuilder(UUID.randomUUID().toString());
+        for (int i = 0; i < 100; i++) {
+            ids.append(',').append(UUID.randomUUID());
+        }
+        mockMvc.perform(get("/api/vote/choices-posts?ids=" + ids))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success", is(false)));
+    }
+
+    @Test
+    @WithAnonymousUser
+    void getCurrentUserChoicesForComments_withAnonymousUser_returnsUnauthorizedStatus() throws Exception {
+        mockMvc.perform(get("/api/vote/choices-comments?ids=" + UUID.randomUUID()))
+                .andExpect(status().isUnauthorized());
+    }
+
     @Test
     @WithMockCustomUser("root")
     void getUserVoteForPost_withExistingVote_returnsCorrectData() throws Exception {
@@ -0,0 +1,112 @@
+package notreddit.web.interceptors;
+
+import notreddit.constants.ErrorMessages;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitingInterceptorTest {
+
+    private RateLimitProperties properties;
+    private RateLimitingInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RateLimitProperties();
+        properties.getRoutes().put("votes", route(1, Duration.ofHours(1), "/api/post/vote", "/api/comment/vote"));
+        properties.getRoutes().put("signIn", route(1, Duration.ofHours(1), "/api/auth/signin"));
+        interceptor = new RateLimitingInterceptor(properties);
+    }
+
+    @Test
+    void preHandle_overLimit_respondsWithTooManyRequests() throws Exception {
+        assertTrue(interceptor.preHandle(post("/api/post/vote", "root"), new MockHttpServletResponse(), null));
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertFalse(interceptor.preHandle(post("/api/post/vote", "root"), response, null));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), response.getStatus());
+        assertEquals("1", response.getHeader("X-RateLimit-Limit"));
+        assertTrue(response.getContentAsString().contains(ErrorMessages.TOO_MANY_REQUESTS));
+    }
+
+    @Test
+    void preHandle_sharesLimitBetweenPathsOfRoute() throws Exception {
+        assertTrue(interceptor.preHandle(post("/api/post/vote", "root"), new MockHttpServletResponse(), null));
+        assertFalse(interceptor.preHandle(post("/api/comment/vote", "root"), new MockHttpServletResponse(), null));
+    }
+
+    @Test
+    void preHandle_limitsEveryUserSeparately() throws Exception {
+        assertTrue(interceptor.preHandle(post("/api/post/vote", "root"), new MockHttpServletResponse(), null));
+        assertTrue(interceptor.preHandle(post("/api/post/vote", "other"), new MockHttpServletResponse(), null));
+    }
+
+    @Test
+    void preHandle_withAnonymousClient_limitsByAddress() throws Exception {
+        MockHttpServletRequest first = post("/api/auth/signin", null);
+        MockHttpServletRequest sameAddress = post("/api/auth/signin", null);
+        MockHttpServletRequest otherAddress = post("/api/auth/signin", null);
+        otherAddress.setRemoteAddr("10.0.0.2");
+
+        assertTrue(interceptor.preHandle(first, new MockHttpServletResponse(), null));
+        assertFalse(interceptor.preHandle(sameAddress, new MockHttpServletResponse(), null));
+        assertTrue(interceptor.preHandle(otherAddress, new MockHttpServletResponse(), null));
+    }
+
+    @Test
+    void preHandle_withUnmatchedRequest_isNotLimited() throws Exception {
+        MockHttpServletRequest get = post("/api/post/vote", "root");
+        get.setMethod("GET");
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(interceptor.preHandle(get, new MockHttpServletResponse(), null));
+            assertTrue(interceptor.preHandle(post("/api/post/create", "root"), new MockHttpServletResponse(), null));
+        }
+        assertEquals(0, interceptor.trackedLimiters());
+    }
+
+    @Test
+    void preHandle_whenDisabled_isNotLimited() throws Exception {
+        properties.setEnabled(false);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(interceptor.preHandle(post("/api/post/vote", "root"), new MockHttpServletResponse(), null));
+        }
+    }
+
+    @Test
+    void evictIdleLimiters_keepsLimitersWithoutTheirPermits() throws Exception {
+        properties.getRoutes().put("posts", route(1, Duration.ofNanos(1), "/api/post/create"));
+        interceptor.preHandle(post("/api/post/vote", "root"), new MockHttpServletResponse(), null);
+        interceptor.preHandle(post("/api/post/create", "root"), new MockHttpServletResponse(), null);
+        Thread.sleep(1);
+
+        interceptor.evictIdleLimiters();
+
+        assertEquals(1, interceptor.trackedLimiters());
+        assertFalse(interceptor.preHandle(post("/api/post/vote", "root"), new MockHttpServletResponse(), null));
+    }
+
+    private static MockHttpServletRequest post(String uri, String username) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", uri);
+        if (username != null) {
+            request.setUserPrincipal(() -> username);
+        }
+        return request;
+    }
+
+    private static RateLimitProperties.Route route(int permits, Duration period, String... paths) {
+        RateLimitProperties.Route route = new RateLimitProperties.Route();
+        route.setPermits(permits);
+        route.setPeriod(period);
+        route.setPaths(Arrays.asList(paths));
+        return route;
+    }
+}
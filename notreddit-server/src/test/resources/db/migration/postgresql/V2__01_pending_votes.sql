@@ -0,0 +1,12 @@
+CREATE TABLE public.pending_votes
+(
+    id         uuid                        NOT NULL,
+    post_id    uuid,
+    comment_id uuid,
+    upvotes    integer                     NOT NULL,
+    downvotes  integer                     NOT NULL,
+    created_on timestamp without time zone NOT NULL
+);
+
+ALTER TABLE ONLY public.pending_votes
+    ADD CONSTRAINT pending_votes_pkey PRIMARY KEY (id);
@@ -0,0 +1,5 @@
+ALTER TABLE public.posts
+    ADD COLUMN comment_count integer DEFAULT 0 NOT NULL;
+
+UPDATE public.posts p
+SET comment_count = (SELECT COUNT(c.id) FROM public.comments c WHERE c.post_id = p.id);
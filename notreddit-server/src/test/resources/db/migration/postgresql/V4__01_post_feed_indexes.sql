@@ -0,0 +1,4 @@
+CREATE INDEX idx_posts_created_on_id ON public.posts USING btree (created_on, id);
+CREATE INDEX idx_posts_subreddit_created_on_id ON public.posts USING btree (subreddit_id, created_on, id);
+CREATE INDEX idx_posts_creator_created_on_id ON public.posts USING btree (creator_id, created_on, id);
+CREATE INDEX idx_posts_score_id ON public.posts USING btree ((upvotes - downvotes), id);
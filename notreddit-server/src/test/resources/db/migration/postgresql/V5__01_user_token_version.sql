@@ -0,0 +1,2 @@
+ALTER TABLE public.users
+    ADD COLUMN token_version integer DEFAULT 0 NOT NULL;
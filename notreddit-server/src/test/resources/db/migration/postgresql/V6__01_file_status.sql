@@ -0,0 +1,5 @@
+ALTER TABLE public.files
+    ADD COLUMN status character varying(255) DEFAULT 'READY' NOT NULL;
+
+ALTER TABLE public.files
+    ALTER COLUMN url DROP NOT NULL;
@@ -0,0 +1,12 @@
+CREATE TABLE public.blobs
+(
+    hash            character varying(64)       NOT NULL,
+    size            bigint                      NOT NULL,
+    content_type    character varying(255),
+    reference_count integer                     NOT NULL,
+    created_on      timestamp without time zone NOT NULL,
+    released_on     timestamp without time zone
+);
+
+ALTER TABLE ONLY public.blobs
+    ADD CONSTRAINT blobs_pkey PRIMARY KEY (hash);
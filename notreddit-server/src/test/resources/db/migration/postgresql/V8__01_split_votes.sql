@@ -0,0 +1,49 @@
+CREATE TABLE public.post_votes
+(
+    post_id uuid     NOT NULL,
+    user_id uuid     NOT NULL,
+    choice  smallint NOT NULL CHECK (choice IN (-1, 1))
+);
+
+CREATE TABLE public.comment_votes
+(
+    comment_id uuid     NOT NULL,
+    user_id    uuid     NOT NULL,
+    choice     smallint NOT NULL CHECK (choice IN (-1, 1))
+);
+
+-- racing votes could leave a user with more than one row for the same post/comment, the latest one is kept
+INSERT INTO public.post_votes (post_id, user_id, choice)
+SELECT DISTINCT ON (post_id, user_id) post_id, user_id, choice
+FROM public.votes
+WHERE post_id IS NOT NULL
+ORDER BY post_id, user_id, created_on DESC;
+
+INSERT INTO public.comment_votes (comment_id, user_id, choice)
+SELECT DISTINCT ON (comment_id, user_id) comment_id, user_id, choice
+FROM public.votes
+WHERE comment_id IS NOT NULL
+ORDER BY comment_id, user_id, created_on DESC;
+
+ALTER TABLE ONLY public.post_votes
+    ADD CONSTRAINT post_votes_pkey PRIMARY KEY (post_id, user_id);
+
+ALTER TABLE ONLY public.post_votes
+    ADD CONSTRAINT fk_post_votes_post_id FOREIGN KEY (post_id) REFERENCES public.posts (id);
+
+ALTER TABLE ONLY public.post_votes
+    ADD CONSTRAINT fk_post_votes_user_id FOREIGN KEY (user_id) REFERENCES public.users (id);
+
+ALTER TABLE ONLY public.comment_votes
+    ADD CONSTRAINT comment_votes_pkey PRIMARY KEY (comment_id, user_id);
+
+ALTER TABLE ONLY public.comment_votes
+    ADD CONSTRAINT fk_comment_votes_comment_id FOREIGN KEY (comment_id) REFERENCES public.comments (id);
+
+ALTER TABLE ONLY public.comment_votes
+    ADD CONSTRAINT fk_comment_votes_user_id FOREIGN KEY (user_id) REFERENCES public.users (id);
+
+CREATE INDEX idx_post_votes_user_id ON public.post_votes USING btree (user_id);
+CREATE INDEX idx_comment_votes_user_id ON public.comment_votes USING btree (user_id);
+
+DROP TABLE public.votes;